@@ -0,0 +1,104 @@
+package bankprojekt.oberflaeche;
+
+import bankprojekt.verarbeitung.Konto;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * bringt die Änderungen von Konten auf den JavaFX-Thread, für jedes Konto höchstens einmal je Bild.
+ * <p>
+ * Ein Konto, das sich ändert, wird nur vorgemerkt, egal auf welchem Thread und wie oft; erst beim nächsten
+ * Bild liest die Brücke den dann aktuellen Stand und setzt die Properties seiner {@link Kontoanzeige}.
+ * Die Arbeit je Bild hängt also von der Zahl der geänderten Konten ab, nicht von der Zahl der Buchungen,
+ * und es gibt kein {@link Platform#runLater(Runnable)} je Änderung.
+ * <p>
+ * Anlegen, {@link #anzeigen(Konto)} und {@link #close()} sind nur auf dem JavaFX-Thread erlaubt.
+ */
+public final class Anzeigebruecke implements AutoCloseable {
+    private final Queue<Kontoanzeige> vorgemerkt = new ConcurrentLinkedQueue<>();
+    /**
+     * Länge von vorgemerkt, ohne die Schlange durchzählen zu müssen
+     */
+    private final AtomicInteger anzahlVorgemerkt = new AtomicInteger();
+    private final List<Kontoanzeige> anzeigen = new ArrayList<>();
+    private final AnimationTimer takt = new AnimationTimer() {
+        @Override
+        public void handle(long jetzt) {
+            nachfuehren();
+        }
+    };
+
+    /**
+     * legt eine Brücke an, die mit jedem Bild die geänderten Konten nachführt
+     *
+     * @throws IllegalStateException wenn der Aufruf nicht auf dem JavaFX-Thread erfolgt
+     */
+    public Anzeigebruecke() {
+        fxThreadPruefen();
+        takt.start();
+    }
+
+    /**
+     * liefert eine Anzeige des Kontos, deren Properties auf dem JavaFX-Thread nachgeführt werden
+     *
+     * @param konto das anzuzeigende Konto
+     * @return die Anzeige, nur auf dem JavaFX-Thread zu verwenden
+     * @throws IllegalArgumentException wenn konto null ist
+     * @throws IllegalStateException    wenn der Aufruf nicht auf dem JavaFX-Thread erfolgt
+     */
+    public Kontoanzeige anzeigen(Konto konto) {
+        if (konto == null)
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        fxThreadPruefen();
+        Kontoanzeige anzeige = new Kontoanzeige(this, konto);
+        anzeigen.add(anzeige);
+        anzeige.anmelden();
+        return anzeige;
+    }
+
+    /**
+     * merkt eine Anzeige für das nächste Bild vor; von beliebigen Threads aufrufbar
+     */
+    void vormerken(Kontoanzeige anzeige) {
+        vorgemerkt.add(anzeige);
+        anzahlVorgemerkt.incrementAndGet();
+    }
+
+    /**
+     * führt die vorgemerkten Anzeigen nach. Was während des Nachführens neu vorgemerkt wird,
+     * kommt erst im nächsten Bild dran.
+     */
+    private void nachfuehren() {
+        for (int n = anzahlVorgemerkt.get(); n > 0; n--) {
+            Kontoanzeige anzeige = vorgemerkt.poll();
+            anzahlVorgemerkt.decrementAndGet();
+            anzeige.nachfuehren();
+        }
+    }
+
+    /**
+     * hält die Brücke an und meldet alle Anzeigen bei ihren Konten ab; die Properties behalten ihren letzten Wert
+     *
+     * @throws IllegalStateException wenn der Aufruf nicht auf dem JavaFX-Thread erfolgt
+     */
+    @Override
+    public void close() {
+        fxThreadPruefen();
+        takt.stop();
+        for (Kontoanzeige anzeige : anzeigen) {
+            anzeige.abmelden();
+        }
+        anzeigen.clear();
+    }
+
+    private static void fxThreadPruefen() {
+        if (!Platform.isFxApplicationThread())
+            throw new IllegalStateException("Nur auf dem JavaFX-Thread erlaubt");
+    }
+}
@@ -0,0 +1,118 @@
+package bankprojekt.oberflaeche;
+
+import bankprojekt.verwaltung.Bank;
+import bankprojekt.verwaltung.Kontospalte;
+import bankprojekt.verwaltung.Kontoverzeichnis;
+import bankprojekt.verwaltung.Kontozeile;
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.text.Text;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Eine Oberfläche, in der man alle Konten einer Bank durchblättern
+ * und nach Nummer, Kontostand, Inhaber oder Gesperrt-Zustand sortieren kann.
+ * <p>
+ * Die Tabelle legt nur Zellen für die sichtbaren Zeilen an; die Zeilen selbst kommen seitenweise
+ * aus einem {@link Kontoverzeichnis}, sortiert und gelesen wird auf einem eigenen Thread.
+ */
+public class KontenBrowser extends BorderPane {
+    private final Bank bank;
+    private final ExecutorService hintergrund = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "KontenBrowser");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Seitenliste zeilen = new Seitenliste(hintergrund);
+    private final TableView<Kontozeile> tabelle = new TableView<>(zeilen);
+    /**
+     * Anzeige der Zahl der Konten bzw. dass gerade sortiert wird
+     */
+    private final Text meldung = new Text();
+    /**
+     * zählt die Sortierungen, damit eine überholte ihr Ergebnis nicht mehr anzeigt
+     */
+    private int sortierung;
+
+    /**
+     * erstellt die Oberfläche und lädt die Konten nach Nummer sortiert
+     *
+     * @param bank die anzuzeigende Bank
+     */
+    public KontenBrowser(Bank bank) {
+        this.bank = bank;
+
+        tabelle.getColumns().add(spalte("Kontonummer", Kontospalte.NUMMER, Kontozeile::nummer));
+        tabelle.getColumns().add(spalte("Inhaber", Kontospalte.INHABER, Kontozeile::inhaber));
+        tabelle.getColumns().add(spalte("Kontostand", Kontospalte.KONTOSTAND, Kontozeile::kontostand));
+        tabelle.getColumns().add(spalte("Währung", null, Kontozeile::waehrung));
+        tabelle.getColumns().add(spalte("Gesperrt", Kontospalte.GESPERRT, Kontozeile::gesperrt));
+        // gleich hohe Zeilen: die Tabelle muss für die Lage des Rollbalkens keine Zeile ausmessen
+        tabelle.setFixedCellSize(24);
+        // sortiert wird von der Bank, nicht von der Tabelle
+        tabelle.setSortPolicy(t -> {
+            laden();
+            return true;
+        });
+        this.setCenter(tabelle);
+
+        Button aktualisieren = new Button("Aktualisieren");
+        aktualisieren.setOnAction(e -> laden());
+        HBox unten = new HBox(10, meldung, aktualisieren);
+        unten.setAlignment(Pos.CENTER_RIGHT);
+        unten.setPadding(new Insets(10));
+        this.setBottom(unten);
+
+        laden();
+    }
+
+    private <T> TableColumn<Kontozeile, T> spalte(String titel, Kontospalte sortierbar, Function<Kontozeile, T> wert) {
+        TableColumn<Kontozeile, T> spalte = new TableColumn<>(titel);
+        spalte.setCellValueFactory(z -> new ReadOnlyObjectWrapper<>(z.getValue() == null ? null : wert.apply(z.getValue())));
+        spalte.setUserData(sortierbar);
+        spalte.setSortable(sortierbar != null);
+        return spalte;
+    }
+
+    /**
+     * lässt die Bank in der gewählten Reihenfolge sortieren und zeigt das Ergebnis an
+     */
+    private void laden() {
+        Kontospalte spalte = Kontospalte.NUMMER;
+        boolean absteigend = false;
+        if (!tabelle.getSortOrder().isEmpty()) {
+            TableColumn<Kontozeile, ?> gewaehlt = tabelle.getSortOrder().get(0);
+            spalte = (Kontospalte) gewaehlt.getUserData();
+            absteigend = gewaehlt.getSortType() == TableColumn.SortType.DESCENDING;
+        }
+        int diese = ++sortierung;
+        meldung.setText("Konten werden sortiert ...");
+        Kontospalte s = spalte;
+        boolean a = absteigend;
+        CompletableFuture.supplyAsync(() -> bank.getKontoverzeichnis(s, a), hintergrund)
+                .whenCompleteAsync((verzeichnis, fehler) -> geladen(diese, verzeichnis, fehler), Platform::runLater);
+    }
+
+    private void geladen(int diese, Kontoverzeichnis verzeichnis, Throwable fehler) {
+        if (diese != sortierung) {
+            return;
+        }
+        if (fehler != null) {
+            meldung.setText("Konten konnten nicht geladen werden: " + fehler.getMessage());
+            return;
+        }
+        zeilen.setVerzeichnis(verzeichnis);
+        meldung.setText(verzeichnis.getAnzahl() + " Konten");
+    }
+}
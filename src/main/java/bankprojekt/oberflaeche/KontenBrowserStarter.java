@@ -0,0 +1,38 @@
+package bankprojekt.oberflaeche;
+
+import bankprojekt.verarbeitung.GirokontoFabrik;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verwaltung.Bank;
+import javafx.application.Application;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.time.LocalDate;
+
+/**
+ * startet den {@link KontenBrowser} mit einer Bank voller Beispielkonten;
+ * die Zahl der Konten kann als erstes Argument angegeben werden, Vorgabe ist eine Million
+ */
+public class KontenBrowserStarter extends Application {
+    private static Bank bank;
+
+    public static void main(String[] args) throws Bank.KontonummerNichtVorhandenException {
+        int anzahl = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        bank = new Bank(1234);
+        GirokontoFabrik fabrik = new GirokontoFabrik();
+        LocalDate geburtstag = LocalDate.of(1990, 1, 1);
+        for (int i = 0; i < anzahl; i++) {
+            long nummer = bank.kontoErstellen(fabrik,
+                    new Kunde("Vorname " + i % 500, "Nachname " + i % 5000, "Straße " + i, geburtstag));
+            bank.geldEinzahlen(nummer, 1 + i % 997);
+        }
+        launch(args);
+    }
+
+    @Override
+    public void start(Stage primaryStage) {
+        primaryStage.setTitle("Alle Konten");
+        primaryStage.setScene(new Scene(new KontenBrowser(bank), 800, 600));
+        primaryStage.show();
+    }
+}
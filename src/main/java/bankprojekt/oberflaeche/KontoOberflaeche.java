@@ -3,7 +3,6 @@ package bankprojekt.oberflaeche;
 import bankprojekt.verarbeitung.GesperrtException;
 import bankprojekt.verarbeitung.Konto;
 import javafx.beans.binding.Bindings;
-import javafx.beans.property.Property;
 import javafx.fxml.FXML;
 import javafx.geometry.HPos;
 import javafx.geometry.Insets;
@@ -102,8 +101,10 @@ public class KontoOberflaeche extends BorderPane {
 		GridPane.setHalignment(stand, HPos.RIGHT);
 		anzeige.add(stand, 1, 1);
 
-		stand.textProperty().bind(konto.kontostandProperty().asString());
-		stand.fillProperty().bind(Bindings.when(konto.minusPlusProperty()).then(Color.RED).otherwise(Color.GREEN));
+		// das Konto kann sich auf beliebigen Threads ändern, die Brücke bringt das einmal je Bild auf den FX-Thread
+		Kontoanzeige kontoanzeige = new Anzeigebruecke().anzeigen(konto);
+		stand.textProperty().bind(kontoanzeige.kontostandProperty().asString());
+		stand.fillProperty().bind(Bindings.when(kontoanzeige.minusProperty()).then(Color.RED).otherwise(Color.GREEN));
 
 		txtGesperrt = new Text("Gesperrt: ");
 		txtGesperrt.setFont(new Font("Sans Serif", 15));
@@ -112,7 +113,14 @@ public class KontoOberflaeche extends BorderPane {
 		GridPane.setHalignment(gesperrt, HPos.RIGHT);
 		anzeige.add(gesperrt, 1, 2);
 
-		gesperrt.selectedProperty().bindBidirectional((Property<Boolean>) konto.gesperrtProperty());
+		gesperrt.setSelected(kontoanzeige.isGesperrt());
+		kontoanzeige.gesperrtProperty().addListener((beobachtet, alt, neu) -> gesperrt.setSelected(neu));
+		gesperrt.setOnAction(e -> {
+			if (gesperrt.isSelected())
+				konto.sperren();
+			else
+				konto.entsperren();
+		});
 
 		txtAdresse = new Text("Adresse: ");
 		txtAdresse.setFont(new Font("Sans Serif", 15));
@@ -0,0 +1,113 @@
+package bankprojekt.oberflaeche;
+
+import bankprojekt.verarbeitung.Geldbetrag;
+import bankprojekt.verarbeitung.Konto;
+import bankprojekt.verarbeitung.Kontobeobachter;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ansicht eines Kontos für die Oberfläche, deren Properties nur auf dem JavaFX-Thread geändert werden,
+ * siehe {@link Anzeigebruecke}
+ */
+public final class Kontoanzeige {
+    private final Konto konto;
+    /**
+     * true, solange die Anzeige für das nächste Bild vorgemerkt ist
+     */
+    private final AtomicBoolean vorgemerkt = new AtomicBoolean();
+    /**
+     * merkt die Anzeige vor; mehrere Änderungen bis zum nächsten Bild ergeben eine Vormerkung
+     */
+    private final Kontobeobachter beobachter;
+    private final ReadOnlyDoubleWrapper kontostand;
+    private final ReadOnlyBooleanWrapper minus;
+    private final ReadOnlyBooleanWrapper gesperrt;
+
+    Kontoanzeige(Anzeigebruecke bruecke, Konto konto) {
+        this.konto = konto;
+        beobachter = ereignis -> {
+            if (vorgemerkt.compareAndSet(false, true)) {
+                bruecke.vormerken(this);
+            }
+        };
+        // der Stand wird erst in anmelden() gelesen
+        kontostand = new ReadOnlyDoubleWrapper(this, "kontostand");
+        minus = new ReadOnlyBooleanWrapper(this, "minus");
+        gesperrt = new ReadOnlyBooleanWrapper(this, "gesperrt");
+    }
+
+    /**
+     * meldet die Anzeige beim Konto an und übernimmt danach seinen Stand, auf dem JavaFX-Thread.
+     * In dieser Reihenfolge geht keine Änderung verloren: was nach dem Lesen geschieht, merkt der Beobachter vor.
+     */
+    void anmelden() {
+        konto.beobachterAnmelden(beobachter);
+        nachfuehren();
+    }
+
+    void abmelden() {
+        konto.beobachterAbmelden(beobachter);
+    }
+
+    /**
+     * übernimmt den aktuellen Stand des Kontos, auf dem JavaFX-Thread
+     */
+    void nachfuehren() {
+        // erst freigeben, dann lesen: eine Änderung danach merkt die Anzeige erneut vor
+        vorgemerkt.set(false);
+        long stand = konto.getKontostandMitWaehrung();
+        kontostand.set(Geldbetrag.alsDouble(Geldbetrag.betrag(stand), Geldbetrag.waehrung(stand)));
+        minus.set(stand < 0);
+        gesperrt.set(konto.isGesperrt());
+    }
+
+    /**
+     * liefert das angezeigte Konto
+     *
+     * @return das Konto
+     */
+    public Konto getKonto() {
+        return konto;
+    }
+
+    /**
+     * liefert den Kontostand, höchstens einmal je Bild nachgeführt
+     *
+     * @return Kontostand als Property
+     */
+    public ReadOnlyDoubleProperty kontostandProperty() {
+        return kontostand.getReadOnlyProperty();
+    }
+
+    /**
+     * liefert eine Property, die true ist, solange der Kontostand negativ ist
+     *
+     * @return true bei negativem Kontostand
+     */
+    public ReadOnlyBooleanProperty minusProperty() {
+        return minus.getReadOnlyProperty();
+    }
+
+    /**
+     * liefert den Gesperrt-Zustand, höchstens einmal je Bild nachgeführt
+     *
+     * @return Gesperrt-Zustand als Property
+     */
+    public ReadOnlyBooleanProperty gesperrtProperty() {
+        return gesperrt.getReadOnlyProperty();
+    }
+
+    /**
+     * liefert den zuletzt nachgeführten Gesperrt-Zustand
+     *
+     * @return true, wenn das Konto beim letzten Bild gesperrt war
+     */
+    public boolean isGesperrt() {
+        return gesperrt.get();
+    }
+}
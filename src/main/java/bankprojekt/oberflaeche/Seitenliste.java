@@ -0,0 +1,151 @@
+package bankprojekt.oberflaeche;
+
+import bankprojekt.verwaltung.Kontoverzeichnis;
+import bankprojekt.verwaltung.Kontozeile;
+import javafx.application.Platform;
+import javafx.collections.ObservableListBase;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * eine Liste über alle Konten eines {@link Kontoverzeichnis}ses, die ihre Zeilen seitenweise nachlädt.
+ * <p>
+ * Die Liste hat von Anfang an die volle Länge; eine Zeile, deren Seite noch nicht geladen ist, ist null.
+ * Wird sie abgefragt, lädt die Liste ihre Seite im Hintergrund und meldet die Zeilen danach als geändert.
+ * Es werden nur die zuletzt benutzten Seiten behalten, der Speicher hängt also nicht von der Zahl der Konten ab.
+ * Schlägt das Laden einer Seite fehl, wird der Fehler dem Handler für nicht gefangene Ausnahmen des JavaFX-Threads
+ * gemeldet und die Seite erst nach einer Pause wieder angefordert, die sich mit jedem weiteren Fehlschlag
+ * verdoppelt, bis höchstens {@value #LAENGSTE_PAUSE_MILLIS} ms.
+ * Die Liste darf nur auf dem JavaFX-Thread benutzt werden.
+ */
+final class Seitenliste extends ObservableListBase<Kontozeile> {
+    private static final int SEITENGROESSE = 200;
+    private static final int GEHALTENE_SEITEN = 50;
+    private static final long ERSTE_PAUSE_MILLIS = 500;
+    private static final long LAENGSTE_PAUSE_MILLIS = 30_000;
+
+    private final Executor laden;
+    private Kontoverzeichnis verzeichnis;
+    /**
+     * die geladenen Seiten, die am längsten nicht benutzte zuerst
+     */
+    private final Map<Integer, List<Kontozeile>> seiten = new LinkedHashMap<>(GEHALTENE_SEITEN * 2, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<Kontozeile>> aelteste) {
+            return size() > GEHALTENE_SEITEN;
+        }
+    };
+    /**
+     * Seiten, die geladen werden oder nach einem Fehlschlag auf den nächsten Versuch warten
+     */
+    private final Set<Integer> angefordert = new HashSet<>();
+    /**
+     * Zahl der Fehlschläge in Folge je Seite
+     */
+    private final Map<Integer, Integer> fehlschlaege = new HashMap<>();
+
+    /**
+     * legt eine leere Liste an
+     *
+     * @param laden hier werden die Seiten gelesen
+     */
+    Seitenliste(Executor laden) {
+        this.laden = laden;
+    }
+
+    /**
+     * zeigt ein anderes Verzeichnis an; die Zeilen des alten werden verworfen
+     *
+     * @param neu das neue Verzeichnis
+     */
+    void setVerzeichnis(Kontoverzeichnis neu) {
+        int alteGroesse = size();
+        verzeichnis = neu;
+        seiten.clear();
+        angefordert.clear();
+        fehlschlaege.clear();
+        beginChange();
+        nextRemove(0, Collections.nCopies(alteGroesse, (Kontozeile) null));
+        nextAdd(0, size());
+        endChange();
+    }
+
+    @Override
+    public Kontozeile get(int index) {
+        Objects.checkIndex(index, size());
+        int nummer = index / SEITENGROESSE;
+        List<Kontozeile> seite = seiten.get(nummer);
+        if (seite == null) {
+            anfordern(nummer);
+            return null;
+        }
+        int i = index - nummer * SEITENGROESSE;
+        return i < seite.size() ? seite.get(i) : null;
+    }
+
+    @Override
+    public int size() {
+        return verzeichnis == null ? 0 : verzeichnis.getAnzahl();
+    }
+
+    private void anfordern(int nummer) {
+        if (!angefordert.add(nummer)) {
+            return;
+        }
+        Kontoverzeichnis v = verzeichnis;
+        CompletableFuture.supplyAsync(() -> v.getSeite(nummer * SEITENGROESSE, SEITENGROESSE), laden)
+                .whenCompleteAsync((seite, fehler) -> geladen(v, nummer, seite, fehler), Platform::runLater);
+    }
+
+    private void geladen(Kontoverzeichnis v, int nummer, List<Kontozeile> seite, Throwable fehler) {
+        // eine Seite eines inzwischen ersetzten Verzeichnisses wird nicht mehr gebraucht
+        if (v != verzeichnis) {
+            return;
+        }
+        if (fehler != null) {
+            fehlgeschlagen(v, nummer, fehler instanceof CompletionException ? fehler.getCause() : fehler);
+            return;
+        }
+        angefordert.remove(nummer);
+        fehlschlaege.remove(nummer);
+        seiten.put(nummer, seite);
+        geaendert(nummer, seite.size());
+    }
+
+    /**
+     * meldet den Fehler und gibt die Seite erst nach der Pause wieder zum Anfordern frei
+     */
+    private void fehlgeschlagen(Kontoverzeichnis v, int nummer, Throwable fehler) {
+        Thread t = Thread.currentThread();
+        t.getUncaughtExceptionHandler().uncaughtException(t, fehler);
+        int anzahl = fehlschlaege.merge(nummer, 1, Integer::sum);
+        long pause = Math.min(LAENGSTE_PAUSE_MILLIS, ERSTE_PAUSE_MILLIS << Math.min(anzahl - 1, 16));
+        CompletableFuture.delayedExecutor(pause, TimeUnit.MILLISECONDS, Platform::runLater).execute(() -> {
+            if (v == verzeichnis && angefordert.remove(nummer)) {
+                // sichtbare Zeilen der Seite fragen daraufhin erneut nach ihr
+                geaendert(nummer, SEITENGROESSE);
+            }
+        });
+    }
+
+    private void geaendert(int nummer, int zeilen) {
+        int anfang = nummer * SEITENGROESSE;
+        int ende = Math.min(size(), anfang + zeilen);
+        beginChange();
+        for (int i = anfang; i < ende; i++) {
+            nextUpdate(i);
+        }
+        endChange();
+    }
+}
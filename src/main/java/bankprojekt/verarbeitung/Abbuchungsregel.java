@@ -0,0 +1,19 @@
+package bankprojekt.verarbeitung;
+
+/**
+ * Regel, nach der eine Kontoart entscheidet, ob ein Betrag abgebucht werden darf.
+ * Die Regel wird innerhalb der atomaren Abbuchung ausgewertet und muss deshalb
+ * frei von Seiteneffekten sein; sie kann für einen Abbuchungsversuch mehrfach aufgerufen werden.
+ */
+@FunctionalInterface
+public interface Abbuchungsregel {
+    /**
+     * prüft, ob der Betrag bei dem angegebenen Kontostand abgebucht werden darf
+     *
+     * @param kontostand Kontostand vor der Abbuchung in Cent der Währung waehrung
+     * @param betrag     abzubuchender Betrag in Cent der Währung waehrung
+     * @param waehrung   Kontowährung zu diesem Kontostand
+     * @return true, wenn die Abbuchung erlaubt ist
+     */
+    boolean erlaubt(long kontostand, long betrag, Waehrung waehrung);
+}
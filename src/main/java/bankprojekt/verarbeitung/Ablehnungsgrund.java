@@ -0,0 +1,27 @@
+package bankprojekt.verarbeitung;
+
+/**
+ * Grund, aus dem ein Wertpapierauftrag nicht ausgeführt wurde, siehe {@link AuftragAbgelehntException}
+ */
+public enum Ablehnungsgrund {
+    /**
+     * das Guthaben reicht für den Kauf nicht aus
+     */
+    NICHT_GEDECKT,
+    /**
+     * das Konto ist gesperrt
+     */
+    GESPERRT,
+    /**
+     * im Depot sind keine Aktien des Wertpapiers
+     */
+    KEINE_AKTIEN,
+    /**
+     * der Kurs hat das Limit innerhalb der Gültigkeit des Auftrags nicht erreicht
+     */
+    ABGELAUFEN,
+    /**
+     * der Auftragsdienst nimmt keine weiteren Aufträge an
+     */
+    UEBERLASTET
+}
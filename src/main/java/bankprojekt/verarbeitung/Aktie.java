@@ -1,56 +1,49 @@
 package bankprojekt.verarbeitung;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.Random;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
 /**
- * The Aktie class represents a stock with a dynamic stock price that updates periodically.
+ * The Aktie class represents a stock with a dynamic stock price.
+ * The price is kept by the {@link Marktdaten} the stock is listed with.
  * @author tsblc
  */
 public class Aktie implements Serializable {
     private final String name;
     private final long wertpapierId;
-    private double kurs;
+    /**
+     * The entry of this stock in the market data, holding the current price in euro cents.
+     */
+    private transient Marktdaten.Notierung notierung;
 
     /**
      * Constructs an Aktie object with the specified name, stock ID, and initial stock price.
-     * The stock price is dynamically updated at fixed intervals.
+     * The stock is listed with the {@linkplain Marktdaten#getStandard() standard market data},
+     * where its price changes randomly every second.
      *
      * @param name        The name of the stock.
      * @param wertpapierId The unique identifier for the stock.
      * @param kurs        The initial stock price.
      */
     public Aktie(String name, long wertpapierId, double kurs) {
-        this.name = name;
-        this.wertpapierId = wertpapierId;
-        this.kurs = kurs;
-
-        ScheduledExecutorService executorService = Executors.newScheduledThreadPool(1);
-        executorService.scheduleAtFixedRate(this::updateStockPrice, 0, 1, TimeUnit.SECONDS);
+        this(name, wertpapierId, kurs, Marktdaten.getStandard());
     }
 
     /**
-     * Updates the stock price at fixed intervals with a random percentage change.
+     * Constructs an Aktie object listed with the given market data.
+     * If the stock ID is already listed there, the initial price is published as its new price.
+     *
+     * @param name         The name of the stock.
+     * @param wertpapierId The unique identifier for the stock.
+     * @param kurs         The initial stock price.
+     * @param marktdaten   The market data the stock is listed with.
      */
-    private void updateStockPrice() {
-        // Generate a random number between -3 and 3
-        double randomChange = -3 + 6 * new Random().nextDouble();
-
-        // Update the stock price by the corresponding percentage
-        BigDecimal kursBigDecimal = BigDecimal.valueOf(kurs);
-        BigDecimal randomChangeBigDecimal = BigDecimal.valueOf(randomChange);
-        BigDecimal updatedKursBigDecimal = kursBigDecimal.add(kursBigDecimal.multiply(
-                randomChangeBigDecimal.divide(BigDecimal.valueOf(100), RoundingMode.HALF_UP)));
-
-        // Format the updated stock price to have only two decimal places
-        kurs = updatedKursBigDecimal.setScale(2, RoundingMode.HALF_UP).doubleValue();
-
-        System.out.println("New Stock Price for " + name + ": " + kurs);
+    public Aktie(String name, long wertpapierId, double kurs, Marktdaten marktdaten) {
+        this.name = name;
+        this.wertpapierId = wertpapierId;
+        this.notierung = marktdaten.notieren(wertpapierId, Geldbetrag.ausDouble(kurs, Waehrung.EUR));
     }
 
     /**
@@ -59,7 +52,25 @@ public class Aktie implements Serializable {
      * @return The current stock price.
      */
     public double getAktuellerPreis() {
-        return kurs;
+        return Geldbetrag.alsDouble(notierung.getKursCent(), Waehrung.EUR);
+    }
+
+    /**
+     * Gets the current stock price in euro cents.
+     *
+     * @return The current stock price in euro cents.
+     */
+    public long getAktuellerPreisCent() {
+        return notierung.getKursCent();
+    }
+
+    /**
+     * Gets the pending limit orders for this stock.
+     *
+     * @return The order book of the stock's listing.
+     */
+    Orderbuch getOrderbuch() {
+        return notierung.getOrderbuch();
     }
 
     /**
@@ -79,7 +90,14 @@ public class Aktie implements Serializable {
     public long getWertpapierId() {
         return wertpapierId;
     }
-}
-
 
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeLong(getAktuellerPreisCent());
+    }
 
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        notierung = Marktdaten.getStandard().notieren(wertpapierId, in.readLong());
+    }
+}
@@ -0,0 +1,29 @@
+package bankprojekt.verarbeitung;
+
+/**
+ * beendet einen Wertpapierauftrag, der nicht ausgeführt wurde
+ */
+@SuppressWarnings("serial")
+public class AuftragAbgelehntException extends Exception {
+    private final Ablehnungsgrund grund;
+
+    /**
+     * Ablehnung eines Auftrags für das angegebene Konto
+     *
+     * @param kontonummer das Konto, für das der Auftrag erteilt wurde
+     * @param grund       warum der Auftrag nicht ausgeführt wurde
+     */
+    public AuftragAbgelehntException(long kontonummer, Ablehnungsgrund grund) {
+        super("Auftrag für Konto " + kontonummer + " abgelehnt: " + grund);
+        this.grund = grund;
+    }
+
+    /**
+     * liefert den Grund der Ablehnung
+     *
+     * @return warum der Auftrag nicht ausgeführt wurde
+     */
+    public Ablehnungsgrund getGrund() {
+        return grund;
+    }
+}
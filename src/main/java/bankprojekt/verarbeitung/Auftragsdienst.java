@@ -0,0 +1,195 @@
+package bankprojekt.verarbeitung;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * führt die Wertpapieraufträge aller Konten auf einer festen Zahl von Threads aus.
+ * <p>
+ * Jedes Konto gehört zu einer von wenigen Reihen, die ihre Aufträge nacheinander in Eingangsreihenfolge
+ * abarbeiten; Aufträge desselben Kontos laufen also nie gleichzeitig und nie in vertauschter Reihenfolge.
+ * Speicher und Threads hängen nur von der Zahl der Threads und der Reihen ab, nicht von der Zahl der Konten.
+ * Es werden höchstens {@code kapazitaet} Aufträge zugleich angenommen, weitere werden mit einer
+ * {@link RejectedExecutionException} abgewiesen.
+ */
+public final class Auftragsdienst implements AutoCloseable {
+    private static final int AUFTRAEGE_JE_DURCHLAUF = 64;
+
+    private final ThreadPoolExecutor arbeiter;
+    private final Reihe[] reihen;
+    private final int kapazitaet;
+    /**
+     * angenommene Aufträge, die in einer Reihe stehen oder gerade laufen
+     */
+    private final AtomicInteger offen = new AtomicInteger();
+    private volatile boolean geschlossen;
+
+    /**
+     * legt einen Auftragsdienst an
+     *
+     * @param threads    Anzahl der Threads, die Aufträge ausführen
+     * @param kapazitaet höchstens so viele Aufträge werden zugleich angenommen
+     * @throws IllegalArgumentException wenn threads oder kapazitaet nicht positiv ist
+     */
+    public Auftragsdienst(int threads, int kapazitaet) {
+        if (threads <= 0 || kapazitaet <= 0)
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        this.kapazitaet = kapazitaet;
+        // in der Warteschlange der Threads steht jede Reihe höchstens einmal
+        arbeiter = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                threadFabrik("Auftragsdienst"));
+        reihen = new Reihe[Integer.highestOneBit(threads * 16 - 1) << 1];
+        for (int i = 0; i < reihen.length; i++) {
+            reihen[i] = new Reihe();
+        }
+    }
+
+    private static ThreadFactory threadFabrik(String name) {
+        AtomicInteger zaehler = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, name + "-" + zaehler.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /**
+     * liefert den Auftragsdienst, den die Konten für ihre Wertpapieraufträge verwenden;
+     * er hat einen Thread je Prozessor
+     *
+     * @return der gemeinsame Auftragsdienst
+     */
+    public static Auftragsdienst getStandard() {
+        return Standard.DIENST;
+    }
+
+    private static final class Standard {
+        static final Auftragsdienst DIENST = new Auftragsdienst(Runtime.getRuntime().availableProcessors(), 100_000);
+    }
+
+    /**
+     * führt einen Auftrag für ein Konto aus, nach allen vorher angenommenen Aufträgen dieses Kontos
+     *
+     * @param konto   das Konto
+     * @param auftrag der Auftrag
+     * @param <T>     Typ des Ergebnisses
+     * @return das Ergebnis des Auftrags
+     * @throws RejectedExecutionException wenn schon zu viele Aufträge angenommen sind oder der Dienst geschlossen ist
+     */
+    public <T> CompletableFuture<T> ausfuehren(Konto konto, Callable<T> auftrag) {
+        if (konto == null || auftrag == null)
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        int vorher;
+        do {
+            vorher = offen.get();
+            if (geschlossen)
+                throw new RejectedExecutionException("Auftragsdienst ist geschlossen");
+            if (vorher >= kapazitaet)
+                throw new RejectedExecutionException("Zu viele offene Aufträge");
+        } while (!offen.compareAndSet(vorher, vorher + 1));
+        Auftrag<T> a = new Auftrag<>(auftrag);
+        reihe(konto).einreihen(a);
+        return a.ergebnis;
+    }
+
+    private Reihe reihe(Konto konto) {
+        long h = konto.getKontonummer() * 0x9E3779B97F4A7C15L;
+        return reihen[(int) (h >>> 40) & (reihen.length - 1)];
+    }
+
+    /**
+     * nimmt keine Aufträge mehr an und wartet, bis alle angenommenen Aufträge ausgeführt sind
+     */
+    @Override
+    public void close() {
+        geschlossen = true;
+        synchronized (this) {
+            boolean unterbrochen = false;
+            while (offen.get() > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    unterbrochen = true;
+                }
+            }
+            if (unterbrochen) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        arbeiter.shutdown();
+    }
+
+    private void erledigt() {
+        if (offen.decrementAndGet() == 0 && geschlossen) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * arbeitet ihre Aufträge nacheinander ab, immer höchstens in einem Thread
+     */
+    private final class Reihe implements Runnable {
+        private final Queue<Runnable> auftraege = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean laeuft = new AtomicBoolean();
+
+        void einreihen(Runnable auftrag) {
+            auftraege.add(auftrag);
+            planen();
+        }
+
+        private void planen() {
+            if (laeuft.compareAndSet(false, true)) {
+                arbeiter.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                // nach einigen Aufträgen kommen die anderen Reihen an die Reihe
+                Runnable auftrag;
+                for (int i = 0; i < AUFTRAEGE_JE_DURCHLAUF && (auftrag = auftraege.poll()) != null; i++) {
+                    auftrag.run();
+                }
+            } finally {
+                laeuft.set(false);
+            }
+            if (!auftraege.isEmpty()) {
+                planen();
+            }
+        }
+    }
+
+    /**
+     * ein angenommener Auftrag
+     */
+    private final class Auftrag<T> implements Runnable {
+        private final Callable<T> auftrag;
+        private final CompletableFuture<T> ergebnis = new CompletableFuture<>();
+
+        Auftrag(Callable<T> auftrag) {
+            this.auftrag = auftrag;
+        }
+
+        @Override
+        public void run() {
+            try {
+                ergebnis.complete(auftrag.call());
+            } catch (Throwable t) {
+                ergebnis.completeExceptionally(t);
+            }
+            erledigt();
+        }
+    }
+}
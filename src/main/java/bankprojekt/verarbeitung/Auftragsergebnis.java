@@ -0,0 +1,39 @@
+package bankprojekt.verarbeitung;
+
+/**
+ * Ergebnis eines ausgeführten Wertpapierauftrags
+ *
+ * @param wertpapierId   das gehandelte Wertpapier
+ * @param anzahl         Anzahl der gekauften oder verkauften Aktien
+ * @param kursCent       Ausführungskurs je Aktie in Euro-Cent
+ * @param kontostandCent Kontostand nach der Ausführung in Cent der Kontowährung
+ * @param waehrung       die Kontowährung bei der Ausführung
+ */
+public record Auftragsergebnis(long wertpapierId, long anzahl, long kursCent, long kontostandCent, Waehrung waehrung) {
+    /**
+     * liefert den Ausführungskurs je Aktie
+     *
+     * @return Kurs in Euro
+     */
+    public double getKurs() {
+        return Geldbetrag.alsDouble(kursCent, Waehrung.EUR);
+    }
+
+    /**
+     * liefert den Gesamtbetrag des Auftrags
+     *
+     * @return Anzahl mal Kurs in Euro
+     */
+    public double getGesamtbetrag() {
+        return Geldbetrag.alsDouble(Math.multiplyExact(kursCent, anzahl), Waehrung.EUR);
+    }
+
+    /**
+     * liefert den Kontostand nach der Ausführung
+     *
+     * @return Kontostand in der Kontowährung
+     */
+    public double getKontostand() {
+        return Geldbetrag.alsDouble(kontostandCent, waehrung);
+    }
+}
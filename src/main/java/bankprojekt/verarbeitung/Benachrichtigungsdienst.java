@@ -0,0 +1,224 @@
+package bankprojekt.verarbeitung;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * stellt die Ereignisse der Konten ihren {@link Kontobeobachter}n zu, abseits der Threads, die buchen.
+ * <p>
+ * Jedes beobachtete Konto hat ein {@link Postfach}, in dem seine noch nicht zugestellten Ereignisse als ein paar
+ * Zahlen liegen; aufeinanderfolgende Änderungen des Kontostandes werden dort gleich zu einer zusammengefasst.
+ * Ein Ereignis wird ohne Sperre mit einem compareAndSet abgelegt. Ein Postfach mit neuen Ereignissen wird einmal
+ * in den Eingang seines Zustellers eingereiht, bis dieser es leert und die Beobachter aufruft. Der meldende
+ * Thread wartet daher nie auf einen Zusteller; solange die Beobachter eines Kontos beschäftigt sind, wächst sein
+ * Postfach nur um Sperrungen, Entsperrungen und Währungswechsel, die Buchungen dazwischen werden zu je einem
+ * Ereignis.
+ * <p>
+ * Es gibt {@value #ZUSTELLER} Zusteller-Threads, jedes Postfach gehört fest zu einem von ihnen, so bleiben die
+ * Ereignisse eines Kontos in ihrer Reihenfolge. Ein langsamer Beobachter hält nur die Konten seines Zustellers
+ * auf, die übrigen werden weiter bedient; Beobachter verschiedener Konten können dafür gleichzeitig laufen.
+ */
+final class Benachrichtigungsdienst {
+    /**
+     * Anzahl der Zusteller-Threads, eine Zweierpotenz
+     */
+    static final int ZUSTELLER = 4;
+
+    private final Zusteller[] zusteller = new Zusteller[ZUSTELLER];
+
+    /**
+     * die noch nicht zugestellten Ereignisse eines Kontos
+     */
+    static final class Postfach {
+        /**
+         * verteilt die Postfächer der Reihe nach auf die Zusteller
+         */
+        private static final AtomicInteger VERTEILUNG = new AtomicInteger();
+
+        private final Konto konto;
+        private final int zusteller;
+        /**
+         * das zuletzt abgelegte Ereignis, die früheren über {@link Ausstehend#vorher} verkettet; null, solange das
+         * Postfach leer ist. Wer es von leer auf nicht leer setzt, reiht das Postfach ein.
+         */
+        private final AtomicReference<Ausstehend> ausstehend = new AtomicReference<>();
+        /**
+         * das nächste Postfach im Eingang; geschrieben vor dem Einreihen, danach nur vom Zusteller gelesen
+         */
+        private Postfach naechstes;
+
+        /**
+         * legt ein leeres Postfach an
+         *
+         * @param konto das Konto, dessen Ereignisse hier liegen
+         */
+        Postfach(Konto konto) {
+            this.konto = konto;
+            this.zusteller = VERTEILUNG.getAndIncrement() & (ZUSTELLER - 1);
+        }
+
+        /**
+         * legt ein Ereignis ab, eine Änderung des Kontostandes direkt nach einer anderen wird mit ihr zusammengefasst
+         *
+         * @return true, wenn das Postfach dafür in den Eingang eingereiht werden muss
+         */
+        private boolean ablegen(Kontoereignis.Art art, long alt, Waehrung alteWaehrung, long neu,
+                                Waehrung neueWaehrung) {
+            while (true) {
+                Ausstehend letztes = ausstehend.get();
+                Ausstehend ereignis;
+                if (art == Kontoereignis.Art.KONTOSTAND && letztes != null
+                        && letztes.art() == Kontoereignis.Art.KONTOSTAND) {
+                    ereignis = new Ausstehend(art, letztes.alt(), letztes.alteWaehrung(), neu, neueWaehrung,
+                            letztes.vorher());
+                } else {
+                    ereignis = new Ausstehend(art, alt, alteWaehrung, neu, neueWaehrung, letztes);
+                }
+                if (ausstehend.compareAndSet(letztes, ereignis)) {
+                    return letztes == null;
+                }
+            }
+        }
+
+        /**
+         * nimmt alle Ereignisse heraus; ein danach gemeldetes Ereignis reiht das Postfach neu ein
+         *
+         * @return die Ereignisse in der Reihenfolge, in der sie gemeldet wurden
+         */
+        private Kontoereignis[] leeren() {
+            Ausstehend letztes = ausstehend.getAndSet(null);
+            int anzahl = 0;
+            for (Ausstehend e = letztes; e != null; e = e.vorher()) {
+                anzahl++;
+            }
+            Kontoereignis[] ereignisse = new Kontoereignis[anzahl];
+            for (Ausstehend e = letztes; e != null; e = e.vorher()) {
+                ereignisse[--anzahl] = new Kontoereignis(konto, e.art(), e.alt(), e.alteWaehrung(), e.neu(),
+                        e.neueWaehrung());
+            }
+            return ereignisse;
+        }
+    }
+
+    /**
+     * ein abgelegtes Ereignis, unveränderlich, damit es ohne Sperre ersetzt werden kann
+     *
+     * @param vorher das davor abgelegte Ereignis, null für das älteste
+     */
+    private record Ausstehend(Kontoereignis.Art art, long alt, Waehrung alteWaehrung, long neu,
+                              Waehrung neueWaehrung, Ausstehend vorher) {
+    }
+
+    /**
+     * legt einen Benachrichtigungsdienst mit eigenen Zusteller-Threads an
+     */
+    Benachrichtigungsdienst() {
+        for (int i = 0; i < ZUSTELLER; i++) {
+            zusteller[i] = new Zusteller("Kontoereignisse-" + (i + 1));
+        }
+    }
+
+    /**
+     * liefert den Benachrichtigungsdienst, über den alle Konten ihre Ereignisse melden
+     *
+     * @return der gemeinsame Benachrichtigungsdienst
+     */
+    static Benachrichtigungsdienst getStandard() {
+        return Standard.DIENST;
+    }
+
+    private static final class Standard {
+        static final Benachrichtigungsdienst DIENST = new Benachrichtigungsdienst();
+    }
+
+    /**
+     * meldet eine Änderung eines Kontos; die Beobachter werden später auf dem Zusteller-Thread des Postfachs
+     * aufgerufen. Der meldende Thread wartet dabei auf niemanden, auch nicht, wenn er selbst ein Zusteller ist.
+     *
+     * @param postfach     das Postfach des geänderten Kontos
+     * @param art          was sich geändert hat
+     * @param alt          Kontostand vorher in Cent der alten Währung
+     * @param alteWaehrung Kontowährung vorher
+     * @param neu          Kontostand nachher in Cent der neuen Währung
+     * @param neueWaehrung Kontowährung nachher
+     */
+    void melden(Postfach postfach, Kontoereignis.Art art, long alt, Waehrung alteWaehrung, long neu,
+                Waehrung neueWaehrung) {
+        if (postfach.ablegen(art, alt, alteWaehrung, neu, neueWaehrung)) {
+            zusteller[postfach.zusteller].einreihen(postfach);
+        }
+    }
+
+    /**
+     * ein Zusteller-Thread mit seinem Eingang
+     */
+    private static final class Zusteller {
+        /**
+         * die Postfächer mit neuen Ereignissen, zuletzt eingereihtes zuerst, über {@link Postfach#naechstes} verkettet
+         */
+        private final AtomicReference<Postfach> eingang = new AtomicReference<>();
+        private volatile boolean wartet;
+        private final Thread thread;
+
+        Zusteller(String name) {
+            thread = new Thread(this::laufen, name);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void einreihen(Postfach postfach) {
+            Postfach kopf;
+            do {
+                kopf = eingang.get();
+                postfach.naechstes = kopf;
+            } while (!eingang.compareAndSet(kopf, postfach));
+            if (wartet) {
+                wartet = false;
+                LockSupport.unpark(thread);
+            }
+        }
+
+        private void laufen() {
+            while (true) {
+                Postfach neueste = eingang.getAndSet(null);
+                if (neueste == null) {
+                    wartet = true;
+                    // ein Postfach, das vor dem Setzen von wartet kam, hat niemanden geweckt
+                    if (eingang.get() == null) {
+                        LockSupport.park(this);
+                    }
+                    wartet = false;
+                    continue;
+                }
+                // in die Reihenfolge bringen, in der die Postfächer eingereiht wurden
+                Postfach aelteste = null;
+                while (neueste != null) {
+                    Postfach weiter = neueste.naechstes;
+                    neueste.naechstes = aelteste;
+                    aelteste = neueste;
+                    neueste = weiter;
+                }
+                while (aelteste != null) {
+                    // vor dem Leeren lesen, danach kann das Postfach schon wieder eingereiht werden
+                    Postfach weiter = aelteste.naechstes;
+                    for (Kontoereignis ereignis : aelteste.leeren()) {
+                        zustellen(ereignis);
+                    }
+                    aelteste = weiter;
+                }
+            }
+        }
+    }
+
+    private static void zustellen(Kontoereignis ereignis) {
+        for (Kontobeobachter beobachter : ereignis.konto().getBeobachter()) {
+            try {
+                beobachter.kontoGeaendert(ereignis);
+            } catch (RuntimeException e) {
+                Thread t = Thread.currentThread();
+                t.getUncaughtExceptionHandler().uncaughtException(t, e);
+            }
+        }
+    }
+}
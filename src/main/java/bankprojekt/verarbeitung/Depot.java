@@ -0,0 +1,191 @@
+package bankprojekt.verarbeitung;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * das Wertpapierdepot eines Kontos: je Wertpapier ein Bestand aus Anzahl, Einstandswert und realisiertem Gewinn.
+ * <p>
+ * Die Bestände liegen in parallelen Feldern, die über die Wertpapier-Id mit offener Adressierung gefunden werden;
+ * Kauf und Verkauf ändern also nur ein paar Zahlen, unabhängig von der Zahl der Aktien. Ein Bestand bleibt auch
+ * nach dem Verkauf aller Aktien erhalten, damit sein realisierter Gewinn nicht verloren geht.
+ * Die Felder werden erst beim ersten Bestand angelegt; ein Konto ohne Wertpapiere kostet nur dieses Objekt.
+ */
+final class Depot {
+    private static final int ANFANGSGROESSE = 4;
+
+    private long[] ids;
+    private long[] anzahl;
+    private long[] einstand;
+    private long[] realisiert;
+    /**
+     * das Wertpapier je Platz, null für einen freien Platz
+     */
+    private Aktie[] aktien;
+    private int belegt;
+
+    /**
+     * nimmt gekaufte Aktien in den Bestand auf
+     *
+     * @param a        das Wertpapier
+     * @param stueck   Anzahl der Aktien
+     * @param kursCent Kaufkurs je Aktie in Euro-Cent
+     */
+    synchronized void kaufen(Aktie a, long stueck, long kursCent) {
+        einbuchen(a, stueck, Math.multiplyExact(stueck, kursCent), 0);
+    }
+
+    /**
+     * bucht einen Bestand ein, z.B. beim Laden eines gespeicherten Kontos; ist schon einer vorhanden,
+     * werden die Werte addiert
+     *
+     * @param a              das Wertpapier
+     * @param stueck         Anzahl der Aktien
+     * @param einstandCent   Einstandswert in Euro-Cent
+     * @param realisiertCent realisierter Gewinn in Euro-Cent
+     */
+    synchronized void einbuchen(Aktie a, long stueck, long einstandCent, long realisiertCent) {
+        int i = platz(a);
+        anzahl[i] = Math.addExact(anzahl[i], stueck);
+        einstand[i] = Math.addExact(einstand[i], einstandCent);
+        realisiert[i] = Math.addExact(realisiert[i], realisiertCent);
+    }
+
+    /**
+     * verkauft Aktien aus dem Bestand; der Einstandswert sinkt anteilig, die Differenz zum Erlös
+     * wird als Gewinn realisiert
+     *
+     * @param wertpapierId das Wertpapier
+     * @param hoechstens   höchstens so viele Aktien werden verkauft
+     * @param kursCent     Verkaufskurs je Aktie in Euro-Cent
+     * @return Anzahl der verkauften Aktien, 0 wenn keine im Bestand sind
+     */
+    synchronized long verkaufen(long wertpapierId, long hoechstens, long kursCent) {
+        int i = suchen(wertpapierId);
+        if (i < 0 || anzahl[i] == 0) {
+            return 0;
+        }
+        long stueck = Math.min(hoechstens, anzahl[i]);
+        long kosten = stueck == anzahl[i] ? einstand[i] : anteil(einstand[i], stueck, anzahl[i]);
+        realisiert[i] = Math.addExact(realisiert[i], Math.multiplyExact(stueck, kursCent) - kosten);
+        einstand[i] -= kosten;
+        anzahl[i] -= stueck;
+        return stueck;
+    }
+
+    /**
+     * berechnet wert * teil / ganzes ohne Überlauf des Zwischenergebnisses
+     */
+    private static long anteil(long wert, long teil, long ganzes) {
+        long hoch = Math.multiplyHigh(wert, teil);
+        long produkt = wert * teil;
+        if ((hoch == 0 && produkt >= 0) || (hoch == -1 && produkt < 0)) {
+            return produkt / ganzes;
+        }
+        return BigInteger.valueOf(wert).multiply(BigInteger.valueOf(teil))
+                .divide(BigInteger.valueOf(ganzes)).longValueExact();
+    }
+
+    /**
+     * liefert den Bestand eines Wertpapiers
+     *
+     * @param wertpapierId das Wertpapier
+     * @return der Bestand, null wenn das Wertpapier nie im Depot war
+     */
+    synchronized Depotposition getPosition(long wertpapierId) {
+        int i = suchen(wertpapierId);
+        return i < 0 ? null : position(i);
+    }
+
+    /**
+     * liefert alle Bestände, auch die ohne Aktien mit realisiertem Gewinn
+     *
+     * @return Kopie der Bestände in keiner bestimmten Reihenfolge
+     */
+    synchronized List<Depotposition> getPositionen() {
+        List<Depotposition> positionen = new ArrayList<>(belegt);
+        if (aktien != null) {
+            for (int i = 0; i < aktien.length; i++) {
+                if (aktien[i] != null) {
+                    positionen.add(position(i));
+                }
+            }
+        }
+        return positionen;
+    }
+
+    private Depotposition position(int i) {
+        return new Depotposition(aktien[i], anzahl[i], einstand[i], realisiert[i]);
+    }
+
+    private int suchen(long wertpapierId) {
+        if (aktien == null) {
+            return -1;
+        }
+        int maske = aktien.length - 1;
+        for (int i = streuen(wertpapierId) & maske; aktien[i] != null; i = (i + 1) & maske) {
+            if (ids[i] == wertpapierId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * liefert den Platz des Wertpapiers und legt ihn bei Bedarf an
+     */
+    private int platz(Aktie a) {
+        int i = suchen(a.getWertpapierId());
+        if (i >= 0) {
+            return i;
+        }
+        if (aktien == null) {
+            anlegen(ANFANGSGROESSE);
+        } else if ((belegt + 1) * 4 > aktien.length * 3) {
+            vergroessern();
+        }
+        int maske = aktien.length - 1;
+        i = streuen(a.getWertpapierId()) & maske;
+        while (aktien[i] != null) {
+            i = (i + 1) & maske;
+        }
+        ids[i] = a.getWertpapierId();
+        aktien[i] = a;
+        belegt++;
+        return i;
+    }
+
+    private void anlegen(int groesse) {
+        ids = new long[groesse];
+        anzahl = new long[groesse];
+        einstand = new long[groesse];
+        realisiert = new long[groesse];
+        aktien = new Aktie[groesse];
+    }
+
+    private void vergroessern() {
+        long[] alteIds = ids, alteAnzahl = anzahl, alterEinstand = einstand, alteRealisiert = realisiert;
+        Aktie[] alteAktien = aktien;
+        anlegen(alteAktien.length * 2);
+        int maske = aktien.length - 1;
+        for (int j = 0; j < alteAktien.length; j++) {
+            if (alteAktien[j] != null) {
+                int i = streuen(alteIds[j]) & maske;
+                while (aktien[i] != null) {
+                    i = (i + 1) & maske;
+                }
+                ids[i] = alteIds[j];
+                anzahl[i] = alteAnzahl[j];
+                einstand[i] = alterEinstand[j];
+                realisiert[i] = alteRealisiert[j];
+                aktien[i] = alteAktien[j];
+            }
+        }
+    }
+
+    private static int streuen(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
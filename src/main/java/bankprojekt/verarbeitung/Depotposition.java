@@ -0,0 +1,29 @@
+package bankprojekt.verarbeitung;
+
+/**
+ * Bestand eines Wertpapiers in einem Depot
+ *
+ * @param aktie          das Wertpapier
+ * @param anzahl         Anzahl der Aktien im Bestand
+ * @param einstandCent   was der Bestand gekostet hat, in Euro-Cent
+ * @param realisiertCent Gewinn (oder, negativ, Verlust) aller Verkäufe dieses Wertpapiers in Euro-Cent
+ */
+public record Depotposition(Aktie aktie, long anzahl, long einstandCent, long realisiertCent) {
+    /**
+     * liefert den durchschnittlichen Kaufkurs je Aktie des Bestands
+     *
+     * @return Durchschnittskurs in Euro, 0 bei leerem Bestand
+     */
+    public double getDurchschnittskurs() {
+        return anzahl == 0 ? 0 : Geldbetrag.alsDouble(einstandCent, Waehrung.EUR) / anzahl;
+    }
+
+    /**
+     * liefert den Wert des Bestands zum aktuellen Kurs
+     *
+     * @return Wert in Euro
+     */
+    public double getMarktwert() {
+        return Geldbetrag.alsDouble(Math.multiplyExact(aktie.getAktuellerPreisCent(), anzahl), Waehrung.EUR);
+    }
+}
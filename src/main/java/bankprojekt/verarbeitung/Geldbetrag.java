@@ -0,0 +1,189 @@
+package bankprojekt.verarbeitung;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Rechnen mit Geldbeträgen in Festkommadarstellung.
+ * <p>
+ * Ein Geldbetrag ist ein {@code long} in der kleinsten Einheit seiner Währung (bei zwei Nachkommastellen
+ * also in Cent). Damit gibt es keine Rundungsfehler durch Gleitkommazahlen, und außer {@link #ausDouble}
+ * bei Beträgen genau zwischen zwei Cent legt keine der Methoden hier ein Objekt an. Wo bei einer Rechnung
+ * gerundet werden muss, wird der {@link RoundingMode} ausdrücklich angegeben. Überläufe werden nicht
+ * stillschweigend hingenommen, sondern führen zu einer {@link ArithmeticException}.
+ */
+public final class Geldbetrag {
+    /**
+     * Zehnerpotenzen von 10^0 bis 10^18
+     */
+    private static final long[] ZEHNERPOTENZEN = new long[19];
+
+    static {
+        ZEHNERPOTENZEN[0] = 1;
+        for (int i = 1; i < ZEHNERPOTENZEN.length; i++) {
+            ZEHNERPOTENZEN[i] = ZEHNERPOTENZEN[i - 1] * 10;
+        }
+    }
+
+    /**
+     * Anzahl der Bits, die {@link #mitWaehrung} für die Währung belegt
+     */
+    private static final int WAEHRUNG_BITS = 3;
+    private static final Waehrung[] WAEHRUNGEN = Waehrung.values();
+
+    static {
+        if (WAEHRUNGEN.length > 1 << WAEHRUNG_BITS) {
+            throw new ExceptionInInitializerError("zu viele Währungen für " + WAEHRUNG_BITS + " Bits");
+        }
+    }
+
+    private Geldbetrag() {
+    }
+
+    /**
+     * rechnet einen Betrag aus der Gleitkommadarstellung in die kleinste Einheit der Währung um
+     * (kaufmännisch gerundet, und zwar nach der Dezimaldarstellung des Betrags: 1.005 wird zu 101).
+     * Nur Beträge, die nahe an der Mitte zwischen zwei Cent liegen, werden dafür über {@link BigDecimal}
+     * gerundet; alle anderen ohne ein Objekt anzulegen.
+     *
+     * @param betrag Betrag, z.B. 12.34
+     * @param w      Währung des Betrags
+     * @return Betrag in der kleinsten Einheit, z.B. 1234
+     * @throws ArithmeticException wenn der Betrag NaN oder unendlich ist oder nicht in einen {@code long} passt
+     */
+    public static long ausDouble(double betrag, Waehrung w) {
+        int stellen = w.getNachkommastellen();
+        double skaliert = betrag * zehnerpotenz(stellen);
+        if (!(Math.abs(skaliert) < 0x1p63)) {
+            throw new ArithmeticException("Betrag nicht darstellbar: " + betrag);
+        }
+        double abstand = Math.abs(skaliert - Math.floor(skaliert) - 0.5);
+        if (abstand > Math.max(1e-6, 4 * Math.ulp(skaliert))) {
+            return Math.round(skaliert);
+        }
+        return BigDecimal.valueOf(betrag).setScale(stellen, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * rechnet einen Betrag aus der kleinsten Einheit der Währung in die Gleitkommadarstellung um
+     *
+     * @param betrag Betrag in der kleinsten Einheit, z.B. 1234
+     * @param w      Währung des Betrags
+     * @return Betrag, z.B. 12.34
+     */
+    public static double alsDouble(long betrag, Waehrung w) {
+        return (double) betrag / zehnerpotenz(w.getNachkommastellen());
+    }
+
+    /**
+     * rechnet einen Betrag von einer Währung in eine andere um. Es wird nur einmal gerundet.
+     *
+     * @param betrag  Betrag in der kleinsten Einheit von {@code von}
+     * @param von     Ausgangswährung
+     * @param nach    Zielwährung
+     * @param rundung Rundungsregel für das Ergebnis
+     * @return Betrag in der kleinsten Einheit von {@code nach}
+     * @throws ArithmeticException bei Überlauf
+     */
+    public static long umrechnen(long betrag, Waehrung von, Waehrung nach, RoundingMode rundung) {
+        if (von == nach) {
+            return betrag;
+        }
+        int stellen = nach.getNachkommastellen() - von.getNachkommastellen();
+        long zaehler = Math.multiplyExact(betrag, nach.getKurs());
+        long nenner = von.getKurs();
+        if (stellen > 0) {
+            zaehler = Math.multiplyExact(zaehler, zehnerpotenz(stellen));
+        } else if (stellen < 0) {
+            nenner = Math.multiplyExact(nenner, zehnerpotenz(-stellen));
+        }
+        return dividieren(zaehler, nenner, rundung);
+    }
+
+    /**
+     * multipliziert einen Betrag mit einem Festkommafaktor, z.B. einem Zins- oder Kursänderungssatz
+     *
+     * @param betrag         Betrag in der kleinsten Einheit
+     * @param faktor         Faktor als ganze Zahl, z.B. 125 für 1,25 bei zwei Nachkommastellen
+     * @param faktorStellen  Anzahl der Nachkommastellen von {@code faktor}
+     * @param rundung        Rundungsregel für das Ergebnis
+     * @return betrag * faktor / 10^faktorStellen
+     * @throws ArithmeticException bei Überlauf
+     */
+    public static long multiplizieren(long betrag, long faktor, int faktorStellen, RoundingMode rundung) {
+        return dividieren(Math.multiplyExact(betrag, faktor), zehnerpotenz(faktorStellen), rundung);
+    }
+
+    /**
+     * ganzzahlige Division mit der angegebenen Rundungsregel
+     *
+     * @param zaehler Zähler
+     * @param nenner  Nenner, nicht 0
+     * @param rundung Rundungsregel
+     * @return gerundeter Quotient
+     * @throws ArithmeticException wenn nenner 0 ist oder bei {@link RoundingMode#UNNECESSARY} gerundet werden müsste
+     */
+    public static long dividieren(long zaehler, long nenner, RoundingMode rundung) {
+        long quotient = zaehler / nenner;
+        long rest = zaehler % nenner;
+        if (rest == 0) {
+            return quotient;
+        }
+        int vorzeichen = (zaehler ^ nenner) < 0 ? -1 : 1;
+        int halbvergleich = Long.compare(Math.abs(rest), Math.abs(nenner) - Math.abs(rest));
+        boolean wegVonNull = switch (rundung) {
+            case UP -> true;
+            case DOWN -> false;
+            case CEILING -> vorzeichen > 0;
+            case FLOOR -> vorzeichen < 0;
+            case HALF_UP -> halbvergleich >= 0;
+            case HALF_DOWN -> halbvergleich > 0;
+            case HALF_EVEN -> halbvergleich > 0 || (halbvergleich == 0 && (quotient & 1) != 0);
+            case UNNECESSARY -> throw new ArithmeticException("Rundung notwendig");
+        };
+        return wegVonNull ? quotient + vorzeichen : quotient;
+    }
+
+    /**
+     * liefert 10 hoch exponent
+     *
+     * @param exponent zwischen 0 und 18
+     * @return 10^exponent
+     */
+    static long zehnerpotenz(int exponent) {
+        return ZEHNERPOTENZEN[exponent];
+    }
+
+    /**
+     * legt einen Betrag und seine Währung zusammen in einen {@code long}, damit beides in einem Schritt
+     * atomar geändert werden kann. Das Vorzeichen bleibt erhalten, 0 Euro ist 0.
+     *
+     * @param betrag Betrag in der kleinsten Einheit von w, höchstens 2^60 im Betrag
+     * @param w      Währung des Betrags
+     * @return Betrag und Währung in einer Zahl
+     * @throws ArithmeticException wenn der Betrag dafür zu groß ist
+     */
+    public static long mitWaehrung(long betrag, Waehrung w) {
+        return Math.multiplyExact(betrag, 1L << WAEHRUNG_BITS) | w.ordinal();
+    }
+
+    /**
+     * liefert den Betrag aus einer Zahl von {@link #mitWaehrung}
+     *
+     * @param zelle Betrag und Währung
+     * @return Betrag in der kleinsten Einheit seiner Währung
+     */
+    public static long betrag(long zelle) {
+        return zelle >> WAEHRUNG_BITS;
+    }
+
+    /**
+     * liefert die Währung aus einer Zahl von {@link #mitWaehrung}
+     *
+     * @param zelle Betrag und Währung
+     * @return Währung des Betrags
+     */
+    public static Waehrung waehrung(long zelle) {
+        return WAEHRUNGEN[(int) zelle & ((1 << WAEHRUNG_BITS) - 1)];
+    }
+}
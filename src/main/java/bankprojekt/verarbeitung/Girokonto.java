@@ -1,6 +1,7 @@
 package bankprojekt.verarbeitung;
 
 import java.io.Serializable;
+import java.math.RoundingMode;
 
 /**
  * Ein Girokonto, d.h. ein Konto mit einem Dispo und der Fähigkeit,
@@ -12,9 +13,17 @@ import java.io.Serializable;
  */
 public class Girokonto extends Konto implements Ueberweisungsfaehig, Serializable {
     /**
-     * Wert, bis zu dem das Konto überzogen werden darf
+     * Wert in Cent, bis zu dem das Konto überzogen werden darf, zusammen mit der Währung, in der er
+     * festgelegt wurde (siehe {@link Geldbetrag#mitWaehrung}). Er wird erst bei Gebrauch in die jeweilige
+     * Kontowährung umgerechnet, ein Währungswechsel muss ihn daher nicht anfassen.
      */
-    private double dispo;
+    private volatile long dispo;
+
+    /**
+     * Abbuchungen sind erlaubt, solange der Kontostand danach nicht unter -dispo fällt.
+     * Wird beim ersten Gebrauch angelegt, da sie nicht mitserialisiert wird.
+     */
+    private transient Abbuchungsregel dispoRegel;
 
     /**
      * erzeugt ein leeres, nicht gesperrtes Standard-Girokonto
@@ -22,7 +31,7 @@ public class Girokonto extends Konto implements Ueberweisungsfaehig, Serializabl
      */
     public Girokonto() {
         super(Kunde.MUSTERMANN, 99887766);
-        this.dispo = 500;
+        this.dispo = Geldbetrag.mitWaehrung(500_00, Waehrung.EUR);
     }
 
     /**
@@ -37,16 +46,18 @@ public class Girokonto extends Konto implements Ueberweisungsfaehig, Serializabl
         super(inhaber, nummer);
         if (dispo < 0 || Double.isNaN(dispo) || Double.isInfinite(dispo))
             throw new IllegalArgumentException("Der Dispo ist nicht gültig!");
-        this.dispo = dispo;
+        Waehrung w = getAktuelleWaehrung();
+        this.dispo = Geldbetrag.mitWaehrung(Geldbetrag.ausDouble(dispo, w), w);
     }
 
     /**
      * liefert den Dispo
      *
-     * @return Dispo von this
+     * @return Dispo von this in der Kontowährung
      */
     public double getDispo() {
-        return dispo;
+        Waehrung w = getAktuelleWaehrung();
+        return Geldbetrag.alsDouble(dispoIn(w), w);
     }
 
     /**
@@ -58,7 +69,40 @@ public class Girokonto extends Konto implements Ueberweisungsfaehig, Serializabl
     public void setDispo(double dispo) {
         if (dispo < 0 || Double.isNaN(dispo) || Double.isInfinite(dispo))
             throw new IllegalArgumentException("Der Dispo ist nicht gültig!");
-        this.dispo = dispo;
+        Waehrung w = getAktuelleWaehrung();
+        this.dispo = Geldbetrag.mitWaehrung(Geldbetrag.ausDouble(dispo, w), w);
+    }
+
+    /**
+     * liefert den Dispo in Cent der Kontowährung
+     *
+     * @return Dispo von this in Cent
+     */
+    public long getDispoCent() {
+        return dispoIn(getAktuelleWaehrung());
+    }
+
+    /**
+     * rechnet den Dispo in die angegebene Währung um
+     *
+     * @param w Zielwährung
+     * @return Dispo in Cent der Währung w
+     */
+    private long dispoIn(Waehrung w) {
+        long d = dispo;
+        return Geldbetrag.umrechnen(Geldbetrag.betrag(d), Geldbetrag.waehrung(d), w, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * setzt den Dispo in Cent der Kontowährung
+     *
+     * @param dispo darf nicht negativ sein
+     * @throws IllegalArgumentException wenn dispo negativ ist
+     */
+    public void setDispoCent(long dispo) {
+        if (dispo < 0)
+            throw new IllegalArgumentException("Der Dispo ist nicht gültig!");
+        this.dispo = Geldbetrag.mitWaehrung(dispo, getAktuelleWaehrung());
     }
 
     @Override
@@ -68,37 +112,32 @@ public class Girokonto extends Konto implements Ueberweisungsfaehig, Serializabl
             throw new GesperrtException(this.getKontonummer());
         if (betrag < 0 || Double.isNaN(betrag) || Double.isInfinite(betrag) || empfaenger == null || verwendungszweck == null)
             throw new IllegalArgumentException("Parameter fehlerhaft");
-        if (getKontostand() - betrag >= -dispo) {
-            setKontostand(getKontostand() - betrag);
-            return true;
-        } else
-            return false;
+        Waehrung w = getAktuelleWaehrung();
+        return abbuchen(Geldbetrag.ausDouble(betrag, w), w);
     }
 
     @Override
     public void ueberweisungEmpfangen(double betrag, String vonName, long vonKontonr, long vonBlz, String verwendungszweck) {
         if (betrag < 0 || Double.isNaN(betrag) || Double.isInfinite(betrag) || vonName == null || verwendungszweck == null)
             throw new IllegalArgumentException("Parameter fehlerhaft");
-        setKontostand(getKontostand() + betrag);
+        Waehrung w = getAktuelleWaehrung();
+        gutschreiben(Geldbetrag.ausDouble(betrag, w), w);
     }
 
     @Override
     public String toString() {
         String ausgabe = "-- GIROKONTO --" + System.lineSeparator() +
                 super.toString()
-                + "Dispo: " + this.dispo + System.lineSeparator();
+                + "Dispo: " + getDispo() + System.lineSeparator();
         return ausgabe;
     }
 
     @Override
-    public boolean geldCheck(double betrag) {
-        if (this.isGesperrt()) {
-            return false;
+    protected Abbuchungsregel getAbbuchungsregel() {
+        if (dispoRegel == null) {
+            dispoRegel = (kontostand, betrag, waehrung) -> kontostand - betrag >= -dispoIn(waehrung);
         }
-        if (getKontostand() - betrag >= -dispo) {
-            return true;
-        }
-        return false;
+        return dispoRegel;
     }
 
     @Override
@@ -106,15 +145,9 @@ public class Girokonto extends Konto implements Ueberweisungsfaehig, Serializabl
         if (isGesperrt()) {
             throw new GesperrtException(getKontonummer());
         }
-        double tempBetrag = w.waehrungInEuroUmrechnen(betrag);
-        tempBetrag = getAktuelleWaehrung().euroInWaehrungUmrechnen(tempBetrag);
-        return abheben(tempBetrag);
-    }
-
-    @Override
-    public void waehrungswechsel(Waehrung neu) {
-        double tempDispo = getAktuelleWaehrung().waehrungInEuroUmrechnen(getDispo());
-        setDispo(neu.euroInWaehrungUmrechnen(tempDispo));
-        super.waehrungswechsel(neu);
+        if (betrag <= 0 || Double.isNaN(betrag) || Double.isInfinite(betrag)) {
+            return false;
+        }
+        return abbuchen(Geldbetrag.ausDouble(betrag, w), w);
     }
 }
@@ -3,14 +3,29 @@ package bankprojekt.verarbeitung;
 import com.google.common.primitives.Doubles;
 import javafx.beans.property.*;
 
+import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.beans.PropertyChangeSupport;
-import java.util.ArrayList;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.*;
 
 /**
  * stellt ein allgemeines Bank-Konto dar
+ * <p>
+ * Kontostand und Kontowährung liegen zusammen in einer lock-freien Zelle (ganze Cent der Kontowährung als
+ * {@link Geldbetrag}, per {@link VarHandle} verwaltet). Jeder Betrag wird mit seiner Währung gebucht und erst
+ * innerhalb des atomaren Schritts in die Währung umgerechnet, die das Konto in diesem Moment hat; ein
+ * gleichzeitiger Währungswechsel kann ihn deshalb nicht in der falschen Währung verbuchen.
+ * Abbuchungen prüfen die {@link Abbuchungsregel} der jeweiligen Kontoart und buchen in einem einzigen
+ * atomaren Schritt ab. Die JavaFX-Properties sind nur Ansichten auf diese Zelle und werden erst
+ * angelegt, wenn sie jemand abfragt.
+ * <p>
+ * Änderungen werden nur gemeldet, wenn das Konto Beobachter hat, und zwar als ein paar Zahlen an den
+ * {@link Benachrichtigungsdienst}; die Beobachter laufen auf dessen Threads, Texte entstehen erst dort.
  */
 public abstract class Konto implements Comparable<Konto> {
     /**
@@ -24,42 +39,256 @@ public abstract class Konto implements Comparable<Konto> {
     private final long nummer;
 
     /**
-     * der aktuelle Kontostand
+     * der aktuelle Kontostand in Cent zusammen mit der Kontowährung, siehe {@link Geldbetrag#mitWaehrung};
+     * wird nur über {@link #STAND} verändert. Der Anfangswert 0 ist 0 Euro.
      */
-    private DoubleProperty kontostand = new ReadOnlyDoubleWrapper();
-    private Waehrung typ = Waehrung.EUR;
+    private volatile long stand;
+    private static final VarHandle STAND;
+
+    static {
+        try {
+            STAND = MethodHandles.lookup().findVarHandle(Konto.class, "stand", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
-    private List<Aktie> aktienDepot;
+    /**
+     * Ansicht des Kontostandes für JavaFX, null solange niemand sie abgefragt hat
+     */
+    private volatile ReadOnlyDoubleWrapper kontostandAnsicht;
 
-    private PropertyChangeSupport propertyChangeSupport = new PropertyChangeSupport(this);
+    private final Depot depot = new Depot();
+
+    private static final Kontobeobachter[] KEINE_BEOBACHTER = {};
+
+    /**
+     * die angemeldeten Beobachter; das Feld wird bei jeder Änderung durch ein neues ersetzt
+     */
+    private volatile Kontobeobachter[] beobachter = KEINE_BEOBACHTER;
+
+    /**
+     * die noch nicht zugestellten Ereignisse, angelegt mit dem ersten Beobachter
+     */
+    private volatile Benachrichtigungsdienst.Postfach postfach;
+
+    /**
+     * wird synchron nach jeder Änderung des Kontostandes aufgerufen, null wenn es keinen gibt
+     */
+    private volatile Kontostandhaken kontostandhaken;
 
-    private transient final ScheduledExecutorService service = new ScheduledThreadPoolExecutor(1);
+    /**
+     * solange der Kontostand in [hakenUntergrenze, hakenObergrenze) bleibt, wird der Haken nicht aufgerufen;
+     * die Grenzen liegen am Konto, damit eine Buchung innerhalb des Bereichs kein weiteres Objekt berührt
+     */
+    private volatile double hakenUntergrenze = Double.POSITIVE_INFINITY;
+    private volatile double hakenObergrenze = Double.NEGATIVE_INFINITY;
 
-    private BooleanProperty minusPlus = new ReadOnlyBooleanWrapper();
+    private volatile ReadOnlyBooleanWrapper minusPlusAnsicht;
 
     /**
      * Wenn das Konto gesperrt ist (gesperrt = true), können keine Aktionen daran mehr vorgenommen werden,
      * die zum Schaden des Kontoinhabers wären (abheben, Inhaberwechsel)
      */
-    private BooleanProperty gesperrt = new SimpleBooleanProperty();
+    private volatile boolean gesperrt;
+
+    /**
+     * Ansicht des Gesperrt-Zustandes für JavaFX, Änderungen daran werden in das Konto übernommen
+     */
+    private volatile BooleanProperty gesperrtAnsicht;
+
+    /**
+     * Abbuchungsregel für Käufe: es darf nur vorhandenes Guthaben verwendet werden
+     */
+    private static final Abbuchungsregel NUR_GUTHABEN = (kontostand, betrag, waehrung) -> kontostand >= betrag;
 
     /**
      * setzt den aktuellen Kontostand
      *
-     * @param kontostand neuer Kontostand
+     * @param kontostand neuer Kontostand in der Kontowährung
      */
     public void setKontostand(double kontostand) {
-        Double oldValue = this.getKontostand();
-        this.kontostand.set(kontostand);
+        long alt;
+        long neu;
+        do {
+            alt = stand;
+            Waehrung w = Geldbetrag.waehrung(alt);
+            neu = Geldbetrag.mitWaehrung(Geldbetrag.ausDouble(kontostand, w), w);
+        } while (!STAND.compareAndSet(this, alt, neu));
+        kontostandGeaendert(alt, neu);
+    }
 
-        if (getKontostand() < 0) {
-            this.minusPlus.set(true);
-        } else {
-            this.minusPlus.set(false);
+    /**
+     * liefert den aktuellen Kontostand in Cent
+     *
+     * @return Kontostand in Cent der Kontowährung
+     */
+    public long getKontostandCent() {
+        return Geldbetrag.betrag(stand);
+    }
+
+    /**
+     * liefert Kontostand und Kontowährung aus demselben Moment, in einer Zahl
+     *
+     * @return Kontostand in Cent und Währung, auszulesen mit {@link Geldbetrag#betrag(long)} und
+     * {@link Geldbetrag#waehrung(long)}
+     */
+    public long getKontostandMitWaehrung() {
+        return stand;
+    }
+
+    /**
+     * bucht den Betrag ab, wenn die Abbuchungsregel dieser Kontoart es erlaubt.
+     * Prüfung und Abbuchung geschehen in einem atomaren Schritt.
+     * Gesperrt-Zustand und Gültigkeit des Betrags werden hier nicht geprüft.
+     *
+     * @param betrag Betrag in Cent der Währung w, nicht negativ
+     * @param w      Währung des Betrags
+     * @return true, wenn abgebucht wurde
+     */
+    protected boolean abbuchen(long betrag, Waehrung w) {
+        return abbuchenWenn(betrag, w, getAbbuchungsregel());
+    }
+
+    /**
+     * bucht den Betrag ab, wenn die angegebene Regel es für den aktuellen Kontostand erlaubt.
+     * Ändert sich der Kontostand oder die Kontowährung gleichzeitig, wird mit dem neuen Stand
+     * erneut umgerechnet und geprüft.
+     *
+     * @param betrag Betrag in Cent der Währung w, nicht negativ
+     * @param w      Währung des Betrags
+     * @param regel  die zu prüfende Regel
+     * @return true, wenn abgebucht wurde
+     */
+    protected final boolean abbuchenWenn(long betrag, Waehrung w, Abbuchungsregel regel) {
+        long alt;
+        long neu;
+        do {
+            alt = stand;
+            Waehrung kontowaehrung = Geldbetrag.waehrung(alt);
+            long abzug = Geldbetrag.umrechnen(betrag, w, kontowaehrung, RoundingMode.HALF_UP);
+            if (!regel.erlaubt(Geldbetrag.betrag(alt), abzug, kontowaehrung)) {
+                return false;
+            }
+            neu = Geldbetrag.mitWaehrung(Math.subtractExact(Geldbetrag.betrag(alt), abzug), kontowaehrung);
+        } while (!STAND.compareAndSet(this, alt, neu));
+        kontostandGeaendert(alt, neu);
+        return true;
+    }
+
+    /**
+     * schreibt den Betrag dem Konto gut, umgerechnet in die Kontowährung im Moment der Buchung
+     *
+     * @param betrag Betrag in Cent der Währung w, nicht negativ
+     * @param w      Währung des Betrags
+     * @throws ArithmeticException wenn der Kontostand dabei überlaufen würde; er bleibt dann unverändert
+     */
+    protected final void gutschreiben(long betrag, Waehrung w) {
+        long alt;
+        long neu;
+        do {
+            alt = stand;
+            Waehrung kontowaehrung = Geldbetrag.waehrung(alt);
+            long gutschrift = Geldbetrag.umrechnen(betrag, w, kontowaehrung, RoundingMode.HALF_UP);
+            neu = Geldbetrag.mitWaehrung(Math.addExact(Geldbetrag.betrag(alt), gutschrift), kontowaehrung);
+        } while (!STAND.compareAndSet(this, alt, neu));
+        kontostandGeaendert(alt, neu);
+    }
+
+    /**
+     * übernimmt eine bereits früher ausgeführte Buchung, z.B. beim Wiederherstellen aus einem Journal.
+     * Abbuchungsregel und Gesperrt-Zustand werden nicht geprüft.
+     *
+     * @param betrag Betrag in Cent der Kontowährung, negativ für Abbuchungen
+     */
+    public final void buchungNachtragen(long betrag) {
+        gutschreiben(betrag, getAktuelleWaehrung());
+    }
+
+    /**
+     * setzt den gespeicherten Zustand eines Kontos, z.B. beim Laden aus einem Kontenspeicher.
+     * Der Kontostand wird nicht umgerechnet.
+     *
+     * @param kontostand Kontostand in Cent der Währung waehrung
+     * @param waehrung   Kontowährung
+     * @param gesperrt   ob das Konto gesperrt ist
+     */
+    public final void zustandWiederherstellen(long kontostand, Waehrung waehrung, boolean gesperrt) {
+        if (waehrung == null) {
+            throw new IllegalArgumentException("Währung darf nicht null sein!");
+        }
+        long neu = Geldbetrag.mitWaehrung(kontostand, waehrung);
+        long alt = (long) STAND.getAndSet(this, neu);
+        kontostandGeaendert(alt, neu);
+        gesperrtSetzen(gesperrt);
+    }
+
+    /**
+     * liefert die Regel, nach der diese Kontoart Abbuchungen erlaubt
+     *
+     * @return Abbuchungsregel der Kontoart
+     */
+    protected abstract Abbuchungsregel getAbbuchungsregel();
+
+    /**
+     * rechnet einen Betrag in der Kontowährung in ganze Cent um
+     *
+     * @param betrag Betrag
+     * @return auf ganze Cent gerundeter Betrag
+     */
+    protected final long inCent(double betrag) {
+        return Geldbetrag.ausDouble(betrag, getAktuelleWaehrung());
+    }
+
+    /**
+     * benachrichtigt die Ansichten und Beobachter über eine Änderung des Kontostandes
+     *
+     * @param alt Kontostand und Währung vorher
+     * @param neu Kontostand und Währung nachher
+     */
+    private void kontostandGeaendert(long alt, long neu) {
+        if (kontostandAnsicht != null || minusPlusAnsicht != null) {
+            ansichtenAktualisieren();
+        }
+        Kontostandhaken haken = kontostandhaken;
+        if (haken != null) {
+            double kontostand = Geldbetrag.alsDouble(Geldbetrag.betrag(neu), Geldbetrag.waehrung(neu));
+            if (Geldbetrag.waehrung(alt) != Geldbetrag.waehrung(neu)
+                    || !(kontostand >= hakenUntergrenze && kontostand < hakenObergrenze)) {
+                haken.kontostandGeaendert(this);
+            }
+        }
+        Kontoereignis.Art art = Geldbetrag.waehrung(alt) == Geldbetrag.waehrung(neu)
+                ? Kontoereignis.Art.KONTOSTAND : Kontoereignis.Art.WAEHRUNG;
+        melden(art, alt, neu);
+    }
+
+    /**
+     * meldet eine Änderung an den Benachrichtigungsdienst, wenn das Konto Beobachter hat
+     *
+     * @param alt Kontostand und Währung vorher
+     * @param neu Kontostand und Währung nachher
+     */
+    private void melden(Kontoereignis.Art art, long alt, long neu) {
+        if (beobachter.length > 0) {
+            Benachrichtigungsdienst.getStandard().melden(postfach, art, Geldbetrag.betrag(alt),
+                    Geldbetrag.waehrung(alt), Geldbetrag.betrag(neu), Geldbetrag.waehrung(neu));
         }
+    }
 
-        propertyChangeSupport.firePropertyChange("\n Your balance has been changed, ",
-                ":" + oldValue + "" + getAktuelleWaehrung() + ". ", ":" + getKontostand() + "" + getAktuelleWaehrung() + "\n");
+    /**
+     * überträgt den aktuellen Stand der Zelle in die JavaFX-Ansichten.
+     * Es wird immer der aktuelle und nicht der gemeldete Stand übernommen,
+     * damit sich überholende Änderungen keinen veralteten Wert hinterlassen.
+     */
+    private synchronized void ansichtenAktualisieren() {
+        long aktuell = stand;
+        if (kontostandAnsicht != null) {
+            kontostandAnsicht.set(Geldbetrag.alsDouble(Geldbetrag.betrag(aktuell), Geldbetrag.waehrung(aktuell)));
+        }
+        if (minusPlusAnsicht != null) {
+            minusPlusAnsicht.set(aktuell < 0);
+        }
     }
 
 
@@ -76,9 +305,6 @@ public abstract class Konto implements Comparable<Konto> {
             throw new IllegalArgumentException("Inhaber darf nicht null sein!");
         this.inhaber = inhaber;
         this.nummer = kontonummer;
-        this.kontostand.set(0);
-        this.gesperrt.set(false);
-        this.aktienDepot = new ArrayList<>();
     }
 
     /**
@@ -107,7 +333,7 @@ public abstract class Konto implements Comparable<Konto> {
     public final void setInhaber(Kunde kinh) throws GesperrtException {
         if (kinh == null)
             throw new IllegalArgumentException("Der Inhaber darf nicht null sein!");
-        if (this.gesperrt.get())
+        if (this.gesperrt)
             throw new GesperrtException(this.nummer);
         this.inhaber = kinh;
 
@@ -119,7 +345,8 @@ public abstract class Konto implements Comparable<Konto> {
      * @return Kontostand
      */
     public double getKontostand() {
-        return kontostand.get();
+        long aktuell = stand;
+        return Geldbetrag.alsDouble(Geldbetrag.betrag(aktuell), Geldbetrag.waehrung(aktuell));
     }
 
     /**
@@ -137,28 +364,135 @@ public abstract class Konto implements Comparable<Konto> {
      * @return true, wenn das Konto gesperrt ist
      */
     public boolean isGesperrt() {
-        return gesperrt.get();
+        return gesperrt;
     }
 
-    public ReadOnlyDoubleProperty kontostandProperty() {
-        return kontostand;
+    /**
+     * liefert eine JavaFX-Ansicht des Kontostandes, die bei jeder Änderung nachgeführt wird
+     *
+     * @return Kontostand als Property
+     */
+    public synchronized ReadOnlyDoubleProperty kontostandProperty() {
+        if (kontostandAnsicht == null) {
+            kontostandAnsicht = new ReadOnlyDoubleWrapper(this, "kontostand", getKontostand());
+        }
+        return kontostandAnsicht.getReadOnlyProperty();
     }
 
-    public ReadOnlyBooleanProperty minusPlusProperty() {
-        return minusPlus;
+    /**
+     * liefert eine JavaFX-Ansicht, die true ist, solange der Kontostand negativ ist
+     *
+     * @return true bei negativem Kontostand
+     */
+    public synchronized ReadOnlyBooleanProperty minusPlusProperty() {
+        if (minusPlusAnsicht == null) {
+            minusPlusAnsicht = new ReadOnlyBooleanWrapper(this, "minusPlus", stand < 0);
+        }
+        return minusPlusAnsicht.getReadOnlyProperty();
     }
 
-    public ReadOnlyBooleanProperty gesperrtProperty() {
-        return gesperrt;
+    /**
+     * liefert eine JavaFX-Ansicht des Gesperrt-Zustandes.
+     * Die Property ist beschreibbar, gesetzte Werte sperren bzw. entsperren das Konto.
+     *
+     * @return Gesperrt-Zustand als Property
+     */
+    public synchronized ReadOnlyBooleanProperty gesperrtProperty() {
+        if (gesperrtAnsicht == null) {
+            BooleanProperty ansicht = new SimpleBooleanProperty(this, "gesperrt", gesperrt);
+            ansicht.addListener((beobachtet, alt, neu) -> this.gesperrt = neu);
+            gesperrtAnsicht = ansicht;
+        }
+        return gesperrtAnsicht;
+    }
+
+    /**
+     * meldet einen Beobachter an, der über alle folgenden Änderungen dieses Kontos benachrichtigt wird
+     *
+     * @param b der Beobachter
+     * @throws IllegalArgumentException wenn b null ist
+     */
+    public synchronized void beobachterAnmelden(Kontobeobachter b) {
+        if (b == null)
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        if (postfach == null) {
+            postfach = new Benachrichtigungsdienst.Postfach(this);
+        }
+        Kontobeobachter[] neu = Arrays.copyOf(beobachter, beobachter.length + 1);
+        neu[neu.length - 1] = b;
+        beobachter = neu;
+    }
+
+    /**
+     * meldet einen Beobachter ab; Ereignisse, die schon zugestellt werden, kann er noch bekommen
+     *
+     * @param b der Beobachter
+     */
+    public synchronized void beobachterAbmelden(Kontobeobachter b) {
+        Kontobeobachter[] alt = beobachter;
+        for (int i = 0; i < alt.length; i++) {
+            if (alt[i].equals(b)) {
+                Kontobeobachter[] neu = Arrays.copyOf(alt, alt.length - 1);
+                System.arraycopy(alt, i + 1, neu, i, alt.length - i - 1);
+                beobachter = alt.length == 1 ? KEINE_BEOBACHTER : neu;
+                return;
+            }
+        }
+    }
+
+    /**
+     * setzt den Haken, der synchron nach jeder Änderung des Kontostandes aufgerufen wird,
+     * z.B. von der Bank, die das Konto verwaltet, um einen Index nachzuführen. Es gibt höchstens einen.
+     * Ein vorher gesetzter Bereich gilt nicht mehr.
+     *
+     * @param haken der neue Haken, null für keinen
+     */
+    public void setKontostandhaken(Kontostandhaken haken) {
+        hakenUntergrenze = Double.POSITIVE_INFINITY;
+        hakenObergrenze = Double.NEGATIVE_INFINITY;
+        this.kontostandhaken = haken;
     }
 
     /**
-     * For adding propertyChangeListener
+     * setzt den Bereich, in dem sich der Kontostand ändern darf, ohne dass der Haken aufgerufen wird;
+     * ein Wechsel der Währung ruft ihn immer auf. Verglichen wird {@link #getKontostand()} nach der Änderung.
+     * Wer den Bereich setzt, muss den Kontostand danach noch einmal lesen: eine gleichzeitige Änderung kann
+     * noch am alten Bereich gemessen worden sein.
+     *
+     * @param untergrenze kleinster Kontostand im Bereich
+     * @param obergrenze  kleinster Kontostand über dem Bereich
+     */
+    public void setKontostandhakenBereich(double untergrenze, double obergrenze) {
+        hakenUntergrenze = untergrenze;
+        hakenObergrenze = obergrenze;
+    }
+
+    /**
+     * liefert den Haken, der nach jeder Änderung des Kontostandes aufgerufen wird
+     *
+     * @return der Haken, null wenn keiner gesetzt ist
+     */
+    public Kontostandhaken getKontostandhaken() {
+        return kontostandhaken;
+    }
+
+    /**
+     * liefert die angemeldeten Beobachter
+     */
+    Kontobeobachter[] getBeobachter() {
+        return beobachter;
+    }
+
+    /**
+     * For adding propertyChangeListener. The listener is called on the notification thread,
+     * see {@link Kontobeobachter#kontoGeaendert(Kontoereignis)}.
      *
      * @param listener, the listener which will get add.
      */
     public void addPropertyChangeListener(PropertyChangeListener listener) {
-        propertyChangeSupport.addPropertyChangeListener(listener);
+        if (listener != null) {
+            beobachterAnmelden(new PropertyChangeBeobachter(listener));
+        }
     }
 
     /**
@@ -167,7 +501,35 @@ public abstract class Konto implements Comparable<Konto> {
      * @param listener, the listener which will get removed.
      */
     public void removePropertyChangeListener(PropertyChangeListener listener) {
-        propertyChangeSupport.removePropertyChangeListener(listener);
+        beobachterAbmelden(new PropertyChangeBeobachter(listener));
+    }
+
+    /**
+     * reicht die Ereignisse als PropertyChangeEvents mit Texten an einen PropertyChangeListener weiter
+     */
+    private record PropertyChangeBeobachter(PropertyChangeListener listener) implements Kontobeobachter {
+        @Override
+        public void kontoGeaendert(Kontoereignis e) {
+            switch (e.art()) {
+                case KONTOSTAND -> kontostandGeaendert(e);
+                case GESPERRT -> listener.propertyChange(new PropertyChangeEvent(e.konto(),
+                        "Your account has been blocked! \n", ":unblocked, ", ":blocked!" + "\n"));
+                case ENTSPERRT -> listener.propertyChange(new PropertyChangeEvent(e.konto(),
+                        "Your account is unblocked! \n", ":blocked, ", ":unblocked!" + "\n"));
+                case WAEHRUNG -> {
+                    kontostandGeaendert(e);
+                    listener.propertyChange(new PropertyChangeEvent(e.konto(),
+                            "Your account currency has been changed, \n",
+                            ": " + e.alteWaehrung() + " ", ":" + e.neueWaehrung() + "\n"));
+                }
+            }
+        }
+
+        private void kontostandGeaendert(Kontoereignis e) {
+            listener.propertyChange(new PropertyChangeEvent(e.konto(), "\n Your balance has been changed, ",
+                    ":" + e.getAlterKontostand() + "" + e.alteWaehrung() + ". ",
+                    ":" + e.getNeuerKontostand() + "" + e.neueWaehrung() + "\n"));
+        }
     }
 
     /**
@@ -180,23 +542,22 @@ public abstract class Konto implements Comparable<Konto> {
         if (betrag < 0 || !Doubles.isFinite(betrag)) {
             throw new IllegalArgumentException("Falscher Betrag");
         }
-        setKontostand(getKontostand() + betrag);
+        Waehrung w = getAktuelleWaehrung();
+        gutschreiben(Geldbetrag.ausDouble(betrag, w), w);
     }
 
     @Override
     public String toString() {
-        String ausgabe;
-        ausgabe = "Kontonummer: " + this.getKontonummerFormatiert()
-                + System.getProperty("line.separator");
-        ausgabe += "Inhaber: " + this.inhaber;
-        ausgabe += "Aktueller Kontostand: " + getKontostandFormatiert() + " ";
-        ausgabe += this.getGesperrtText() + System.getProperty("line.separator");
-        return ausgabe;
+        return "Kontonummer: " + this.getKontonummerFormatiert() + System.lineSeparator()
+                + "Inhaber: " + this.inhaber
+                + "Aktueller Kontostand: " + getKontostandFormatiert() + " "
+                + this.getGesperrtText() + System.lineSeparator();
     }
 
     /**
      * Mit dieser Methode wird der geforderte Betrag vom Konto abgehoben, wenn es nicht gesperrt ist
-     * und die speziellen Abheberegeln des jeweiligen Kontotyps die Abhebung erlauben
+     * und die speziellen Abheberegeln des jeweiligen Kontotyps die Abhebung erlauben.
+     * Der Betrag gilt in der Kontowährung zum Zeitpunkt des Aufrufs.
      *
      * @param betrag double
      * @return true, wenn die Abhebung geklappt hat,
@@ -208,29 +569,51 @@ public abstract class Konto implements Comparable<Konto> {
         if (betrag <= 0 || Double.isNaN(betrag) || Double.isInfinite(betrag)) {
             return false;
         }
-        if (this.geldCheck(betrag)) {
-            setKontostand(getKontostand() - betrag);
-            return true;
+        if (this.isGesperrt()) {
+            return false;
         }
-        return false;
+        Waehrung w = getAktuelleWaehrung();
+        return abbuchen(Geldbetrag.ausDouble(betrag, w), w);
     }
 
-    public abstract boolean geldCheck(double betrag);
+    /**
+     * prüft, ob der Betrag im Moment abgehoben werden dürfte. Das Ergebnis ist nur eine Momentaufnahme,
+     * ob tatsächlich abgebucht wird, entscheidet {@link #abheben(double)} atomar.
+     *
+     * @param betrag double
+     * @return true, wenn das Konto nicht gesperrt ist und die Abbuchungsregel den Betrag erlaubt
+     */
+    public boolean geldCheck(double betrag) {
+        long aktuell = stand;
+        Waehrung w = Geldbetrag.waehrung(aktuell);
+        return !isGesperrt()
+                && getAbbuchungsregel().erlaubt(Geldbetrag.betrag(aktuell), Geldbetrag.ausDouble(betrag, w), w);
+    }
 
     /**
      * sperrt das Konto, Aktionen zum Schaden des Benutzers sind nicht mehr möglich.
      */
     public void sperren() {
-        this.gesperrt.set(true);
-        propertyChangeSupport.firePropertyChange("Your account has been blocked! \n", ":unblocked, ", ":blocked!" + "\n");
+        gesperrtSetzen(true);
+        long aktuell = stand;
+        melden(Kontoereignis.Art.GESPERRT, aktuell, aktuell);
     }
 
     /**
      * entsperrt das Konto, alle Kontoaktionen sind wieder möglich.
      */
     public final void entsperren() {
-        this.gesperrt.set(false);
-        propertyChangeSupport.firePropertyChange("Your account is unblocked! \n", ":blocked, ", ":unblocked!" + "\n");
+        gesperrtSetzen(false);
+        long aktuell = stand;
+        melden(Kontoereignis.Art.ENTSPERRT, aktuell, aktuell);
+    }
+
+    private void gesperrtSetzen(boolean wert) {
+        this.gesperrt = wert;
+        BooleanProperty ansicht = gesperrtAnsicht;
+        if (ansicht != null) {
+            ansicht.set(wert);
+        }
     }
 
 
@@ -240,7 +623,7 @@ public abstract class Konto implements Comparable<Konto> {
      * @return "GESPERRT", wenn das Konto gesperrt ist, ansonsten ""
      */
     public final String getGesperrtText() {
-        if (this.gesperrt.get()) {
+        if (this.gesperrt) {
             return "GESPERRT";
         } else {
             return "";
@@ -262,17 +645,20 @@ public abstract class Konto implements Comparable<Konto> {
      * @return formatierter Kontostand mit 2 Nachkommastellen und Währungssymbol
      */
     public String getKontostandFormatiert() {
-        if (getAktuelleWaehrung() == Waehrung.EUR) {
-            return String.format("%10.2f €", this.getKontostand());
+        long aktuell = stand;
+        Waehrung w = Geldbetrag.waehrung(aktuell);
+        double kontostand = Geldbetrag.alsDouble(Geldbetrag.betrag(aktuell), w);
+        if (w == Waehrung.EUR) {
+            return String.format("%10.2f €", kontostand);
         }
-        if (getAktuelleWaehrung() == Waehrung.BGN) {
-            return String.format("%10.2f BGN", this.getKontostand());
+        if (w == Waehrung.BGN) {
+            return String.format("%10.2f BGN", kontostand);
         }
-        if (getAktuelleWaehrung() == Waehrung.MKD) {
-            return String.format("%10.2f MKD", this.getKontostand());
+        if (w == Waehrung.MKD) {
+            return String.format("%10.2f MKD", kontostand);
         }
-        if (getAktuelleWaehrung() == Waehrung.DKK) {
-            return String.format("%10.2f DKK", this.getKontostand());
+        if (w == Waehrung.DKK) {
+            return String.format("%10.2f DKK", kontostand);
         } else return "N/A";
     }
 
@@ -299,9 +685,7 @@ public abstract class Konto implements Comparable<Konto> {
         if (betrag <= 0) {
             return;
         }
-        double tempBetrag = w.waehrungInEuroUmrechnen(betrag);
-        tempBetrag = getAktuelleWaehrung().euroInWaehrungUmrechnen(tempBetrag);
-        setKontostand(getKontostand() + tempBetrag);
+        gutschreiben(Geldbetrag.ausDouble(betrag, w), w);
     }
 
     /**
@@ -311,28 +695,32 @@ public abstract class Konto implements Comparable<Konto> {
      */
 
     public Waehrung getAktuelleWaehrung() {
-        return typ;
+        return Geldbetrag.waehrung(stand);
     }
 
     /**
      * Changes the currency of the account and converts the balance if necessary.
+     * Balance and currency change in one atomic step, a concurrent booking is either converted with the balance
+     * or booked in the new currency.
      *
      * @param neu The new currency for the account.
      */
 
     public void waehrungswechsel(Waehrung neu) {
-        Waehrung oldWaehrung = getAktuelleWaehrung();
-        if (getAktuelleWaehrung() == Waehrung.EUR) {
-            setKontostand(neu.euroInWaehrungUmrechnen(getKontostand()));
-            typ = neu;
-        }
-        if (getAktuelleWaehrung() != Waehrung.EUR) {
-            setKontostand(getAktuelleWaehrung().waehrungInEuroUmrechnen(getKontostand()));
-            setKontostand(neu.euroInWaehrungUmrechnen(getKontostand()));
-            typ = neu;
-        }
-        propertyChangeSupport.firePropertyChange("Your account currency has been changed, \n",
-                ": " + oldWaehrung + " ", ":" + typ + "\n");
+        if (neu == null)
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        long alt;
+        long umgerechnet;
+        do {
+            alt = stand;
+            Waehrung bisher = Geldbetrag.waehrung(alt);
+            if (bisher == neu) {
+                return;
+            }
+            umgerechnet = Geldbetrag.mitWaehrung(
+                    Geldbetrag.umrechnen(Geldbetrag.betrag(alt), bisher, neu, RoundingMode.HALF_UP), neu);
+        } while (!STAND.compareAndSet(this, alt, umgerechnet));
+        kontostandGeaendert(alt, umgerechnet);
     }
 
     /**
@@ -342,41 +730,44 @@ public abstract class Konto implements Comparable<Konto> {
      * @param a            The Aktie (stock) to be bought.
      * @param anzahl       The number of shares to buy.
      * @param hoechstpreis The maximum price at which the purchase is triggered.
-     * @return A Future representing the completion of the buy order, returning the total purchase cost.
-     */
-    public Future<Double> kaufauftrag(Aktie a, int anzahl, double hoechstpreis) {
-        service.submit(() -> {
-            // Asynchronously wait for the stock price to fall below the specified maximum price
-            double aktuellerPreis = a.getAktuellerPreis();
-            while (aktuellerPreis > hoechstpreis) {
-                try {
-                    Thread.sleep(1000); // Wait 1 second between price checks
-                } catch (InterruptedException e) {
-                    throw new RuntimeException(e);
-                }
-                aktuellerPreis = a.getAktuellerPreis();
-            }
-
-            System.out.println("CurrentValue is under, " + hoechstpreis + "€. Now is the time to buy. Current Value: " + aktuellerPreis + "€");
-
-            // Price has fallen, check if the account balance is sufficient
-            double gesamtkaufpreis = aktuellerPreis * anzahl;
-            if (getKontostand() >= gesamtkaufpreis) {
-                System.out.println("Buying, " + anzahl + " " + a.getName() + "-stock for: " + gesamtkaufpreis + "€");
-
-                // Perform the purchase
-                this.setKontostand(getKontostand() - gesamtkaufpreis);
-                System.out.println("Kontostand: " + kontostand + "€");
+     * @return The result of the buy order, see {@link #kaufauftrag(Aktie, int, double, Duration)}.
+     */
+    public CompletableFuture<Auftragsergebnis> kaufauftrag(Aktie a, int anzahl, double hoechstpreis) {
+        return kaufauftrag(a, anzahl, hoechstpreis, null);
+    }
 
-                for (int i = 0; i < anzahl; i++) {
-                    aktienDepot.add(a);
-                }
-                return gesamtkaufpreis;
-            }
-            // Return 0.0 if the purchase was not successful
-            return 0.0;
+    /**
+     * Executes a buy order for a specified number of shares of a given stock (Aktie)
+     * when its current price falls below a specified maximum price.
+     * The order waits in the order book of the stock and is triggered by the first price at or below the limit;
+     * the shares are bought at that price, never above the limit, even if the price has moved again before the order
+     * is executed. The calling thread does not wait for any of this.
+     *
+     * @param a            The Aktie (stock) to be bought.
+     * @param anzahl       The number of shares to buy.
+     * @param hoechstpreis The maximum price at which the purchase is triggered.
+     * @param gueltigkeit  How long the order waits for its price, null for no limit.
+     * @return The fill price, the number of shares and the resulting balance. A rejected order completes with an
+     * {@link AuftragAbgelehntException}: {@link Ablehnungsgrund#NICHT_GEDECKT} if the balance does not cover the
+     * purchase, {@link Ablehnungsgrund#GESPERRT} if the account is locked, {@link Ablehnungsgrund#ABGELAUFEN}
+     * after the validity period. Cancelling it, or letting {@link CompletableFuture#orTimeout} end it,
+     * withdraws the order from the order book.
+     * @throws IllegalArgumentException If the stock is null, the number of shares is not positive or the price is negative.
+     */
+    public CompletableFuture<Auftragsergebnis> kaufauftrag(Aktie a, int anzahl, double hoechstpreis, Duration gueltigkeit) {
+        if (a == null || anzahl <= 0 || hoechstpreis < 0 || !Doubles.isFinite(hoechstpreis))
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        long limit = Geldbetrag.ausDouble(hoechstpreis, Waehrung.EUR);
+        return a.getOrderbuch().einstellen(this, Orderbuch.Seite.KAUF, limit, gueltigkeit, kursCent -> {
+            if (isGesperrt())
+                throw new AuftragAbgelehntException(nummer, Ablehnungsgrund.GESPERRT);
+            long gesamtkaufpreisCent = Math.multiplyExact(kursCent, anzahl);
+            // Check the balance and perform the purchase in one step
+            if (!abbuchenWenn(gesamtkaufpreisCent, Waehrung.EUR, NUR_GUTHABEN))
+                throw new AuftragAbgelehntException(nummer, Ablehnungsgrund.NICHT_GEDECKT);
+            depot.kaufen(a, anzahl, kursCent);
+            return new Auftragsergebnis(a.getWertpapierId(), anzahl, kursCent, getKontostandCent(), getAktuelleWaehrung());
         });
-        return null;
     }
 
     /**
@@ -384,31 +775,97 @@ public abstract class Konto implements Comparable<Konto> {
      *
      * @param wkn          The Wertpapierkennnummer (stock ID) of the Aktie to be sold.
      * @param minimalpreis The minimum price at which the sale is triggered.
-     * @return A Future representing the completion of the sell order, returning the total revenue from the sale.
+     * @return The result of the sell order, see {@link #verkaufauftrag(String, double, Duration)}.
      */
-    public Future<Double> verkaufauftrag(String wkn, double minimalpreis) {
-        List<Aktie> wantedAktie = new ArrayList<>();
+    public CompletableFuture<Auftragsergebnis> verkaufauftrag(String wkn, double minimalpreis) {
+        return verkaufauftrag(wkn, minimalpreis, null);
+    }
 
-        service.submit(() -> {
-            for (Aktie aktie : aktienDepot) {
-                if (Long.parseLong(wkn) == aktie.getWertpapierId()) {
-                    wantedAktie.add(aktie);
-                }
-            }
+    /**
+     * Executes a sell order for all shares of a specified stock (Aktie) when its current price exceeds a specified minimum price.
+     * The order waits in the order book of the stock and is triggered by the first price at or above the limit;
+     * the shares are sold at that price, never below the limit, even if the price has moved again before the order
+     * is executed. The calling thread does not wait for any of this.
+     *
+     * @param wkn          The Wertpapierkennnummer (stock ID) of the Aktie to be sold.
+     * @param minimalpreis The minimum price at which the sale is triggered.
+     * @param gueltigkeit  How long the order waits for its price, null for no limit.
+     * @return The fill price, the number of shares sold and the resulting balance. A rejected order completes with an
+     * {@link AuftragAbgelehntException}: {@link Ablehnungsgrund#KEINE_AKTIEN} if the depot holds no shares of the
+     * stock, {@link Ablehnungsgrund#GESPERRT} if the account is locked, {@link Ablehnungsgrund#ABGELAUFEN}
+     * after the validity period. Cancelling it, or letting {@link CompletableFuture#orTimeout} end it,
+     * withdraws the order from the order book.
+     * @throws IllegalArgumentException If the stock ID is not a number or the price is negative.
+     */
+    public CompletableFuture<Auftragsergebnis> verkaufauftrag(String wkn, double minimalpreis, Duration gueltigkeit) {
+        if (wkn == null || minimalpreis < 0 || !Doubles.isFinite(minimalpreis))
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        long wertpapierId;
+        try {
+            wertpapierId = Long.parseLong(wkn);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Parameter fehlerhaft", e);
+        }
+        Depotposition position = depot.getPosition(wertpapierId);
+        if (position == null || position.anzahl() == 0) {
+            return CompletableFuture.failedFuture(new AuftragAbgelehntException(nummer, Ablehnungsgrund.KEINE_AKTIEN));
+        }
+        Aktie verkauft = position.aktie();
+        long limit = Geldbetrag.ausDouble(minimalpreis, Waehrung.EUR);
+        return verkauft.getOrderbuch().einstellen(this, Orderbuch.Seite.VERKAUF, limit, gueltigkeit, kursCent -> {
+            if (isGesperrt())
+                throw new AuftragAbgelehntException(nummer, Ablehnungsgrund.GESPERRT);
+            long anzahl = depot.verkaufen(wertpapierId, Long.MAX_VALUE, kursCent);
+            // the shares may have been sold by an earlier order of this account in the meantime
+            if (anzahl == 0)
+                throw new AuftragAbgelehntException(nummer, Ablehnungsgrund.KEINE_AKTIEN);
+            long erloesCent = Math.multiplyExact(kursCent, anzahl);
+            gutschreiben(erloesCent, Waehrung.EUR);
+            return new Auftragsergebnis(wertpapierId, anzahl, kursCent, getKontostandCent(), getAktuelleWaehrung());
+        });
+    }
 
-            int howManyShares = wantedAktie.size();
-            if (!wantedAktie.isEmpty() && wantedAktie.get(0).getAktuellerPreis() < minimalpreis) {
-                einzahlen(howManyShares * minimalpreis);
-            }
+    /**
+     * liefert die Bestände im Depot, je Wertpapier einen
+     *
+     * @return Kopie der Bestände, auch solche ohne Aktien, aber mit realisiertem Gewinn
+     */
+    public List<Depotposition> getDepot() {
+        return depot.getPositionen();
+    }
 
-            System.out.println("Kontostand after the sell of: " + wantedAktie.get(0).getName() + " " + kontostand + "€");
-            aktienDepot.removeAll(wantedAktie);
+    /**
+     * liefert den Bestand eines Wertpapiers im Depot
+     *
+     * @param wertpapierId das Wertpapier
+     * @return der Bestand, null wenn das Wertpapier nie im Depot war
+     */
+    public Depotposition getPosition(long wertpapierId) {
+        return depot.getPosition(wertpapierId);
+    }
 
-            return kontostand;
-        });
-        return null;
+    /**
+     * legt Aktien ins Depot, ohne sie zu bezahlen; ihr Einstandswert ist 0
+     *
+     * @param a      die Aktie
+     * @param anzahl Anzahl der Aktien
+     */
+    public void aktienEinbuchen(Aktie a, long anzahl) {
+        if (a == null || anzahl < 0)
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        depot.einbuchen(a, anzahl, 0, 0);
     }
 
+    /**
+     * übernimmt einen gespeicherten Bestand ins Depot, z.B. beim Laden eines gespeicherten Kontos
+     *
+     * @param position der Bestand
+     */
+    public void positionWiederherstellen(Depotposition position) {
+        if (position == null || position.aktie() == null || position.anzahl() < 0)
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        depot.einbuchen(position.aktie(), position.anzahl(), position.einstandCent(), position.realisiertCent());
+    }
 
     /**
      * Vergleich von this mit other; Zwei Konten gelten als gleich,
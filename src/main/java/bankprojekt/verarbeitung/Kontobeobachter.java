@@ -0,0 +1,19 @@
+package bankprojekt.verarbeitung;
+
+/**
+ * Beobachter der Änderungen eines Kontos, siehe {@link Konto#beobachterAnmelden(Kontobeobachter)}
+ */
+@FunctionalInterface
+public interface Kontobeobachter {
+    /**
+     * wird nach einer Änderung des Kontos aufgerufen, nie auf dem Thread, der die Änderung vorgenommen hat.
+     * Die Ereignisse eines Kontos kommen in der Reihenfolge, in der sie eingetreten sind; mehrere
+     * aufeinanderfolgende Änderungen des Kontostandes können zu einem Ereignis zusammengefasst sein.
+     * Solange der Aufruf läuft, werden den Konten desselben Zusteller-Threads keine weiteren Ereignisse
+     * zugestellt, er sollte also kurz sein. Ein Beobachter mehrerer Konten kann gleichzeitig auf mehreren
+     * Threads aufgerufen werden.
+     *
+     * @param ereignis die Änderung
+     */
+    void kontoGeaendert(Kontoereignis ereignis);
+}
@@ -0,0 +1,53 @@
+package bankprojekt.verarbeitung;
+
+/**
+ * eine Änderung eines Kontos, wie sie einem {@link Kontobeobachter} zugestellt wird
+ *
+ * @param konto        das geänderte Konto
+ * @param art          was sich geändert hat
+ * @param alt          Kontostand vor der Änderung in Cent der alten Währung
+ * @param alteWaehrung Kontowährung vor der Änderung
+ * @param neu          Kontostand nach der Änderung in Cent der neuen Währung
+ * @param neueWaehrung Kontowährung nach der Änderung
+ */
+public record Kontoereignis(Konto konto, Art art, long alt, Waehrung alteWaehrung, long neu, Waehrung neueWaehrung) {
+    /**
+     * Art einer Kontoänderung
+     */
+    public enum Art {
+        /**
+         * der Kontostand hat sich geändert
+         */
+        KONTOSTAND,
+        /**
+         * das Konto wurde gesperrt; der Kontostand ist unverändert
+         */
+        GESPERRT,
+        /**
+         * das Konto wurde entsperrt; der Kontostand ist unverändert
+         */
+        ENTSPERRT,
+        /**
+         * die Kontowährung hat sich geändert, der Kontostand wurde umgerechnet
+         */
+        WAEHRUNG
+    }
+
+    /**
+     * liefert den Kontostand vor der Änderung
+     *
+     * @return Kontostand in der alten Währung
+     */
+    public double getAlterKontostand() {
+        return Geldbetrag.alsDouble(alt, alteWaehrung);
+    }
+
+    /**
+     * liefert den Kontostand nach der Änderung
+     *
+     * @return Kontostand in der neuen Währung
+     */
+    public double getNeuerKontostand() {
+        return Geldbetrag.alsDouble(neu, neueWaehrung);
+    }
+}
@@ -0,0 +1,17 @@
+package bankprojekt.verarbeitung;
+
+/**
+ * wird nach einer Änderung des Kontostandes eines Kontos aufgerufen, siehe {@link Konto#setKontostandhaken};
+ * mit {@link Konto#setKontostandhakenBereich} nur, wenn der Kontostand einen Bereich verlässt
+ */
+@FunctionalInterface
+public interface Kontostandhaken {
+    /**
+     * wird synchron auf dem Thread aufgerufen, der den Kontostand geändert hat, und muss daher schnell sein.
+     * Ändern mehrere Threads den Kontostand gleichzeitig, kann der Aufruf schon einen späteren Stand sehen;
+     * nach der letzten Änderung, die den Bereich verlässt, kommt aber immer noch ein Aufruf.
+     *
+     * @param konto das geänderte Konto
+     */
+    void kontostandGeaendert(Konto konto);
+}
@@ -1,14 +1,12 @@
 package bankprojekt.verarbeitung;
 
-import javafx.beans.property.SimpleStringProperty;
-import javafx.beans.property.StringProperty;
-
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.time.format.FormatStyle;
 import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Kunde einer Bank
@@ -16,6 +14,16 @@ import java.util.Locale;
  */
 public class Kunde implements Comparable<Kunde>, Serializable {
 
+	/**
+	 * Anzahl der bisher erzeugten Kunden, wird beim Beenden der JVM gemeldet
+	 */
+	private static final LongAdder ERZEUGT = new LongAdder();
+
+	static {
+		// ein einziger Hook für alle Kunden statt eines Threads je Kunde
+		Runtime.getRuntime().addShutdownHook(new Thread(new Zerstoerer(), "Kunden-Zerstoerer"));
+	}
+
 	/**
 	 * Ein Musterkunde
 	 */
@@ -45,11 +53,11 @@ public class Kunde implements Comparable<Kunde>, Serializable {
 	/**
 	 * Die Adresse
 	 */
-	private StringProperty adresse = new SimpleStringProperty();
+	private String adresse;
 	/**
-	 * Geburtstag
+	 * Geburtstag als Tag seit 1970-01-01, ein int statt eines LocalDate-Objekts je Kunde
 	 */
-	private LocalDate geburtstag;
+	private final int geburtstag;
 
 	/**
 	 * erzeugt den Standardkunden Max Mustermann
@@ -72,14 +80,9 @@ public class Kunde implements Comparable<Kunde>, Serializable {
 			throw new IllegalArgumentException("null als Parameter nich erlaubt");
 		this.vorname = vorname;
 		this.nachname = nachname;
-		this.adresse.set(adresse);
-		this.geburtstag = gebdat;
-		
-		Runtime umgebung = Runtime.getRuntime();
-		Runnable r = new Zerstoerer();
-		Thread t = new Thread(r);
-		umgebung.addShutdownHook(t);
-		
+		this.adresse = adresse;
+		this.geburtstag = Math.toIntExact(gebdat.toEpochDay());
+		ERZEUGT.increment();
 	}
 	
 	/**
@@ -87,11 +90,11 @@ public class Kunde implements Comparable<Kunde>, Serializable {
 	 * @author Doro
 	 *
 	 */
-	private class Zerstoerer implements Runnable
+	private static class Zerstoerer implements Runnable
 	{
 		@Override
 		public void run() {
-			System.out.println("Kunde " + Kunde.this.getName() + " zerstört");
+			System.out.println(ERZEUGT.sum() + " Kunden zerstört");
 		}
 	}
 
@@ -118,9 +121,9 @@ public class Kunde implements Comparable<Kunde>, Serializable {
 	public String toString() {
 		String ausgabe;
 		DateTimeFormatter df = DateTimeFormatter.ofLocalizedDate(FormatStyle.SHORT);
-		ausgabe = this.vorname + " " + this.nachname + System.getProperty("line.separator");
-		ausgabe += this.adresse + System.getProperty("line.separator");
-		ausgabe += df.format(this.geburtstag) + System.getProperty("line.separator");
+		ausgabe = this.vorname + " " + this.nachname + System.lineSeparator();
+		ausgabe += this.adresse + System.lineSeparator();
+		ausgabe += df.format(getGeburtstag()) + System.lineSeparator();
 		return ausgabe;
 	}
 
@@ -139,7 +142,7 @@ public class Kunde implements Comparable<Kunde>, Serializable {
 	 * @return Adresse des Kunden
 	 */
 	public String getAdresse() {
-		return this.adresse.get();
+		return this.adresse;
 	}
 
 	/**
@@ -150,7 +153,7 @@ public class Kunde implements Comparable<Kunde>, Serializable {
 	public void setAdresse(String adresse) {
 		if(adresse == null)
 			throw new IllegalArgumentException("Adresse darf nicht null sein");
-		this.adresse.set(adresse);
+		this.adresse = adresse;
 	}
 
 	/**
@@ -196,7 +199,7 @@ public class Kunde implements Comparable<Kunde>, Serializable {
 	 * @return Geburtstag des Kunden
 	 */
 	public LocalDate getGeburtstag() {
-		return geburtstag;
+		return LocalDate.ofEpochDay(geburtstag);
 	}
 
 	@Override
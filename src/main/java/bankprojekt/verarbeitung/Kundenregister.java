@@ -0,0 +1,55 @@
+package bankprojekt.verarbeitung;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * sorgt dafür, dass es zu gleichen Kundendaten nur einen {@link Kunde}n gibt, z.B. beim Laden vieler Konten.
+ * <p>
+ * Ein Kunde wird an den Daten erkannt, mit denen er registriert wurde; ändert man später z.B. seine Adresse,
+ * findet ihn das Register nur noch unter den alten Daten. Vor-, Nachnamen und Adressen, die mehrfach vorkommen,
+ * liegen nur einmal im Speicher, auch wenn sie zu verschiedenen Kunden gehören.
+ */
+public final class Kundenregister {
+    private record Schluessel(String vorname, String nachname, String adresse, long geburtstag) {
+    }
+
+    private final Map<Schluessel, Kunde> kunden = new ConcurrentHashMap<>();
+    private final Map<String, String> texte = new ConcurrentHashMap<>();
+
+    /**
+     * liefert den Kunden mit den angegebenen Daten und legt ihn an, wenn es ihn noch nicht gibt
+     *
+     * @param vorname  Vorname
+     * @param nachname Nachname
+     * @param adresse  Adresse
+     * @param gebdat   Geburtstag
+     * @return der einzige registrierte Kunde mit diesen Daten
+     * @throws IllegalArgumentException wenn einer der Parameter null ist
+     */
+    public Kunde registrieren(String vorname, String nachname, String adresse, LocalDate gebdat) {
+        if (vorname == null || nachname == null || adresse == null || gebdat == null)
+            throw new IllegalArgumentException("null als Parameter nich erlaubt");
+        // der Schlüssel bleibt im Register, er darf also nur die gemeinsamen Texte halten
+        String v = text(vorname), n = text(nachname), a = text(adresse);
+        return kunden.computeIfAbsent(new Schluessel(v, n, a, gebdat.toEpochDay()), s -> new Kunde(v, n, a, gebdat));
+    }
+
+    /**
+     * liefert zu einem Text die eine Instanz, die das Register für ihn verwendet
+     */
+    private String text(String text) {
+        String vorhanden = texte.putIfAbsent(text, text);
+        return vorhanden == null ? text : vorhanden;
+    }
+
+    /**
+     * liefert die Anzahl der registrierten Kunden
+     *
+     * @return Anzahl der Kunden
+     */
+    public int getAnzahl() {
+        return kunden.size();
+    }
+}
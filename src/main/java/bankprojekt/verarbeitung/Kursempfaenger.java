@@ -0,0 +1,16 @@
+package bankprojekt.verarbeitung;
+
+/**
+ * Empfänger der Kurse eines abonnierten Wertpapiers, siehe {@link Marktdaten#abonnieren}
+ */
+@FunctionalInterface
+public interface Kursempfaenger {
+    /**
+     * wird mit dem neuesten Kurs aufgerufen; Kurse, die zwischen zwei Aufrufen veraltet sind,
+     * werden nicht zugestellt
+     *
+     * @param wertpapierId das Wertpapier
+     * @param kursCent     der neueste Kurs in Euro-Cent
+     */
+    void kursGeaendert(long wertpapierId, long kursCent);
+}
@@ -0,0 +1,287 @@
+package bankprojekt.verarbeitung;
+
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Kursquelle für alle {@link Aktie}n.
+ * <p>
+ * Für jede Wertpapier-Id gibt es genau eine {@link Notierung} mit dem letzten Kurs. Eine Aktie hält ihre
+ * Notierung direkt, das Lesen des Kurses ist also ein einziger volatiler Zugriff ohne Sperre.
+ * Neue Kurse kommen über {@link #kursSetzen(long, long)} oder, wenn die Marktdaten mit einem Takt angelegt
+ * wurden, aus einem einzigen Hintergrund-Thread, der alle Kurse zufällig um bis zu 3% verändert.
+ * <p>
+ * Abonnenten werden je Wertpapier gezielt benachrichtigt. Die Zustellung ist zusammenfassend: Kommt ein
+ * Abonnent nicht hinterher, bekommt er beim nächsten Aufruf nur den neuesten Kurs, die Zwischenstände
+ * verfallen. Für einen Abonnenten läuft nie mehr als eine Zustellung gleichzeitig.
+ * <p>
+ * Vor den Abonnenten wird mit jedem neuen Kurs das {@link Orderbuch} des Wertpapiers ausgewertet.
+ * Orderbuch und Abonnenten lesen dabei den Kurs der Notierung selbst, nicht den Wert, der die Auswertung
+ * angestoßen hat; setzen zwei Threads gleichzeitig einen Kurs, kommt also zuletzt immer der aktuelle an.
+ */
+public final class Marktdaten implements AutoCloseable {
+    private final Map<Long, Notierung> notierungen = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService takt;
+
+    /**
+     * legt Marktdaten an, deren Kurse sich nur über {@link #kursSetzen(long, long)} ändern
+     */
+    public Marktdaten() {
+        takt = null;
+    }
+
+    /**
+     * legt Marktdaten an, deren Kurse sich in jedem Takt zufällig um bis zu 3% ändern
+     *
+     * @param takt Abstand zwischen zwei Kursänderungen
+     * @throws IllegalArgumentException wenn takt nicht positiv ist
+     */
+    public Marktdaten(Duration takt) {
+        if (takt == null || takt.isNegative() || takt.isZero())
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        ScheduledThreadPoolExecutor ausfuehrung = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "Marktdaten");
+            t.setDaemon(true);
+            return t;
+        });
+        ausfuehrung.scheduleAtFixedRate(this::zufallskurse, takt.toNanos(), takt.toNanos(), TimeUnit.NANOSECONDS);
+        this.takt = ausfuehrung;
+    }
+
+    /**
+     * liefert die Marktdaten, an denen Aktien ohne ausdrücklich angegebene Marktdaten notiert werden;
+     * ihre Kurse ändern sich jede Sekunde zufällig
+     *
+     * @return die gemeinsamen Marktdaten
+     */
+    public static Marktdaten getStandard() {
+        return Standard.MARKTDATEN;
+    }
+
+    private static final class Standard {
+        static final Marktdaten MARKTDATEN = new Marktdaten(Duration.ofSeconds(1));
+    }
+
+    /**
+     * notiert ein Wertpapier mit einem Kurs. Ist es schon notiert, wird der Kurs als neuer Kurs veröffentlicht.
+     *
+     * @param wertpapierId das Wertpapier
+     * @param kursCent     Kurs in Euro-Cent
+     * @return die Notierung des Wertpapiers
+     */
+    Notierung notieren(long wertpapierId, long kursCent) {
+        Notierung neu = new Notierung(wertpapierId, kursCent);
+        Notierung vorhanden = notierungen.putIfAbsent(wertpapierId, neu);
+        if (vorhanden == null) {
+            return neu;
+        }
+        vorhanden.setzen(kursCent);
+        return vorhanden;
+    }
+
+    /**
+     * veröffentlicht einen neuen Kurs
+     *
+     * @param wertpapierId das Wertpapier
+     * @param kursCent     der neue Kurs in Euro-Cent
+     * @throws IllegalArgumentException wenn das Wertpapier nicht notiert ist oder der Kurs negativ ist
+     */
+    public void kursSetzen(long wertpapierId, long kursCent) {
+        if (kursCent < 0)
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        notierung(wertpapierId).setzen(kursCent);
+    }
+
+    /**
+     * liefert den letzten Kurs eines Wertpapiers
+     *
+     * @param wertpapierId das Wertpapier
+     * @return Kurs in Euro-Cent
+     * @throws IllegalArgumentException wenn das Wertpapier nicht notiert ist
+     */
+    public long getKursCent(long wertpapierId) {
+        return notierung(wertpapierId).getKursCent();
+    }
+
+    /**
+     * liefert die Zahl der Limitaufträge, die für ein Wertpapier auf ihren Kurs warten
+     *
+     * @param wertpapierId das Wertpapier
+     * @return Anzahl der offenen Kauf- und Verkaufsaufträge
+     * @throws IllegalArgumentException wenn das Wertpapier nicht notiert ist
+     */
+    public int getOffeneAuftraege(long wertpapierId) {
+        return notierung(wertpapierId).orderbuch.offeneAuftraege();
+    }
+
+    /**
+     * abonniert die Kurse eines Wertpapiers; die Zustellung läuft im gemeinsamen ForkJoinPool
+     *
+     * @param wertpapierId das Wertpapier
+     * @param empfaenger   bekommt die neuen Kurse
+     * @return das Abonnement, mit {@link Abonnement#close()} kündbar
+     * @throws IllegalArgumentException wenn das Wertpapier nicht notiert ist
+     */
+    public Abonnement abonnieren(long wertpapierId, Kursempfaenger empfaenger) {
+        return abonnieren(wertpapierId, empfaenger, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * abonniert die Kurse eines Wertpapiers
+     *
+     * @param wertpapierId das Wertpapier
+     * @param empfaenger   bekommt die neuen Kurse
+     * @param ausfuehrung  hier wird der Empfänger aufgerufen
+     * @return das Abonnement, mit {@link Abonnement#close()} kündbar
+     * @throws IllegalArgumentException wenn das Wertpapier nicht notiert ist oder ein Parameter null ist
+     */
+    public Abonnement abonnieren(long wertpapierId, Kursempfaenger empfaenger, Executor ausfuehrung) {
+        if (empfaenger == null || ausfuehrung == null)
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        Notierung notierung = notierung(wertpapierId);
+        Abonnement abonnement = new Abonnement(notierung, empfaenger, ausfuehrung);
+        notierung.abonnenten.add(abonnement);
+        return abonnement;
+    }
+
+    private Notierung notierung(long wertpapierId) {
+        Notierung notierung = notierungen.get(wertpapierId);
+        if (notierung == null)
+            throw new IllegalArgumentException("Wertpapier " + wertpapierId + " ist nicht notiert");
+        return notierung;
+    }
+
+    /**
+     * verändert jeden Kurs um -3% bis 3%, auf ganze Cent gerundet
+     */
+    private void zufallskurse() {
+        ThreadLocalRandom zufall = ThreadLocalRandom.current();
+        for (Notierung notierung : notierungen.values()) {
+            long aenderung = zufall.nextLong(-300, 301);
+            notierung.kurs.updateAndGet(
+                    kurs -> kurs + Geldbetrag.multiplizieren(kurs, aenderung, 4, RoundingMode.HALF_UP));
+            notierung.veroeffentlichen();
+        }
+    }
+
+    /**
+     * beendet den Takt der zufälligen Kursänderungen; die Kurse bleiben lesbar und setzbar
+     */
+    @Override
+    public void close() {
+        if (takt != null) {
+            takt.shutdownNow();
+        }
+    }
+
+    /**
+     * der letzte Kurs eines Wertpapiers, seine offenen Limitaufträge und seine Abonnenten
+     */
+    static final class Notierung {
+        private final long wertpapierId;
+        private final AtomicLong kurs;
+        private final List<Abonnement> abonnenten = new CopyOnWriteArrayList<>();
+        private final Orderbuch orderbuch = new Orderbuch(this);
+
+        private Notierung(long wertpapierId, long kursCent) {
+            this.wertpapierId = wertpapierId;
+            this.kurs = new AtomicLong(kursCent);
+        }
+
+        long getKursCent() {
+            return kurs.get();
+        }
+
+        Orderbuch getOrderbuch() {
+            return orderbuch;
+        }
+
+        private void setzen(long kursCent) {
+            kurs.set(kursCent);
+            veroeffentlichen();
+        }
+
+        private void veroeffentlichen() {
+            orderbuch.ausloesen();
+            for (Abonnement abonnement : abonnenten) {
+                abonnement.anbieten();
+            }
+        }
+    }
+
+    /**
+     * ein Abonnement der Kurse eines Wertpapiers
+     */
+    public static final class Abonnement implements AutoCloseable {
+        private final Notierung notierung;
+        private final Kursempfaenger empfaenger;
+        private final Executor ausfuehrung;
+        /**
+         * true, wenn seit der letzten Zustellung ein Kurs veröffentlicht wurde
+         */
+        private final AtomicBoolean offen = new AtomicBoolean();
+        /**
+         * true, solange eine Zustellung geplant ist oder läuft
+         */
+        private final AtomicBoolean geplant = new AtomicBoolean();
+        private volatile boolean gekuendigt;
+
+        private Abonnement(Notierung notierung, Kursempfaenger empfaenger, Executor ausfuehrung) {
+            this.notierung = notierung;
+            this.empfaenger = empfaenger;
+            this.ausfuehrung = ausfuehrung;
+        }
+
+        private void anbieten() {
+            offen.set(true);
+            planen();
+        }
+
+        private void planen() {
+            if (!gekuendigt && geplant.compareAndSet(false, true)) {
+                try {
+                    ausfuehrung.execute(this::zustellen);
+                } catch (RejectedExecutionException e) {
+                    geplant.set(false);
+                }
+            }
+        }
+
+        private void zustellen() {
+            try {
+                // der Kurs der Notierung, nicht der angebotene: der könnte von einem überholten Aufruf stammen
+                if (offen.getAndSet(false) && !gekuendigt) {
+                    empfaenger.kursGeaendert(notierung.wertpapierId, notierung.getKursCent());
+                }
+            } finally {
+                geplant.set(false);
+            }
+            // ein Kurs, der während des Aufrufs kam, hat keine eigene Zustellung geplant
+            if (offen.get()) {
+                planen();
+            }
+        }
+
+        /**
+         * kündigt das Abonnement; ein gerade laufender Aufruf des Empfängers wird noch beendet
+         */
+        @Override
+        public void close() {
+            gekuendigt = true;
+            notierung.abonnenten.remove(this);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package bankprojekt.verarbeitung;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * die offenen Limitaufträge eines Wertpapiers, nach Limit sortiert.
+ * <p>
+ * Kaufaufträge werden ausgelöst, sobald der Kurs auf oder unter ihr Limit fällt, Verkaufsaufträge, sobald er
+ * ihr Limit erreicht oder übersteigt. Bei jedem Kurs werden vom Anfang der jeweiligen Seite genau die Aufträge
+ * entnommen, deren Limit überschritten ist, in O(log n + k). Wer einen Auftrag aus dem Buch entfernt, ob beim
+ * Auslösen, Streichen oder Ablaufen, ist der einzige; ein Auftrag wird also höchstens einmal ausgeführt.
+ * Ausgelöste Aufträge laufen im {@link Auftragsdienst} in der Reihe ihres Kontos, zu dem Kurs, der sie ausgelöst
+ * hat, auch wenn sich der Kurs bis zur Ausführung wieder geändert hat.
+ */
+final class Orderbuch {
+    /**
+     * Seite eines Limitauftrags
+     */
+    enum Seite {
+        KAUF, VERKAUF
+    }
+
+    /**
+     * Position eines Auftrags im Buch; bei gleichem Limit gilt die Eingangsreihenfolge
+     */
+    private record Schluessel(long limit, long folge) {
+    }
+
+    /**
+     * die Ausführung eines ausgelösten Auftrags
+     *
+     * @param <T> Typ des Ergebnisses
+     */
+    @FunctionalInterface
+    interface Ausfuehrung<T> {
+        /**
+         * führt den Auftrag aus
+         *
+         * @param kursCent der Kurs in Euro-Cent, der den Auftrag ausgelöst hat; er hält das Limit ein
+         * @return das Ergebnis
+         * @throws Exception wenn der Auftrag nicht ausgeführt werden kann
+         */
+        T ausfuehren(long kursCent) throws Exception;
+    }
+
+    private static final Comparator<Schluessel> EINGANG = Comparator.comparingLong(Schluessel::folge);
+
+    private final Marktdaten.Notierung notierung;
+    private final AtomicLong folge = new AtomicLong();
+    /**
+     * höchstes Limit zuerst
+     */
+    private final ConcurrentNavigableMap<Schluessel, LongConsumer> kaeufe = new ConcurrentSkipListMap<>(
+            Comparator.comparingLong(Schluessel::limit).reversed().thenComparing(EINGANG));
+    /**
+     * niedrigstes Limit zuerst
+     */
+    private final ConcurrentNavigableMap<Schluessel, LongConsumer> verkaeufe = new ConcurrentSkipListMap<>(
+            Comparator.comparingLong(Schluessel::limit).thenComparing(EINGANG));
+
+    Orderbuch(Marktdaten.Notierung notierung) {
+        this.notierung = notierung;
+    }
+
+    /**
+     * stellt einen Limitauftrag ein; ist das Limit beim aktuellen Kurs schon überschritten, wird er sofort ausgelöst
+     *
+     * @param konto       das Konto, in dessen Reihe der Auftrag ausgeführt wird
+     * @param seite       Kauf oder Verkauf
+     * @param limitCent   Limit in Euro-Cent
+     * @param gueltigkeit nach dieser Zeit wird der Auftrag gestrichen, wenn er bis dahin nicht ausgelöst wurde;
+     *                    null für unbegrenzt
+     * @param ausfuehrung wird beim Auslösen im Auftragsdienst mit dem auslösenden Kurs aufgerufen
+     * @param <T>         Typ des Ergebnisses
+     * @return das Ergebnis der Ausführung. Jedes vorzeitige Beenden, z.B. durch Abbrechen oder
+     * {@link CompletableFuture#orTimeout}, streicht den Auftrag, solange er nicht ausgeführt wird.
+     * Ein abgelaufener Auftrag endet mit einer {@link AuftragAbgelehntException} mit Grund
+     * {@link Ablehnungsgrund#ABGELAUFEN}, einer, den der Auftragsdienst nicht annimmt, mit Grund
+     * {@link Ablehnungsgrund#UEBERLASTET}.
+     */
+    <T> CompletableFuture<T> einstellen(Konto konto, Seite seite, long limitCent, Duration gueltigkeit,
+                                        Ausfuehrung<T> ausfuehrung) {
+        CompletableFuture<T> ergebnis = new CompletableFuture<>();
+        Map<Schluessel, LongConsumer> buch = seite == Seite.KAUF ? kaeufe : verkaeufe;
+        Schluessel schluessel = new Schluessel(limitCent, folge.incrementAndGet());
+        buch.put(schluessel, kursCent -> {
+            try {
+                Auftragsdienst.getStandard()
+                        .ausfuehren(konto, () -> ergebnis.isDone() ? null : ausfuehrung.ausfuehren(kursCent))
+                        .whenComplete((wert, fehler) -> {
+                            if (fehler != null) {
+                                ergebnis.completeExceptionally(fehler);
+                            } else {
+                                ergebnis.complete(wert);
+                            }
+                        });
+            } catch (RejectedExecutionException e) {
+                ergebnis.completeExceptionally(new AuftragAbgelehntException(konto.getKontonummer(),
+                        Ablehnungsgrund.UEBERLASTET));
+            }
+        });
+        ergebnis.whenComplete((wert, fehler) -> buch.remove(schluessel));
+        if (gueltigkeit != null) {
+            CompletableFuture.delayedExecutor(gueltigkeit.toNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+                if (buch.remove(schluessel) != null) {
+                    ergebnis.completeExceptionally(new AuftragAbgelehntException(konto.getKontonummer(),
+                            Ablehnungsgrund.ABGELAUFEN));
+                }
+            });
+        }
+        ausloesen();
+        return ergebnis;
+    }
+
+    /**
+     * löst alle Aufträge aus, deren Limit der aktuelle Kurs der Notierung überschreitet; gelesen wird er hier,
+     * damit ein überholter Aufruf mit einem älteren Kurs keine Aufträge auslöst
+     */
+    void ausloesen() {
+        long kursCent = notierung.getKursCent();
+        Map.Entry<Schluessel, LongConsumer> eintrag;
+        while ((eintrag = kaeufe.firstEntry()) != null && eintrag.getKey().limit() >= kursCent) {
+            if (kaeufe.remove(eintrag.getKey(), eintrag.getValue())) {
+                eintrag.getValue().accept(kursCent);
+            }
+        }
+        while ((eintrag = verkaeufe.firstEntry()) != null && eintrag.getKey().limit() <= kursCent) {
+            if (verkaeufe.remove(eintrag.getKey(), eintrag.getValue())) {
+                eintrag.getValue().accept(kursCent);
+            }
+        }
+    }
+
+    /**
+     * liefert die Zahl der offenen Aufträge
+     */
+    int offeneAuftraege() {
+        return kaeufe.size() + verkaeufe.size();
+    }
+}
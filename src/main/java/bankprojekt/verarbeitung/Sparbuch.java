@@ -1,5 +1,8 @@
 package bankprojekt.verarbeitung;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.RoundingMode;
 import java.time.LocalDate;
 
 /**
@@ -16,19 +19,39 @@ public class Sparbuch extends Konto {
     private double zinssatz;
 
     /**
-     * Monatlich erlaubter Gesamtbetrag für Abhebungen
+     * Monatlich erlaubter Gesamtbetrag für Abhebungen in Euro-Cent
      */
-    public static final double ABHEBESUMME = 2000;
+    public static final long ABHEBESUMME = 2000_00;
 
     /**
-     * Betrag, der im aktuellen Monat bereits abgehoben wurde
+     * Betrag in Euro-Cent, unter den der Kontostand nie fallen darf
      */
-    private double bereitsAbgehoben = 0;
+    public static final long MINDESTGUTHABEN = 50;
 
     /**
-     * Monat und Jahr der letzten Abhebung
+     * Monat der letzten Abhebung (Jahr * 12 + Monat) in den oberen Bits und der in diesem Monat
+     * bereits abgehobene Betrag in Euro-Cent in den unteren {@link #BETRAG_BITS} Bits.
+     * Beides liegt in einer Zelle, damit Monatswechsel und Betrag gemeinsam atomar geändert werden.
+     * Der Betrag ist wie {@link #ABHEBESUMME} in Euro, ein Währungswechsel ändert an ihm nichts.
      */
-    private LocalDate zeitpunkt = LocalDate.now();
+    private volatile long monatsabhebung;
+    private static final VarHandle MONATSABHEBUNG;
+    private static final int BETRAG_BITS = 40;
+    private static final long BETRAG_MASKE = (1L << BETRAG_BITS) - 1;
+
+    static {
+        try {
+            MONATSABHEBUNG = MethodHandles.lookup().findVarHandle(Sparbuch.class, "monatsabhebung", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Abbuchungen sind erlaubt, solange der Kontostand danach nicht unter 0,50€ fällt
+     */
+    private final Abbuchungsregel mindestguthabenRegel =
+            (kontostand, betrag, waehrung) -> kontostand - betrag >= waehrung.euroInWaehrungUmrechnen(MINDESTGUTHABEN, RoundingMode.UP);
 
     /**
      * ein Standard-Sparbuch
@@ -49,6 +72,45 @@ public class Sparbuch extends Konto {
         zinssatz = 0.03;
     }
 
+    /**
+     * liefert den Zinssatz
+     *
+     * @return Zinssatz, 0,03 entspricht 3%
+     */
+    public double getZinssatz() {
+        return zinssatz;
+    }
+
+    /**
+     * setzt den Zinssatz
+     *
+     * @param zinssatz neuer Zinssatz, 0,03 entspricht 3%
+     * @throws IllegalArgumentException wenn zinssatz negativ bzw. NaN ist
+     */
+    public void setZinssatz(double zinssatz) {
+        if (zinssatz < 0 || Double.isNaN(zinssatz) || Double.isInfinite(zinssatz))
+            throw new IllegalArgumentException("Der Zinssatz ist nicht gültig!");
+        this.zinssatz = zinssatz;
+    }
+
+    /**
+     * liefert Monat und Betrag der bisherigen Abhebungen in einer Zahl, zum Speichern des Sparbuchs
+     *
+     * @return Monat (Jahr * 12 + Monat - 1) in den oberen Bits, Betrag in Euro-Cent in den unteren 40 Bits
+     */
+    public long getMonatsabhebung() {
+        return monatsabhebung;
+    }
+
+    /**
+     * setzt Monat und Betrag der bisherigen Abhebungen, z.B. beim Laden eines gespeicherten Sparbuchs
+     *
+     * @param monatsabhebung Wert, wie ihn {@link #getMonatsabhebung()} liefert
+     */
+    public void monatsabhebungWiederherstellen(long monatsabhebung) {
+        this.monatsabhebung = monatsabhebung;
+    }
+
     @Override
     public String toString() {
         String ausgabe = "-- SPARBUCH --" + System.lineSeparator() +
@@ -58,22 +120,56 @@ public class Sparbuch extends Konto {
     }
 
     @Override
-    public boolean geldCheck(double betrag) {
-        if (this.isGesperrt()) {
-            return false;
+    protected Abbuchungsregel getAbbuchungsregel() {
+        return mindestguthabenRegel;
+    }
+
+    /**
+     * reserviert den Betrag zuerst im Monatslimit und bucht ihn dann ab.
+     * Scheitert die Abbuchung am Mindestguthaben, wird die Reservierung zurückgegeben.
+     */
+    @Override
+    protected boolean abbuchen(long betrag, Waehrung w) {
+        long monat = aktuellerMonat();
+        long betragEuro = w.waehrungInEuroUmrechnen(betrag, RoundingMode.UP);
+        long alt;
+        long summe;
+        do {
+            alt = monatsabhebung;
+            summe = (alt >>> BETRAG_BITS) == monat ? alt & BETRAG_MASKE : 0;
+            if (summe + betragEuro > ABHEBESUMME) {
+                return false;
+            }
+        } while (!MONATSABHEBUNG.compareAndSet(this, alt, (monat << BETRAG_BITS) | (summe + betragEuro)));
+
+        if (super.abbuchen(betrag, w)) {
+            return true;
         }
+        do {
+            alt = monatsabhebung;
+            if ((alt >>> BETRAG_BITS) != monat) {
+                return false;
+            }
+        } while (!MONATSABHEBUNG.compareAndSet(this, alt, alt - betragEuro));
+        return false;
+    }
+
+    @Override
+    public boolean geldCheck(double betrag) {
+        long stand = monatsabhebung;
+        long summe = (stand >>> BETRAG_BITS) == aktuellerMonat() ? stand & BETRAG_MASKE : 0;
+        return super.geldCheck(betrag)
+                && summe + getAktuelleWaehrung().waehrungInEuroUmrechnen(inCent(betrag), RoundingMode.UP) <= ABHEBESUMME;
+    }
+
+    /**
+     * liefert den aktuellen Monat als fortlaufende Zahl
+     *
+     * @return Jahr * 12 + Monat
+     */
+    private static long aktuellerMonat() {
         LocalDate heute = LocalDate.now();
-        if (heute.getMonth() != zeitpunkt.getMonth() || heute.getYear() != zeitpunkt.getYear()) {
-            this.bereitsAbgehoben = 0;
-        }
-        if (getKontostand() - betrag >= getAktuelleWaehrung().euroInWaehrungUmrechnen(0.50) &&
-                bereitsAbgehoben + betrag <= getAktuelleWaehrung().euroInWaehrungUmrechnen(Sparbuch.ABHEBESUMME)) {
-            setKontostand(getKontostand() - betrag);
-            bereitsAbgehoben += betrag;
-            this.zeitpunkt = LocalDate.now();
-            return true;
-        } else
-            return false;
+        return heute.getYear() * 12L + heute.getMonthValue() - 1;
     }
 
     @Override
@@ -81,16 +177,9 @@ public class Sparbuch extends Konto {
         if (isGesperrt()) {
             throw new GesperrtException(getKontonummer());
         }
-        double tempBetrag = w.waehrungInEuroUmrechnen(betrag);
-        tempBetrag = getAktuelleWaehrung().euroInWaehrungUmrechnen(tempBetrag);
-
-        return abheben(tempBetrag);
-    }
-
-    @Override
-    public void waehrungswechsel(Waehrung neu) {
-        double tempBereitsAbgehoben = getAktuelleWaehrung().waehrungInEuroUmrechnen(bereitsAbgehoben);
-        bereitsAbgehoben = neu.euroInWaehrungUmrechnen(tempBereitsAbgehoben);
-        super.waehrungswechsel(neu);
+        if (betrag <= 0 || Double.isNaN(betrag) || Double.isInfinite(betrag)) {
+            return false;
+        }
+        return abbuchen(Geldbetrag.ausDouble(betrag, w), w);
     }
 }
@@ -1,8 +1,7 @@
 package bankprojekt.verarbeitung;
 
-import org.decimal4j.util.DoubleRounder;
-
 import java.io.Serializable;
+import java.math.RoundingMode;
 
 /**
  * Enum to represent different currencies and their exchange rates to Euro (EUR).
@@ -11,22 +10,73 @@ import java.io.Serializable;
  * - BGN: Bulgarian Lev (1 BGN = 1.9558 EUR)
  * - MKD: Macedonian Denar (1 MKD = 61.62 EUR)
  * - DKK: Danish Krone (1 DKK = 7.4604 EUR)
+ * <p>
+ * Exchange rates are stored as fixed-point numbers with {@link #KURS_STELLEN} decimal places,
+ * amounts are converted with {@link Geldbetrag} in the smallest unit of each currency.
  */
 public enum Waehrung implements Serializable {
-    EUR(1),
-    BGN(1.9558),
-    MKD(61.62),
-    DKK(7.4604);
+    EUR(1_0000, 2),
+    BGN(1_9558, 2),
+    MKD(61_6200, 2),
+    DKK(7_4604, 2);
+
+    /**
+     * Number of decimal places of the exchange rates.
+     */
+    public static final int KURS_STELLEN = 4;
 
-    private final double wert;
+    private final long kurs;
+    private final int nachkommastellen;
 
     /**
      * Constructor to initialize the exchange rate for each currency.
      *
-     * @param zahl The exchange rate of the currency to Euro (EUR).
+     * @param kurs             The exchange rate of the currency to Euro (EUR), with {@link #KURS_STELLEN} decimal places.
+     * @param nachkommastellen The number of decimal places of the currency, i.e. the scale of its smallest unit.
+     */
+    Waehrung(long kurs, int nachkommastellen) {
+        this.kurs = kurs;
+        this.nachkommastellen = nachkommastellen;
+    }
+
+    /**
+     * Returns the exchange rate to Euro (EUR).
+     *
+     * @return The exchange rate with {@link #KURS_STELLEN} decimal places, e.g. 19558 for 1.9558.
+     */
+    public long getKurs() {
+        return kurs;
+    }
+
+    /**
+     * Returns the number of decimal places of the currency.
+     *
+     * @return The number of decimal places, 2 if the smallest unit is a hundredth.
+     */
+    public int getNachkommastellen() {
+        return nachkommastellen;
+    }
+
+    /**
+     * Converts the given amount from Euro (EUR) to the specific currency.
+     *
+     * @param betrag  The amount in euro cents.
+     * @param rundung The rounding mode for the result.
+     * @return The equivalent amount in the smallest unit of the specific currency.
+     */
+    public long euroInWaehrungUmrechnen(long betrag, RoundingMode rundung) {
+        return Geldbetrag.umrechnen(betrag, EUR, this, rundung);
+    }
+
+    /**
+     * Converts the given amount from the specific currency to Euro (EUR).
+     *
+     * @param betrag  The amount in the smallest unit of the specific currency.
+     * @param rundung The rounding mode for the result.
+     * @return The equivalent amount in euro cents.
      */
-    Waehrung(double zahl) {
-        this.wert = zahl;
+    public long waehrungInEuroUmrechnen(long betrag, RoundingMode rundung) {
+        return Geldbetrag.umrechnen(betrag, this, EUR, rundung);
     }
 
     /**
@@ -36,7 +86,8 @@ public enum Waehrung implements Serializable {
      * @return The equivalent amount in the specific currency.
      */
     public double euroInWaehrungUmrechnen(double betrag) {
-        return DoubleRounder.round((betrag * this.wert), 2);
+        long umgerechnet = euroInWaehrungUmrechnen(Geldbetrag.ausDouble(betrag, EUR), RoundingMode.HALF_UP);
+        return Geldbetrag.alsDouble(umgerechnet, this);
     }
 
     /**
@@ -46,6 +97,7 @@ public enum Waehrung implements Serializable {
      * @return The equivalent amount in Euro.
      */
     public double waehrungInEuroUmrechnen(double betrag) {
-        return DoubleRounder.round((betrag / this.wert),2);
+        long umgerechnet = waehrungInEuroUmrechnen(Geldbetrag.ausDouble(betrag, this), RoundingMode.HALF_UP);
+        return Geldbetrag.alsDouble(umgerechnet, EUR);
     }
 }
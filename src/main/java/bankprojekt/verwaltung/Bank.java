@@ -2,22 +2,92 @@ package bankprojekt.verwaltung;
 
 import bankprojekt.verarbeitung.*;
 
+import javax.management.JMException;
 import java.io.*;
+import java.math.RoundingMode;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
-import java.util.stream.LongStream;
-import java.util.stream.Stream;
 
 /**
  * This class represents a bank with the ability to manage various bank accounts.
+ * <p>
+ * A bank can be used by many threads at once. Every account number belongs to one of a fixed number
+ * of lock stripes; operations on an account hold its stripe, transfers hold the stripes of both
+ * accounts and always acquire them in ascending stripe order, so two opposite transfers cannot deadlock.
+ * <p>
+ * A bank created with a journal file appends every successful mutation to a {@link Journal} while it still
+ * holds the stripe locks, so the journal has the same order as the accounts. The call returns once its record
+ * is on disk; concurrent calls wait for the same {@code fsync}. Once a write has failed or the journal is closed,
+ * every mutation throws before it changes an account, with the error of the write if there was one; only the
+ * mutations whose records were waiting for the failed write have been applied without being on disk, and their
+ * calls throw the same error. Accounts inserted with {@link #mockEinfuegen(Konto)}
+ * are not journaled, and accounts are restored with a new instance of the factory class they were created with,
+ * which therefore needs a public no-argument constructor.
+ * <p>
+ * A bank opened from a {@link KontenSpeicher} keeps its accounts in a memory-mapped file and creates the account
+ * objects only when an account is used. Balances are read from the file as long as the account has not been used.
+ * Operations on all accounts load all of them first. Changes are written back with {@link #speichern()}.
  */
 public class Bank implements Cloneable, Serializable {
     private long bankleitzahl;
     private final long baseNumber = 1000;
-    private final long maxNumber = 10000;
     private long dispo = 1000;
-    private long counter = 0;
-    private Map<Long, Konto> kontenListe = new HashMap<>();
+    private KontenTabelle kontenListe = new KontenTabelle();
+
+    /**
+     * The used account numbers; new accounts get the lowest free number above {@link #baseNumber}.
+     */
+    private transient Nummernvergabe nummernvergabe = new Nummernvergabe(baseNumber + 1);
+
+    /**
+     * Number of lock stripes, must be a power of two.
+     */
+    private static final int STREIFEN = 256;
+    private final ReentrantLock[] sperren = new ReentrantLock[STREIFEN];
+
+    /**
+     * Maximum number of transfers of a block that are planned together, see {@link Stapelplan}.
+     */
+    private static final int STAPELBLOCK = 4096;
+    private static final ThreadLocal<Stapelplan> STAPELPLAENE =
+            ThreadLocal.withInitial(() -> new Stapelplan(STAPELBLOCK, STREIFEN));
+
+    /**
+     * Journal of all mutations, null if the bank is kept in memory only.
+     */
+    private transient Journal journal;
+
+    /**
+     * Store the accounts are loaded from on first use, null if the bank has no store.
+     */
+    private transient KontenSpeicher speicher;
+
+    /**
+     * Latencies and counters of the operations, recorded unless switched off; see {@link #metrikenErfassen(boolean)}.
+     */
+    private transient BankMetriken metriken = new BankMetriken();
+
+    /**
+     * Customers created while accounts are loaded from a journal, store or snapshot, one per set of data.
+     */
+    private transient Kundenregister kundenregister = new Kundenregister();
+
+    /**
+     * The accounts in memory ordered by balance, for the operations that look for accounts above or below a value.
+     */
+    private transient Kontostandindex kontostandindex = new Kontostandindex();
+
+    /**
+     * True once every account of the store has been loaded, so {@link #allesLaden()} has nothing more to do.
+     */
+    private transient volatile boolean allesGeladen;
 
     /**
      * Constructor to initialize a bank with a specified routing number.
@@ -26,6 +96,225 @@ public class Bank implements Cloneable, Serializable {
      */
     public Bank(long bankleitzahl) {
         this.bankleitzahl = bankleitzahl;
+        for (int i = 0; i < STREIFEN; i++) {
+            sperren[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Constructor to initialize a bank whose mutations are recorded in a journal file.
+     * If the file exists, the accounts are restored from it first.
+     *
+     * @param bankleitzahl The bank's routing number.
+     * @param journalDatei The journal file, it is created if it does not exist.
+     * @throws IOException If the journal cannot be read or opened.
+     */
+    public Bank(long bankleitzahl, Path journalDatei) throws IOException {
+        this(bankleitzahl);
+        Journal.lesen(journalDatei, new Wiederherstellung());
+        journal = new Journal(journalDatei);
+    }
+
+    /**
+     * Opens a bank whose accounts are kept in a store file. The accounts are loaded when they are first used.
+     *
+     * @param bankleitzahl The bank's routing number.
+     * @param datei        The store file, an empty store is created if it does not exist.
+     * @return The bank.
+     * @throws IOException If the store cannot be opened.
+     */
+    public static Bank speicherOeffnen(long bankleitzahl, Path datei) throws IOException {
+        Bank bank = new Bank(bankleitzahl);
+        bank.speicher = KontenSpeicher.oeffnen(datei, bank.kundenregister);
+        for (long nummer : bank.speicher.kontonummern()) {
+            bank.nummernvergabe.belegen(nummer);
+        }
+        return bank;
+    }
+
+    /**
+     * Writes all accounts that were used or created since the store was opened back into the store,
+     * frees the records of deleted accounts and forces the store to disk.
+     *
+     * @throws IOException           If the store cannot be written.
+     * @throws IllegalStateException If the bank was not opened from a store.
+     */
+    public void speichern() throws IOException {
+        if (speicher == null) {
+            throw new IllegalStateException("Die Bank hat keinen Kontenspeicher");
+        }
+        kontenSchreiben(speicher);
+    }
+
+    /**
+     * Writes all accounts of the bank into a new store file, an existing store with this name is overwritten.
+     *
+     * @param datei The store file.
+     * @throws IOException              If the store cannot be written.
+     * @throws IllegalArgumentException If the bank has an account that is neither a Girokonto nor a Sparbuch.
+     */
+    public void speichern(Path datei) throws IOException {
+        if (speicher != null && speicher.getDatei().toAbsolutePath().equals(datei.toAbsolutePath())) {
+            speichern();
+            return;
+        }
+        allesLaden();
+        try (KontenSpeicher neu = KontenSpeicher.anlegen(datei)) {
+            kontenSchreiben(neu);
+        }
+    }
+
+    private void kontenSchreiben(KontenSpeicher ziel) throws IOException {
+        jedesKonto(ziel::speichern);
+        ziel.abschliessen();
+    }
+
+    /**
+     * An action on a single account, see {@link #jedesKonto(Kontoaktion)}.
+     */
+    @FunctionalInterface
+    interface Kontoaktion {
+        void ausfuehren(Konto konto) throws IOException;
+    }
+
+    /**
+     * Calls an action for every account of the bank, one after the other, each under its stripe lock.
+     * Accounts deleted after the table was read are skipped.
+     *
+     * @param aktion The action.
+     * @throws IOException If the action throws it; the remaining accounts are skipped.
+     */
+    void jedesKonto(Kontoaktion aktion) throws IOException {
+        KontenTabelle.Eintraege eintraege = alleEintraege();
+        for (int i = 0; i < eintraege.nummern().length; i++) {
+            ReentrantLock sperre = sperreFuer(eintraege.nummern()[i]);
+            sperre.lock();
+            try {
+                if (vorhanden(eintraege.nummern()[i], eintraege.konten()[i])) {
+                    aktion.ausfuehren(eintraege.konten()[i]);
+                }
+            } finally {
+                sperre.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns all accounts of the bank with their numbers, loading them from the store first.
+     *
+     * @return The numbers and accounts at the moment of the call.
+     */
+    KontenTabelle.Eintraege alleEintraege() {
+        allesLaden();
+        return kontenListe.eintraege();
+    }
+
+    /**
+     * Returns the start time of an operation for {@link #erfassen(Bankoperation, long, boolean)}; the clock is
+     * only read for the sample of operations that is timed, see {@link BankMetriken}.
+     *
+     * @return The start time.
+     */
+    long messbeginn() {
+        return metriken.anfang();
+    }
+
+    /**
+     * Records the duration and outcome of an operation in the measurements of this bank.
+     *
+     * @param operation The kind of operation.
+     * @param anfang    The start time from {@link #messbeginn()}.
+     * @param erfolg    True if the operation succeeded.
+     */
+    void erfassen(Bankoperation operation, long anfang, boolean erfolg) {
+        metriken.erfassen(operation, anfang, erfolg);
+    }
+
+    /**
+     * Closes the store the bank was opened from, without writing changes.
+     *
+     * @throws IOException If the store cannot be closed.
+     */
+    public void speicherSchliessen() throws IOException {
+        if (speicher != null) {
+            speicher.close();
+        }
+    }
+
+    /**
+     * Switches the recording of latencies and counters on or off. It is on for a new bank; every operation is
+     * counted and a random sample of them is timed, see {@link Operationsstatistik}. The measurements recorded
+     * so far are kept.
+     *
+     * @param erfassen True to record the operations from now on.
+     */
+    public void metrikenErfassen(boolean erfassen) {
+        metriken.setAktiv(erfassen);
+    }
+
+    /**
+     * Returns the latencies and counters of one kind of operation.
+     *
+     * @param operation The kind of operation.
+     * @return The measurements of this bank for the operation.
+     */
+    public Operationsstatistik getStatistik(Bankoperation operation) {
+        return metriken.get(operation);
+    }
+
+    /**
+     * Registers the measurements of every kind of operation as an MBean with the platform MBean server,
+     * named {@code bankprojekt.verwaltung:type=Bank,bankleitzahl=<routing number>,operation=<operation>}.
+     * Operations are not counted while recording is switched off, see {@link #metrikenErfassen(boolean)}.
+     *
+     * @throws JMException If a bank with the same routing number is already registered.
+     */
+    public void metrikenVeroeffentlichen() throws JMException {
+        metriken.veroeffentlichen(bankleitzahl);
+    }
+
+    /**
+     * Unregisters the MBeans registered by {@link #metrikenVeroeffentlichen()}.
+     *
+     * @throws JMException If the MBeans cannot be unregistered.
+     */
+    public void metrikenZurueckziehen() throws JMException {
+        metriken.zurueckziehen(bankleitzahl);
+    }
+
+    /**
+     * Returns the register of the customers this bank created while loading accounts.
+     * Customers registered here are shared with the loaded accounts.
+     *
+     * @return The customer register of this bank.
+     */
+    public Kundenregister getKundenregister() {
+        return kundenregister;
+    }
+
+    private void readObject(ObjectInputStream eingabe) throws IOException, ClassNotFoundException {
+        eingabe.defaultReadObject();
+        metriken = new BankMetriken();
+        kundenregister = new Kundenregister();
+        kontostandindex = new Kontostandindex();
+        nummernvergabe = new Nummernvergabe(baseNumber + 1);
+        KontenTabelle.Eintraege eintraege = kontenListe.eintraege();
+        for (int i = 0; i < eintraege.nummern().length; i++) {
+            kontostandindex.aufnehmen(eintraege.nummern()[i], eintraege.konten()[i]);
+            nummernvergabe.belegen(eintraege.nummern()[i]);
+        }
+    }
+
+    /**
+     * Writes all outstanding journal records and closes the journal file.
+     * Mutations are not possible afterwards.
+     *
+     * @throws IOException If the journal cannot be closed.
+     */
+    public void journalSchliessen() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
     }
 
     /**
@@ -37,41 +326,179 @@ public class Bank implements Cloneable, Serializable {
         return this.bankleitzahl;
     }
 
+    /**
+     * Inserts an existing account under a new number; it is not recorded in the journal.
+     *
+     * @param k The account.
+     * @return The number the account was stored under.
+     * @throws IllegalArgumentException If the account is already stored in this bank.
+     */
     public long mockEinfuegen(Konto k) {
         if (k == null) {
             throw new NullPointerException();
         }
+        // one account object under two numbers would share its balance, and the index only knows one of them
+        if (kontostandindex.enthaelt(k)) {
+            throw new IllegalArgumentException("Konto ist schon in der Bank");
+        }
         long kontoNummer = kontoNummerErsteller();
-        kontenListe.put(kontoNummer, k);
+        ReentrantLock sperre = sperreFuer(kontoNummer);
+        sperre.lock();
+        try {
+            aufnehmen(kontoNummer, k);
+        } finally {
+            sperre.unlock();
+        }
         return kontoNummer;
     }
 
 
     public  long kontoErstellen(Kontofabrik fabrik, Kunde inhaber) {
+        long anfang = metriken.anfang();
+        boolean erfolg = false;
+        try {
+            long kontoNummer = erstellen(fabrik, inhaber);
+            erfolg = true;
+            return kontoNummer;
+        } finally {
+            metriken.erfassen(Bankoperation.KONTO_ERSTELLEN, anfang, erfolg);
+        }
+    }
+
+    private long erstellen(Kontofabrik fabrik, Kunde inhaber) {
         if (inhaber == null || fabrik == null) {
             throw new NullPointerException();
         }
         long kontoNummer = kontoNummerErsteller();
         Konto konto = fabrik.createKonto(inhaber, kontoNummer);
-        kontenListe.put(kontoNummer, konto);
+        ReentrantLock sperre = sperreFuer(kontoNummer);
+        long lsn = 0;
+        // under the stripe lock, so the account cannot appear while an operation on a deleted account
+        // with the same number still holds it
+        sperre.lock();
+        try {
+            if (journal != null) {
+                // recorded before the account becomes visible, so no other record can refer to it earlier
+                lsn = journal.kontoErstellt(kontoNummer, fabrik.getClass().getName(), inhaber.getVorname(),
+                        inhaber.getNachname(), inhaber.getAdresse(), inhaber.getGeburtstag().toEpochDay());
+            }
+            aufnehmen(kontoNummer, konto);
+        } finally {
+            sperre.unlock();
+        }
+        dauerhaft(lsn);
         return kontoNummer;
     }
 
     /**
      * Retrieves information about all accounts in the bank, including their account numbers and balances, and returns it as a string.
+     * The string holds a line per account; large banks are better listed with {@link #alleKontenSchreiben(Appendable)}
+     * or {@link #berichtSchreiben(Kontobericht, Appendable)}.
      *
      * @return A string containing account information.
      */
     public String getAlleKonten() {
         StringBuilder ausgabe = new StringBuilder();
-        for (Map.Entry<Long, Konto> entry : kontenListe.entrySet()) {
-            Long kontoNummer = entry.getKey();
-            Konto konto = entry.getValue();
-            double kontoStand = konto.getKontostand();
+        alleKontenInText(ausgabe);
+        return ausgabe.toString();
+    }
 
-            ausgabe.append("Kontonummer: ").append(kontoNummer).append(", Kontostand: ").append(kontoStand).append("\n");
+    /**
+     * Writes the lines of {@link #getAlleKonten()} to a destination, in chunks of a fixed size.
+     *
+     * @param ziel The destination, e.g. a {@link java.io.Writer}.
+     * @throws IOException If the destination throws it.
+     */
+    public void alleKontenSchreiben(Appendable ziel) throws IOException {
+        KontenTabelle.Eintraege eintraege = alleEintraege();
+        StringBuilder puffer = new StringBuilder(Kontobericht.PUFFERGROESSE + 256);
+        for (int i = 0; i < eintraege.nummern().length; i++) {
+            long kontoNummer = eintraege.nummern()[i];
+            double kontoStand = eintraege.konten()[i].getKontostand();
+
+            puffer.append("Kontonummer: ").append(kontoNummer).append(", Kontostand: ").append(kontoStand).append("\n");
+            if (puffer.length() >= Kontobericht.PUFFERGROESSE) {
+                ziel.append(puffer);
+                puffer.setLength(0);
+            }
+        }
+        ziel.append(puffer);
+    }
+
+    private void alleKontenInText(StringBuilder ausgabe) {
+        try {
+            alleKontenSchreiben(ausgabe);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        return ausgabe.toString();
+    }
+
+    /**
+     * Writes a listing of the accounts to a destination, in chunks of a fixed size; the listing is never held
+     * as a whole, see {@link Kontobericht}. Accounts of a store that were not used yet are read from their
+     * records for the listing only and not loaded into the bank.
+     *
+     * @param bericht The columns, filter and order of the listing.
+     * @param ziel    The destination, e.g. a {@link java.io.Writer}.
+     * @return The number of accounts listed.
+     * @throws IOException              If the destination throws it.
+     * @throws IllegalArgumentException If a parameter is null.
+     */
+    public long berichtSchreiben(Kontobericht bericht, Appendable ziel) throws IOException {
+        if (bericht == null || ziel == null)
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        return bericht.schreiben(this::berichtskonten, ziel);
+    }
+
+    /**
+     * Hands every account with the number it is stored under to a listing. Accounts of the store that were
+     * not used yet are created from their records and dropped again; they do not enter the table.
+     *
+     * @param empfaenger Receives the accounts one after the other.
+     * @throws IOException If the receiver throws it.
+     */
+    private void berichtskonten(Kontobericht.Empfaenger empfaenger) throws IOException {
+        if (speicher == null || allesGeladen) {
+            KontenTabelle.Eintraege eintraege = alleEintraege();
+            for (int i = 0; i < eintraege.nummern().length; i++) {
+                empfaenger.konto(eintraege.nummern()[i], eintraege.konten()[i]);
+            }
+            return;
+        }
+        KontenTabelle.Eintraege geladen = kontenListe.eintraege();
+        for (int i = 0; i < geladen.nummern().length; i++) {
+            // created since the store was opened, the accounts of the store follow below
+            if (!speicher.enthaelt(geladen.nummern()[i])) {
+                empfaenger.konto(geladen.nummern()[i], geladen.konten()[i]);
+            }
+        }
+        for (long nummer : speicher.kontonummern()) {
+            Konto konto = kontenListe.get(nummer);
+            if (konto == null) {
+                konto = speicher.laden(nummer);
+            }
+            if (konto != null) {
+                empfaenger.konto(nummer, konto);
+            }
+        }
+    }
+
+    /**
+     * Writes a listing of the accounts to a channel as UTF-8, see {@link #berichtSchreiben(Kontobericht, Appendable)}.
+     *
+     * @param bericht The columns, filter and order of the listing.
+     * @param kanal   The channel the listing is written to, it is not closed.
+     * @return The number of accounts listed.
+     * @throws IOException              If the channel cannot be written.
+     * @throws IllegalArgumentException If a parameter is null.
+     */
+    public long berichtSchreiben(Kontobericht bericht, WritableByteChannel kanal) throws IOException {
+        if (kanal == null)
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        Writer ziel = Channels.newWriter(kanal, StandardCharsets.UTF_8);
+        long anzahl = berichtSchreiben(bericht, ziel);
+        ziel.flush();
+        return anzahl;
     }
 
     /**
@@ -81,12 +508,28 @@ public class Bank implements Cloneable, Serializable {
      */
     public List<Long> getAlleKontonummern() {
         List<Long> kontoNummerList = new ArrayList<>();
-        for (Long kontonummer : kontenListe.keySet()) {
+        for (long kontonummer : alleEintraege().nummern()) {
             kontoNummerList.add(kontonummer);
         }
         return kontoNummerList;
     }
 
+    /**
+     * Returns all accounts sorted by a column, to be read page by page, e.g. by a view that shows only
+     * the visible part of a large bank. Sorting takes O(n log n) once; every page is read from the accounts.
+     *
+     * @param spalte     The column to sort by.
+     * @param absteigend True to sort in descending order.
+     * @return The accounts of this moment in the requested order.
+     * @throws IllegalArgumentException If spalte is null.
+     */
+    public Kontoverzeichnis getKontoverzeichnis(Kontospalte spalte, boolean absteigend) {
+        if (spalte == null)
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        KontenTabelle.Eintraege eintraege = alleEintraege();
+        return Kontoverzeichnis.sortieren(eintraege.nummern(), eintraege.konten(), spalte, absteigend);
+    }
+
     /**
      * Allows a customer to withdraw money from their account.
      *
@@ -98,15 +541,40 @@ public class Bank implements Cloneable, Serializable {
      * @throws IllegalArgumentException           If the withdrawal amount is non-positive.
      */
     public boolean geldAbheben(long von, double betrag) throws GesperrtException, KontonummerNichtVorhandenException {
+        long anfang = metriken.anfang();
+        boolean erfolg = false;
+        try {
+            erfolg = abheben(von, betrag);
+            return erfolg;
+        } finally {
+            metriken.erfassen(Bankoperation.ABHEBEN, anfang, erfolg);
+        }
+    }
+
+    private boolean abheben(long von, double betrag) throws GesperrtException, KontonummerNichtVorhandenException {
         if (betrag <= 0) {
             throw new IllegalArgumentException("Sie können keinen negativen Geldbetrag abheben!");
         }
-        if (kontoNummerChecker(von)) {
-            Konto konto = kontenListe.get(von);
-            return konto.abheben(betrag);
-        } else {
-            throw new KontonummerNichtVorhandenException();
+        Konto konto = kontoSuchen(von);
+        ReentrantLock sperre = sperreFuer(von);
+        long lsn = 0;
+        sperre.lock();
+        try {
+            if (!vorhanden(von, konto)) {
+                throw new KontonummerNichtVorhandenException();
+            }
+            journalPruefen();
+            if (!konto.abheben(betrag)) {
+                return false;
+            }
+            if (journal != null) {
+                lsn = journal.buchung(Journal.ABGEBUCHT, von, Geldbetrag.ausDouble(betrag, konto.getAktuelleWaehrung()));
+            }
+        } finally {
+            sperre.unlock();
         }
+        dauerhaft(lsn);
+        return true;
     }
 
     /**
@@ -118,16 +586,37 @@ public class Bank implements Cloneable, Serializable {
      * @throws IllegalArgumentException           If the deposit amount is non-positive.
      */
     public void geldEinzahlen(long auf, double betrag) throws KontonummerNichtVorhandenException {
+        long anfang = metriken.anfang();
+        boolean erfolg = false;
+        try {
+            einzahlen(auf, betrag);
+            erfolg = true;
+        } finally {
+            metriken.erfassen(Bankoperation.EINZAHLEN, anfang, erfolg);
+        }
+    }
+
+    private void einzahlen(long auf, double betrag) throws KontonummerNichtVorhandenException {
         if (betrag <= 0) {
             throw new IllegalArgumentException("Sie können keinen negativen Geldbetrag einzahlen!");
         }
-        if (kontoNummerChecker(auf)) {
-            Konto konto = kontenListe.get(auf);
+        Konto konto = kontoSuchen(auf);
+        ReentrantLock sperre = sperreFuer(auf);
+        long lsn = 0;
+        sperre.lock();
+        try {
+            if (!vorhanden(auf, konto)) {
+                throw new KontonummerNichtVorhandenException();
+            }
+            journalPruefen();
             konto.einzahlen(betrag);
-        } else {
-            throw new KontonummerNichtVorhandenException();
+            if (journal != null) {
+                lsn = journal.buchung(Journal.EINGEZAHLT, auf, Geldbetrag.ausDouble(betrag, konto.getAktuelleWaehrung()));
+            }
+        } finally {
+            sperre.unlock();
         }
-
+        dauerhaft(lsn);
     }
 
     /**
@@ -137,12 +626,72 @@ public class Bank implements Cloneable, Serializable {
      * @return True if the account was successfully deleted, false if the account number is not found.
      */
     public boolean kontoLoeschen(long nummer) {
-        if (kontoNummerChecker(nummer)) {
-            kontenListe.remove(nummer);
-            return true;
-        } else {
-            return false;
+        ReentrantLock sperre = sperreFuer(nummer);
+        long lsn = 0;
+        sperre.lock();
+        try {
+            journalPruefen();
+            boolean geloescht = entfernen(nummer) != null;
+            if (speicher != null && speicher.entfernen(nummer)) {
+                geloescht = true;
+            }
+            if (!geloescht) {
+                return false;
+            }
+            if (journal != null) {
+                lsn = journal.ereignis(Journal.GELOESCHT, nummer);
+            }
+            // after the journal record, so a new account with this number is recorded after the deletion
+            nummernvergabe.freigeben(nummer);
+        } finally {
+            sperre.unlock();
+        }
+        dauerhaft(lsn);
+        return true;
+    }
+
+    /**
+     * Locks the account with the specified account number.
+     *
+     * @param nummer The account number.
+     * @throws KontonummerNichtVorhandenException If the account number is not found.
+     */
+    public void kontoSperren(long nummer) throws KontonummerNichtVorhandenException {
+        sperreSetzen(nummer, true);
+    }
+
+    /**
+     * Unlocks the account with the specified account number.
+     *
+     * @param nummer The account number.
+     * @throws KontonummerNichtVorhandenException If the account number is not found.
+     */
+    public void kontoEntsperren(long nummer) throws KontonummerNichtVorhandenException {
+        sperreSetzen(nummer, false);
+    }
+
+    private void sperreSetzen(long nummer, boolean sperren) throws KontonummerNichtVorhandenException {
+        Konto konto = kontoSuchen(nummer);
+        ReentrantLock sperre = sperreFuer(nummer);
+        long lsn = 0;
+        sperre.lock();
+        try {
+            if (!vorhanden(nummer, konto)) {
+                throw new KontonummerNichtVorhandenException();
+            }
+            journalPruefen();
+            if (sperren) {
+                konto.sperren();
+            } else {
+                konto.entsperren();
+            }
+            if (journal != null) {
+                lsn = journal.ereignis(sperren ? Journal.GESPERRT : Journal.ENTSPERRT, nummer);
+            }
+        } finally {
+            sperre.unlock();
         }
+        dauerhaft(lsn);
     }
 
     /**
@@ -153,12 +702,29 @@ public class Bank implements Cloneable, Serializable {
      * @throws KontonummerNichtVorhandenException If the account number is not found.
      */
     public double getKontostand(long nummer) throws KontonummerNichtVorhandenException {
-        if (kontoNummerChecker(nummer)) {
-            Konto konto = kontenListe.get(nummer);
-            return konto.getKontostand();
-        } else {
+        long anfang = metriken.anfang();
+        boolean erfolg = false;
+        try {
+            double kontostand = kontostand(nummer);
+            erfolg = true;
+            return kontostand;
+        } finally {
+            metriken.erfassen(Bankoperation.ABFRAGE, anfang, erfolg);
+        }
+    }
+
+    private double kontostand(long nummer) throws KontonummerNichtVorhandenException {
+        Konto konto = kontenListe.get(nummer);
+        if (konto == null && speicher != null) {
+            double kontostand = speicher.kontostand(nummer);
+            if (!Double.isNaN(kontostand)) {
+                return kontostand;
+            }
+        }
+        if (konto == null) {
             throw new KontonummerNichtVorhandenException();
         }
+        return konto.getKontostand();
     }
 
     /**
@@ -174,22 +740,49 @@ public class Bank implements Cloneable, Serializable {
      */
     public boolean geldUeberweisen(long vonKontonr, long nachKontonr, double betrag, String verwendungszweck)
             throws KontonummerNichtVorhandenException, GesperrtException {
-
-        if (!kontoNummerChecker(vonKontonr)) {
-            throw new KontonummerNichtVorhandenException();
-        }
-        if (!kontoNummerChecker(nachKontonr)) {
-            throw new KontonummerNichtVorhandenException();
+        long anfang = metriken.anfang();
+        boolean erfolg = false;
+        try {
+            erfolg = ueberweisen(vonKontonr, nachKontonr, betrag, verwendungszweck);
+            return erfolg;
+        } finally {
+            metriken.erfassen(Bankoperation.UEBERWEISEN, anfang, erfolg);
         }
+    }
+
+    private boolean ueberweisen(long vonKontonr, long nachKontonr, double betrag, String verwendungszweck)
+            throws KontonummerNichtVorhandenException, GesperrtException {
 
-        Konto vonKonto = kontenListe.get(vonKontonr);
-        Konto nachKonto = kontenListe.get(nachKontonr);
+        Konto vonKonto = kontoSuchen(vonKontonr);
+        Konto nachKonto = kontoSuchen(nachKontonr);
 
         if (vonKonto instanceof Ueberweisungsfaehig && nachKonto instanceof Ueberweisungsfaehig) {
             Ueberweisungsfaehig konto1 = (Ueberweisungsfaehig) vonKonto;
             Ueberweisungsfaehig konto2 = (Ueberweisungsfaehig) nachKonto;
-            konto1.ueberweisungAbsenden(betrag, vonKonto.getInhaber().getName(), vonKontonr, vonKonto.getKontonummer(), verwendungszweck);
-            konto2.ueberweisungEmpfangen(betrag, nachKonto.getInhaber().getName(), nachKontonr, nachKonto.getKontonummer(), verwendungszweck);
+            int streifen1 = streifen(vonKontonr);
+            int streifen2 = streifen(nachKontonr);
+            ReentrantLock erste = sperren[Math.min(streifen1, streifen2)];
+            ReentrantLock zweite = sperren[Math.max(streifen1, streifen2)];
+            long lsn = 0;
+            erste.lock();
+            zweite.lock();
+            try {
+                if (!vorhanden(vonKontonr, vonKonto) || !vorhanden(nachKontonr, nachKonto)) {
+                    throw new KontonummerNichtVorhandenException();
+                }
+                journalPruefen();
+                if (!konto1.ueberweisungAbsenden(betrag, vonKonto.getInhaber().getName(), vonKontonr, vonKonto.getKontonummer(), verwendungszweck)) {
+                    return false;
+                }
+                konto2.ueberweisungEmpfangen(betrag, nachKonto.getInhaber().getName(), nachKontonr, nachKonto.getKontonummer(), verwendungszweck);
+                if (journal != null) {
+                    lsn = journal.ueberwiesen(vonKontonr, nachKontonr, Geldbetrag.ausDouble(betrag, vonKonto.getAktuelleWaehrung()));
+                }
+            } finally {
+                zweite.unlock();
+                erste.unlock();
+            }
+            dauerhaft(lsn);
             return true;
         } else {
             return false;
@@ -197,13 +790,317 @@ public class Bank implements Cloneable, Serializable {
     }
 
     /**
-     * Generates a new, unique account number.
+     * Executes a block of transfers between accounts of this bank.
+     * <p>
+     * Chunks of up to {@value #STAPELBLOCK} transfers are executed in rounds grouped by lock stripes, see
+     * {@link Stapelplan}: the stripes of a round are taken together in ascending order, and a round never holds more than a quarter of them, so single operations
+     * on other accounts can go on while the block runs. Every account sees its transfers in the order of the
+     * block. Failed transfers do not throw, their reason is reported in the result.
+     * With a journal, the call waits once for all records of the block to be on disk.
+     *
+     * @param stapel The transfers to execute.
+     * @return The result of every transfer, in the order of the block.
+     */
+    public Stapelergebnis geldUeberweisen(Ueberweisungsstapel stapel) {
+        long anfang = metriken.anfang();
+        boolean erfolg = false;
+        try {
+            Stapelergebnis ergebnis = stapelUeberweisen(stapel);
+            erfolg = true;
+            return ergebnis;
+        } finally {
+            metriken.erfassen(Bankoperation.STAPELUEBERWEISUNG, anfang, erfolg);
+        }
+    }
+
+    private Stapelergebnis stapelUeberweisen(Ueberweisungsstapel stapel) {
+        int anzahl = stapel.getAnzahl();
+        Stapelergebnis ergebnis = new Stapelergebnis(anzahl);
+        Stapelplan plan = stapelplanBelegen();
+        try {
+            int[] runde = plan.getRunde();
+            long[] benoetigteStreifen = plan.getStreifen();
+            long lsn = 0;
+
+            for (int anfang = 0; anfang < anzahl; anfang += STAPELBLOCK) {
+                int ende = Math.min(anzahl, anfang + STAPELBLOCK);
+                plan.leeren();
+                for (int i = anfang; i < ende; i++) {
+                    plan.hinzufuegen(i, stapel.getVon(i), streifen(stapel.getVon(i)),
+                            stapel.getNach(i), streifen(stapel.getNach(i)));
+                }
+                plan.planen();
+
+                for (int laenge; (laenge = plan.naechsteRunde()) > 0; ) {
+                    streifenSperren(benoetigteStreifen);
+                    try {
+                        journalPruefen();
+                        for (int r = 0; r < laenge; r++) {
+                            lsn = Math.max(lsn, ausfuehren(stapel, runde[r], ergebnis));
+                        }
+                    } finally {
+                        streifenEntsperren(benoetigteStreifen);
+                    }
+                }
+            }
+            dauerhaft(lsn);
+            return ergebnis;
+        } finally {
+            plan.freigeben();
+        }
+    }
+
+    /**
+     * Returns the plan of the calling thread for a block of transfers, or a new one if a block
+     * further up the thread is using it; it has to be released with {@link Stapelplan#freigeben()}.
+     */
+    private static Stapelplan stapelplanBelegen() {
+        Stapelplan plan = STAPELPLAENE.get();
+        if (!plan.belegen()) {
+            plan = new Stapelplan(STAPELBLOCK, STREIFEN);
+            plan.belegen();
+        }
+        return plan;
+    }
+
+    /**
+     * Executes a single transfer of a block and records its result, the stripes of both accounts are already held.
+     *
+     * @return The sequence number of its journal record, 0 if there is none.
+     */
+    private long ausfuehren(Ueberweisungsstapel stapel, int i, Stapelergebnis ergebnis) {
+        Konto vonKonto = konto(stapel.getVon(i));
+        Konto nachKonto = konto(stapel.getNach(i));
+        Ueberweisungsstatus status;
+        if (vonKonto == null || nachKonto == null) {
+            status = Ueberweisungsstatus.KONTO_UNBEKANNT;
+        } else if (!(vonKonto instanceof Ueberweisungsfaehig) || !(nachKonto instanceof Ueberweisungsfaehig)) {
+            status = Ueberweisungsstatus.NICHT_UEBERWEISUNGSFAEHIG;
+        } else {
+            status = ausfuehren(stapel, i, vonKonto, nachKonto);
+        }
+        ergebnis.setStatus(i, status);
+        if (status == Ueberweisungsstatus.OK && journal != null) {
+            return journal.ueberwiesen(stapel.getVon(i), stapel.getNach(i),
+                    Geldbetrag.ausDouble(stapel.getBetrag(i), vonKonto.getAktuelleWaehrung()));
+        }
+        return 0;
+    }
+
+    /**
+     * Executes a single transfer of a block, the stripes of both accounts are already held.
+     */
+    private static Ueberweisungsstatus ausfuehren(Ueberweisungsstapel stapel, int i, Konto vonKonto, Konto nachKonto) {
+        if (vonKonto.isGesperrt()) {
+            return Ueberweisungsstatus.GESPERRT;
+        }
+        double betrag = stapel.getBetrag(i);
+        String verwendungszweck = stapel.getVerwendungszweck(i);
+        try {
+            if (!((Ueberweisungsfaehig) vonKonto).ueberweisungAbsenden(betrag, vonKonto.getInhaber().getName(),
+                    stapel.getVon(i), vonKonto.getKontonummer(), verwendungszweck)) {
+                return Ueberweisungsstatus.NICHT_GEDECKT;
+            }
+        } catch (GesperrtException e) {
+            return Ueberweisungsstatus.GESPERRT;
+        }
+        ((Ueberweisungsfaehig) nachKonto).ueberweisungEmpfangen(betrag, nachKonto.getInhaber().getName(),
+                stapel.getNach(i), nachKonto.getKontonummer(), verwendungszweck);
+        return Ueberweisungsstatus.OK;
+    }
+
+    /**
+     * Result of the sending half of a transfer to another bank.
+     *
+     * @param status   {@link Ueberweisungsstatus#OK} if the amount was debited, otherwise the reason why not.
+     * @param euroCent The debited amount in euro cents, converted from the account's currency at the time of the
+     *                 debit; 0 if nothing was debited.
+     */
+    record Abbuchung(Ueberweisungsstatus status, long euroCent) {
+        Abbuchung(Ueberweisungsstatus status) {
+            this(status, 0);
+        }
+    }
+
+    /**
+     * Executes the sending half of a transfer whose receiving account belongs to another bank,
+     * see {@link VerteilteBank} and {@link Clearingstelle}. The journal records it as a withdrawal.
+     *
+     * @param vonKontonr       The account number from which the money will be sent.
+     * @param betrag           The amount to be transferred, in the currency of the account.
+     * @param verwendungszweck A description or purpose of the transfer.
+     * @return Whether the amount was debited, and how much in euro.
+     */
+    Abbuchung ueberweisungAbbuchen(long vonKontonr, double betrag, String verwendungszweck) {
+        Konto konto = konto(vonKontonr);
+        if (konto == null) {
+            return new Abbuchung(Ueberweisungsstatus.KONTO_UNBEKANNT);
+        }
+        if (!(konto instanceof Ueberweisungsfaehig)) {
+            return new Abbuchung(Ueberweisungsstatus.NICHT_UEBERWEISUNGSFAEHIG);
+        }
+        ReentrantLock sperre = sperreFuer(vonKontonr);
+        long lsn = 0;
+        long euroCent;
+        sperre.lock();
+        try {
+            if (!vorhanden(vonKontonr, konto)) {
+                return new Abbuchung(Ueberweisungsstatus.KONTO_UNBEKANNT);
+            }
+            journalPruefen();
+            if (!((Ueberweisungsfaehig) konto).ueberweisungAbsenden(betrag, konto.getInhaber().getName(),
+                    vonKontonr, konto.getKontonummer(), verwendungszweck)) {
+                return new Abbuchung(Ueberweisungsstatus.NICHT_GEDECKT);
+            }
+            Waehrung waehrung = konto.getAktuelleWaehrung();
+            long cent = Geldbetrag.ausDouble(betrag, waehrung);
+            euroCent = waehrung.waehrungInEuroUmrechnen(cent, RoundingMode.HALF_UP);
+            if (journal != null) {
+                lsn = journal.buchung(Journal.ABGEBUCHT, vonKontonr, cent);
+            }
+        } catch (GesperrtException e) {
+            return new Abbuchung(Ueberweisungsstatus.GESPERRT);
+        } finally {
+            sperre.unlock();
+        }
+        dauerhaft(lsn);
+        return new Abbuchung(Ueberweisungsstatus.OK, euroCent);
+    }
+
+    /**
+     * Executes the receiving half of a transfer whose sending account belongs to another bank,
+     * see {@link VerteilteBank}. The journal records it as a deposit.
+     *
+     * @param nachKontonr      The account number to which the money will be sent.
+     * @param betrag           The amount to be transferred.
+     * @param verwendungszweck A description or purpose of the transfer.
+     * @return {@link Ueberweisungsstatus#OK} if the amount was credited, otherwise the reason why not.
+     */
+    Ueberweisungsstatus ueberweisungGutschreiben(long nachKontonr, double betrag, String verwendungszweck) {
+        Konto konto = konto(nachKontonr);
+        if (konto == null) {
+            return Ueberweisungsstatus.KONTO_UNBEKANNT;
+        }
+        if (!(konto instanceof Ueberweisungsfaehig)) {
+            return Ueberweisungsstatus.NICHT_UEBERWEISUNGSFAEHIG;
+        }
+        ReentrantLock sperre = sperreFuer(nachKontonr);
+        long lsn = 0;
+        sperre.lock();
+        try {
+            if (!vorhanden(nachKontonr, konto)) {
+                return Ueberweisungsstatus.KONTO_UNBEKANNT;
+            }
+            journalPruefen();
+            ((Ueberweisungsfaehig) konto).ueberweisungEmpfangen(betrag, konto.getInhaber().getName(),
+                    nachKontonr, konto.getKontonummer(), verwendungszweck);
+            if (journal != null) {
+                lsn = journal.buchung(Journal.EINGEZAHLT, nachKontonr, Geldbetrag.ausDouble(betrag, konto.getAktuelleWaehrung()));
+            }
+        } finally {
+            sperre.unlock();
+        }
+        dauerhaft(lsn);
+        return Ueberweisungsstatus.OK;
+    }
+
+    /**
+     * Credits a block of transfers from accounts of other banks, see {@link Clearingstelle}. Only the receiving
+     * account of each transfer belongs to this bank; the sending one was already debited at its own bank.
+     * Like {@link #geldUeberweisen(Ueberweisungsstapel)}, the credits are executed in rounds grouped by lock
+     * stripes and the call waits once for the journal, which records every credit as a deposit.
+     *
+     * @param stapel   The transfers, with the sending account numbers of the other banks.
+     * @param ergebnis Receives {@link Ueberweisungsstatus#OK} for every credited transfer, otherwise the reason
+     *                 why not. If the call throws, e.g. because the journal is closed, the transfers handled
+     *                 before have their result and all others have none.
+     */
+    void gutschriftenBuchen(Ueberweisungsstapel stapel, Stapelergebnis ergebnis) {
+        int anzahl = stapel.getAnzahl();
+        Stapelplan plan = stapelplanBelegen();
+        try {
+            int[] runde = plan.getRunde();
+            long[] benoetigteStreifen = plan.getStreifen();
+            long lsn = 0;
+
+            for (int anfang = 0; anfang < anzahl; anfang += STAPELBLOCK) {
+                int ende = Math.min(anzahl, anfang + STAPELBLOCK);
+                plan.leeren();
+                for (int i = anfang; i < ende; i++) {
+                    int s = streifen(stapel.getNach(i));
+                    plan.hinzufuegen(i, stapel.getNach(i), s, stapel.getNach(i), s);
+                }
+                plan.planen();
+
+                for (int laenge; (laenge = plan.naechsteRunde()) > 0; ) {
+                    streifenSperren(benoetigteStreifen);
+                    try {
+                        journalPruefen();
+                        for (int r = 0; r < laenge; r++) {
+                            int i = runde[r];
+                            Konto nachKonto = konto(stapel.getNach(i));
+                            if (nachKonto == null) {
+                                ergebnis.setStatus(i, Ueberweisungsstatus.KONTO_UNBEKANNT);
+                                continue;
+                            }
+                            if (!(nachKonto instanceof Ueberweisungsfaehig)) {
+                                ergebnis.setStatus(i, Ueberweisungsstatus.NICHT_UEBERWEISUNGSFAEHIG);
+                                continue;
+                            }
+                            ((Ueberweisungsfaehig) nachKonto).ueberweisungEmpfangen(stapel.getBetrag(i),
+                                    nachKonto.getInhaber().getName(), stapel.getNach(i), nachKonto.getKontonummer(),
+                                    stapel.getVerwendungszweck(i));
+                            ergebnis.setStatus(i, Ueberweisungsstatus.OK);
+                            if (journal != null) {
+                                lsn = journal.buchung(Journal.EINGEZAHLT, stapel.getNach(i),
+                                        Geldbetrag.ausDouble(stapel.getBetrag(i), nachKonto.getAktuelleWaehrung()));
+                            }
+                        }
+                    } finally {
+                        streifenEntsperren(benoetigteStreifen);
+                    }
+                }
+            }
+            dauerhaft(lsn);
+        } finally {
+            plan.freigeben();
+        }
+    }
+
+    /**
+     * Takes the locks of all stripes whose bit is set, in ascending order.
+     */
+    private void streifenSperren(long[] streifen) {
+        for (int wort = 0; wort < streifen.length; wort++) {
+            long bits = streifen[wort];
+            while (bits != 0) {
+                sperren[wort * Long.SIZE + Long.numberOfTrailingZeros(bits)].lock();
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    /**
+     * Releases the locks of all stripes whose bit is set.
+     */
+    private void streifenEntsperren(long[] streifen) {
+        for (int wort = streifen.length - 1; wort >= 0; wort--) {
+            long bits = streifen[wort];
+            while (bits != 0) {
+                sperren[wort * Long.SIZE + Long.numberOfTrailingZeros(bits)].unlock();
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    /**
+     * Generates a new, unique account number: the lowest number above 1000 that no account has.
+     * Numbers of deleted accounts are used again.
      *
      * @return A new unique account number.
      */
     public long kontoNummerErsteller() {
-        counter++;
-        return baseNumber + counter;
+        return nummernvergabe.vergeben();
     }
 
     /**
@@ -213,37 +1110,268 @@ public class Bank implements Cloneable, Serializable {
      * @return True if an account with the given account number exists, false otherwise.
      */
     public boolean kontoNummerChecker(long nummer) {
-        for (Long kontonummer : kontenListe.keySet()) {
-            if (kontonummer == nummer) {
-                return true;
+        long anfang = metriken.anfang();
+        boolean vorhanden = kontenListe.containsKey(nummer) || (speicher != null && speicher.enthaelt(nummer));
+        metriken.erfassen(Bankoperation.ABFRAGE, anfang, vorhanden);
+        return vorhanden;
+    }
+
+    /**
+     * Looks up the account with the specified account number.
+     *
+     * @param nummer The account number to look up.
+     * @return The account with the given account number.
+     * @throws KontonummerNichtVorhandenException If the account number is not found.
+     */
+    private Konto kontoSuchen(long nummer) throws KontonummerNichtVorhandenException {
+        Konto konto = konto(nummer);
+        if (konto == null) {
+            throw new KontonummerNichtVorhandenException();
+        }
+        return konto;
+    }
+
+    /**
+     * Returns the account with the specified account number and loads it from the store on first use.
+     *
+     * @param nummer The account number.
+     * @return The account, or null if there is none with this number.
+     */
+    private Konto konto(long nummer) {
+        Konto konto = kontenListe.get(nummer);
+        if (konto != null || speicher == null) {
+            return konto;
+        }
+        // under the stripe lock, so a concurrent kontoLoeschen cannot be undone by loading the old record
+        ReentrantLock sperre = sperreFuer(nummer);
+        sperre.lock();
+        try {
+            konto = kontenListe.get(nummer);
+            if (konto == null) {
+                konto = speicher.laden(nummer);
+                if (konto != null) {
+                    aufnehmen(nummer, konto);
+                }
             }
+            return konto;
+        } finally {
+            sperre.unlock();
+        }
+    }
+
+    /**
+     * Checks, under the stripe lock of the number, that an account looked up before the lock was taken is still
+     * the one with this number. A concurrent {@link #kontoLoeschen(long)} may have removed it in between, and the
+     * number may already belong to a new account; a booking on the old object would be lost or, in the journal,
+     * applied to the new one.
+     *
+     * @param nummer The account number.
+     * @param konto  The account found for it.
+     * @return True if the account still has this number in the bank.
+     */
+    private boolean vorhanden(long nummer, Konto konto) {
+        return kontenListe.get(nummer) == konto;
+    }
+
+    /**
+     * Loads all accounts of the store that have not been used yet.
+     */
+    private void allesLaden() {
+        if (speicher == null || allesGeladen) {
+            return;
+        }
+        for (long nummer : speicher.kontonummern()) {
+            konto(nummer);
         }
-        return false;
+        allesGeladen = true;
     }
 
     /**
-     * Locks accounts with a negative balance.
+     * Stores an account in the table and the balance index, replacing an account with the same number.
+     *
+     * @param nummer The account number.
+     * @param konto  The account.
      */
-    public void pleitegeierSperren() {
-        kontenListe.values()
-                .stream()
-                .filter(konto -> konto.getKontostand() < 0)
-                .forEach(Konto::sperren);
+    private void aufnehmen(long nummer, Konto konto) {
+        Konto alt = kontenListe.put(nummer, konto);
+        if (alt != null) {
+            kontostandindex.entfernen(alt);
+        }
+        kontostandindex.aufnehmen(nummer, konto);
     }
 
     /**
-     * Retrieves a list of customers with an account balance equal to or greater than a specified minimum.
+     * Removes an account from the table and the balance index.
+     *
+     * @param nummer The account number.
+     * @return The removed account, or null if there was none.
+     */
+    private Konto entfernen(long nummer) {
+        Konto alt = kontenListe.remove(nummer);
+        if (alt != null) {
+            kontostandindex.entfernen(alt);
+        }
+        return alt;
+    }
+
+    /**
+     * Returns the lock stripe of the specified account number.
+     *
+     * @param nummer The account number.
+     * @return The index of the stripe in {@link #sperren}.
+     */
+    static int streifen(long nummer) {
+        int h = (int) (nummer ^ (nummer >>> 32)) * 0x9E3779B9;
+        return h >>> (Integer.SIZE - Integer.numberOfTrailingZeros(STREIFEN));
+    }
+
+    /**
+     * Returns the lock that guards the account with the specified account number.
+     *
+     * @param nummer The account number.
+     * @return The lock of the account's stripe.
+     */
+    private ReentrantLock sperreFuer(long nummer) {
+        return sperren[streifen(nummer)];
+    }
+
+    /**
+     * Waits until the journal record with the given sequence number is on disk.
+     *
+     * @param lsn The sequence number of the record, 0 if nothing was recorded.
+     */
+    private void dauerhaft(long lsn) {
+        if (lsn != 0) {
+            journal.warten(lsn);
+        }
+    }
+
+    /**
+     * Checks, before an account is changed, that its record can still be appended to the journal.
+     *
+     * @throws UncheckedIOException  If a write of the journal has failed.
+     * @throws IllegalStateException If the journal is closed.
+     */
+    private void journalPruefen() {
+        if (journal != null) {
+            journal.pruefen();
+        }
+    }
+
+    /**
+     * Locks accounts with a negative balance, see {@link #pleitegeierSperren(Fortschritt)}.
+     *
+     * @return The number of accounts that were locked by this call.
+     */
+    public int pleitegeierSperren() {
+        return pleitegeierSperren(null);
+    }
+
+    /**
+     * Locks accounts with a negative balance. Accounts that are already locked are left alone.
+     * <p>
+     * The accounts with a negative balance are taken from the balance index, so the cost depends on their number,
+     * not on the size of the bank; only if most accounts may be negative, all are checked. They are checked again
+     * in parallel, one partition per lock stripe; while a partition is checked, only the operations on its accounts
+     * wait, everything else continues. Each partition is checked in a consistent state, but an account can become
+     * negative after the index was read.
+     *
+     * @param fortschritt Receives the progress after each partition, may be null.
+     * @return The number of accounts that were locked by this call.
+     */
+    public int pleitegeierSperren(Fortschritt fortschritt) {
+        long anfang = metriken.anfang();
+        boolean erfolg = false;
+        try {
+            int gesperrt = sperrlauf(fortschritt);
+            erfolg = true;
+            return gesperrt;
+        } finally {
+            metriken.erfassen(Bankoperation.SPERRLAUF, anfang, erfolg);
+        }
+    }
+
+    /**
+     * Result of a lock sweep over some accounts.
+     *
+     * @param gesperrt The number of accounts locked.
+     * @param lsn      The sequence number of the last journal record, 0 if nothing was recorded.
+     */
+    private record Sperrbilanz(int gesperrt, long lsn) {
+    }
+
+    private int sperrlauf(Fortschritt fortschritt) {
+        allesLaden();
+        KontenTabelle.Eintraege kandidaten = kontostandindex.unterKontostand(0);
+        if (kandidaten == null) {
+            kandidaten = kontenListe.eintraege();
+        }
+        List<Sperrbilanz> bilanzen = Streifenlauf.ausfuehren(kandidaten, sperren, (nummern, konten, von, bis) -> {
+            journalPruefen();
+            int gesperrt = 0;
+            long lsn = 0;
+            for (int i = von; i < bis; i++) {
+                Konto konto = konten[i];
+                if (!konto.isGesperrt() && konto.getKontostandCent() < 0 && vorhanden(nummern[i], konto)) {
+                    konto.sperren();
+                    gesperrt++;
+                    if (journal != null) {
+                        lsn = journal.ereignis(Journal.GESPERRT, nummern[i]);
+                    }
+                }
+            }
+            return new Sperrbilanz(gesperrt, lsn);
+        }, fortschritt);
+        int gesperrt = 0;
+        long lsn = 0;
+        for (Sperrbilanz bilanz : bilanzen) {
+            gesperrt += bilanz.gesperrt();
+            lsn = Math.max(lsn, bilanz.lsn());
+        }
+        dauerhaft(lsn);
+        return gesperrt;
+    }
+
+    /**
+     * Retrieves a list of customers with an account balance equal to or greater than a specified minimum,
+     * see {@link #getKundenMitVollemKonto(double, Fortschritt)}.
      *
      * @param minimum The minimum account balance.
      * @return A list of customers.
      */
     public List<Kunde> getKundenMitVollemKonto(double minimum) {
-        List<Kunde> kundeList = kontenListe.values()
-                .stream()
-                .filter(konto -> konto.getKontostand() >= minimum)
-                .map(Konto::getInhaber)
-                .toList();
-        return kundeList;
+        return getKundenMitVollemKonto(minimum, null);
+    }
+
+    /**
+     * Retrieves a list of customers with an account balance equal to or greater than a specified minimum.
+     * The accounts are found with the balance index and checked again in parallel like in
+     * {@link #pleitegeierSperren(Fortschritt)}; the balances of each partition are read in a consistent state.
+     *
+     * @param minimum     The minimum account balance.
+     * @param fortschritt Receives the progress after each partition, may be null.
+     * @return A list of customers, one entry per account, in no particular order.
+     */
+    public List<Kunde> getKundenMitVollemKonto(double minimum, Fortschritt fortschritt) {
+        allesLaden();
+        KontenTabelle.Eintraege kandidaten = kontostandindex.abKontostand(minimum);
+        if (kandidaten == null) {
+            kandidaten = kontenListe.eintraege();
+        }
+        List<List<Kunde>> teile = Streifenlauf.ausfuehren(kandidaten, sperren, (nummern, konten, von, bis) -> {
+            List<Kunde> gefunden = new ArrayList<>();
+            for (int i = von; i < bis; i++) {
+                if (konten[i].getKontostand() >= minimum) {
+                    gefunden.add(konten[i].getInhaber());
+                }
+            }
+            return gefunden;
+        }, fortschritt);
+        List<Kunde> kunden = new ArrayList<>(teile.stream().mapToInt(List::size).sum());
+        for (List<Kunde> teil : teile) {
+            kunden.addAll(teil);
+        }
+        return Collections.unmodifiableList(kunden);
     }
 
     /**
@@ -252,46 +1380,105 @@ public class Bank implements Cloneable, Serializable {
      * @return A string containing customer names and addresses.
      */
     public String getKundenadressen() {
-        String kundenNamenUndAdressen = kontenListe.values()
-                .stream()
-                .map(konto -> {
-                            Kunde kunde = konto.getInhaber();
-                            return kunde.getName() + "," + kunde.getAdresse();
-                        }
-                )
+        String kundenNamenUndAdressen = Arrays.stream(alleEintraege().konten())
+                .map(Konto::getInhaber)
+                .map(kunde -> kunde.getName() + "," + kunde.getAdresse())
                 .distinct()
                 .sorted()
-                .toString();
+                .collect(Collectors.joining("\n"));
         return kundenNamenUndAdressen;
     }
 
     /**
-     * Retrieves a list of available account numbers without duplicates.
+     * Returns the free account numbers between the first account number and the highest number in use,
+     * the gaps left by deleted accounts. Numbers above the highest one are all free.
      *
-     * @return A list of available account numbers.
+     * @return The free numbers as ranges, in ascending order.
      */
-    public List<Long> getKontonummernLuecken() {
-        List<Long> avalibleNumbers = Stream.concat(
-                        LongStream.range(baseNumber, maxNumber).boxed(),
-                        kontenListe.values().stream().map(Konto::getKontonummer))
-                .collect(Collectors.toMap(
-                        l -> l,
-                        l -> l,
-                        (existing, replacement) -> replacement))
-                .values()
-                .stream()
-                .toList();
-        return avalibleNumbers;
+    public Nummernbereiche getKontonummernLuecken() {
+        return nummernvergabe.luecken(baseNumber + 1, nummernvergabe.hoechste());
     }
 
     /**
-     * Returns a cloned copy of the current object.
+     * Returns the free account numbers between two numbers.
      *
-     * @return A cloned copy of the object.
+     * @param von The lowest number looked at.
+     * @param bis The highest number looked at.
+     * @return The free numbers as ranges, in ascending order; none if von is negative or greater than bis.
+     */
+    public Nummernbereiche getKontonummernLuecken(long von, long bis) {
+        return nummernvergabe.luecken(Math.max(von, baseNumber + 1), bis);
+    }
+
+    /**
+     * Writes a snapshot of all accounts to a channel, see {@link Schnappschuss} for the format.
+     * Every account is written under its stripe lock, so each account is consistent in itself.
+     *
+     * @param kanal The channel the snapshot is written to, it is not closed.
+     * @throws IOException              If the channel cannot be written.
+     * @throws IllegalArgumentException If the bank has an account that is neither a Girokonto nor a Sparbuch.
+     */
+    public void schnappschussSchreiben(WritableByteChannel kanal) throws IOException {
+        Schnappschuss.Schreiber schreiber = new Schnappschuss.Schreiber(kanal, bankleitzahl,
+                Math.max(0, nummernvergabe.hoechste() - baseNumber));
+        jedesKonto(schreiber::konto);
+        schreiber.abschliessen();
+    }
+
+    /**
+     * Creates a bank from a snapshot written by {@link #schnappschussSchreiben(WritableByteChannel)}.
+     *
+     * @param kanal The channel the snapshot is read from, it is not closed.
+     * @return The restored bank.
+     * @throws IOException If the channel cannot be read or does not contain a complete snapshot.
+     */
+    public static Bank schnappschussLesen(ReadableByteChannel kanal) throws IOException {
+        return Schnappschuss.lesen(kanal);
+    }
+
+    /**
+     * Inserts an account under its own account number.
+     *
+     * @param konto The account.
+     */
+    void kontoEinfuegen(Konto konto) {
+        kontoEinfuegen(konto.getKontonummer(), konto);
+    }
+
+    /**
+     * Inserts an account under the specified account number.
+     *
+     * @param nummer The account number.
+     * @param konto  The account.
+     */
+    void kontoEinfuegen(long nummer, Konto konto) {
+        nummernvergabe.belegen(nummer);
+        aufnehmen(nummer, konto);
+    }
+
+    /**
+     * Marks an account number as free, so that {@link #kontoNummerErsteller()} hands it out again.
+     *
+     * @param nummer The account number.
+     */
+    void kontonummerFreigeben(long nummer) {
+        nummernvergabe.freigeben(nummer);
+    }
+
+    /**
+     * Returns a snapshot of the current bank, it can be read with {@link #schnappschussLesen(ReadableByteChannel)}.
+     *
+     * @return The snapshot as bytes.
      */
     @Override
     public byte[] clone() {
-        return serialize(this);
+        ByteArrayOutputStream ausgabe = new ByteArrayOutputStream();
+        try {
+            schnappschussSchreiben(Channels.newChannel(ausgabe));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ausgabe.toByteArray();
     }
 
     /**
@@ -310,6 +1497,77 @@ public class Bank implements Cloneable, Serializable {
         }
     }
 
+    /**
+     * Applies the records of a journal to this bank while it is restored.
+     * Records of accounts that do not exist any more are ignored.
+     */
+    private class Wiederherstellung implements Journal.Empfaenger {
+        private final Map<String, Kontofabrik> fabriken = new HashMap<>();
+
+        @Override
+        public void kontoErstellt(long nummer, String fabrik, String vorname, String nachname, String adresse,
+                                  long geburtstag) throws IOException {
+            Kunde inhaber = kundenregister.registrieren(vorname, nachname, adresse, LocalDate.ofEpochDay(geburtstag));
+            nummernvergabe.belegen(nummer);
+            aufnehmen(nummer, fabrik(fabrik).createKonto(inhaber, nummer));
+        }
+
+        private Kontofabrik fabrik(String name) throws IOException {
+            Kontofabrik fabrik = fabriken.get(name);
+            if (fabrik == null) {
+                try {
+                    fabrik = Class.forName(name).asSubclass(Kontofabrik.class).getDeclaredConstructor().newInstance();
+                } catch (ReflectiveOperationException | ClassCastException e) {
+                    throw new IOException("Kontofabrik " + name + " kann nicht erzeugt werden", e);
+                }
+                fabriken.put(name, fabrik);
+            }
+            return fabrik;
+        }
+
+        @Override
+        public void eingezahlt(long nummer, long betrag) {
+            buchen(nummer, betrag);
+        }
+
+        @Override
+        public void abgebucht(long nummer, long betrag) {
+            buchen(nummer, -betrag);
+        }
+
+        @Override
+        public void ueberwiesen(long von, long nach, long betrag) {
+            buchen(von, -betrag);
+            buchen(nach, betrag);
+        }
+
+        private void buchen(long nummer, long betrag) {
+            Konto konto = kontenListe.get(nummer);
+            if (konto != null) {
+                konto.buchungNachtragen(betrag);
+            }
+        }
+
+        @Override
+        public void geloescht(long nummer) {
+            entfernen(nummer);
+            nummernvergabe.freigeben(nummer);
+        }
+
+        @Override
+        public void gesperrt(long nummer, boolean gesperrt) {
+            Konto konto = kontenListe.get(nummer);
+            if (konto == null) {
+                return;
+            }
+            if (gesperrt) {
+                konto.sperren();
+            } else {
+                konto.entsperren();
+            }
+        }
+    }
+
     /**
      * Custom exception class to handle cases where an account number is not found.
      */
@@ -322,6 +1580,8 @@ public class Bank implements Cloneable, Serializable {
 
     @Override
     public String toString() {
-        return "Bankleitzahl: " + getBankleitzahl() + ". \nAlle Konten: \n" + getAlleKonten();
+        StringBuilder ausgabe = new StringBuilder("Bankleitzahl: ").append(getBankleitzahl()).append(". \nAlle Konten: \n");
+        alleKontenInText(ausgabe);
+        return ausgabe.toString();
     }
 }
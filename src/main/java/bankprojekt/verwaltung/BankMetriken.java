@@ -0,0 +1,109 @@
+package bankprojekt.verwaltung;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The {@link Operationsstatistik} of every {@link Bankoperation} of one bank, and their registration with
+ * the platform MBean server.
+ * <p>
+ * Recording is on for a new bank. Every operation is counted, but only one in {@value #STICHPROBE}, chosen at
+ * random, reads the clock and is put into the histogram: the two clock reads and the histogram cost more than
+ * a balance query itself, the choice and the counter little. A sample of that size gives the percentiles of
+ * any operation that runs more than a few thousand times per interval; a rare outlier may be missed by the
+ * maximum.
+ */
+final class BankMetriken {
+    private static final Bankoperation[] OPERATIONEN = Bankoperation.values();
+
+    /**
+     * One in this many operations is timed, a power of two.
+     */
+    static final int STICHPROBE = 16;
+
+    /**
+     * Start time of an operation while recording is off.
+     */
+    static final long AUS = Long.MIN_VALUE;
+    /**
+     * Start time of an operation that is counted but not timed.
+     */
+    static final long UNGEMESSEN = Long.MIN_VALUE + 1;
+
+    private final Operationsstatistik[] statistiken = new Operationsstatistik[OPERATIONEN.length];
+    private volatile boolean aktiv = true;
+
+    BankMetriken() {
+        for (Bankoperation operation : OPERATIONEN) {
+            statistiken[operation.ordinal()] = new Operationsstatistik(operation);
+        }
+    }
+
+    /**
+     * Switches recording on or off; it is on for a new bank.
+     */
+    void setAktiv(boolean aktiv) {
+        this.aktiv = aktiv;
+    }
+
+    /**
+     * Returns the start time of an operation; the clock is only read for the operations of the sample.
+     *
+     * @return {@link System#nanoTime()}, {@link #UNGEMESSEN} if the operation is not in the sample, or
+     * {@link #AUS} if recording is off.
+     */
+    long anfang() {
+        if (!aktiv) {
+            return AUS;
+        }
+        return (ThreadLocalRandom.current().nextInt() & (STICHPROBE - 1)) == 0 ? System.nanoTime() : UNGEMESSEN;
+    }
+
+    /**
+     * Records an operation that has just ended.
+     *
+     * @param operation The kind of operation.
+     * @param anfang    The start of the operation from {@link #anfang()}; nothing is recorded for {@link #AUS}.
+     * @param erfolg    Whether the operation succeeded.
+     */
+    void erfassen(Bankoperation operation, long anfang, boolean erfolg) {
+        if (anfang != AUS) {
+            statistiken[operation.ordinal()].erfassen(anfang, erfolg);
+        }
+    }
+
+    Operationsstatistik get(Bankoperation operation) {
+        return statistiken[operation.ordinal()];
+    }
+
+    /**
+     * Registers one MBean per operation as {@code bankprojekt.verwaltung:type=Bank,bankleitzahl=...,operation=...}.
+     */
+    void veroeffentlichen(long bankleitzahl) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (Bankoperation operation : OPERATIONEN) {
+            server.registerMBean(get(operation), name(bankleitzahl, operation));
+        }
+    }
+
+    /**
+     * Unregisters the MBeans registered by {@link #veroeffentlichen(long)}.
+     */
+    void zurueckziehen(long bankleitzahl) throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (Bankoperation operation : OPERATIONEN) {
+            ObjectName name = name(bankleitzahl, operation);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        }
+    }
+
+    private static ObjectName name(long bankleitzahl, Bankoperation operation) throws JMException {
+        return new ObjectName("bankprojekt.verwaltung:type=Bank,bankleitzahl=" + bankleitzahl
+                + ",operation=" + operation.name());
+    }
+}
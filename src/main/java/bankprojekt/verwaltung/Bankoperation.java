@@ -0,0 +1,35 @@
+package bankprojekt.verwaltung;
+
+/**
+ * The kinds of operations of a {@link Bank} that are measured separately.
+ */
+public enum Bankoperation {
+    /**
+     * {@link Bank#geldAbheben(long, double)}
+     */
+    ABHEBEN,
+    /**
+     * {@link Bank#geldEinzahlen(long, double)}
+     */
+    EINZAHLEN,
+    /**
+     * {@link Bank#geldUeberweisen(long, long, double, String)}
+     */
+    UEBERWEISEN,
+    /**
+     * {@link Bank#geldUeberweisen(Ueberweisungsstapel)}, one measurement per block
+     */
+    STAPELUEBERWEISUNG,
+    /**
+     * {@link Bank#getKontostand(long)} and {@link Bank#kontoNummerChecker(long)}
+     */
+    ABFRAGE,
+    /**
+     * {@link Bank#kontoErstellen(Kontofabrik, bankprojekt.verarbeitung.Kunde)}
+     */
+    KONTO_ERSTELLEN,
+    /**
+     * {@link Bank#pleitegeierSperren()}
+     */
+    SPERRLAUF
+}
@@ -0,0 +1,165 @@
+package bankprojekt.verwaltung;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The settlement of one clearing window of a {@link Clearingstelle}: how many transfers were credited or
+ * booked back, and the positions of the banks towards each other.
+ * <p>
+ * All amounts are in euro cents, converted from the currency of the sending account when the transfer was debited,
+ * and count only credited transfers. The gross amounts are what the banks sent each other;
+ * bilateral netting offsets the two directions between two banks, multilateral netting all positions of a bank
+ * against the clearing house, so only {@link #getNettoCent()} has to change hands instead of {@link #getBruttoCent()}.
+ */
+public final class Clearingabrechnung {
+    private final long fenster;
+    private final int gutgeschrieben;
+    private final int zurueckgebucht;
+    private final int unzustellbar;
+    /**
+     * gross amount per sending and receiving routing number
+     */
+    private final Map<Long, Map<Long, Long>> stroeme;
+
+    Clearingabrechnung(long fenster, int gutgeschrieben, int zurueckgebucht, int unzustellbar,
+                       Map<Long, Map<Long, Long>> stroeme) {
+        this.fenster = fenster;
+        this.gutgeschrieben = gutgeschrieben;
+        this.zurueckgebucht = zurueckgebucht;
+        this.unzustellbar = unzustellbar;
+        this.stroeme = stroeme;
+    }
+
+    /**
+     * Returns the number of the window, counted from 1 for each clearing house.
+     *
+     * @return The number of the window.
+     */
+    public long getFenster() {
+        return fenster;
+    }
+
+    /**
+     * Returns the number of transfers credited to their receiving accounts.
+     *
+     * @return The number of credited transfers.
+     */
+    public int getGutgeschrieben() {
+        return gutgeschrieben;
+    }
+
+    /**
+     * Returns the number of transfers whose receiving account did not exist or could not receive transfers,
+     * and which were booked back to their sending accounts.
+     *
+     * @return The number of transfers booked back.
+     */
+    public int getZurueckgebucht() {
+        return zurueckgebucht;
+    }
+
+    /**
+     * Returns the number of transfers that could neither be credited nor booked back, because the sending account
+     * was deleted meanwhile. Their amount stays with the clearing house.
+     *
+     * @return The number of undeliverable transfers.
+     */
+    public int getUnzustellbar() {
+        return unzustellbar;
+    }
+
+    /**
+     * Returns the routing numbers of all banks that sent or received a credited transfer.
+     *
+     * @return The routing numbers in ascending order.
+     */
+    public Set<Long> getBankleitzahlen() {
+        Set<Long> bankleitzahlen = new TreeSet<>(stroeme.keySet());
+        for (Map<Long, Long> ziele : stroeme.values()) {
+            bankleitzahlen.addAll(ziele.keySet());
+        }
+        return Collections.unmodifiableSet(bankleitzahlen);
+    }
+
+    /**
+     * Returns the sum of all credited transfers.
+     *
+     * @return The gross amount in cents.
+     */
+    public long getBruttoCent() {
+        long summe = 0;
+        for (Map<Long, Long> ziele : stroeme.values()) {
+            for (long betrag : ziele.values()) {
+                summe += betrag;
+            }
+        }
+        return summe;
+    }
+
+    /**
+     * Returns the sum of the credited transfers from one bank to another.
+     *
+     * @param vonBlz  The routing number of the sending bank.
+     * @param nachBlz The routing number of the receiving bank.
+     * @return The gross amount in cents.
+     */
+    public long getBruttoCent(long vonBlz, long nachBlz) {
+        return stroeme.getOrDefault(vonBlz, Map.of()).getOrDefault(nachBlz, 0L);
+    }
+
+    /**
+     * Returns the bilateral net position of a bank towards another one.
+     *
+     * @param blz      The routing number of the bank.
+     * @param gegenBlz The routing number of the other bank.
+     * @return The amount in cents the bank receives from the other one, negative if it owes it.
+     */
+    public long getBilateralCent(long blz, long gegenBlz) {
+        return getBruttoCent(gegenBlz, blz) - getBruttoCent(blz, gegenBlz);
+    }
+
+    /**
+     * Returns the multilateral net position of a bank, all its transfers offset against each other.
+     *
+     * @param blz The routing number of the bank.
+     * @return The amount in cents the bank receives from the clearing house, negative if it owes it.
+     */
+    public long getNettopositionCent(long blz) {
+        long position = 0;
+        for (Map.Entry<Long, Map<Long, Long>> quelle : stroeme.entrySet()) {
+            for (Map.Entry<Long, Long> ziel : quelle.getValue().entrySet()) {
+                if (ziel.getKey() == blz) {
+                    position += ziel.getValue();
+                }
+                if (quelle.getKey() == blz) {
+                    position -= ziel.getValue();
+                }
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Returns the amount that has to be paid to the clearing house after multilateral netting,
+     * the sum of all negative net positions.
+     *
+     * @return The net amount in cents.
+     */
+    public long getNettoCent() {
+        long summe = 0;
+        for (long blz : getBankleitzahlen()) {
+            summe += Math.max(0, -getNettopositionCent(blz));
+        }
+        return summe;
+    }
+
+    @Override
+    public String toString() {
+        return "Clearingfenster " + fenster + ": " + gutgeschrieben + " gutgeschrieben, " + zurueckgebucht
+                + " zurückgebucht, " + unzustellbar + " unzustellbar, brutto " + getBruttoCent()
+                + " Cent, netto " + getNettoCent() + " Cent";
+    }
+}
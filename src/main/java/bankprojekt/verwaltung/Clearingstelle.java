@@ -0,0 +1,304 @@
+package bankprojekt.verwaltung;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A clearing house that carries transfers between banks with different routing numbers.
+ * <p>
+ * A transfer is debited at the sending bank when it is submitted and collected in the current clearing window of
+ * the receiving bank. The amount is taken in the currency of each account, as for a transfer within a bank; the
+ * positions between the banks count what was debited, converted into euro at the time of the debit.
+ * {@link #abrechnen()} closes the window and settles it: the transfers of every receiving bank
+ * are credited as one block, taking the lock stripes of many accounts together; transfers whose receiving account
+ * does not exist or cannot receive transfers are booked back to their sending accounts. The result reports the
+ * gross and net positions of the banks, see {@link Clearingabrechnung}.
+ * <p>
+ * Until its window is settled, the amount of a transfer is on neither account and exists only in this object.
+ * Windows are settled one after the other; transfers can be submitted from many threads while a window is settled,
+ * they belong to the next one. {@link #automatischAbrechnen(Duration, Consumer)} settles the windows at a fixed rate.
+ * If a bank throws while a window is settled, e.g. because its journal is closed, the transfers it did not handle
+ * stay open and are settled with the next window.
+ */
+public class Clearingstelle implements AutoCloseable {
+    /**
+     * The transfers of a window to one receiving bank.
+     */
+    private static final class Eingang {
+        final Ueberweisungsstapel stapel = new Ueberweisungsstapel();
+        /**
+         * routing number of the sending bank, at the same position as the transfer in the block
+         */
+        long[] vonBlz = new long[16];
+        /**
+         * the debited amount in euro cents, at the same position as the transfer in the block
+         */
+        long[] euroCent = new long[16];
+
+        void hinzufuegen(long blz, long vonKontonr, long nachKontonr, double betrag, long cent,
+                         String verwendungszweck) {
+            int i = stapel.getAnzahl();
+            if (i == vonBlz.length) {
+                vonBlz = Arrays.copyOf(vonBlz, i * 2);
+                euroCent = Arrays.copyOf(euroCent, i * 2);
+            }
+            vonBlz[i] = blz;
+            euroCent[i] = cent;
+            stapel.hinzufuegen(vonKontonr, nachKontonr, betrag, verwendungszweck);
+        }
+    }
+
+    private final Map<Long, Bank> banken = new ConcurrentHashMap<>();
+    /**
+     * the open window per receiving routing number, guarded by this
+     */
+    private Map<Long, Eingang> fenster = new HashMap<>();
+    private int offen;
+    private boolean geschlossen;
+    /**
+     * held while a window is settled
+     */
+    private final Object abrechnung = new Object();
+    private long fensternummer;
+    private ScheduledExecutorService takt;
+    private Consumer<Clearingabrechnung> empfaenger;
+
+    /**
+     * Connects a bank to the clearing house under its routing number.
+     *
+     * @param bank The bank.
+     * @throws IllegalArgumentException If bank is null or another bank with the same routing number is connected.
+     */
+    public void anmelden(Bank bank) {
+        if (bank == null)
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        Bank vorhanden = banken.putIfAbsent(bank.getBankleitzahl(), bank);
+        if (vorhanden != null && vorhanden != bank)
+            throw new IllegalArgumentException("Bankleitzahl " + bank.getBankleitzahl() + " ist schon angemeldet");
+    }
+
+    /**
+     * Submits a transfer to an account of a connected bank. The sending account is debited at once,
+     * the receiving account is credited when the window is settled.
+     *
+     * @param vonBlz           The routing number of the sending bank.
+     * @param vonKontonr       The account number from which the money will be sent.
+     * @param nachBlz          The routing number of the receiving bank.
+     * @param nachKontonr      The account number to which the money will be sent.
+     * @param betrag           The amount to be transferred.
+     * @param verwendungszweck A description or purpose of the transfer.
+     * @return {@link Ueberweisungsstatus#OK} if the transfer was debited and waits for settlement, otherwise the
+     * reason why not; {@link Ueberweisungsstatus#KONTO_UNBEKANNT} also if no bank with nachBlz is connected.
+     * Whether the receiving account exists is only checked when the window is settled.
+     * @throws IllegalArgumentException If the amount is not positive or not finite, verwendungszweck is null
+     *                                  or no bank with vonBlz is connected.
+     * @throws IllegalStateException    If the clearing house is closed; a transfer debited while it was closed
+     *                                  is booked back.
+     */
+    public Ueberweisungsstatus ueberweisen(long vonBlz, long vonKontonr, long nachBlz, long nachKontonr,
+                                           double betrag, String verwendungszweck) {
+        Bank von = banken.get(vonBlz);
+        if (von == null || betrag <= 0 || Double.isNaN(betrag) || Double.isInfinite(betrag) || verwendungszweck == null)
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        if (!banken.containsKey(nachBlz)) {
+            return Ueberweisungsstatus.KONTO_UNBEKANNT;
+        }
+        geoeffnet();
+        Bank.Abbuchung abbuchung = von.ueberweisungAbbuchen(vonKontonr, betrag, verwendungszweck);
+        if (abbuchung.status() != Ueberweisungsstatus.OK) {
+            return abbuchung.status();
+        }
+        synchronized (this) {
+            if (!geschlossen) {
+                aufnehmen(nachBlz, vonBlz, vonKontonr, nachKontonr, betrag, abbuchung.euroCent(), verwendungszweck);
+                return Ueberweisungsstatus.OK;
+            }
+        }
+        // closed after the check, the last window may already be settled
+        von.ueberweisungGutschreiben(vonKontonr, betrag, verwendungszweck);
+        throw new IllegalStateException("Die Clearingstelle ist geschlossen");
+    }
+
+    private synchronized void geoeffnet() {
+        if (geschlossen)
+            throw new IllegalStateException("Die Clearingstelle ist geschlossen");
+    }
+
+    /**
+     * Adds a debited transfer to the open window.
+     */
+    private synchronized void aufnehmen(long nachBlz, long vonBlz, long vonKontonr, long nachKontonr, double betrag,
+                                        long euroCent, String verwendungszweck) {
+        fenster.computeIfAbsent(nachBlz, blz -> new Eingang())
+                .hinzufuegen(vonBlz, vonKontonr, nachKontonr, betrag, euroCent, verwendungszweck);
+        offen++;
+    }
+
+    /**
+     * Returns the number of transfers in the open window.
+     *
+     * @return The number of transfers debited and not yet settled.
+     */
+    public synchronized int getOffeneUeberweisungen() {
+        return offen;
+    }
+
+    /**
+     * Closes the open window and settles it; transfers submitted from now on belong to the next window.
+     * The transfers of each receiving bank are settled on their own, so a bank that throws does not keep the
+     * others from being settled.
+     *
+     * @return The settlement of the window.
+     * @throws RuntimeException If a bank threw while the window was settled, after all banks were settled; the
+     *                          transfers whose credit or booking back failed with it are put into the open window.
+     *                          Further exceptions are added as suppressed.
+     */
+    public Clearingabrechnung abrechnen() {
+        synchronized (abrechnung) {
+            Map<Long, Eingang> eingaenge;
+            synchronized (this) {
+                eingaenge = fenster;
+                fenster = new HashMap<>();
+                offen = 0;
+            }
+            Map<Long, Map<Long, Long>> stroeme = new HashMap<>();
+            int gutgeschrieben = 0;
+            int zurueckgebucht = 0;
+            int unzustellbar = 0;
+            RuntimeException fehler = null;
+            for (Map.Entry<Long, Eingang> eintrag : eingaenge.entrySet()) {
+                long nachBlz = eintrag.getKey();
+                Eingang eingang = eintrag.getValue();
+                Ueberweisungsstapel stapel = eingang.stapel;
+                Stapelergebnis ergebnis = new Stapelergebnis(stapel.getAnzahl());
+                try {
+                    banken.get(nachBlz).gutschriftenBuchen(stapel, ergebnis);
+                } catch (RuntimeException e) {
+                    fehler = merken(fehler, e);
+                }
+                for (int i = 0; i < stapel.getAnzahl(); i++) {
+                    if (!ergebnis.hatStatus(i)) {
+                        // not handled by the receiving bank, it may still have been credited
+                        aufnehmen(nachBlz, eingang.vonBlz[i], stapel.getVon(i), stapel.getNach(i),
+                                stapel.getBetrag(i), eingang.euroCent[i], stapel.getVerwendungszweck(i));
+                    } else if (ergebnis.getStatus(i) == Ueberweisungsstatus.OK) {
+                        gutgeschrieben++;
+                        stroeme.computeIfAbsent(eingang.vonBlz[i], blz -> new HashMap<>())
+                                .merge(nachBlz, eingang.euroCent[i], Long::sum);
+                    } else {
+                        try {
+                            if (banken.get(eingang.vonBlz[i]).ueberweisungGutschreiben(stapel.getVon(i),
+                                    stapel.getBetrag(i), stapel.getVerwendungszweck(i)) == Ueberweisungsstatus.OK) {
+                                zurueckgebucht++;
+                            } else {
+                                unzustellbar++;
+                            }
+                        } catch (RuntimeException e) {
+                            fehler = merken(fehler, e);
+                            aufnehmen(nachBlz, eingang.vonBlz[i], stapel.getVon(i), stapel.getNach(i),
+                                    stapel.getBetrag(i), eingang.euroCent[i], stapel.getVerwendungszweck(i));
+                        }
+                    }
+                }
+            }
+            fensternummer++;
+            if (fehler != null) {
+                throw fehler;
+            }
+            return new Clearingabrechnung(fensternummer, gutgeschrieben, zurueckgebucht, unzustellbar, stroeme);
+        }
+    }
+
+    private static RuntimeException merken(RuntimeException fehler, RuntimeException e) {
+        if (fehler == null) {
+            return e;
+        }
+        fehler.addSuppressed(e);
+        return fehler;
+    }
+
+    /**
+     * Settles the open window at a fixed rate on a thread of its own, until {@link #close()} is called.
+     *
+     * @param fensterlaenge The time between two settlements.
+     * @param empfaenger    Receives every settlement; an exception it throws goes to the uncaught exception
+     *                      handler of the thread and does not stop the settlements.
+     * @throws IllegalArgumentException If a parameter is null or fensterlaenge is not positive.
+     * @throws IllegalStateException    If the windows are already settled automatically or the clearing house
+     *                                  is closed.
+     */
+    public synchronized void automatischAbrechnen(Duration fensterlaenge, Consumer<Clearingabrechnung> empfaenger) {
+        if (fensterlaenge == null || empfaenger == null || fensterlaenge.isNegative() || fensterlaenge.isZero())
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        geoeffnet();
+        if (takt != null)
+            throw new IllegalStateException("Die Clearingstelle rechnet schon automatisch ab");
+        this.empfaenger = empfaenger;
+        takt = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Clearingstelle");
+            t.setDaemon(true);
+            return t;
+        });
+        long nanos = fensterlaenge.toNanos();
+        takt.scheduleAtFixedRate(this::abrechnenUndMelden, nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Settles the open window and hands the settlement to the receiver. Exceptions go to the uncaught exception
+     * handler, so they do not cancel the automatic settlement.
+     */
+    private void abrechnenUndMelden() {
+        try {
+            empfaenger.accept(abrechnen());
+        } catch (RuntimeException e) {
+            Thread t = Thread.currentThread();
+            t.getUncaughtExceptionHandler().uncaughtException(t, e);
+        }
+    }
+
+    /**
+     * Stops the automatic settlement and settles the open window a last time; its settlement goes to the receiver
+     * of the automatic settlement, if there is one. Transfers are rejected afterwards. If the current thread is
+     * interrupted while waiting for a running settlement, it still waits and keeps its interrupt status.
+     *
+     * @throws RuntimeException If a bank throws during the last settlement without automatic settlement,
+     *                          see {@link #abrechnen()}; the transfers it did not handle stay open.
+     */
+    @Override
+    public void close() {
+        ScheduledExecutorService laufend;
+        synchronized (this) {
+            geschlossen = true;
+            laufend = takt;
+        }
+        if (laufend == null) {
+            abrechnen();
+            return;
+        }
+        laufend.shutdown();
+        boolean unterbrochen = false;
+        try {
+            while (true) {
+                try {
+                    if (laufend.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+                        break;
+                    }
+                } catch (InterruptedException e) {
+                    unterbrochen = true;
+                }
+            }
+            abrechnenUndMelden();
+        } finally {
+            if (unterbrochen) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package bankprojekt.verwaltung;
+
+/**
+ * Receives the progress of an operation of a {@link Bank} that looks at every account,
+ * e.g. {@link Bank#pleitegeierSperren(Fortschritt)}.
+ */
+@FunctionalInterface
+public interface Fortschritt {
+    /**
+     * Called after each finished partition, possibly from several threads at once. The calls of one operation
+     * report increasing counts, but may arrive out of order.
+     *
+     * @param erledigt The number of accounts handled so far.
+     * @param gesamt   The number of accounts the operation handles in total.
+     */
+    void fortschritt(long erledigt, long gesamt);
+}
@@ -0,0 +1,379 @@
+package bankprojekt.verwaltung;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal for the mutations of a {@link Bank}.
+ * <p>
+ * Every record is written as {@code [length:int][type:byte][payload][crc32:int]}, where the checksum covers
+ * type and payload. Records are collected in memory and written by a single background thread; all records
+ * that arrived while the previous write was running are written and forced to disk together (group commit),
+ * so many concurrent operations share one {@code fsync}. {@link #warten(long)} blocks until a record is durable.
+ * <p>
+ * When reading, a torn or corrupt record at the end of the file ends the journal; the file is cut off there,
+ * so new records are appended after the last intact one.
+ */
+class Journal implements Closeable {
+    static final byte KONTO_ERSTELLT = 1;
+    static final byte EINGEZAHLT = 2;
+    static final byte ABGEBUCHT = 3;
+    static final byte UEBERWIESEN = 4;
+    static final byte GELOESCHT = 5;
+    static final byte GESPERRT = 6;
+    static final byte ENTSPERRT = 7;
+
+    private static final int KOPF = Integer.BYTES + Byte.BYTES;
+    private static final int PRUEFSUMME = Integer.BYTES;
+    private static final int PUFFERGROESSE = 1 << 20;
+
+    /**
+     * Receives the records of a journal while it is read.
+     */
+    interface Empfaenger {
+        void kontoErstellt(long nummer, String fabrik, String vorname, String nachname, String adresse, long geburtstag)
+                throws IOException;
+
+        void eingezahlt(long nummer, long betrag);
+
+        void abgebucht(long nummer, long betrag);
+
+        void ueberwiesen(long von, long nach, long betrag);
+
+        void geloescht(long nummer);
+
+        void gesperrt(long nummer, boolean gesperrt);
+    }
+
+    private final FileChannel kanal;
+    private final ReentrantLock sperre = new ReentrantLock();
+    private final Condition datenDa = sperre.newCondition();
+    private final Condition geschrieben = sperre.newCondition();
+    private ByteBuffer sammelpuffer = ByteBuffer.allocateDirect(PUFFERGROESSE);
+    private ByteBuffer schreibpuffer = ByteBuffer.allocateDirect(PUFFERGROESSE);
+    private long letzteLsn;
+    private long dauerhafteLsn;
+    // written under the lock, volatile for pruefen(); fehler is set before geschlossen
+    private volatile IOException fehler;
+    private volatile boolean geschlossen;
+    private final Thread schreiber;
+
+    private static final ThreadLocal<Satz> SAETZE = ThreadLocal.withInitial(Satz::new);
+
+    /**
+     * Opens the journal file for appending, it is created if it does not exist.
+     * Existing records should be read with {@link #lesen(Path, Empfaenger)} before.
+     *
+     * @param datei The journal file.
+     * @throws IOException If the file cannot be opened.
+     */
+    Journal(Path datei) throws IOException {
+        kanal = FileChannel.open(datei, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        kanal.position(kanal.size());
+        schreiber = new Thread(this::schreiben, "Journal " + datei.getFileName());
+        schreiber.setDaemon(true);
+        schreiber.start();
+    }
+
+    /**
+     * Reads all intact records of a journal file and cuts off a torn or corrupt end.
+     *
+     * @param datei      The journal file, nothing happens if it does not exist.
+     * @param empfaenger Receives the records in the order they were written.
+     * @throws IOException If the file cannot be read.
+     */
+    static void lesen(Path datei, Empfaenger empfaenger) throws IOException {
+        if (!Files.exists(datei)) {
+            return;
+        }
+        try (FileChannel kanal = FileChannel.open(datei, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer puffer = ByteBuffer.allocate(PUFFERGROESSE);
+            CRC32 crc = new CRC32();
+            long gueltigBis = 0;
+            boolean ende = false;
+            while (!ende) {
+                boolean dateiende = kanal.read(puffer) < 0;
+                puffer.flip();
+                while (true) {
+                    if (puffer.remaining() < KOPF) {
+                        break;
+                    }
+                    int laenge = puffer.getInt(puffer.position());
+                    if (laenge < 0 || laenge > PUFFERGROESSE - KOPF - PRUEFSUMME) {
+                        ende = true;
+                        break;
+                    }
+                    if (puffer.remaining() < KOPF + laenge + PRUEFSUMME) {
+                        break;
+                    }
+                    int anfang = puffer.position();
+                    crc.reset();
+                    crc.update(puffer.slice(anfang + Integer.BYTES, Byte.BYTES + laenge));
+                    if ((int) crc.getValue() != puffer.getInt(anfang + KOPF + laenge)) {
+                        ende = true;
+                        break;
+                    }
+                    puffer.position(anfang + Integer.BYTES);
+                    byte typ = puffer.get();
+                    ByteBuffer inhalt = puffer.slice(anfang + KOPF, laenge);
+                    verteilen(typ, inhalt, empfaenger);
+                    puffer.position(anfang + KOPF + laenge + PRUEFSUMME);
+                    gueltigBis += KOPF + laenge + PRUEFSUMME;
+                }
+                if (dateiende) {
+                    ende = true;
+                }
+                puffer.compact();
+            }
+            if (gueltigBis < kanal.size()) {
+                kanal.truncate(gueltigBis);
+            }
+        }
+    }
+
+    private static void verteilen(byte typ, ByteBuffer inhalt, Empfaenger empfaenger) throws IOException {
+        switch (typ) {
+            case KONTO_ERSTELLT -> empfaenger.kontoErstellt(inhalt.getLong(), text(inhalt), text(inhalt), text(inhalt),
+                    text(inhalt), inhalt.getLong());
+            case EINGEZAHLT -> empfaenger.eingezahlt(inhalt.getLong(), inhalt.getLong());
+            case ABGEBUCHT -> empfaenger.abgebucht(inhalt.getLong(), inhalt.getLong());
+            case UEBERWIESEN -> empfaenger.ueberwiesen(inhalt.getLong(), inhalt.getLong(), inhalt.getLong());
+            case GELOESCHT -> empfaenger.geloescht(inhalt.getLong());
+            case GESPERRT -> empfaenger.gesperrt(inhalt.getLong(), true);
+            case ENTSPERRT -> empfaenger.gesperrt(inhalt.getLong(), false);
+            default -> throw new IOException("Unbekannter Journaleintrag " + typ);
+        }
+    }
+
+    private static String text(ByteBuffer inhalt) {
+        byte[] bytes = new byte[inhalt.getShort() & 0xFFFF];
+        inhalt.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends a record for a newly created account.
+     *
+     * @return The sequence number of the record.
+     */
+    long kontoErstellt(long nummer, String fabrik, String vorname, String nachname, String adresse, long geburtstag) {
+        Satz satz = SAETZE.get().beginnen(KONTO_ERSTELLT);
+        satz.zahl(nummer).text(fabrik).text(vorname).text(nachname).text(adresse).zahl(geburtstag);
+        return anhaengen(satz);
+    }
+
+    /**
+     * Appends a record that affects a single account, e.g. a deposit.
+     *
+     * @return The sequence number of the record.
+     */
+    long buchung(byte typ, long nummer, long betrag) {
+        return anhaengen(SAETZE.get().beginnen(typ).zahl(nummer).zahl(betrag));
+    }
+
+    /**
+     * Appends a record for a transfer between two accounts.
+     *
+     * @return The sequence number of the record.
+     */
+    long ueberwiesen(long von, long nach, long betrag) {
+        return anhaengen(SAETZE.get().beginnen(UEBERWIESEN).zahl(von).zahl(nach).zahl(betrag));
+    }
+
+    /**
+     * Appends a record without an amount, e.g. a deletion.
+     *
+     * @return The sequence number of the record.
+     */
+    long ereignis(byte typ, long nummer) {
+        return anhaengen(SAETZE.get().beginnen(typ).zahl(nummer));
+    }
+
+    /**
+     * Checks that records can still be appended, without taking the journal lock. The bank calls it before it
+     * changes an account, so after a failed write or {@link #close()} no account is changed any more.
+     *
+     * @throws UncheckedIOException  If the journal could not be written, with the error of the write.
+     * @throws IllegalStateException If the journal was closed.
+     */
+    void pruefen() {
+        if (geschlossen) {
+            fehlerPruefen();
+            throw new IllegalStateException("Journal ist geschlossen");
+        }
+    }
+
+    private long anhaengen(Satz satz) {
+        ByteBuffer daten = satz.abschliessen();
+        sperre.lock();
+        try {
+            pruefen();
+            while (sammelpuffer.remaining() < daten.remaining()) {
+                // the writer is behind, wait until it has taken the collected records
+                datenDa.signal();
+                geschrieben.awaitUninterruptibly();
+                fehlerPruefen();
+            }
+            sammelpuffer.put(daten);
+            datenDa.signal();
+            return ++letzteLsn;
+        } finally {
+            sperre.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the record with the given sequence number has been forced to disk.
+     *
+     * @param lsn The sequence number returned when the record was appended.
+     * @throws UncheckedIOException If the journal could not be written.
+     */
+    void warten(long lsn) {
+        sperre.lock();
+        try {
+            while (dauerhafteLsn < lsn) {
+                fehlerPruefen();
+                geschrieben.awaitUninterruptibly();
+            }
+        } finally {
+            sperre.unlock();
+        }
+    }
+
+    private void fehlerPruefen() {
+        if (fehler != null) {
+            throw new UncheckedIOException("Journal konnte nicht geschrieben werden", fehler);
+        }
+    }
+
+    private void schreiben() {
+        while (true) {
+            long bisLsn;
+            sperre.lock();
+            try {
+                while (sammelpuffer.position() == 0 && !geschlossen) {
+                    datenDa.awaitUninterruptibly();
+                }
+                if (sammelpuffer.position() == 0) {
+                    return;
+                }
+                ByteBuffer voll = sammelpuffer;
+                sammelpuffer = schreibpuffer;
+                schreibpuffer = voll;
+                bisLsn = letzteLsn;
+                geschrieben.signalAll();
+            } finally {
+                sperre.unlock();
+            }
+
+            IOException problem = null;
+            try {
+                schreibpuffer.flip();
+                while (schreibpuffer.hasRemaining()) {
+                    kanal.write(schreibpuffer);
+                }
+                kanal.force(false);
+            } catch (IOException e) {
+                problem = e;
+            }
+            schreibpuffer.clear();
+
+            sperre.lock();
+            try {
+                if (problem != null) {
+                    fehler = problem;
+                    geschlossen = true;
+                } else {
+                    dauerhafteLsn = bisLsn;
+                }
+                geschrieben.signalAll();
+            } finally {
+                sperre.unlock();
+            }
+        }
+    }
+
+    /**
+     * Writes all outstanding records and closes the file.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        sperre.lock();
+        try {
+            geschlossen = true;
+            datenDa.signal();
+        } finally {
+            sperre.unlock();
+        }
+        try {
+            schreiber.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        kanal.close();
+        if (fehler != null) {
+            throw fehler;
+        }
+    }
+
+    /**
+     * Buffer in which a thread prepares its record outside of the journal lock, including the checksum.
+     */
+    private static final class Satz {
+        private ByteBuffer puffer = ByteBuffer.allocate(256);
+        private final CRC32 crc = new CRC32();
+
+        Satz beginnen(byte typ) {
+            puffer.clear();
+            puffer.putInt(0).put(typ);
+            return this;
+        }
+
+        Satz zahl(long wert) {
+            platz(Long.BYTES);
+            puffer.putLong(wert);
+            return this;
+        }
+
+        Satz text(String wert) {
+            byte[] bytes = wert.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                throw new IllegalArgumentException("Text zu lang für das Journal");
+            }
+            platz(Short.BYTES + bytes.length);
+            puffer.putShort((short) bytes.length).put(bytes);
+            return this;
+        }
+
+        ByteBuffer abschliessen() {
+            int laenge = puffer.position() - KOPF;
+            puffer.putInt(0, laenge);
+            crc.reset();
+            crc.update(puffer.array(), Integer.BYTES, Byte.BYTES + laenge);
+            platz(PRUEFSUMME);
+            puffer.putInt((int) crc.getValue());
+            return puffer.flip();
+        }
+
+        private void platz(int bytes) {
+            if (puffer.remaining() < bytes) {
+                ByteBuffer groesser = ByteBuffer.allocate(Math.max(puffer.capacity() * 2, puffer.position() + bytes));
+                puffer.flip();
+                groesser.put(puffer);
+                puffer = groesser;
+            }
+        }
+    }
+}
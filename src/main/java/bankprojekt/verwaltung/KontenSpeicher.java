@@ -0,0 +1,520 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Store of accounts as fixed-width records in a memory-mapped file.
+ * <p>
+ * Every account takes {@value #SATZLAENGE} bytes: number, owner reference, balance, Dispo or interest rate,
+ * the Sparbuch monthly withdrawals, account type, currency and locked flag. Owners are written once into a side
+ * file next to the store and referenced by their position in it, so accounts of the same customer share one
+ * {@link Kunde} again after loading. When the store is opened only the account numbers are read to build an
+ * index; balances can then be read straight from the mapping, and accounts are turned into objects only when
+ * {@link #laden(long)} is called.
+ * <p>
+ * Changes to the file are made by {@link #speichern(Konto)}, {@link #entfernen(long)} and
+ * {@link #abschliessen()} only; removals become visible in the file with the next {@link #abschliessen()}.
+ */
+class KontenSpeicher implements Closeable {
+    private static final int KENNUNG = 0x4B544F31;
+    private static final int KOPFLAENGE = 64;
+    static final int SATZLAENGE = 48;
+    private static final int SEGMENT_BITS = 20;
+    private static final int SAETZE_PRO_SEGMENT = 1 << SEGMENT_BITS;
+
+    private static final int NUMMER = 0;
+    private static final int INHABER = 8;
+    private static final int KONTOSTAND = 16;
+    private static final int KONDITION = 24;
+    private static final int MONATSABHEBUNG = 32;
+    private static final int ART = 40;
+    private static final int WAEHRUNG = 41;
+    private static final int GESPERRT = 42;
+
+    private static final byte FREI = 0;
+    static final byte GIROKONTO = 1;
+    static final byte SPARBUCH = 2;
+
+    private static final Waehrung[] WAEHRUNGEN = Waehrung.values();
+
+    private final Path datei;
+    private final FileChannel kanal;
+    private final FileChannel kundenKanal;
+    private final MappedByteBuffer kopf;
+    private MappedByteBuffer[] segmente = new MappedByteBuffer[0];
+    private int anzahl;
+
+    /**
+     * Index from account number to record, open addressing like {@link KontenTabelle}; 0 marks a free slot,
+     * otherwise the record position plus one is stored.
+     */
+    private long[] indexNummern;
+    private int[] indexPlaetze;
+    private int indexBelegt;
+
+    private final BitSet entfernt = new BitSet();
+    private final Kundenregister kundenregister;
+    private final Map<Long, Kunde> kunden = new HashMap<>();
+    private final Map<Kunde, Kundensatz> kundenPositionen = new IdentityHashMap<>();
+    private final ReentrantReadWriteLock sperre = new ReentrantReadWriteLock();
+
+    private KontenSpeicher(Path datei, Kundenregister kundenregister) throws IOException {
+        this.datei = datei;
+        this.kundenregister = kundenregister;
+        kanal = FileChannel.open(datei, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        kundenKanal = FileChannel.open(kundenDatei(datei), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        boolean neu = kanal.size() == 0;
+        kopf = kanal.map(FileChannel.MapMode.READ_WRITE, 0, KOPFLAENGE);
+        if (neu) {
+            kopf.putInt(0, KENNUNG).putInt(4, SATZLAENGE).putInt(8, 0);
+        } else if (kopf.getInt(0) != KENNUNG || kopf.getInt(4) != SATZLAENGE) {
+            close();
+            throw new IOException(datei + " ist kein Kontenspeicher");
+        }
+        anzahl = kopf.getInt(8);
+        segmenteAbbilden(anzahl);
+        indexAnlegen(anzahl);
+        for (int platz = 0; platz < anzahl; platz++) {
+            ByteBuffer segment = segmente[platz >>> SEGMENT_BITS];
+            int position = position(platz);
+            if (segment.get(position + ART) != FREI) {
+                indexEinfuegen(segment.getLong(position + NUMMER), platz);
+            }
+        }
+    }
+
+    /**
+     * Opens a store, it is created if it does not exist.
+     *
+     * @param datei          The store file, the owners are kept in a file with the additional suffix {@code .kunden}.
+     * @param kundenregister The owners read from the store are registered here.
+     * @return The opened store.
+     * @throws IOException If the files cannot be opened or are no store.
+     */
+    static KontenSpeicher oeffnen(Path datei, Kundenregister kundenregister) throws IOException {
+        return new KontenSpeicher(datei, kundenregister);
+    }
+
+    /**
+     * Creates an empty store, an existing store with this name is overwritten.
+     *
+     * @param datei The store file.
+     * @return The new store.
+     * @throws IOException If the files cannot be created.
+     */
+    static KontenSpeicher anlegen(Path datei) throws IOException {
+        FileChannel.open(datei, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING).close();
+        FileChannel.open(kundenDatei(datei), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING).close();
+        return new KontenSpeicher(datei, new Kundenregister());
+    }
+
+    private static Path kundenDatei(Path datei) {
+        return datei.resolveSibling(datei.getFileName() + ".kunden");
+    }
+
+    /**
+     * Returns the file of this store.
+     */
+    Path getDatei() {
+        return datei;
+    }
+
+    /**
+     * Checks whether the store contains an account with the given number.
+     */
+    boolean enthaelt(long nummer) {
+        sperre.readLock().lock();
+        try {
+            return platz(nummer) >= 0;
+        } finally {
+            sperre.readLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the balance of an account without creating the account.
+     *
+     * @param nummer The account number.
+     * @return The balance in the account's currency, NaN if the store does not contain the account.
+     */
+    double kontostand(long nummer) {
+        sperre.readLock().lock();
+        try {
+            int platz = platz(nummer);
+            if (platz < 0) {
+                return Double.NaN;
+            }
+            ByteBuffer segment = segmente[platz >>> SEGMENT_BITS];
+            int position = position(platz);
+            return Geldbetrag.alsDouble(segment.getLong(position + KONTOSTAND), WAEHRUNGEN[segment.get(position + WAEHRUNG)]);
+        } finally {
+            sperre.readLock().unlock();
+        }
+    }
+
+    /**
+     * Creates the account with the given number from its record.
+     *
+     * @param nummer The account number.
+     * @return A new account object, null if the store does not contain the account.
+     * @throws UncheckedIOException If the owner cannot be read.
+     */
+    Konto laden(long nummer) {
+        sperre.readLock().lock();
+        try {
+            int platz = platz(nummer);
+            if (platz < 0) {
+                return null;
+            }
+            ByteBuffer segment = segmente[platz >>> SEGMENT_BITS];
+            int position = position(platz);
+            return erzeugen(segment.get(position + ART), nummer, kunde(segment.getLong(position + INHABER)),
+                    segment.getLong(position + KONTOSTAND), WAEHRUNGEN[segment.get(position + WAEHRUNG)],
+                    segment.get(position + GESPERRT) != 0, segment.getLong(position + KONDITION),
+                    segment.getLong(position + MONATSABHEBUNG));
+        } finally {
+            sperre.readLock().unlock();
+        }
+    }
+
+    /**
+     * Creates an account from its saved state.
+     *
+     * @param art            {@link #GIROKONTO} or {@link #SPARBUCH}.
+     * @param kondition      The Dispo in cents of a Girokonto, the interest rate of a Sparbuch as double bits.
+     * @param monatsabhebung The monthly withdrawals of a Sparbuch, as {@link Sparbuch#getMonatsabhebung()}.
+     * @return The new account.
+     */
+    static Konto erzeugen(byte art, long nummer, Kunde inhaber, long kontostand, Waehrung waehrung, boolean gesperrt,
+                          long kondition, long monatsabhebung) {
+        Konto konto;
+        if (art == GIROKONTO) {
+            konto = new Girokonto(inhaber, nummer, 0);
+        } else if (art == SPARBUCH) {
+            Sparbuch sparbuch = new Sparbuch(inhaber, nummer);
+            sparbuch.setZinssatz(Double.longBitsToDouble(kondition));
+            sparbuch.monatsabhebungWiederherstellen(monatsabhebung);
+            konto = sparbuch;
+        } else {
+            throw new IllegalArgumentException("Unbekannte Kontoart " + art);
+        }
+        konto.zustandWiederherstellen(kontostand, waehrung, gesperrt);
+        if (konto instanceof Girokonto girokonto) {
+            girokonto.setDispoCent(kondition);
+        }
+        return konto;
+    }
+
+    /**
+     * Returns the type of an account as it is saved.
+     *
+     * @throws IllegalArgumentException If the account is neither a {@link Girokonto} nor a {@link Sparbuch}.
+     */
+    static byte art(Konto konto) {
+        if (konto instanceof Girokonto) {
+            return GIROKONTO;
+        } else if (konto instanceof Sparbuch) {
+            return SPARBUCH;
+        }
+        throw new IllegalArgumentException("Kontoart kann nicht gespeichert werden: " + konto.getClass().getName());
+    }
+
+    /**
+     * Returns the Dispo in cents of a Girokonto or the interest rate of a Sparbuch as double bits.
+     */
+    static long kondition(Konto konto) {
+        if (konto instanceof Girokonto girokonto) {
+            return girokonto.getDispoCent();
+        }
+        return Double.doubleToLongBits(((Sparbuch) konto).getZinssatz());
+    }
+
+    /**
+     * Returns the monthly withdrawals of a Sparbuch, 0 for other accounts.
+     */
+    static long monatsabhebung(Konto konto) {
+        return konto instanceof Sparbuch sparbuch ? sparbuch.getMonatsabhebung() : 0;
+    }
+
+    /**
+     * Returns the numbers of all accounts in the store.
+     */
+    long[] kontonummern() {
+        sperre.readLock().lock();
+        try {
+            long[] nummern = new long[anzahl];
+            int gefunden = 0;
+            for (int platz = 0; platz < anzahl; platz++) {
+                if (!entfernt.get(platz) && segmente[platz >>> SEGMENT_BITS].get(position(platz) + ART) != FREI) {
+                    nummern[gefunden++] = segmente[platz >>> SEGMENT_BITS].getLong(position(platz) + NUMMER);
+                }
+            }
+            return Arrays.copyOf(nummern, gefunden);
+        } finally {
+            sperre.readLock().unlock();
+        }
+    }
+
+    /**
+     * Marks an account as removed, the record is freed with the next {@link #abschliessen()}.
+     *
+     * @param nummer The account number.
+     * @return True if the store contained the account.
+     */
+    boolean entfernen(long nummer) {
+        sperre.writeLock().lock();
+        try {
+            int platz = platz(nummer);
+            if (platz < 0) {
+                return false;
+            }
+            entfernt.set(platz);
+            return true;
+        } finally {
+            sperre.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Writes the current state of an account into its record, a new record is appended for a new account.
+     *
+     * @param konto A {@link Girokonto} or a {@link Sparbuch}.
+     * @throws IllegalArgumentException If the account is of another type.
+     * @throws IOException              If the owner cannot be written.
+     */
+    void speichern(Konto konto) throws IOException {
+        byte art = art(konto);
+        long kondition = kondition(konto);
+        long monatsabhebung = monatsabhebung(konto);
+
+        sperre.writeLock().lock();
+        try {
+            long nummer = konto.getKontonummer();
+            int platz = indexSuchen(nummer);
+            if (platz < 0) {
+                platz = anzahl;
+                segmenteAbbilden(anzahl + 1);
+                anzahl++;
+                indexEinfuegen(nummer, platz);
+            }
+            entfernt.clear(platz);
+            ByteBuffer segment = segmente[platz >>> SEGMENT_BITS];
+            int position = position(platz);
+            long stand = konto.getKontostandMitWaehrung();
+            segment.putLong(position + NUMMER, nummer)
+                    .putLong(position + INHABER, kundeSpeichern(konto.getInhaber()))
+                    .putLong(position + KONTOSTAND, Geldbetrag.betrag(stand))
+                    .putLong(position + KONDITION, kondition)
+                    .putLong(position + MONATSABHEBUNG, monatsabhebung)
+                    .put(position + ART, art)
+                    .put(position + WAEHRUNG, (byte) Geldbetrag.waehrung(stand).ordinal())
+                    .put(position + GESPERRT, (byte) (konto.isGesperrt() ? 1 : 0));
+        } finally {
+            sperre.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Frees the records of removed accounts and forces all changes to disk.
+     *
+     * @throws IOException If the owners cannot be forced to disk.
+     */
+    void abschliessen() throws IOException {
+        sperre.writeLock().lock();
+        try {
+            for (int platz = entfernt.nextSetBit(0); platz >= 0; platz = entfernt.nextSetBit(platz + 1)) {
+                segmente[platz >>> SEGMENT_BITS].put(position(platz) + ART, FREI);
+            }
+            entfernt.clear();
+            kundenKanal.force(false);
+            for (MappedByteBuffer segment : segmente) {
+                segment.force();
+            }
+            kopf.putInt(8, anzahl);
+            kopf.force();
+        } finally {
+            sperre.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        kundenKanal.close();
+        kanal.close();
+    }
+
+    /**
+     * Returns the record of a present account, -1 if there is none.
+     */
+    private int platz(long nummer) {
+        int platz = indexSuchen(nummer);
+        if (platz < 0 || entfernt.get(platz) || segmente[platz >>> SEGMENT_BITS].get(position(platz) + ART) == FREI) {
+            return -1;
+        }
+        return platz;
+    }
+
+    private static int position(int platz) {
+        return (platz & (SAETZE_PRO_SEGMENT - 1)) * SATZLAENGE;
+    }
+
+    /**
+     * Maps all segments needed for the given number of records, a segment that reaches beyond the end of the file
+     * enlarges the file.
+     */
+    private void segmenteAbbilden(int saetze) throws IOException {
+        int benoetigt = (saetze + SAETZE_PRO_SEGMENT - 1) >>> SEGMENT_BITS;
+        if (benoetigt <= segmente.length) {
+            return;
+        }
+        MappedByteBuffer[] neu = Arrays.copyOf(segmente, benoetigt);
+        for (int i = segmente.length; i < benoetigt; i++) {
+            neu[i] = kanal.map(FileChannel.MapMode.READ_WRITE, KOPFLAENGE + (long) i * SAETZE_PRO_SEGMENT * SATZLAENGE,
+                    (long) SAETZE_PRO_SEGMENT * SATZLAENGE);
+        }
+        segmente = neu;
+    }
+
+    private void indexAnlegen(int erwarteteAnzahl) {
+        int kapazitaet = Integer.highestOneBit(Math.max(16, erwarteteAnzahl) * 2 - 1) * 2;
+        indexNummern = new long[kapazitaet];
+        indexPlaetze = new int[kapazitaet];
+        indexBelegt = 0;
+    }
+
+    private int indexSuchen(long nummer) {
+        int maske = indexNummern.length - 1;
+        for (int i = KontenTabelle.streuen(nummer) & maske; indexPlaetze[i] != 0; i = (i + 1) & maske) {
+            if (indexNummern[i] == nummer) {
+                return indexPlaetze[i] - 1;
+            }
+        }
+        return -1;
+    }
+
+    private void indexEinfuegen(long nummer, int platz) {
+        if ((indexBelegt + 1) * 2 > indexNummern.length) {
+            long[] alteNummern = indexNummern;
+            int[] altePlaetze = indexPlaetze;
+            indexAnlegen(alteNummern.length);
+            for (int i = 0; i < alteNummern.length; i++) {
+                if (altePlaetze[i] != 0) {
+                    indexEinfuegen(alteNummern[i], altePlaetze[i] - 1);
+                }
+            }
+        }
+        int maske = indexNummern.length - 1;
+        int i = KontenTabelle.streuen(nummer) & maske;
+        while (indexPlaetze[i] != 0 && indexNummern[i] != nummer) {
+            i = (i + 1) & maske;
+        }
+        if (indexPlaetze[i] == 0) {
+            indexBelegt++;
+        }
+        indexNummern[i] = nummer;
+        indexPlaetze[i] = platz + 1;
+    }
+
+    /**
+     * Returns the owner stored at the given position of the owner file, every owner is read only once.
+     */
+    private Kunde kunde(long position) {
+        synchronized (kunden) {
+            Kunde kunde = kunden.get(position);
+            if (kunde == null) {
+                try {
+                    kunde = kundeLesen(position);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                kunden.put(position, kunde);
+                kundenPositionen.put(kunde, new Kundensatz(position, kunde));
+            }
+            return kunde;
+        }
+    }
+
+    private Kunde kundeLesen(long position) throws IOException {
+        ByteBuffer laenge = ByteBuffer.allocate(Integer.BYTES);
+        lesen(laenge, position);
+        ByteBuffer satz = ByteBuffer.allocate(laenge.getInt(0));
+        lesen(satz, position + Integer.BYTES);
+        satz.flip();
+        return kundenregister.registrieren(text(satz), text(satz), text(satz), LocalDate.ofEpochDay(satz.getLong()));
+    }
+
+    private void lesen(ByteBuffer ziel, long position) throws IOException {
+        while (ziel.hasRemaining()) {
+            if (kundenKanal.read(ziel, position + ziel.position()) < 0) {
+                throw new IOException("Kundendatei von " + datei + " ist unvollständig");
+            }
+        }
+    }
+
+    private static String text(ByteBuffer satz) {
+        byte[] bytes = new byte[satz.getInt()];
+        satz.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the position of an owner in the owner file. An owner that is not in the file yet, or whose data
+     * has changed since it was written, is appended.
+     */
+    private long kundeSpeichern(Kunde kunde) throws IOException {
+        synchronized (kunden) {
+            Kundensatz gespeichert = kundenPositionen.get(kunde);
+            if (gespeichert != null && gespeichert.unveraendert(kunde)) {
+                return gespeichert.position();
+            }
+            byte[] vorname = kunde.getVorname().getBytes(StandardCharsets.UTF_8);
+            byte[] nachname = kunde.getNachname().getBytes(StandardCharsets.UTF_8);
+            byte[] adresse = kunde.getAdresse().getBytes(StandardCharsets.UTF_8);
+            int laenge = 3 * Integer.BYTES + vorname.length + nachname.length + adresse.length + Long.BYTES;
+            ByteBuffer satz = ByteBuffer.allocate(Integer.BYTES + laenge);
+            satz.putInt(laenge)
+                    .putInt(vorname.length).put(vorname)
+                    .putInt(nachname.length).put(nachname)
+                    .putInt(adresse.length).put(adresse)
+                    .putLong(kunde.getGeburtstag().toEpochDay())
+                    .flip();
+            long neuePosition = kundenKanal.size();
+            while (satz.hasRemaining()) {
+                kundenKanal.write(satz, neuePosition + satz.position());
+            }
+            kunden.put(neuePosition, kunde);
+            kundenPositionen.put(kunde, new Kundensatz(neuePosition, kunde));
+            return neuePosition;
+        }
+    }
+
+    /**
+     * Position and data of an owner as it was written to the owner file, owners are mutable.
+     */
+    private record Kundensatz(long position, String vorname, String nachname, String adresse, LocalDate geburtstag) {
+        Kundensatz(long position, Kunde kunde) {
+            this(position, kunde.getVorname(), kunde.getNachname(), kunde.getAdresse(), kunde.getGeburtstag());
+        }
+
+        boolean unveraendert(Kunde kunde) {
+            return vorname.equals(kunde.getVorname()) && nachname.equals(kunde.getNachname())
+                    && adresse.equals(kunde.getAdresse()) && geburtstag.equals(kunde.getGeburtstag());
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Konto;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Stream;
+
+/**
+ * Hash table that maps primitive account numbers to accounts.
+ * Uses open addressing with linear probing, so a lookup neither boxes the account number
+ * nor walks any chains: one probe sequence answers both "does the account exist" and "which account is it".
+ * A slot is free if its account is null, so every long value is a valid account number.
+ * <p>
+ * The table is safe for concurrent use. Lookups are optimistic and do not write to any shared memory,
+ * so they scale with the number of reading threads; inserting and removing is mutually exclusive.
+ */
+final class KontenTabelle implements Serializable {
+    /**
+     * version of the serialized form, written with every {@link Bank}
+     */
+    private static final long serialVersionUID = 1L;
+    private static final int MINDESTKAPAZITAET = 16;
+
+    private long[] nummern;
+    private Konto[] konten;
+    private int anzahl;
+    private final StampedLock sperre = new StampedLock();
+
+    /**
+     * Creates an empty table.
+     */
+    KontenTabelle() {
+        this(MINDESTKAPAZITAET);
+    }
+
+    /**
+     * Creates an empty table that can hold the given number of accounts without growing.
+     *
+     * @param erwarteteAnzahl The expected number of accounts.
+     */
+    KontenTabelle(int erwarteteAnzahl) {
+        int kapazitaet = Integer.highestOneBit(Math.max(MINDESTKAPAZITAET, erwarteteAnzahl) * 2 - 1) * 2;
+        this.nummern = new long[kapazitaet];
+        this.konten = new Konto[kapazitaet];
+    }
+
+    /**
+     * Returns the account with the given number.
+     *
+     * @param nummer The account number.
+     * @return The account, or null if there is none with this number.
+     */
+    Konto get(long nummer) {
+        long stempel = sperre.tryOptimisticRead();
+        Konto konto = suchen(nummer);
+        if (!sperre.validate(stempel)) {
+            stempel = sperre.readLock();
+            try {
+                konto = suchen(nummer);
+            } finally {
+                sperre.unlockRead(stempel);
+            }
+        }
+        return konto;
+    }
+
+    /**
+     * Checks whether an account with the given number exists.
+     *
+     * @param nummer The account number.
+     * @return True if the table contains the account number.
+     */
+    boolean containsKey(long nummer) {
+        return get(nummer) != null;
+    }
+
+    /**
+     * Stores an account under the given number.
+     *
+     * @param nummer The account number.
+     * @param konto  The account.
+     * @return The account previously stored under this number, or null.
+     * @throws NullPointerException If konto is null.
+     */
+    Konto put(long nummer, Konto konto) {
+        Objects.requireNonNull(konto);
+        long stempel = sperre.writeLock();
+        try {
+            return einfuegen(nummer, konto);
+        } finally {
+            sperre.unlockWrite(stempel);
+        }
+    }
+
+    /**
+     * Stores an account under the given number only if the number is still free.
+     *
+     * @param nummer The account number.
+     * @param konto  The account.
+     * @return True if the account was stored, false if the number was already taken.
+     * @throws NullPointerException If konto is null.
+     */
+    boolean putIfAbsent(long nummer, Konto konto) {
+        Objects.requireNonNull(konto);
+        long stempel = sperre.writeLock();
+        try {
+            if (suchen(nummer) != null) {
+                return false;
+            }
+            einfuegen(nummer, konto);
+            return true;
+        } finally {
+            sperre.unlockWrite(stempel);
+        }
+    }
+
+    private Konto einfuegen(long nummer, Konto konto) {
+        int maske = konten.length - 1;
+        int i = streuen(nummer) & maske;
+        while (konten[i] != null) {
+            if (nummern[i] == nummer) {
+                Konto alt = konten[i];
+                konten[i] = konto;
+                return alt;
+            }
+            i = (i + 1) & maske;
+        }
+        nummern[i] = nummer;
+        konten[i] = konto;
+        if (++anzahl * 2 > konten.length) {
+            vergroessern();
+        }
+        return null;
+    }
+
+    /**
+     * Removes the account with the given number.
+     * The following entries of the probe sequence are shifted back, so no tombstones are left behind.
+     *
+     * @param nummer The account number.
+     * @return The removed account, or null if there was none.
+     */
+    Konto remove(long nummer) {
+        long stempel = sperre.writeLock();
+        try {
+            int maske = konten.length - 1;
+            int i = streuen(nummer) & maske;
+            while (konten[i] != null) {
+                if (nummern[i] == nummer) {
+                    Konto alt = konten[i];
+                    lueckeSchliessen(i);
+                    anzahl--;
+                    return alt;
+                }
+                i = (i + 1) & maske;
+            }
+            return null;
+        } finally {
+            sperre.unlockWrite(stempel);
+        }
+    }
+
+    /**
+     * Returns the number of stored accounts.
+     *
+     * @return The number of accounts.
+     */
+    int size() {
+        return anzahl;
+    }
+
+    /**
+     * Returns all stored account numbers.
+     *
+     * @return A new array with the account numbers, in no particular order.
+     */
+    long[] kontonummern() {
+        long stempel = sperre.readLock();
+        try {
+            long[] ergebnis = new long[anzahl];
+            int j = 0;
+            for (int i = 0; i < konten.length; i++) {
+                if (konten[i] != null) {
+                    ergebnis[j++] = nummern[i];
+                }
+            }
+            return ergebnis;
+        } finally {
+            sperre.unlockRead(stempel);
+        }
+    }
+
+    /**
+     * Copies all stored account numbers and accounts, in the same order.
+     *
+     * @return The numbers and accounts at the moment of the call.
+     */
+    Eintraege eintraege() {
+        long stempel = sperre.readLock();
+        try {
+            long[] n = new long[anzahl];
+            Konto[] k = new Konto[anzahl];
+            int j = 0;
+            for (int i = 0; i < konten.length; i++) {
+                if (konten[i] != null) {
+                    n[j] = nummern[i];
+                    k[j++] = konten[i];
+                }
+            }
+            return new Eintraege(n, k);
+        } finally {
+            sperre.unlockRead(stempel);
+        }
+    }
+
+    /**
+     * Account numbers and the accounts stored under them.
+     *
+     * @param nummern The account numbers.
+     * @param konten  The account at the same position as its number.
+     */
+    record Eintraege(long[] nummern, Konto[] konten) {
+    }
+
+    /**
+     * Returns all stored accounts as a stream.
+     * The stream works on a copy taken when this method is called.
+     *
+     * @return A stream of the accounts, in no particular order.
+     */
+    Stream<Konto> konten() {
+        Konto[] kopie;
+        long stempel = sperre.readLock();
+        try {
+            kopie = konten.clone();
+        } finally {
+            sperre.unlockRead(stempel);
+        }
+        return Arrays.stream(kopie).filter(Objects::nonNull);
+    }
+
+    /**
+     * Searches the probe sequence of the given number.
+     * May run without a lock: the arrays are read once and the loop is bounded,
+     * so a concurrent resize leads to a wrong result that the caller discards, never to an endless loop.
+     */
+    private Konto suchen(long nummer) {
+        long[] n = nummern;
+        Konto[] k = konten;
+        if (n.length != k.length) {
+            return null;
+        }
+        int maske = k.length - 1;
+        int i = streuen(nummer) & maske;
+        Konto konto;
+        for (int versuche = 0; versuche < k.length && (konto = k[i]) != null; versuche++) {
+            if (n[i] == nummer) {
+                return konto;
+            }
+            i = (i + 1) & maske;
+        }
+        return null;
+    }
+
+    private void lueckeSchliessen(int frei) {
+        int maske = konten.length - 1;
+        int i = frei;
+        while (true) {
+            i = (i + 1) & maske;
+            if (konten[i] == null) {
+                break;
+            }
+            int ziel = streuen(nummern[i]) & maske;
+            // the entry may move into the gap only if its home slot is not between the gap and its position
+            if (((i - ziel) & maske) >= ((i - frei) & maske)) {
+                nummern[frei] = nummern[i];
+                konten[frei] = konten[i];
+                frei = i;
+            }
+        }
+        konten[frei] = null;
+        nummern[frei] = 0;
+    }
+
+    private void vergroessern() {
+        long[] alteNummern = nummern;
+        Konto[] alteKonten = konten;
+        nummern = new long[alteKonten.length * 2];
+        konten = new Konto[alteKonten.length * 2];
+        int maske = konten.length - 1;
+        for (int j = 0; j < alteKonten.length; j++) {
+            if (alteKonten[j] != null) {
+                int i = streuen(alteNummern[j]) & maske;
+                while (konten[i] != null) {
+                    i = (i + 1) & maske;
+                }
+                nummern[i] = alteNummern[j];
+                konten[i] = alteKonten[j];
+            }
+        }
+    }
+
+    /**
+     * Spreads the bits of an account number, since consecutive numbers would otherwise form long clusters.
+     */
+    static int streuen(long nummer) {
+        long h = nummer * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,259 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Geldbetrag;
+import bankprojekt.verarbeitung.Konto;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Describes a listing of the accounts of a {@link Bank}: its columns, filter and order, written with
+ * {@link Bank#berichtSchreiben(Kontobericht, Appendable)}.
+ * <p>
+ * The listing has one line per account, the fields separated by a separator character, by default {@code ;},
+ * with a header line unless switched off. A name that contains the separator, a quote or a line break is quoted.
+ * Balances are written from the cents with two decimal places and the currency, e.g. {@code -12.30 EUR}.
+ * <p>
+ * The lines are formatted into a buffer of a fixed size that is handed to the destination whenever it is full,
+ * so the text of the listing is never held as a whole. An unsorted listing writes each account as the bank hands
+ * it over; a sorted listing keeps the accounts that pass the filter and sorts them like a {@link Kontoverzeichnis}.
+ * The rows show the state of the accounts when they are written, with the number they are stored under.
+ */
+public final class Kontobericht {
+    /**
+     * number of characters passed to the destination at once
+     */
+    static final int PUFFERGROESSE = 1 << 16;
+
+    private Kontospalte[] spalten = Kontospalte.values();
+    private Kontospalte sortierung;
+    private boolean absteigend;
+    private Predicate<Konto> filter;
+    private char trennzeichen = ';';
+    private boolean kopfzeile = true;
+
+    /**
+     * Receives the accounts of a listing one after the other.
+     */
+    @FunctionalInterface
+    interface Empfaenger {
+        void konto(long nummer, Konto konto) throws IOException;
+    }
+
+    /**
+     * Hands the accounts of a listing, with the numbers they are stored under, to a receiver.
+     */
+    @FunctionalInterface
+    interface Quelle {
+        void liefern(Empfaenger empfaenger) throws IOException;
+    }
+
+    /**
+     * The accounts of a sorted listing that passed the filter.
+     */
+    private static final class Auswahl implements Empfaenger {
+        long[] nummern = new long[64];
+        Konto[] konten = new Konto[64];
+        int anzahl;
+
+        @Override
+        public void konto(long nummer, Konto konto) {
+            if (anzahl == konten.length) {
+                nummern = Arrays.copyOf(nummern, anzahl * 2);
+                konten = Arrays.copyOf(konten, anzahl * 2);
+            }
+            nummern[anzahl] = nummer;
+            konten[anzahl++] = konto;
+        }
+    }
+
+    /**
+     * Selects the columns of the listing, by default all columns in the order of {@link Kontospalte}.
+     *
+     * @param spalten The columns in the order they are written.
+     * @return This report, for chaining.
+     * @throws IllegalArgumentException If no column or null is given.
+     */
+    public Kontobericht spalten(Kontospalte... spalten) {
+        if (spalten == null || spalten.length == 0 || Arrays.asList(spalten).contains(null))
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        this.spalten = spalten.clone();
+        return this;
+    }
+
+    /**
+     * Sorts the listing by a column; accounts with the same value are sorted by their number.
+     * Without this, the accounts are listed in no particular order.
+     *
+     * @param spalte     The column to sort by.
+     * @param absteigend True to sort in descending order.
+     * @return This report, for chaining.
+     * @throws IllegalArgumentException If spalte is null.
+     */
+    public Kontobericht sortieren(Kontospalte spalte, boolean absteigend) {
+        if (spalte == null)
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        this.sortierung = spalte;
+        this.absteigend = absteigend;
+        return this;
+    }
+
+    /**
+     * Lists only the accounts that pass a filter; several filters must all be passed.
+     *
+     * @param filter The filter, called once per account, possibly while other threads change the account.
+     * @return This report, for chaining.
+     * @throws IllegalArgumentException If filter is null.
+     */
+    public Kontobericht filtern(Predicate<Konto> filter) {
+        if (filter == null)
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        this.filter = this.filter == null ? filter : this.filter.and(filter);
+        return this;
+    }
+
+    /**
+     * Sets the character between two fields, by default {@code ;}.
+     *
+     * @param trennzeichen The separator.
+     * @return This report, for chaining.
+     * @throws IllegalArgumentException If the separator is a quote or a line break.
+     */
+    public Kontobericht trennzeichen(char trennzeichen) {
+        if (trennzeichen == '"' || trennzeichen == '\n' || trennzeichen == '\r')
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        this.trennzeichen = trennzeichen;
+        return this;
+    }
+
+    /**
+     * Leaves out the header line with the names of the columns.
+     *
+     * @return This report, for chaining.
+     */
+    public Kontobericht ohneKopfzeile() {
+        this.kopfzeile = false;
+        return this;
+    }
+
+    /**
+     * Writes the listing of some accounts.
+     *
+     * @param quelle The accounts.
+     * @param ziel   The destination.
+     * @return The number of accounts listed.
+     * @throws IOException If the destination throws it.
+     */
+    long schreiben(Quelle quelle, Appendable ziel) throws IOException {
+        StringBuilder puffer = new StringBuilder(PUFFERGROESSE + 256);
+        if (kopfzeile) {
+            for (int s = 0; s < spalten.length; s++) {
+                if (s > 0) {
+                    puffer.append(trennzeichen);
+                }
+                puffer.append(ueberschrift(spalten[s]));
+            }
+            puffer.append(System.lineSeparator());
+        }
+        long[] anzahl = new long[1];
+        if (sortierung == null) {
+            quelle.liefern((nummer, konto) -> {
+                if (filter == null || filter.test(konto)) {
+                    zeile(nummer, konto, puffer);
+                    anzahl[0]++;
+                    leeren(puffer, ziel, false);
+                }
+            });
+        } else {
+            Kontoverzeichnis verzeichnis = sortieren(quelle);
+            for (int i = 0; i < verzeichnis.getAnzahl(); i++) {
+                zeile(verzeichnis.getNummer(i), verzeichnis.getKonto(i), puffer);
+                anzahl[0]++;
+                leeren(puffer, ziel, false);
+            }
+        }
+        leeren(puffer, ziel, true);
+        return anzahl[0];
+    }
+
+    /**
+     * Collects the accounts that pass the filter and sorts them.
+     */
+    private Kontoverzeichnis sortieren(Quelle quelle) throws IOException {
+        Auswahl auswahl = new Auswahl();
+        quelle.liefern(filter == null ? auswahl : (nummer, konto) -> {
+            if (filter.test(konto)) {
+                auswahl.konto(nummer, konto);
+            }
+        });
+        return Kontoverzeichnis.sortieren(Arrays.copyOf(auswahl.nummern, auswahl.anzahl),
+                Arrays.copyOf(auswahl.konten, auswahl.anzahl), sortierung, absteigend);
+    }
+
+    /**
+     * Hands the buffer to the destination if it is full, or at the end.
+     */
+    private static void leeren(StringBuilder puffer, Appendable ziel, boolean ende) throws IOException {
+        if (puffer.length() >= PUFFERGROESSE || (ende && puffer.length() > 0)) {
+            ziel.append(puffer);
+            puffer.setLength(0);
+        }
+    }
+
+    private static String ueberschrift(Kontospalte spalte) {
+        return switch (spalte) {
+            case NUMMER -> "Kontonummer";
+            case KONTOSTAND -> "Kontostand";
+            case INHABER -> "Inhaber";
+            case GESPERRT -> "Gesperrt";
+        };
+    }
+
+    private void zeile(long nummer, Konto konto, StringBuilder puffer) {
+        for (int s = 0; s < spalten.length; s++) {
+            if (s > 0) {
+                puffer.append(trennzeichen);
+            }
+            switch (spalten[s]) {
+                case NUMMER -> puffer.append(nummer);
+                case KONTOSTAND -> {
+                    long stand = konto.getKontostandMitWaehrung();
+                    betrag(Geldbetrag.betrag(stand), puffer).append(' ').append(Geldbetrag.waehrung(stand).name());
+                }
+                case INHABER -> text(konto.getInhaber().getName(), puffer);
+                case GESPERRT -> puffer.append(konto.getGesperrtText());
+            }
+        }
+        puffer.append(System.lineSeparator());
+    }
+
+    /**
+     * appends an amount in cents with two decimal places, without formatting a double
+     */
+    private static StringBuilder betrag(long cent, StringBuilder puffer) {
+        if (cent < 0) {
+            puffer.append('-');
+        }
+        long euro = Math.abs(cent / 100);
+        int rest = (int) Math.abs(cent % 100);
+        return puffer.append(euro).append('.').append((char) ('0' + rest / 10)).append((char) ('0' + rest % 10));
+    }
+
+    private void text(String text, StringBuilder puffer) {
+        if (text.indexOf(trennzeichen) < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0
+                && text.indexOf('\r') < 0) {
+            puffer.append(text);
+            return;
+        }
+        puffer.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                puffer.append('"');
+            }
+            puffer.append(c);
+        }
+        puffer.append('"');
+    }
+}
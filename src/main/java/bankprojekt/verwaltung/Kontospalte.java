@@ -0,0 +1,23 @@
+package bankprojekt.verwaltung;
+
+/**
+ * The columns a {@link Kontoverzeichnis} can be sorted by, also the columns of a {@link Kontobericht}.
+ */
+public enum Kontospalte {
+    /**
+     * the account number
+     */
+    NUMMER,
+    /**
+     * the balance, converted to euro so that accounts in different currencies compare correctly
+     */
+    KONTOSTAND,
+    /**
+     * the name of the owner, see {@link bankprojekt.verarbeitung.Kunde#getName()}
+     */
+    INHABER,
+    /**
+     * unlocked accounts before locked ones
+     */
+    GESPERRT
+}
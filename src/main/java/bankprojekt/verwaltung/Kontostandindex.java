@@ -0,0 +1,222 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Konto;
+import bankprojekt.verarbeitung.Kontostandhaken;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Index of the accounts of a {@link Bank} ordered by balance, so that "all accounts above x" and
+ * "all accounts below x" only look at the accounts near or in the range, not at the whole bank.
+ * <p>
+ * The balance is the one of {@link Konto#getKontostand()}, in the account's currency, so the index answers
+ * exactly the comparisons the bank used to make account by account. The accounts are kept in buckets by
+ * balance; a bucket covers a sixteenth of a power of two, so there are a few hundred buckets at most, and a
+ * query reads the buckets in its range and compares the balances of their accounts. Every account in the
+ * index has its {@link Kontostandhaken} set to its entry, which moves the account to another bucket on the
+ * thread that changed the balance. The account knows the bounds of its bucket, so most changes stay in the
+ * bucket and cost two comparisons on the account itself.
+ * <p>
+ * A query sees each account at most once per bucket it reads. An account whose balance changes while the
+ * query runs may be found with either balance, or, if it moves between two buckets of the range, twice or
+ * not at all.
+ */
+final class Kontostandindex {
+    /**
+     * number of mantissa bits that tell the buckets of one power of two apart
+     */
+    private static final int FEINHEIT = 4;
+
+    private final ConcurrentNavigableMap<Long, Set<Eintrag>> faecher = new ConcurrentSkipListMap<>();
+    private final LongAdder anzahl = new LongAdder();
+
+    /**
+     * The entry of one account, set as its balance hook.
+     */
+    private final class Eintrag implements Kontostandhaken {
+        private final long nummer;
+        private final Konto konto;
+        /**
+         * the bucket the account is in, or {@link Long#MIN_VALUE} when it is in none
+         */
+        private volatile long fach = Long.MIN_VALUE;
+        private boolean entfernt;
+
+        Eintrag(long nummer, Konto konto) {
+            this.nummer = nummer;
+            this.konto = konto;
+        }
+
+        /**
+         * Moves the account to the bucket of its current balance and gives the account the bounds of that
+         * bucket, so it only calls again when it leaves it. The balance is read again after the bounds were
+         * set: a change that was still checked against the old bounds is seen here.
+         */
+        @Override
+        public synchronized void kontostandGeaendert(Konto geaendert) {
+            long neu;
+            while (!entfernt && (neu = fach(konto.getKontostand())) != fach) {
+                long alt = fach;
+                fachFuer(neu).add(this);
+                fach = neu;
+                if (alt != Long.MIN_VALUE) {
+                    faecher.get(alt).remove(this);
+                }
+                konto.setKontostandhakenBereich(untergrenze(neu), untergrenze(neu + 1));
+            }
+        }
+
+        synchronized void entfernen() {
+            entfernt = true;
+            long alt = fach;
+            fach = Long.MIN_VALUE;
+            if (alt != Long.MIN_VALUE) {
+                faecher.get(alt).remove(this);
+            }
+        }
+
+        Kontostandindex index() {
+            return Kontostandindex.this;
+        }
+    }
+
+    /**
+     * Returns the bucket of a balance. The bits of a double, with the sign bit folded over the others,
+     * are ordered like the doubles themselves, so the bucket is just their leading bits.
+     */
+    private static long fach(double kontostand) {
+        long bits = Double.doubleToLongBits(kontostand + 0.0);
+        return (bits ^ ((bits >> 63) & Long.MAX_VALUE)) >> (52 - FEINHEIT);
+    }
+
+    /**
+     * Returns the smallest balance of a bucket, the inverse of {@link #fach(double)}.
+     */
+    private static double untergrenze(long fach) {
+        long schluessel = fach << (52 - FEINHEIT);
+        double untergrenze = Double.longBitsToDouble(schluessel ^ ((schluessel >> 63) & Long.MAX_VALUE));
+        if (Double.isNaN(untergrenze)) {
+            // beyond the infinities
+            return fach < 0 ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        return untergrenze;
+    }
+
+    private Set<Eintrag> fachFuer(long fach) {
+        Set<Eintrag> eintraege = faecher.get(fach);
+        if (eintraege == null) {
+            Set<Eintrag> neu = ConcurrentHashMap.newKeySet();
+            eintraege = faecher.putIfAbsent(fach, neu);
+            if (eintraege == null) {
+                eintraege = neu;
+            }
+        }
+        return eintraege;
+    }
+
+    /**
+     * Tells whether an account is in this index.
+     *
+     * @param konto The account.
+     * @return True if its balance hook is an entry of this index.
+     */
+    boolean enthaelt(Konto konto) {
+        return konto.getKontostandhaken() instanceof Eintrag eintrag && eintrag.index() == this;
+    }
+
+    /**
+     * Adds an account to the index and sets its balance hook. An account has one hook, so it can only be in the
+     * index under one number.
+     *
+     * @param nummer The number the account is stored under.
+     * @param konto  The account.
+     * @throws IllegalArgumentException If the account is already in the index.
+     */
+    void aufnehmen(long nummer, Konto konto) {
+        if (enthaelt(konto)) {
+            throw new IllegalArgumentException("Konto ist schon im Index");
+        }
+        Eintrag eintrag = new Eintrag(nummer, konto);
+        anzahl.increment();
+        // the hook first: a change after this line moves the account, a change before is read below
+        konto.setKontostandhaken(eintrag);
+        eintrag.kontostandGeaendert(konto);
+    }
+
+    /**
+     * Removes an account from the index and clears its balance hook, if it is the hook of this index.
+     *
+     * @param konto The account.
+     */
+    void entfernen(Konto konto) {
+        if (konto.getKontostandhaken() instanceof Eintrag eintrag && eintrag.index() == this) {
+            konto.setKontostandhaken(null);
+            eintrag.entfernen();
+            anzahl.decrement();
+        }
+    }
+
+    /**
+     * Returns the accounts whose balance is at least the given value. A range that holds most of the accounts
+     * is better read from the table of the bank than bucket by bucket; for such a range the index returns null.
+     *
+     * @param minimum The smallest balance included.
+     * @return The accounts, in no particular order, or null if the buckets of the range hold more than half
+     * of the accounts.
+     */
+    KontenTabelle.Eintraege abKontostand(double minimum) {
+        if (Double.isNaN(minimum)) {
+            return sammeln(Map.of(), true, minimum);
+        }
+        return sammeln(faecher.tailMap(fach(minimum), true), true, minimum);
+    }
+
+    /**
+     * Returns the accounts whose balance is below the given value, see {@link #abKontostand(double)}.
+     *
+     * @param grenze The smallest balance not included.
+     * @return The accounts, in no particular order, or null if the buckets of the range hold more than half
+     * of the accounts.
+     */
+    KontenTabelle.Eintraege unterKontostand(double grenze) {
+        if (Double.isNaN(grenze)) {
+            return sammeln(Map.of(), false, grenze);
+        }
+        long fach = fach(grenze);
+        // a bucket that starts at the limit holds no balance below it, e.g. the bucket of 0 for "below 0"
+        return sammeln(faecher.headMap(fach, untergrenze(fach) != grenze), false, grenze);
+    }
+
+    private KontenTabelle.Eintraege sammeln(Map<Long, Set<Eintrag>> bereich, boolean ab, double wert) {
+        long imBereich = 0;
+        for (Set<Eintrag> fach : bereich.values()) {
+            imBereich += fach.size();
+        }
+        if (imBereich > anzahl.sum() / 2) {
+            return null;
+        }
+        List<Eintrag> gefunden = new ArrayList<>((int) imBereich);
+        for (Map.Entry<Long, Set<Eintrag>> fach : bereich.entrySet()) {
+            for (Eintrag eintrag : fach.getValue()) {
+                double kontostand = eintrag.konto.getKontostand();
+                if (eintrag.fach == fach.getKey() && (ab ? kontostand >= wert : kontostand < wert)) {
+                    gefunden.add(eintrag);
+                }
+            }
+        }
+        long[] nummern = new long[gefunden.size()];
+        Konto[] konten = new Konto[gefunden.size()];
+        for (int i = 0; i < nummern.length; i++) {
+            nummern[i] = gefunden.get(i).nummer;
+            konten[i] = gefunden.get(i).konto;
+        }
+        return new KontenTabelle.Eintraege(nummern, konten);
+    }
+}
@@ -0,0 +1,135 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Geldbetrag;
+import bankprojekt.verarbeitung.Konto;
+import bankprojekt.verarbeitung.Waehrung;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * The accounts of a {@link Bank} in a fixed order, to be read page by page.
+ * <p>
+ * The order and the set of accounts are those of the moment the directory was created, see
+ * {@link Bank#getKontoverzeichnis(Kontospalte, boolean)}; the sort keys are read once per account, so accounts
+ * that change while they are sorted cannot break the sort. The rows of a page are read from the accounts
+ * when the page is requested. A directory holds one reference and one number per account and nothing else,
+ * so it can be kept for as long as a view shows it. Accounts are shown and sorted with the number they are
+ * stored under in the bank.
+ */
+public final class Kontoverzeichnis {
+    private final long[] nummern;
+    private final Konto[] konten;
+
+    /**
+     * An account with its number and the sort key of the requested column, read once.
+     */
+    private record Eintrag(Konto konto, long nummer, long zahl, String text) {
+    }
+
+    private static final Comparator<Eintrag> NACH_NUMMER = Comparator.comparingLong(Eintrag::nummer);
+    private static final Comparator<Eintrag> NACH_ZAHL = Comparator.comparingLong(Eintrag::zahl);
+    private static final Comparator<Eintrag> NACH_TEXT = Comparator.comparing(Eintrag::text);
+
+    private Kontoverzeichnis(long[] nummern, Konto[] konten) {
+        this.nummern = nummern;
+        this.konten = konten;
+    }
+
+    /**
+     * Sorts accounts into a new directory. Accounts with the same key are sorted by their number.
+     *
+     * @param nummern    The numbers the accounts are stored under in the bank.
+     * @param konten     The accounts, at the same positions as their numbers.
+     * @param spalte     The column to sort by.
+     * @param absteigend True to sort in descending order.
+     * @return The directory.
+     */
+    static Kontoverzeichnis sortieren(long[] nummern, Konto[] konten, Kontospalte spalte, boolean absteigend) {
+        Eintrag[] eintraege = new Eintrag[konten.length];
+        for (int i = 0; i < konten.length; i++) {
+            eintraege[i] = eintrag(nummern[i], konten[i], spalte);
+        }
+        Comparator<Eintrag> reihenfolge = switch (spalte) {
+            case NUMMER -> NACH_NUMMER;
+            case INHABER -> NACH_TEXT.thenComparing(NACH_NUMMER);
+            case KONTOSTAND, GESPERRT -> NACH_ZAHL.thenComparing(NACH_NUMMER);
+        };
+        Arrays.parallelSort(eintraege, absteigend ? reihenfolge.reversed() : reihenfolge);
+        long[] sortierteNummern = new long[eintraege.length];
+        Konto[] sortiert = new Konto[eintraege.length];
+        for (int i = 0; i < eintraege.length; i++) {
+            sortierteNummern[i] = eintraege[i].nummer();
+            sortiert[i] = eintraege[i].konto();
+        }
+        return new Kontoverzeichnis(sortierteNummern, sortiert);
+    }
+
+    private static Eintrag eintrag(long nummer, Konto konto, Kontospalte spalte) {
+        return switch (spalte) {
+            case NUMMER -> new Eintrag(konto, nummer, 0, null);
+            case KONTOSTAND -> {
+                long stand = konto.getKontostandMitWaehrung();
+                yield new Eintrag(konto, nummer, Geldbetrag.umrechnen(Geldbetrag.betrag(stand),
+                        Geldbetrag.waehrung(stand), Waehrung.EUR, RoundingMode.HALF_UP), null);
+            }
+            case INHABER -> new Eintrag(konto, nummer, 0, konto.getInhaber().getName());
+            case GESPERRT -> new Eintrag(konto, nummer, konto.isGesperrt() ? 1 : 0, null);
+        };
+    }
+
+    /**
+     * Returns the number of accounts in the directory.
+     *
+     * @return The number of accounts.
+     */
+    public int getAnzahl() {
+        return konten.length;
+    }
+
+    /**
+     * Returns the account at a position.
+     *
+     * @param i The position, starting at 0.
+     * @return The account.
+     */
+    Konto getKonto(int i) {
+        return konten[i];
+    }
+
+    /**
+     * Returns the number the account at a position is stored under in the bank.
+     *
+     * @param i The position, starting at 0.
+     * @return The account number.
+     */
+    long getNummer(int i) {
+        return nummern[i];
+    }
+
+    /**
+     * Returns the current state of a range of accounts.
+     *
+     * @param anfang The position of the first account, starting at 0.
+     * @param anzahl The maximum number of accounts.
+     * @return The accounts from anfang on, fewer than anzahl at the end of the directory.
+     * @throws IllegalArgumentException If anfang or anzahl is negative.
+     */
+    public List<Kontozeile> getSeite(int anfang, int anzahl) {
+        if (anfang < 0 || anzahl < 0)
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        int ende = (int) Math.min(konten.length, (long) anfang + anzahl);
+        List<Kontozeile> seite = new ArrayList<>(Math.max(0, ende - anfang));
+        for (int i = anfang; i < ende; i++) {
+            Konto konto = konten[i];
+            long stand = konto.getKontostandMitWaehrung();
+            Waehrung w = Geldbetrag.waehrung(stand);
+            seite.add(new Kontozeile(nummern[i], konto.getInhaber().getName(),
+                    Geldbetrag.alsDouble(Geldbetrag.betrag(stand), w), w, konto.isGesperrt()));
+        }
+        return seite;
+    }
+}
@@ -0,0 +1,15 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Waehrung;
+
+/**
+ * One account as listed by a {@link Kontoverzeichnis}.
+ *
+ * @param nummer     The account number.
+ * @param inhaber    The name of the owner.
+ * @param kontostand The balance in the account's currency.
+ * @param waehrung   The account's currency.
+ * @param gesperrt   Whether the account is locked.
+ */
+public record Kontozeile(long nummer, String inhaber, double kontostand, Waehrung waehrung, boolean gesperrt) {
+}
@@ -0,0 +1,17 @@
+package bankprojekt.verwaltung;
+
+/**
+ * The measurements of one kind of {@link Bank} operation in one interval. Latencies are in nanoseconds.
+ *
+ * @param operation    The kind of operation.
+ * @param erfolge      The number of successful operations.
+ * @param fehlschlaege The number of operations that failed or were rejected.
+ * @param mittelwert   The mean latency.
+ * @param p50          The median latency.
+ * @param p99          The 99th percentile.
+ * @param p999         The 99.9th percentile.
+ * @param maximum      The highest latency.
+ */
+public record Latenzbericht(Bankoperation operation, long erfolge, long fehlschlaege, double mittelwert,
+                            long p50, long p99, long p999, long maximum) {
+}
@@ -0,0 +1,158 @@
+package bankprojekt.verwaltung;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies in nanoseconds with log-linear buckets, like an HDR histogram.
+ * <p>
+ * Values below {@value #UNTERTEILUNG} have a bucket each; above, every power of two is split into
+ * {@value #UNTERTEILUNG} equal buckets, so a bucket is at most about 1.6% wide relative to its values.
+ * The outcome of an operation is counted separately from its latency, so every operation can be counted while
+ * only some of them are timed. Counting is one atomic increment without locks. Threads record into one of several stripes chosen by
+ * their id, so threads on different cores rarely write to the same cache line.
+ */
+final class Latenzhistogramm {
+    private static final int UNTERTEILUNG_BITS = 6;
+    private static final int UNTERTEILUNG = 1 << UNTERTEILUNG_BITS;
+    private static final int FAECHER = (Long.SIZE - UNTERTEILUNG_BITS) * UNTERTEILUNG;
+    private static final int SUMME = FAECHER;
+    private static final int MAXIMUM = FAECHER + 1;
+    private static final int ERFOLGE = FAECHER + 2;
+    private static final int FEHLSCHLAEGE = FAECHER + 3;
+
+    private final AtomicLongArray[] streifen;
+
+    /**
+     * Creates an empty histogram.
+     */
+    Latenzhistogramm() {
+        int anzahl = Integer.highestOneBit(Math.min(16, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        streifen = new AtomicLongArray[anzahl];
+        for (int i = 0; i < anzahl; i++) {
+            streifen[i] = new AtomicLongArray(FAECHER + 4);
+        }
+    }
+
+    /**
+     * Counts an operation.
+     *
+     * @param erfolg Whether the operation succeeded.
+     */
+    void zaehlen(boolean erfolg) {
+        eigenerStreifen().getAndIncrement(erfolg ? ERFOLGE : FEHLSCHLAEGE);
+    }
+
+    /**
+     * Records the latency of an operation, which is counted with {@link #zaehlen(boolean)}.
+     *
+     * @param nanos The latency in nanoseconds, negative values count as 0.
+     */
+    void erfassen(long nanos) {
+        long wert = Math.max(0, nanos);
+        AtomicLongArray eigener = eigenerStreifen();
+        eigener.getAndIncrement(fach(wert));
+        eigener.getAndAdd(SUMME, wert);
+        long maximum = eigener.get(MAXIMUM);
+        while (wert > maximum && !eigener.compareAndSet(MAXIMUM, maximum, wert)) {
+            maximum = eigener.get(MAXIMUM);
+        }
+    }
+
+    private AtomicLongArray eigenerStreifen() {
+        return streifen[(int) Thread.currentThread().getId() & (streifen.length - 1)];
+    }
+
+    /**
+     * Adds up all stripes.
+     *
+     * @param zuruecksetzen If true, every value is taken and reset to 0 in one step, so a latency recorded at
+     *                      the same time either counts for this evaluation or for the next one.
+     * @return The recorded latencies.
+     */
+    Auswertung auswerten(boolean zuruecksetzen) {
+        long[] faecher = new long[FAECHER];
+        long summe = 0;
+        long maximum = 0;
+        long erfolge = 0;
+        long fehlschlaege = 0;
+        for (AtomicLongArray s : streifen) {
+            for (int i = 0; i < FAECHER; i++) {
+                faecher[i] += zuruecksetzen ? s.getAndSet(i, 0) : s.get(i);
+            }
+            summe += zuruecksetzen ? s.getAndSet(SUMME, 0) : s.get(SUMME);
+            maximum = Math.max(maximum, zuruecksetzen ? s.getAndSet(MAXIMUM, 0) : s.get(MAXIMUM));
+            erfolge += zuruecksetzen ? s.getAndSet(ERFOLGE, 0) : s.get(ERFOLGE);
+            fehlschlaege += zuruecksetzen ? s.getAndSet(FEHLSCHLAEGE, 0) : s.get(FEHLSCHLAEGE);
+        }
+        long gemessen = 0;
+        for (long f : faecher) {
+            gemessen += f;
+        }
+        return new Auswertung(faecher, erfolge + fehlschlaege, fehlschlaege, gemessen, summe, maximum);
+    }
+
+    /**
+     * Returns the bucket of a value.
+     */
+    static int fach(long wert) {
+        if (wert < UNTERTEILUNG) {
+            return (int) wert;
+        }
+        int hoechstesBit = Long.SIZE - 1 - Long.numberOfLeadingZeros(wert);
+        int gruppe = hoechstesBit - UNTERTEILUNG_BITS + 1;
+        return (gruppe << UNTERTEILUNG_BITS) + (int) (wert >>> (hoechstesBit - UNTERTEILUNG_BITS)) - UNTERTEILUNG;
+    }
+
+    /**
+     * Returns the highest value that falls into a bucket.
+     */
+    static long obergrenze(int fach) {
+        int gruppe = fach >>> UNTERTEILUNG_BITS;
+        long unterteilung = fach & (UNTERTEILUNG - 1);
+        if (gruppe == 0) {
+            return unterteilung;
+        }
+        long untergrenze = (UNTERTEILUNG + unterteilung) << (gruppe - 1);
+        return untergrenze + (1L << (gruppe - 1)) - 1;
+    }
+
+    /**
+     * The latencies of a histogram at one point in time.
+     *
+     * @param faecher      The count of every bucket.
+     * @param anzahl       The number of operations counted.
+     * @param fehlschlaege How many of them failed.
+     * @param gemessen     The number of latencies, at most the number of operations.
+     * @param summe        The sum of all latencies in nanoseconds.
+     * @param maximum      The highest latency in nanoseconds.
+     */
+    record Auswertung(long[] faecher, long anzahl, long fehlschlaege, long gemessen, long summe, long maximum) {
+        /**
+         * Returns the latency below which the given share of all latencies lies, as the upper bound of its bucket.
+         *
+         * @param anteil The share between 0 and 1, e.g. 0.99.
+         * @return The latency in nanoseconds, 0 if nothing was recorded.
+         */
+        long perzentil(double anteil) {
+            if (gemessen == 0) {
+                return 0;
+            }
+            long rang = Math.max(1, (long) Math.ceil(anteil * gemessen));
+            long gezaehlt = 0;
+            for (int i = 0; i < faecher.length; i++) {
+                gezaehlt += faecher[i];
+                if (gezaehlt >= rang) {
+                    return Math.min(obergrenze(i), maximum);
+                }
+            }
+            return maximum;
+        }
+
+        /**
+         * Returns the mean latency in nanoseconds, 0 if nothing was recorded.
+         */
+        double mittelwert() {
+            return gemessen == 0 ? 0 : (double) summe / gemessen;
+        }
+    }
+}
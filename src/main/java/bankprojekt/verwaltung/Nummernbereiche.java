@@ -0,0 +1,155 @@
+package bankprojekt.verwaltung;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Ranges of account numbers, e.g. the free numbers of a {@link Bank}, in ascending order.
+ * Each range is kept as its first and last number, so a range of a billion numbers costs two longs.
+ */
+public final class Nummernbereiche {
+    /**
+     * first and last number of each range, one after the other
+     */
+    private final long[] grenzen;
+    private final int anzahl;
+
+    /**
+     * Creates the ranges from their bounds.
+     *
+     * @param grenzen First and last number of each range, ascending, ranges neither overlapping nor adjacent.
+     */
+    Nummernbereiche(long[] grenzen) {
+        this.grenzen = grenzen;
+        this.anzahl = grenzen.length / 2;
+    }
+
+    /**
+     * Returns the number of ranges.
+     *
+     * @return The number of ranges.
+     */
+    public int getAnzahl() {
+        return anzahl;
+    }
+
+    /**
+     * Returns the first number of a range.
+     *
+     * @param bereich The index of the range.
+     * @return The first number of the range.
+     * @throws IndexOutOfBoundsException If there is no range with this index.
+     */
+    public long getVon(int bereich) {
+        return grenzen[2 * pruefen(bereich)];
+    }
+
+    /**
+     * Returns the last number of a range.
+     *
+     * @param bereich The index of the range.
+     * @return The last number of the range, included in the range.
+     * @throws IndexOutOfBoundsException If there is no range with this index.
+     */
+    public long getBis(int bereich) {
+        return grenzen[2 * pruefen(bereich) + 1];
+    }
+
+    private int pruefen(int bereich) {
+        return Objects.checkIndex(bereich, anzahl);
+    }
+
+    /**
+     * Returns how many numbers the ranges hold together.
+     *
+     * @return The number of numbers, {@link Long#MAX_VALUE} if there are more.
+     */
+    public long getNummernAnzahl() {
+        long summe = 0;
+        for (int i = 0; i < anzahl; i++) {
+            long laenge = grenzen[2 * i + 1] - grenzen[2 * i] + 1;
+            summe = laenge <= 0 || summe > Long.MAX_VALUE - laenge ? Long.MAX_VALUE : summe + laenge;
+        }
+        return summe;
+    }
+
+    /**
+     * Checks if a number lies in one of the ranges.
+     *
+     * @param nummer The account number.
+     * @return True if the number lies in a range.
+     */
+    public boolean enthaelt(long nummer) {
+        int unten = 0, oben = anzahl - 1;
+        while (unten <= oben) {
+            int mitte = (unten + oben) >>> 1;
+            if (grenzen[2 * mitte + 1] < nummer) {
+                unten = mitte + 1;
+            } else if (grenzen[2 * mitte] > nummer) {
+                oben = mitte - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the ranges as a list like "[1002-1005, 1010]".
+     */
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 0; i < anzahl; i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.append(grenzen[2 * i]);
+            if (grenzen[2 * i + 1] != grenzen[2 * i]) {
+                text.append('-').append(grenzen[2 * i + 1]);
+            }
+        }
+        return text.append(']').toString();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof Nummernbereiche andere && Arrays.equals(grenzen, andere.grenzen);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(grenzen);
+    }
+
+    /**
+     * Collects ranges in ascending order and joins adjacent ones.
+     */
+    static final class Sammler {
+        private long[] grenzen = new long[16];
+        private int anzahl;
+
+        /**
+         * Adds a range; it must start after the ranges added before.
+         *
+         * @param von The first number.
+         * @param bis The last number.
+         */
+        void hinzufuegen(long von, long bis) {
+            if (anzahl > 0 && grenzen[2 * anzahl - 1] + 1 == von) {
+                grenzen[2 * anzahl - 1] = bis;
+                return;
+            }
+            if (2 * anzahl == grenzen.length) {
+                grenzen = Arrays.copyOf(grenzen, grenzen.length * 2);
+            }
+            grenzen[2 * anzahl] = von;
+            grenzen[2 * anzahl + 1] = bis;
+            anzahl++;
+        }
+
+        Nummernbereiche ergebnis() {
+            return new Nummernbereiche(Arrays.copyOf(grenzen, 2 * anzahl));
+        }
+    }
+}
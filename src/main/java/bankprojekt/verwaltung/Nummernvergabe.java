@@ -0,0 +1,339 @@
+package bankprojekt.verwaltung;
+
+import java.util.Arrays;
+
+/**
+ * Hands out account numbers and takes them back, over the whole range of non-negative longs.
+ * <p>
+ * The used numbers are a bitmap in a tree: a leaf holds 4096 numbers as 64 words, every inner node has 64
+ * children, so ten levels cover all 64 bits. A missing child stands for numbers that are all free, a shared
+ * marker for numbers that are all used; only partly used parts of the number space cost memory, a bank with
+ * a million consecutive numbers holds a few leaves. Every node knows which of its children are full, so
+ * the lowest free number is found by following the first child that is not full from the root down,
+ * a fixed number of steps however many numbers are used. Numbers of deleted accounts are therefore the first
+ * to be handed out again.
+ * <p>
+ * The methods are synchronized; each of them takes at most ten steps, except {@link #luecken(long, long)}.
+ */
+final class Nummernvergabe {
+    /**
+     * numbers of a leaf, as a power of two
+     */
+    private static final int BLATTBITS = 12;
+    private static final int STUFENBITS = 6;
+    /**
+     * number of levels of inner nodes, the root is level 0, the leaves are below the last level
+     */
+    private static final int STUFEN = 9;
+    private static final long ALLE = -1L;
+    /**
+     * a child whose numbers are all used
+     */
+    private static final Object VOLL = new Object();
+
+    private static final class Knoten {
+        final Object[] kinder = new Object[64];
+        /**
+         * bit i: child i is present, as a node, a leaf or {@link #VOLL}
+         */
+        long belegt;
+        /**
+         * bit i: child i is {@link #VOLL}
+         */
+        long voll;
+    }
+
+    private static final class Blatt {
+        final long[] woerter = new long[64];
+        /**
+         * bit i: word i is not 0
+         */
+        long belegt;
+        /**
+         * bit i: word i is {@link #ALLE}
+         */
+        long voll;
+    }
+
+    private final Knoten wurzel = new Knoten();
+
+    /**
+     * Creates an allocator whose numbers start at the given number; the numbers below are used from the start.
+     *
+     * @param erste The lowest number handed out, at most 4096.
+     */
+    Nummernvergabe(long erste) {
+        for (long nummer = 0; nummer < erste; nummer++) {
+            belegen(nummer);
+        }
+    }
+
+    /**
+     * Returns the lowest free number and marks it as used.
+     *
+     * @return The number.
+     * @throws IllegalStateException If all non-negative numbers are used.
+     */
+    synchronized long vergeben() {
+        long nummer = ersteFreie();
+        if (nummer < 0) {
+            throw new IllegalStateException("Keine Kontonummer mehr frei");
+        }
+        setzen(wurzel, 0, nummer);
+        return nummer;
+    }
+
+    /**
+     * Marks a number as used, e.g. the number of an account that is inserted under its own number.
+     *
+     * @param nummer The number.
+     * @return True if the number was free before.
+     */
+    synchronized boolean belegen(long nummer) {
+        return setzen(wurzel, 0, nummer);
+    }
+
+    /**
+     * Marks a number as free, so that it can be handed out again.
+     *
+     * @param nummer The number.
+     * @return True if the number was used before.
+     */
+    synchronized boolean freigeben(long nummer) {
+        return loeschen(wurzel, 0, nummer);
+    }
+
+    /**
+     * Checks if a number is used.
+     *
+     * @param nummer The number.
+     * @return True if it is used.
+     */
+    synchronized boolean istBelegt(long nummer) {
+        Object kind = wurzel;
+        for (int stufe = 0; stufe < STUFEN; stufe++) {
+            kind = ((Knoten) kind).kinder[index(nummer, stufe)];
+            if (kind == null || kind == VOLL) {
+                return kind == VOLL;
+            }
+        }
+        return (((Blatt) kind).woerter[wort(nummer)] & 1L << nummer) != 0;
+    }
+
+    /**
+     * Returns the highest used number.
+     *
+     * @return The number, -1 if none is used.
+     */
+    synchronized long hoechste() {
+        long nummer = 0;
+        Object kind = wurzel;
+        for (int stufe = 0; stufe < STUFEN; stufe++) {
+            Knoten knoten = (Knoten) kind;
+            if (knoten.belegt == 0) {
+                return -1;
+            }
+            int i = 63 - Long.numberOfLeadingZeros(knoten.belegt);
+            nummer |= (long) i << verschiebung(stufe);
+            kind = knoten.kinder[i];
+            if (kind == VOLL) {
+                return nummer | (1L << verschiebung(stufe)) - 1;
+            }
+        }
+        Blatt blatt = (Blatt) kind;
+        int w = 63 - Long.numberOfLeadingZeros(blatt.belegt);
+        return nummer | (long) w << STUFENBITS | 63 - Long.numberOfLeadingZeros(blatt.woerter[w]);
+    }
+
+    /**
+     * Returns the free numbers between two numbers as ranges.
+     *
+     * @param von The lowest number looked at, not negative.
+     * @param bis The highest number looked at.
+     * @return The ranges of free numbers, in ascending order.
+     */
+    synchronized Nummernbereiche luecken(long von, long bis) {
+        Nummernbereiche.Sammler sammler = new Nummernbereiche.Sammler();
+        if (von >= 0 && von <= bis) {
+            sammeln(wurzel, 0, 0, von, bis, sammler);
+        }
+        return sammler.ergebnis();
+    }
+
+    /**
+     * bit position of the child index of a node of the given level
+     */
+    private static int verschiebung(int stufe) {
+        return BLATTBITS + STUFENBITS * (STUFEN - 1 - stufe);
+    }
+
+    private static int index(long nummer, int stufe) {
+        return (int) (nummer >>> verschiebung(stufe)) & 63;
+    }
+
+    private static int wort(long nummer) {
+        return (int) (nummer >>> STUFENBITS) & 63;
+    }
+
+    private long ersteFreie() {
+        long nummer = 0;
+        Knoten knoten = wurzel;
+        for (int stufe = 0; ; stufe++) {
+            int i = Long.numberOfTrailingZeros(~knoten.voll);
+            nummer |= (long) i << verschiebung(stufe);
+            Object kind = knoten.kinder[i];
+            if (kind == null) {
+                return nummer;
+            }
+            if (stufe == STUFEN - 1) {
+                Blatt blatt = (Blatt) kind;
+                int w = Long.numberOfTrailingZeros(~blatt.voll);
+                return nummer | (long) w << STUFENBITS | Long.numberOfTrailingZeros(~blatt.woerter[w]);
+            }
+            knoten = (Knoten) kind;
+        }
+    }
+
+    /**
+     * Sets a number in the subtree of a node and marks the child as full if it became full.
+     */
+    private static boolean setzen(Knoten knoten, int stufe, long nummer) {
+        int i = index(nummer, stufe);
+        Object kind = knoten.kinder[i];
+        if (kind == VOLL) {
+            return false;
+        }
+        boolean neu;
+        boolean kindVoll;
+        if (stufe == STUFEN - 1) {
+            Blatt blatt = kind == null ? new Blatt() : (Blatt) kind;
+            knoten.kinder[i] = blatt;
+            int w = wort(nummer);
+            long bit = 1L << nummer;
+            neu = (blatt.woerter[w] & bit) == 0;
+            blatt.woerter[w] |= bit;
+            blatt.belegt |= 1L << w;
+            if (blatt.woerter[w] == ALLE) {
+                blatt.voll |= 1L << w;
+            }
+            kindVoll = blatt.voll == ALLE;
+        } else {
+            Knoten kindknoten = kind == null ? new Knoten() : (Knoten) kind;
+            knoten.kinder[i] = kindknoten;
+            neu = setzen(kindknoten, stufe + 1, nummer);
+            kindVoll = kindknoten.voll == ALLE;
+        }
+        knoten.belegt |= 1L << i;
+        if (kindVoll) {
+            knoten.kinder[i] = VOLL;
+            knoten.voll |= 1L << i;
+        }
+        return neu;
+    }
+
+    /**
+     * Clears a number in the subtree of a node; a full child is split first, an empty one removed.
+     */
+    private static boolean loeschen(Knoten knoten, int stufe, long nummer) {
+        int i = index(nummer, stufe);
+        Object kind = knoten.kinder[i];
+        if (kind == null) {
+            return false;
+        }
+        if (kind == VOLL) {
+            kind = stufe == STUFEN - 1 ? vollesBlatt() : vollerKnoten();
+            knoten.kinder[i] = kind;
+            knoten.voll &= ~(1L << i);
+        }
+        boolean geloescht;
+        boolean kindLeer;
+        if (stufe == STUFEN - 1) {
+            Blatt blatt = (Blatt) kind;
+            int w = wort(nummer);
+            long bit = 1L << nummer;
+            geloescht = (blatt.woerter[w] & bit) != 0;
+            blatt.woerter[w] &= ~bit;
+            blatt.voll &= ~(1L << w);
+            if (blatt.woerter[w] == 0) {
+                blatt.belegt &= ~(1L << w);
+            }
+            kindLeer = blatt.belegt == 0;
+        } else {
+            Knoten kindknoten = (Knoten) kind;
+            geloescht = loeschen(kindknoten, stufe + 1, nummer);
+            kindLeer = kindknoten.belegt == 0;
+        }
+        if (kindLeer) {
+            knoten.kinder[i] = null;
+            knoten.belegt &= ~(1L << i);
+        }
+        return geloescht;
+    }
+
+    private static Knoten vollerKnoten() {
+        Knoten knoten = new Knoten();
+        Arrays.fill(knoten.kinder, VOLL);
+        knoten.belegt = ALLE;
+        knoten.voll = ALLE;
+        return knoten;
+    }
+
+    private static Blatt vollesBlatt() {
+        Blatt blatt = new Blatt();
+        Arrays.fill(blatt.woerter, ALLE);
+        blatt.belegt = ALLE;
+        blatt.voll = ALLE;
+        return blatt;
+    }
+
+    /**
+     * Collects the free numbers of the part [anfang, ...] of the number space a child covers,
+     * as far as they lie between von and bis.
+     */
+    private static void sammeln(Object kind, int stufe, long anfang, long von, long bis,
+                                Nummernbereiche.Sammler sammler) {
+        if (kind == VOLL) {
+            return;
+        }
+        long ende = stufe == 0 ? Long.MAX_VALUE : anfang + ((1L << verschiebung(stufe - 1)) - 1);
+        if (kind == null) {
+            sammler.hinzufuegen(Math.max(anfang, von), Math.min(ende, bis));
+            return;
+        }
+        if (stufe == STUFEN) {
+            sammelnImBlatt((Blatt) kind, anfang, von, bis, sammler);
+            return;
+        }
+        Knoten knoten = (Knoten) kind;
+        long kindgroesse = 1L << verschiebung(stufe);
+        // the root has children beyond Long.MAX_VALUE, their numbers are negative and never looked at
+        int erstes = (int) ((Math.max(anfang, von) - anfang) >>> verschiebung(stufe));
+        int letztes = (int) ((Math.min(ende, bis) - anfang) >>> verschiebung(stufe));
+        for (int i = erstes; i <= letztes; i++) {
+            sammeln(knoten.kinder[i], stufe + 1, anfang + i * kindgroesse, von, bis, sammler);
+        }
+    }
+
+    private static void sammelnImBlatt(Blatt blatt, long anfang, long von, long bis,
+                                       Nummernbereiche.Sammler sammler) {
+        int erstes = (int) ((Math.max(anfang, von) - anfang) >>> STUFENBITS);
+        int letztes = (int) ((Math.min(anfang + (1L << BLATTBITS) - 1, bis) - anfang) >>> STUFENBITS);
+        for (int w = erstes; w <= letztes; w++) {
+            long wortanfang = anfang + ((long) w << STUFENBITS);
+            long frei = ~blatt.woerter[w];
+            while (frei != 0) {
+                int start = Long.numberOfTrailingZeros(frei);
+                int laenge = Long.numberOfTrailingZeros(~(frei >>> start));
+                if (start + laenge > 64) {
+                    laenge = 64 - start;
+                }
+                long erste = Math.max(wortanfang + start, von);
+                long letzte = Math.min(wortanfang + start + laenge - 1, bis);
+                if (erste <= letzte) {
+                    sammler.hinzufuegen(erste, letzte);
+                }
+                frei = laenge == 64 ? 0 : frei & ~(((1L << laenge) - 1) << start);
+            }
+        }
+    }
+}
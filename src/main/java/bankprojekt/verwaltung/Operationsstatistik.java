@@ -0,0 +1,119 @@
+package bankprojekt.verwaltung;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencies and success counters of one kind of {@link Bank} operation.
+ * <p>
+ * Every operation is counted, but only a random sample of one in sixteen is timed; the latency attributes
+ * describe the sample.
+ * <p>
+ * The attributes are read from one evaluation of the histogram, which is reused for
+ * {@value #GUELTIG_MILLIS} ms or until the interval ends, so a JMX client that reads all attributes one after
+ * the other adds up the histogram once and sees consistent values.
+ */
+public final class Operationsstatistik implements OperationsstatistikMBean {
+    private static final long GUELTIG_MILLIS = 1000;
+
+    private final Bankoperation operation;
+    private final Latenzhistogramm histogramm = new Latenzhistogramm();
+    /**
+     * the last evaluation for the attributes, null after the end of an interval; guarded by this
+     */
+    private Latenzhistogramm.Auswertung stand;
+    private long standZeit;
+
+    Operationsstatistik(Bankoperation operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * Records an operation that has just ended.
+     *
+     * @param anfang The {@link System#nanoTime()} at the start of the operation, or
+     *               {@link BankMetriken#UNGEMESSEN} to only count it.
+     * @param erfolg Whether the operation succeeded.
+     */
+    void erfassen(long anfang, boolean erfolg) {
+        histogramm.zaehlen(erfolg);
+        if (anfang != BankMetriken.UNGEMESSEN) {
+            histogramm.erfassen(System.nanoTime() - anfang);
+        }
+    }
+
+    /**
+     * Returns the measurements of the current interval and starts a new one.
+     *
+     * @return The measurements since the last reset.
+     */
+    public synchronized Latenzbericht intervallAbschliessen() {
+        Latenzhistogramm.Auswertung auswertung = histogramm.auswerten(true);
+        stand = null;
+        return new Latenzbericht(operation, auswertung.anzahl() - auswertung.fehlschlaege(), auswertung.fehlschlaege(),
+                auswertung.mittelwert(), auswertung.perzentil(0.5), auswertung.perzentil(0.99),
+                auswertung.perzentil(0.999), auswertung.maximum());
+    }
+
+    /**
+     * Returns the evaluation the attributes are read from, adding up the histogram again if it is too old.
+     */
+    private synchronized Latenzhistogramm.Auswertung stand() {
+        long jetzt = System.nanoTime();
+        if (stand == null || jetzt - standZeit > TimeUnit.MILLISECONDS.toNanos(GUELTIG_MILLIS)) {
+            stand = histogramm.auswerten(false);
+            standZeit = jetzt;
+        }
+        return stand;
+    }
+
+    @Override
+    public String getOperation() {
+        return operation.name();
+    }
+
+    @Override
+    public long getErfolge() {
+        Latenzhistogramm.Auswertung auswertung = stand();
+        return auswertung.anzahl() - auswertung.fehlschlaege();
+    }
+
+    @Override
+    public long getFehlschlaege() {
+        return stand().fehlschlaege();
+    }
+
+    @Override
+    public long getAnzahl() {
+        return stand().anzahl();
+    }
+
+    @Override
+    public double getMittelwert() {
+        return stand().mittelwert();
+    }
+
+    @Override
+    public long getP50() {
+        return stand().perzentil(0.5);
+    }
+
+    @Override
+    public long getP99() {
+        return stand().perzentil(0.99);
+    }
+
+    @Override
+    public long getP999() {
+        return stand().perzentil(0.999);
+    }
+
+    @Override
+    public long getMaximum() {
+        return stand().maximum();
+    }
+
+    @Override
+    public void zuruecksetzen() {
+        intervallAbschliessen();
+    }
+}
@@ -0,0 +1,30 @@
+package bankprojekt.verwaltung;
+
+/**
+ * JMX view of the measurements of one kind of {@link Bank} operation since the last reset.
+ * Latencies are in nanoseconds and come from a random sample of the operations, the counters include all.
+ */
+public interface OperationsstatistikMBean {
+    String getOperation();
+
+    long getErfolge();
+
+    long getFehlschlaege();
+
+    long getAnzahl();
+
+    double getMittelwert();
+
+    long getP50();
+
+    long getP99();
+
+    long getP999();
+
+    long getMaximum();
+
+    /**
+     * Starts a new interval, all values are set to 0.
+     */
+    void zuruecksetzen();
+}
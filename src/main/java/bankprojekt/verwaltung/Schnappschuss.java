@@ -0,0 +1,269 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Aktie;
+import bankprojekt.verarbeitung.Depotposition;
+import bankprojekt.verarbeitung.Geldbetrag;
+import bankprojekt.verarbeitung.Konto;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.Waehrung;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary snapshot of a {@link Bank}, written to and read from a channel through a buffer of fixed size.
+ * <p>
+ * After a header with the routing number and the highest account number in use, counted from 1000, the snapshot
+ * is a sequence of entries, each starting with a type byte. A {@link Kunde} or an {@link Aktie} is written once, when it is first referenced,
+ * and afterwards referred to by its position among the entries of its kind, so shared customers and shares
+ * are shared again after reading. An account entry holds its state as fixed-point numbers and its depot as
+ * positions of share reference, count, cost and realized gain. The snapshot ends with an end entry that repeats the number of accounts.
+ * <p>
+ * Memory use while writing and reading is the buffer plus the references of the customers and shares seen so far.
+ */
+final class Schnappschuss {
+    private static final int KENNUNG = 0x424B5332;
+    private static final int PUFFERGROESSE = 1 << 16;
+
+    private static final byte ENDE = 0;
+    private static final byte KUNDE = 1;
+    private static final byte AKTIE = 2;
+    private static final byte KONTO = 3;
+
+    private static final Waehrung[] WAEHRUNGEN = Waehrung.values();
+
+    private Schnappschuss() {
+    }
+
+    /**
+     * Writes the entries of a snapshot.
+     */
+    static final class Schreiber {
+        private final WritableByteChannel kanal;
+        private final ByteBuffer puffer = ByteBuffer.allocate(PUFFERGROESSE);
+        private final Map<Kunde, Integer> kunden = new IdentityHashMap<>();
+        private final Map<Aktie, Integer> aktien = new IdentityHashMap<>();
+        private long konten;
+
+        /**
+         * Starts a snapshot by writing its header.
+         */
+        Schreiber(WritableByteChannel kanal, long bankleitzahl, long zaehler) throws IOException {
+            this.kanal = kanal;
+            platz(Integer.BYTES + 2 * Long.BYTES);
+            puffer.putInt(KENNUNG).putLong(bankleitzahl).putLong(zaehler);
+        }
+
+        /**
+         * Writes an account, its owner and the shares of its depot are written first if they are new.
+         *
+         * @throws IllegalArgumentException If the account is neither a Girokonto nor a Sparbuch.
+         */
+        void konto(Konto konto) throws IOException {
+            byte art = KontenSpeicher.art(konto);
+            int inhaber = kunde(konto.getInhaber());
+            List<Depotposition> depot = konto.getDepot();
+            int[] aktien = new int[depot.size()];
+            for (int i = 0; i < aktien.length; i++) {
+                aktien[i] = aktie(depot.get(i).aktie());
+            }
+
+            platz(2 * Byte.BYTES + Long.BYTES + Integer.BYTES + Long.BYTES + 2 * Byte.BYTES + 2 * Long.BYTES + Integer.BYTES);
+            long stand = konto.getKontostandMitWaehrung();
+            puffer.put(KONTO).put(art)
+                    .putLong(konto.getKontonummer())
+                    .putInt(inhaber)
+                    .putLong(Geldbetrag.betrag(stand))
+                    .put((byte) Geldbetrag.waehrung(stand).ordinal())
+                    .put((byte) (konto.isGesperrt() ? 1 : 0))
+                    .putLong(KontenSpeicher.kondition(konto))
+                    .putLong(KontenSpeicher.monatsabhebung(konto))
+                    .putInt(depot.size());
+            for (int i = 0; i < aktien.length; i++) {
+                Depotposition p = depot.get(i);
+                platz(Integer.BYTES + 3 * Long.BYTES);
+                puffer.putInt(aktien[i]).putLong(p.anzahl()).putLong(p.einstandCent()).putLong(p.realisiertCent());
+            }
+            konten++;
+        }
+
+        private int kunde(Kunde kunde) throws IOException {
+            Integer nummer = kunden.get(kunde);
+            if (nummer != null) {
+                return nummer;
+            }
+            platz(Byte.BYTES);
+            puffer.put(KUNDE);
+            text(kunde.getVorname());
+            text(kunde.getNachname());
+            text(kunde.getAdresse());
+            platz(Long.BYTES);
+            puffer.putLong(kunde.getGeburtstag().toEpochDay());
+            nummer = kunden.size();
+            kunden.put(kunde, nummer);
+            return nummer;
+        }
+
+        private int aktie(Aktie aktie) throws IOException {
+            Integer nummer = aktien.get(aktie);
+            if (nummer != null) {
+                return nummer;
+            }
+            platz(Byte.BYTES);
+            puffer.put(AKTIE);
+            text(aktie.getName());
+            platz(2 * Long.BYTES);
+            puffer.putLong(aktie.getWertpapierId()).putLong(aktie.getAktuellerPreisCent());
+            nummer = aktien.size();
+            aktien.put(aktie, nummer);
+            return nummer;
+        }
+
+        private void text(String text) throws IOException {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            platz(Integer.BYTES);
+            puffer.putInt(bytes.length);
+            for (int geschrieben = 0; geschrieben < bytes.length; ) {
+                platz(1);
+                int stueck = Math.min(puffer.remaining(), bytes.length - geschrieben);
+                puffer.put(bytes, geschrieben, stueck);
+                geschrieben += stueck;
+            }
+        }
+
+        /**
+         * Writes the end entry and everything that is still in the buffer.
+         */
+        void abschliessen() throws IOException {
+            platz(Byte.BYTES + Long.BYTES);
+            puffer.put(ENDE).putLong(konten);
+            leeren();
+        }
+
+        private void platz(int bytes) throws IOException {
+            if (puffer.remaining() < bytes) {
+                leeren();
+            }
+        }
+
+        private void leeren() throws IOException {
+            puffer.flip();
+            while (puffer.hasRemaining()) {
+                kanal.write(puffer);
+            }
+            puffer.clear();
+        }
+    }
+
+    /**
+     * Reads a snapshot into a new bank.
+     *
+     * @param kanal The channel the snapshot is read from.
+     * @return The bank with all accounts of the snapshot.
+     * @throws IOException If the channel cannot be read or does not contain a complete snapshot.
+     */
+    static Bank lesen(ReadableByteChannel kanal) throws IOException {
+        Leser leser = new Leser(kanal);
+        if (leser.zahl() != KENNUNG) {
+            throw new IOException("Kein Schnappschuss einer Bank");
+        }
+        Bank bank = new Bank(leser.langeZahl());
+        // the highest account number; the free numbers follow from the accounts
+        leser.langeZahl();
+        List<Kunde> kunden = new ArrayList<>();
+        List<Aktie> aktien = new ArrayList<>();
+        long konten = 0;
+        while (true) {
+            byte typ = leser.einByte();
+            switch (typ) {
+                case KUNDE -> kunden.add(bank.getKundenregister().registrieren(leser.text(), leser.text(),
+                        leser.text(), LocalDate.ofEpochDay(leser.langeZahl())));
+                case AKTIE -> aktien.add(new Aktie(leser.text(), leser.langeZahl(),
+                        Geldbetrag.alsDouble(leser.langeZahl(), Waehrung.EUR)));
+                case KONTO -> {
+                    byte art = leser.einByte();
+                    long nummer = leser.langeZahl();
+                    Kunde inhaber = kunden.get(leser.zahl());
+                    long kontostand = leser.langeZahl();
+                    Waehrung waehrung = WAEHRUNGEN[leser.einByte()];
+                    boolean gesperrt = leser.einByte() != 0;
+                    Konto konto = KontenSpeicher.erzeugen(art, nummer, inhaber, kontostand, waehrung, gesperrt,
+                            leser.langeZahl(), leser.langeZahl());
+                    for (int posten = leser.zahl(); posten > 0; posten--) {
+                        konto.positionWiederherstellen(new Depotposition(aktien.get(leser.zahl()),
+                                leser.langeZahl(), leser.langeZahl(), leser.langeZahl()));
+                    }
+                    bank.kontoEinfuegen(konto);
+                    konten++;
+                }
+                case ENDE -> {
+                    if (leser.langeZahl() != konten) {
+                        throw new IOException("Schnappschuss ist unvollständig");
+                    }
+                    return bank;
+                }
+                default -> throw new IOException("Unbekannter Eintrag " + typ + " im Schnappschuss");
+            }
+        }
+    }
+
+    /**
+     * Reads the values of a snapshot through a buffer of fixed size.
+     */
+    private static final class Leser {
+        private final ReadableByteChannel kanal;
+        private final ByteBuffer puffer = ByteBuffer.allocate(PUFFERGROESSE).flip();
+
+        Leser(ReadableByteChannel kanal) {
+            this.kanal = kanal;
+        }
+
+        byte einByte() throws IOException {
+            fuellen(Byte.BYTES);
+            return puffer.get();
+        }
+
+        int zahl() throws IOException {
+            fuellen(Integer.BYTES);
+            return puffer.getInt();
+        }
+
+        long langeZahl() throws IOException {
+            fuellen(Long.BYTES);
+            return puffer.getLong();
+        }
+
+        String text() throws IOException {
+            byte[] bytes = new byte[zahl()];
+            for (int gelesen = 0; gelesen < bytes.length; ) {
+                fuellen(1);
+                int stueck = Math.min(puffer.remaining(), bytes.length - gelesen);
+                puffer.get(bytes, gelesen, stueck);
+                gelesen += stueck;
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void fuellen(int bytes) throws IOException {
+            if (puffer.remaining() >= bytes) {
+                return;
+            }
+            puffer.compact();
+            while (puffer.position() < bytes) {
+                if (kanal.read(puffer) < 0) {
+                    throw new EOFException("Schnappschuss ist unvollständig");
+                }
+            }
+            puffer.flip();
+        }
+    }
+}
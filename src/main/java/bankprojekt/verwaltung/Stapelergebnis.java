@@ -0,0 +1,63 @@
+package bankprojekt.verwaltung;
+
+/**
+ * Results of a {@link Ueberweisungsstapel}, one {@link Ueberweisungsstatus} per transfer,
+ * stored as one byte per transfer; 0 marks a transfer that has no result yet.
+ */
+public class Stapelergebnis {
+    private final byte[] codes;
+
+    Stapelergebnis(int anzahl) {
+        this.codes = new byte[anzahl];
+    }
+
+    void setStatus(int i, Ueberweisungsstatus status) {
+        codes[i] = (byte) (status.code() + 1);
+    }
+
+    /**
+     * Checks whether a transfer has a result, i.e. was handled before an operation on the block failed.
+     *
+     * @param i The position of the transfer in the block.
+     * @return True if the transfer has a result.
+     */
+    boolean hatStatus(int i) {
+        return codes[i] != 0;
+    }
+
+    /**
+     * Returns the result of a single transfer.
+     *
+     * @param i The position of the transfer in the block.
+     * @return The result of the transfer.
+     */
+    public Ueberweisungsstatus getStatus(int i) {
+        return Ueberweisungsstatus.vonCode((byte) (codes[i] - 1));
+    }
+
+    /**
+     * Returns the number of transfers.
+     *
+     * @return The number of transfers.
+     */
+    public int getAnzahl() {
+        return codes.length;
+    }
+
+    /**
+     * Counts the transfers with the given result.
+     *
+     * @param status The result to count.
+     * @return The number of transfers with this result.
+     */
+    public int anzahl(Ueberweisungsstatus status) {
+        byte code = (byte) (status.code() + 1);
+        int ergebnis = 0;
+        for (byte c : codes) {
+            if (c == code) {
+                ergebnis++;
+            }
+        }
+        return ergebnis;
+    }
+}
@@ -0,0 +1,260 @@
+package bankprojekt.verwaltung;
+
+import java.util.Arrays;
+
+/**
+ * Splits a chunk of a {@link Ueberweisungsstapel} into rounds, each of which is executed under one acquisition
+ * of its lock stripes.
+ * <p>
+ * The stripes are split into {@value #GRUPPEN} groups. A transfer belongs to the pair of groups of its two
+ * accounts, and a round takes the transfers of one pair, so it never holds more than two groups of stripes,
+ * however the accounts of the block are spread. Within a pair the transfers keep the order of the block.
+ * Between pairs the order changes, but only where it cannot be seen: a transfer joins a round only after every
+ * earlier transfer of the block on one of its accounts has been in a round. Every account therefore sees its
+ * transfers in the order of the block, and every transfer has the result it would have had one by one.
+ * Such a transfer waits in its pair for the next pass over the pairs; the first transfer still waiting
+ * is always ready, so every pass makes progress.
+ * <p>
+ * The data of a transfer lies in one place of an int array, and after {@link #planen()} in the order of the
+ * pairs, so a round reads the memory in sequence. A plan is reused for the chunks of many blocks, it allocates
+ * nothing after its construction. It is not thread-safe; {@link #belegen()} and {@link #freigeben()} mark it
+ * as in use by a block.
+ */
+final class Stapelplan {
+    /**
+     * number of stripe groups, a power of two
+     */
+    static final int GRUPPEN = 8;
+    private static final int PAARE = GRUPPEN * GRUPPEN;
+
+    /**
+     * ints per transfer: position in the block, both stripes, the transfers before it on each of its accounts
+     */
+    private static final int BREITE = 4;
+    private static final int INDEX = 0;
+    private static final int STREIFEN = 1;
+    private static final int VORGAENGER_A = 2;
+    private static final int VORGAENGER_B = 3;
+
+    private final int gruppenShift;
+
+    /**
+     * the transfers in the order they were added, predecessors by that order
+     */
+    private final int[] hinzugefuegt;
+    private final int[] paar;
+    private int anzahl;
+
+    /**
+     * the transfers sorted by pair, those of pair p from paarAnfang[p] to paarAnfang[p + 1],
+     * predecessors by this order
+     */
+    private final int[] sortiert;
+    private final int[] position;
+    private final boolean[] erledigt;
+    private final int[] paarAnfang = new int[PAARE + 1];
+    /**
+     * the first transfer of each pair that has not been in a round yet
+     */
+    private final int[] paarOffen = new int[PAARE];
+    private int naechstesPaar;
+    private int offen;
+
+    /**
+     * the latest transfer on each account so far: pairs of account number and generation << 32 | transfer,
+     * open addressing; a slot of another generation than the one of the current chunk is free
+     */
+    private final long[] konten;
+    private int generation;
+
+    private final int[] runde;
+    private final long[] streifen;
+    private boolean belegt;
+
+    /**
+     * creates a plan for chunks of at most kapazitaet transfers
+     *
+     * @param kapazitaet maximum number of transfers of a chunk
+     * @param streifen   number of lock stripes, a power of two and at least {@value #GRUPPEN}
+     */
+    Stapelplan(int kapazitaet, int streifen) {
+        gruppenShift = Integer.numberOfTrailingZeros(streifen / GRUPPEN);
+        hinzugefuegt = new int[kapazitaet * BREITE];
+        paar = new int[kapazitaet];
+        sortiert = new int[kapazitaet * BREITE];
+        position = new int[kapazitaet];
+        erledigt = new boolean[kapazitaet];
+        // at least twice as many slots as accounts
+        konten = new long[2 * (Integer.highestOneBit(Math.max(1, kapazitaet) * 4 - 1) << 1)];
+        runde = new int[kapazitaet];
+        this.streifen = new long[(streifen + Long.SIZE - 1) / Long.SIZE];
+    }
+
+    /**
+     * marks the plan as used by a block
+     *
+     * @return false if it is already in use, e.g. by a block further up the same thread
+     */
+    boolean belegen() {
+        if (belegt) {
+            return false;
+        }
+        belegt = true;
+        return true;
+    }
+
+    /**
+     * marks the plan as free again
+     */
+    void freigeben() {
+        belegt = false;
+    }
+
+    /**
+     * starts a new chunk
+     */
+    void leeren() {
+        anzahl = 0;
+        if (++generation == 0) {
+            Arrays.fill(konten, 0);
+            generation = 1;
+        }
+    }
+
+    /**
+     * adds a transfer between two accounts; both may be the same account
+     *
+     * @param i         position of the transfer in the block
+     * @param kontoA    number of the first account
+     * @param streifenA stripe of the first account
+     * @param kontoB    number of the second account
+     * @param streifenB stripe of the second account
+     */
+    void hinzufuegen(int i, long kontoA, int streifenA, long kontoB, int streifenB) {
+        int t = anzahl++;
+        int gruppeA = streifenA >>> gruppenShift;
+        int gruppeB = streifenB >>> gruppenShift;
+        paar[t] = Math.min(gruppeA, gruppeB) * GRUPPEN + Math.max(gruppeA, gruppeB);
+        int d = t * BREITE;
+        hinzugefuegt[d + INDEX] = i;
+        hinzugefuegt[d + STREIFEN] = streifenA << 16 | streifenB;
+        hinzugefuegt[d + VORGAENGER_A] = vorgaenger(kontoA, t);
+        hinzugefuegt[d + VORGAENGER_B] = kontoB == kontoA ? -1 : vorgaenger(kontoB, t);
+    }
+
+    /**
+     * notes t as the latest transfer on the account
+     *
+     * @return the transfer on the account before t, -1 if there was none
+     */
+    private int vorgaenger(long konto, int t) {
+        int maske = konten.length / 2 - 1;
+        int platz = (int) (konto * 0x9E3779B97F4A7C15L >>> 40) & maske;
+        while (true) {
+            long wert = konten[2 * platz + 1];
+            if ((int) (wert >>> 32) != generation) {
+                break;
+            }
+            if (konten[2 * platz] == konto) {
+                konten[2 * platz + 1] = (long) generation << 32 | t;
+                return (int) wert;
+            }
+            platz = (platz + 1) & maske;
+        }
+        konten[2 * platz] = konto;
+        konten[2 * platz + 1] = (long) generation << 32 | t;
+        return -1;
+    }
+
+    /**
+     * sorts the added transfers by pair, to be called once after the last {@link #hinzufuegen}
+     */
+    void planen() {
+        Arrays.fill(paarAnfang, 0);
+        for (int t = 0; t < anzahl; t++) {
+            paarAnfang[paar[t] + 1]++;
+        }
+        for (int p = 0; p < PAARE; p++) {
+            paarAnfang[p + 1] += paarAnfang[p];
+            paarOffen[p] = paarAnfang[p];
+        }
+        for (int t = 0; t < anzahl; t++) {
+            position[t] = paarOffen[paar[t]]++;
+        }
+        for (int t = 0; t < anzahl; t++) {
+            int von = t * BREITE;
+            int nach = position[t] * BREITE;
+            int vorgaengerA = hinzugefuegt[von + VORGAENGER_A];
+            int vorgaengerB = hinzugefuegt[von + VORGAENGER_B];
+            sortiert[nach + INDEX] = hinzugefuegt[von + INDEX];
+            sortiert[nach + STREIFEN] = hinzugefuegt[von + STREIFEN];
+            sortiert[nach + VORGAENGER_A] = vorgaengerA < 0 ? -1 : position[vorgaengerA];
+            sortiert[nach + VORGAENGER_B] = vorgaengerB < 0 ? -1 : position[vorgaengerB];
+            erledigt[position[t]] = false;
+        }
+        System.arraycopy(paarAnfang, 0, paarOffen, 0, PAARE);
+        naechstesPaar = 0;
+        offen = anzahl;
+    }
+
+    /**
+     * takes the next round: the waiting transfers of the next pair that are ready, in the order of the block.
+     * Their positions are then in {@link #getRunde()}, the stripes they need in {@link #getStreifen()}.
+     *
+     * @return the number of transfers of the round, 0 when all transfers have been in a round
+     */
+    int naechsteRunde() {
+        Arrays.fill(streifen, 0);
+        while (offen > 0) {
+            int p = naechstesPaar;
+            naechstesPaar = (p + 1) % PAARE;
+            int laenge = 0;
+            int ende = paarAnfang[p + 1];
+            int erster = -1;
+            for (int k = paarOffen[p]; k < ende; k++) {
+                if (erledigt[k]) {
+                    continue;
+                }
+                int d = k * BREITE;
+                if (bereit(sortiert[d + VORGAENGER_A]) && bereit(sortiert[d + VORGAENGER_B])) {
+                    erledigt[k] = true;
+                    runde[laenge++] = sortiert[d + INDEX];
+                    int streifenA = sortiert[d + STREIFEN] >>> 16;
+                    int streifenB = sortiert[d + STREIFEN] & 0xFFFF;
+                    streifen[streifenA >>> 6] |= 1L << streifenA;
+                    streifen[streifenB >>> 6] |= 1L << streifenB;
+                } else if (erster < 0) {
+                    erster = k;
+                }
+            }
+            paarOffen[p] = erster < 0 ? ende : erster;
+            if (laenge > 0) {
+                offen -= laenge;
+                return laenge;
+            }
+        }
+        return 0;
+    }
+
+    private boolean bereit(int vorgaenger) {
+        return vorgaenger < 0 || erledigt[vorgaenger];
+    }
+
+    /**
+     * returns the positions in the block of the transfers of the current round
+     *
+     * @return positions, valid up to the length returned by {@link #naechsteRunde()}
+     */
+    int[] getRunde() {
+        return runde;
+    }
+
+    /**
+     * returns the stripes the current round needs
+     *
+     * @return one bit per stripe
+     */
+    long[] getStreifen() {
+        return streifen;
+    }
+}
@@ -0,0 +1,146 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.Konto;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs a sweep over accounts as a fork-join job with one partition per lock stripe of a {@link Bank}.
+ * <p>
+ * The account numbers are grouped by stripe in one counting pass. Each partition is handled while its
+ * stripe lock is held, so it sees its accounts in a consistent state, and other operations are blocked only
+ * for the accounts of the one stripe currently handled. Partitions run in parallel in the common pool;
+ * the caller gets one result per partition and combines them once.
+ *
+ * @param <T> The result of a partition.
+ */
+@SuppressWarnings("serial")
+final class Streifenlauf<T> extends RecursiveAction {
+    /**
+     * The work done for one partition.
+     *
+     * @param <T> The result of the partition.
+     */
+    @FunctionalInterface
+    interface Partition<T> {
+        /**
+         * Handles the accounts konten[von] to konten[bis - 1], all of one stripe, under its lock;
+         * nummern holds their numbers at the same positions.
+         */
+        T bearbeiten(long[] nummern, Konto[] konten, int von, int bis);
+    }
+
+    private final Auftrag<T> auftrag;
+    private final int vonStreifen;
+    private final int bisStreifen;
+
+    /**
+     * What all tasks of one sweep share.
+     */
+    private record Auftrag<T>(long[] nummern, Konto[] konten, int[] grenzen, ReentrantLock[] sperren,
+                              Partition<T> partition, List<T> ergebnisse, AtomicLong erledigt,
+                              Fortschritt fortschritt) {
+    }
+
+    private Streifenlauf(Auftrag<T> auftrag, int vonStreifen, int bisStreifen) {
+        this.auftrag = auftrag;
+        this.vonStreifen = vonStreifen;
+        this.bisStreifen = bisStreifen;
+    }
+
+    /**
+     * Runs a sweep and waits for its result.
+     *
+     * @param eintraege   The accounts.
+     * @param sperren     The stripe locks of the bank.
+     * @param partition   The work for one partition.
+     * @param fortschritt Receives the progress, may be null.
+     * @param <T>         The result of a partition.
+     * @return The results of all partitions, one per stripe.
+     */
+    static <T> List<T> ausfuehren(KontenTabelle.Eintraege eintraege, ReentrantLock[] sperren, Partition<T> partition,
+                                  Fortschritt fortschritt) {
+        long[] nummern = eintraege.nummern();
+        Konto[] konten = eintraege.konten();
+        int[] grenzen = nachStreifenOrdnen(nummern, konten, sperren.length);
+        List<T> ergebnisse = Arrays.asList(newArray(sperren.length));
+        Auftrag<T> auftrag = new Auftrag<>(nummern, konten, grenzen, sperren, partition, ergebnisse,
+                new AtomicLong(), fortschritt);
+        ForkJoinPool.commonPool().invoke(new Streifenlauf<>(auftrag, 0, sperren.length));
+        return ergebnisse;
+    }
+
+    /**
+     * Sorts the numbers and accounts by stripe in place, with a counting pass and one swap per misplaced entry.
+     *
+     * @return The start of every stripe's accounts, plus the length of the arrays at the end.
+     */
+    private static int[] nachStreifenOrdnen(long[] nummern, Konto[] konten, int streifen) {
+        int[] grenzen = new int[streifen + 1];
+        for (long nummer : nummern) {
+            grenzen[Bank.streifen(nummer) + 1]++;
+        }
+        for (int s = 0; s < streifen; s++) {
+            grenzen[s + 1] += grenzen[s];
+        }
+        int[] naechste = Arrays.copyOf(grenzen, streifen);
+        for (int s = 0; s < streifen; s++) {
+            while (naechste[s] < grenzen[s + 1]) {
+                int i = naechste[s];
+                int ziel = Bank.streifen(nummern[i]);
+                if (ziel == s) {
+                    naechste[s]++;
+                } else {
+                    // the entry goes to the next free place of its stripe, whatever was there is looked at next
+                    int j = naechste[ziel]++;
+                    long nummer = nummern[i];
+                    nummern[i] = nummern[j];
+                    nummern[j] = nummer;
+                    Konto konto = konten[i];
+                    konten[i] = konten[j];
+                    konten[j] = konto;
+                }
+            }
+        }
+        return grenzen;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T[] newArray(int laenge) {
+        return (T[]) new Object[laenge];
+    }
+
+    @Override
+    protected void compute() {
+        if (bisStreifen - vonStreifen == 1) {
+            streifenBearbeiten(vonStreifen);
+            return;
+        }
+        int mitte = (vonStreifen + bisStreifen) >>> 1;
+        invokeAll(new Streifenlauf<>(auftrag, vonStreifen, mitte), new Streifenlauf<>(auftrag, mitte, bisStreifen));
+    }
+
+    private void streifenBearbeiten(int streifen) {
+        int von = auftrag.grenzen()[streifen];
+        int bis = auftrag.grenzen()[streifen + 1];
+        T ergebnis;
+        ReentrantLock sperre = auftrag.sperren()[streifen];
+        sperre.lock();
+        try {
+            ergebnis = auftrag.partition().bearbeiten(auftrag.nummern(), auftrag.konten(), von, bis);
+        } finally {
+            sperre.unlock();
+        }
+        long erledigt = auftrag.erledigt().addAndGet(bis - von);
+        // every task writes its own element, invokeAll makes the writes visible to the caller
+        auftrag.ergebnisse().set(streifen, ergebnis);
+        if (auftrag.fortschritt() != null) {
+            auftrag.fortschritt().fortschritt(erledigt, auftrag.nummern().length);
+        }
+    }
+}
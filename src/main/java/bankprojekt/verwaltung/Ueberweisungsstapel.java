@@ -0,0 +1,90 @@
+package bankprojekt.verwaltung;
+
+import java.util.Arrays;
+
+/**
+ * A block of transfers between accounts of the same bank that is executed with a single call to
+ * {@link Bank#geldUeberweisen(Ueberweisungsstapel)}.
+ * The transfers are kept in primitive arrays, so a block of many thousand transfers needs no object per transfer.
+ */
+public class Ueberweisungsstapel {
+    private long[] von;
+    private long[] nach;
+    private double[] betraege;
+    private String[] verwendungszwecke;
+    private int anzahl;
+
+    /**
+     * Creates an empty block.
+     */
+    public Ueberweisungsstapel() {
+        this(64);
+    }
+
+    /**
+     * Creates an empty block with room for the given number of transfers.
+     *
+     * @param kapazitaet The expected number of transfers.
+     */
+    public Ueberweisungsstapel(int kapazitaet) {
+        int groesse = Math.max(1, kapazitaet);
+        von = new long[groesse];
+        nach = new long[groesse];
+        betraege = new double[groesse];
+        verwendungszwecke = new String[groesse];
+    }
+
+    /**
+     * Adds a transfer to the block.
+     *
+     * @param vonKontonr       The account number from which the money will be sent.
+     * @param nachKontonr      The account number to which the money will be sent.
+     * @param betrag           The amount to be transferred.
+     * @param verwendungszweck A description or purpose of the transfer.
+     * @return This block, for chaining.
+     * @throws IllegalArgumentException If the amount is not positive or not finite, or verwendungszweck is null.
+     */
+    public Ueberweisungsstapel hinzufuegen(long vonKontonr, long nachKontonr, double betrag, String verwendungszweck) {
+        if (betrag <= 0 || Double.isNaN(betrag) || Double.isInfinite(betrag) || verwendungszweck == null) {
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        }
+        if (anzahl == von.length) {
+            int groesse = anzahl * 2;
+            von = Arrays.copyOf(von, groesse);
+            nach = Arrays.copyOf(nach, groesse);
+            betraege = Arrays.copyOf(betraege, groesse);
+            verwendungszwecke = Arrays.copyOf(verwendungszwecke, groesse);
+        }
+        von[anzahl] = vonKontonr;
+        nach[anzahl] = nachKontonr;
+        betraege[anzahl] = betrag;
+        verwendungszwecke[anzahl] = verwendungszweck;
+        anzahl++;
+        return this;
+    }
+
+    /**
+     * Returns the number of transfers in the block.
+     *
+     * @return The number of transfers.
+     */
+    public int getAnzahl() {
+        return anzahl;
+    }
+
+    long getVon(int i) {
+        return von[i];
+    }
+
+    long getNach(int i) {
+        return nach[i];
+    }
+
+    double getBetrag(int i) {
+        return betraege[i];
+    }
+
+    String getVerwendungszweck(int i) {
+        return verwendungszwecke[i];
+    }
+}
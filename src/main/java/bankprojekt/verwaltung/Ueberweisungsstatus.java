@@ -0,0 +1,48 @@
+package bankprojekt.verwaltung;
+
+/**
+ * Result of a single transfer within a {@link Ueberweisungsstapel}.
+ */
+public enum Ueberweisungsstatus {
+    /**
+     * The transfer was executed.
+     */
+    OK,
+    /**
+     * The sending account rejected the transfer, e.g. because its balance or Dispo was not sufficient.
+     */
+    NICHT_GEDECKT,
+    /**
+     * The sending account is locked.
+     */
+    GESPERRT,
+    /**
+     * One of the two account numbers does not exist.
+     */
+    KONTO_UNBEKANNT,
+    /**
+     * One of the two accounts cannot send or receive transfers.
+     */
+    NICHT_UEBERWEISUNGSFAEHIG;
+
+    private static final Ueberweisungsstatus[] WERTE = values();
+
+    /**
+     * Returns the status with the given code.
+     *
+     * @param code The code as stored in a {@link Stapelergebnis}.
+     * @return The status.
+     */
+    static Ueberweisungsstatus vonCode(byte code) {
+        return WERTE[code];
+    }
+
+    /**
+     * Returns the compact code of this status.
+     *
+     * @return The code.
+     */
+    byte code() {
+        return (byte) ordinal();
+    }
+}
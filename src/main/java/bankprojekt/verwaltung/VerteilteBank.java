@@ -0,0 +1,728 @@
+package bankprojekt.verwaltung;
+
+import bankprojekt.verarbeitung.GesperrtException;
+import bankprojekt.verarbeitung.Konto;
+import bankprojekt.verarbeitung.Kunde;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bank whose accounts are partitioned by account number across several shards.
+ * <p>
+ * Every shard is a {@link Bank} of its own with a single thread; only this thread touches the shard's accounts,
+ * so operations on accounts of different shards never wait for each other and those of one shard never contend
+ * for its locks. The account number decides the shard, {@code nummer mod n}; the numbers themselves are handed
+ * out by this bank for all shards, so they stay unique and the gaps of deleted accounts are filled first.
+ * Operations on one account run on its shard, operations on all accounts on all shards in parallel.
+ * <p>
+ * A transfer between accounts of the same shard runs on that shard like in a single bank. A transfer between
+ * shards is executed in two phases: once the receiving shard has confirmed that the receiving account exists,
+ * the sending shard debits the amount and keeps it as an open transfer, then the receiving shard credits it. If the receiving account does not exist or cannot receive transfers,
+ * the sending shard books the amount back; otherwise the open transfer is closed. While a transfer is open,
+ * its amount is neither on the sending nor on the receiving account, see {@link #getOffeneUeberweisungen()}.
+ * <p>
+ * The bank has no journal and no store; it can be written with {@link #speichern(java.nio.file.Path)} and
+ * {@link #schnappschussSchreiben(java.nio.channels.WritableByteChannel)}, which restore as a single bank.
+ * It is not serializable. {@link #close()} stops the threads of the shards.
+ */
+@SuppressWarnings("serial")
+public class VerteilteBank extends Bank implements AutoCloseable {
+    /**
+     * A transfer to another shard whose amount was debited and not yet credited.
+     *
+     * @param vonKontonr       The sending account.
+     * @param betrag           The amount.
+     * @param verwendungszweck The purpose of the transfer.
+     */
+    private record Reservierung(long vonKontonr, double betrag, String verwendungszweck) {
+    }
+
+    /**
+     * The accounts of one shard and the thread that works on them.
+     */
+    private static final class Shard {
+        final Bank bank;
+        final ExecutorService ausfuehrung;
+        /**
+         * open transfers debited on this shard; added and booked back by its thread, closed by any thread
+         */
+        final Map<Long, Reservierung> offen = new ConcurrentHashMap<>();
+
+        Shard(long bankleitzahl, int index) {
+            bank = new Bank(bankleitzahl);
+            ausfuehrung = Executors.newSingleThreadExecutor(aufgabe -> {
+                Thread thread = new Thread(aufgabe, "Bank-Shard-" + index);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        /**
+         * First phase of a transfer to another shard: debits the sending account and keeps the transfer open.
+         */
+        Ueberweisungsstatus reservieren(long id, long vonKontonr, double betrag, String verwendungszweck) {
+            Ueberweisungsstatus status = bank.ueberweisungAbbuchen(vonKontonr, betrag, verwendungszweck).status();
+            if (status == Ueberweisungsstatus.OK) {
+                offen.put(id, new Reservierung(vonKontonr, betrag, verwendungszweck));
+            }
+            return status;
+        }
+
+        /**
+         * Closes an open transfer after the receiving shard credited it; needs no thread of the shard,
+         * so it cannot fail once the amount is credited.
+         */
+        void abschliessen(long id) {
+            offen.remove(id);
+        }
+
+        /**
+         * Books an open transfer back to the sending account; if the account was deleted meanwhile,
+         * the transfer stays open.
+         */
+        void zurueckbuchen(long id) {
+            Reservierung r = offen.get(id);
+            if (bank.ueberweisungGutschreiben(r.vonKontonr(), r.betrag(), r.verwendungszweck())
+                    == Ueberweisungsstatus.OK) {
+                offen.remove(id);
+            }
+        }
+    }
+
+    /**
+     * A task that runs on the thread of a shard.
+     */
+    @FunctionalInterface
+    private interface Aufgabe<T> {
+        T ausfuehren(Shard shard) throws KontonummerNichtVorhandenException, GesperrtException;
+    }
+
+    private final Shard[] shards;
+    private final AtomicLong reservierungen = new AtomicLong();
+
+    /**
+     * Creates a bank with the specified routing number whose accounts are partitioned across several shards.
+     *
+     * @param bankleitzahl The routing number of the bank, also of each shard.
+     * @param shardAnzahl  The number of shards, each with its own thread.
+     * @throws IllegalArgumentException If shardAnzahl is less than 1.
+     */
+    public VerteilteBank(long bankleitzahl, int shardAnzahl) {
+        super(bankleitzahl);
+        if (shardAnzahl < 1)
+            throw new IllegalArgumentException("Parameter fehlerhaft");
+        shards = new Shard[shardAnzahl];
+        for (int i = 0; i < shardAnzahl; i++) {
+            shards[i] = new Shard(bankleitzahl, i);
+        }
+    }
+
+    /**
+     * Returns the number of shards.
+     *
+     * @return The number of shards.
+     */
+    public int getShardAnzahl() {
+        return shards.length;
+    }
+
+    /**
+     * Returns the number of transfers between shards whose amount was debited and not yet credited.
+     * Once no transfer is running, this is 0, unless a sending account was deleted while its transfer was
+     * booked back.
+     *
+     * @return The number of open transfers.
+     */
+    public long getOffeneUeberweisungen() {
+        long anzahl = 0;
+        for (Shard shard : shards) {
+            anzahl += shard.offen.size();
+        }
+        return anzahl;
+    }
+
+    @Override
+    public long mockEinfuegen(Konto k) {
+        if (k == null) {
+            throw new NullPointerException();
+        }
+        long kontoNummer = kontoNummerErsteller();
+        erledigen(shard(kontoNummer), shard -> {
+            shard.bank.kontoEinfuegen(kontoNummer, k);
+            return null;
+        });
+        return kontoNummer;
+    }
+
+    @Override
+    public long kontoErstellen(Kontofabrik fabrik, Kunde inhaber) {
+        long anfang = messbeginn();
+        boolean erfolg = false;
+        try {
+            if (inhaber == null || fabrik == null) {
+                throw new NullPointerException();
+            }
+            long kontoNummer = kontoNummerErsteller();
+            erledigen(shard(kontoNummer), shard -> {
+                shard.bank.kontoEinfuegen(kontoNummer, fabrik.createKonto(inhaber, kontoNummer));
+                return null;
+            });
+            erfolg = true;
+            return kontoNummer;
+        } finally {
+            erfassen(Bankoperation.KONTO_ERSTELLEN, anfang, erfolg);
+        }
+    }
+
+    @Override
+    public boolean geldAbheben(long von, double betrag) throws GesperrtException, KontonummerNichtVorhandenException {
+        long anfang = messbeginn();
+        boolean erfolg = false;
+        try {
+            erfolg = ausfuehren(shard(von), shard -> shard.bank.geldAbheben(von, betrag));
+            return erfolg;
+        } finally {
+            erfassen(Bankoperation.ABHEBEN, anfang, erfolg);
+        }
+    }
+
+    @Override
+    public void geldEinzahlen(long auf, double betrag) throws KontonummerNichtVorhandenException {
+        long anfang = messbeginn();
+        boolean erfolg = false;
+        try {
+            abfragen(shard(auf), shard -> {
+                shard.bank.geldEinzahlen(auf, betrag);
+                return null;
+            });
+            erfolg = true;
+        } finally {
+            erfassen(Bankoperation.EINZAHLEN, anfang, erfolg);
+        }
+    }
+
+    @Override
+    public boolean kontoLoeschen(long nummer) {
+        boolean geloescht = erledigen(shard(nummer), shard -> shard.bank.kontoLoeschen(nummer));
+        if (geloescht) {
+            kontonummerFreigeben(nummer);
+        }
+        return geloescht;
+    }
+
+    @Override
+    public void kontoSperren(long nummer) throws KontonummerNichtVorhandenException {
+        abfragen(shard(nummer), shard -> {
+            shard.bank.kontoSperren(nummer);
+            return null;
+        });
+    }
+
+    @Override
+    public void kontoEntsperren(long nummer) throws KontonummerNichtVorhandenException {
+        abfragen(shard(nummer), shard -> {
+            shard.bank.kontoEntsperren(nummer);
+            return null;
+        });
+    }
+
+    @Override
+    public double getKontostand(long nummer) throws KontonummerNichtVorhandenException {
+        long anfang = messbeginn();
+        boolean erfolg = false;
+        try {
+            double kontostand = abfragen(shard(nummer), shard -> shard.bank.getKontostand(nummer));
+            erfolg = true;
+            return kontostand;
+        } finally {
+            erfassen(Bankoperation.ABFRAGE, anfang, erfolg);
+        }
+    }
+
+    @Override
+    public boolean kontoNummerChecker(long nummer) {
+        long anfang = messbeginn();
+        boolean vorhanden = erledigen(shard(nummer), shard -> shard.bank.kontoNummerChecker(nummer));
+        erfassen(Bankoperation.ABFRAGE, anfang, vorhanden);
+        return vorhanden;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Between accounts of different shards, the transfer is executed in two phases, see {@link VerteilteBank}.
+     */
+    @Override
+    public boolean geldUeberweisen(long vonKontonr, long nachKontonr, double betrag, String verwendungszweck)
+            throws KontonummerNichtVorhandenException, GesperrtException {
+        long anfang = messbeginn();
+        boolean erfolg = false;
+        try {
+            Shard quelle = shard(vonKontonr);
+            if (quelle == shard(nachKontonr)) {
+                erfolg = ausfuehren(quelle, shard ->
+                        shard.bank.geldUeberweisen(vonKontonr, nachKontonr, betrag, verwendungszweck));
+                return erfolg;
+            }
+            switch (zwischenShards(vonKontonr, nachKontonr, betrag, verwendungszweck)) {
+                case OK -> erfolg = true;
+                case KONTO_UNBEKANNT -> throw new KontonummerNichtVorhandenException();
+                case GESPERRT -> throw new GesperrtException(vonKontonr);
+                default -> erfolg = false;
+            }
+            return erfolg;
+        } finally {
+            erfassen(Bankoperation.UEBERWEISEN, anfang, erfolg);
+        }
+    }
+
+    /**
+     * Executes a transfer between accounts of different shards in two phases, after checking the receiving
+     * account on its shard, so a transfer to an unknown account debits nothing.
+     * Like {@link Bank#geldUeberweisen(long, long, double, String)}, an unknown receiving account is
+     * reported as unknown even if the sending account could not have paid.
+     */
+    private Ueberweisungsstatus zwischenShards(long vonKontonr, long nachKontonr, double betrag,
+                                               String verwendungszweck) {
+        Shard quelle = shard(vonKontonr);
+        Shard ziel = shard(nachKontonr);
+        if (!erledigen(ziel, shard -> shard.bank.kontoNummerChecker(nachKontonr))) {
+            return Ueberweisungsstatus.KONTO_UNBEKANNT;
+        }
+        long id = reservierungen.incrementAndGet();
+        Ueberweisungsstatus status = erledigen(quelle,
+                shard -> shard.reservieren(id, vonKontonr, betrag, verwendungszweck));
+        if (status != Ueberweisungsstatus.OK) {
+            return status;
+        }
+        try {
+            status = erledigen(ziel, shard -> shard.bank.ueberweisungGutschreiben(nachKontonr, betrag, verwendungszweck));
+        } catch (RuntimeException e) {
+            try {
+                quelle.ausfuehrung.execute(() -> quelle.zurueckbuchen(id));
+            } catch (RejectedExecutionException geschlossen) {
+                // the bank was closed meanwhile, the transfer stays open
+                e.addSuppressed(geschlossen);
+            }
+            throw e;
+        }
+        if (status == Ueberweisungsstatus.OK) {
+            quelle.abschliessen(id);
+        } else {
+            erledigen(quelle, shard -> {
+                shard.zurueckbuchen(id);
+                return null;
+            });
+        }
+        return status;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Consecutive transfers within shards are executed as blocks, all shards at the same time; a transfer between
+     * shards is executed alone, in two phases, so the order of the transfers that touch an account is kept.
+     */
+    @Override
+    public Stapelergebnis geldUeberweisen(Ueberweisungsstapel stapel) {
+        long anfang = messbeginn();
+        boolean erfolg = false;
+        try {
+            int anzahl = stapel.getAnzahl();
+            Stapelergebnis ergebnis = new Stapelergebnis(anzahl);
+            int i = 0;
+            while (i < anzahl) {
+                if (shard(stapel.getVon(i)) != shard(stapel.getNach(i))) {
+                    ergebnis.setStatus(i, zwischenShards(stapel.getVon(i), stapel.getNach(i),
+                            stapel.getBetrag(i), stapel.getVerwendungszweck(i)));
+                    i++;
+                } else {
+                    i = innerhalbDerShards(stapel, i, ergebnis);
+                }
+            }
+            erfolg = true;
+            return ergebnis;
+        } finally {
+            erfassen(Bankoperation.STAPELUEBERWEISUNG, anfang, erfolg);
+        }
+    }
+
+    /**
+     * Executes the transfers within shards from the given position up to the next transfer between shards,
+     * as one block per shard.
+     *
+     * @return The position of the first transfer not executed.
+     */
+    private int innerhalbDerShards(Ueberweisungsstapel stapel, int anfang, Stapelergebnis ergebnis) {
+        Ueberweisungsstapel[] teile = new Ueberweisungsstapel[shards.length];
+        List<List<Integer>> positionen = new ArrayList<>(shards.length);
+        for (int s = 0; s < shards.length; s++) {
+            positionen.add(new ArrayList<>());
+        }
+        int ende = anfang;
+        for (; ende < stapel.getAnzahl(); ende++) {
+            int s = index(stapel.getVon(ende));
+            if (s != index(stapel.getNach(ende))) {
+                break;
+            }
+            if (teile[s] == null) {
+                teile[s] = new Ueberweisungsstapel();
+            }
+            teile[s].hinzufuegen(stapel.getVon(ende), stapel.getNach(ende), stapel.getBetrag(ende),
+                    stapel.getVerwendungszweck(ende));
+            positionen.get(s).add(ende);
+        }
+        List<Stapelergebnis> teilergebnisse = beiAllen(shard -> {
+            Ueberweisungsstapel teil = teile[index(shard)];
+            return teil == null ? null : shard.bank.geldUeberweisen(teil);
+        });
+        zusammenfuehren(teilergebnisse, positionen, ergebnis);
+        return ende;
+    }
+
+    @Override
+    Abbuchung ueberweisungAbbuchen(long vonKontonr, double betrag, String verwendungszweck) {
+        return erledigen(shard(vonKontonr), shard ->
+                shard.bank.ueberweisungAbbuchen(vonKontonr, betrag, verwendungszweck));
+    }
+
+    @Override
+    Ueberweisungsstatus ueberweisungGutschreiben(long nachKontonr, double betrag, String verwendungszweck) {
+        return erledigen(shard(nachKontonr), shard ->
+                shard.bank.ueberweisungGutschreiben(nachKontonr, betrag, verwendungszweck));
+    }
+
+    /**
+     * Credits the transfers as one block per shard, all shards at the same time. If a shard fails,
+     * the results of the other shards are kept and the exception is thrown once all shards are done.
+     */
+    @Override
+    void gutschriftenBuchen(Ueberweisungsstapel stapel, Stapelergebnis ergebnis) {
+        Ueberweisungsstapel[] teile = new Ueberweisungsstapel[shards.length];
+        List<List<Integer>> positionen = new ArrayList<>(shards.length);
+        for (int s = 0; s < shards.length; s++) {
+            positionen.add(new ArrayList<>());
+        }
+        for (int i = 0; i < stapel.getAnzahl(); i++) {
+            int s = index(stapel.getNach(i));
+            if (teile[s] == null) {
+                teile[s] = new Ueberweisungsstapel();
+            }
+            teile[s].hinzufuegen(stapel.getVon(i), stapel.getNach(i), stapel.getBetrag(i),
+                    stapel.getVerwendungszweck(i));
+            positionen.get(s).add(i);
+        }
+        Stapelergebnis[] teilergebnisse = new Stapelergebnis[shards.length];
+        List<Future<Void>> laufend = new ArrayList<>(shards.length);
+        RuntimeException fehler = null;
+        for (int s = 0; s < shards.length; s++) {
+            Ueberweisungsstapel teil = teile[s];
+            if (teil == null) {
+                continue;
+            }
+            Stapelergebnis teilergebnis = new Stapelergebnis(teil.getAnzahl());
+            teilergebnisse[s] = teilergebnis;
+            try {
+                laufend.add(starten(shards[s], shard -> {
+                    shard.bank.gutschriftenBuchen(teil, teilergebnis);
+                    return null;
+                }));
+            } catch (RuntimeException e) {
+                fehler = e;
+            }
+        }
+        for (Future<Void> teil : laufend) {
+            try {
+                warten(teil);
+            } catch (RuntimeException e) {
+                if (fehler == null) {
+                    fehler = e;
+                } else {
+                    fehler.addSuppressed(e);
+                }
+            } catch (KontonummerNichtVorhandenException | GesperrtException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        zusammenfuehren(Arrays.asList(teilergebnisse), positionen, ergebnis);
+        if (fehler != null) {
+            throw fehler;
+        }
+    }
+
+    /**
+     * Copies the results of the blocks of the shards to the positions of their transfers in the whole block;
+     * transfers without a result keep none.
+     */
+    private static void zusammenfuehren(List<Stapelergebnis> teilergebnisse, List<List<Integer>> positionen,
+                                        Stapelergebnis ergebnis) {
+        for (int s = 0; s < teilergebnisse.size(); s++) {
+            Stapelergebnis teilergebnis = teilergebnisse.get(s);
+            for (int j = 0; teilergebnis != null && j < teilergebnis.getAnzahl(); j++) {
+                if (teilergebnis.hatStatus(j)) {
+                    ergebnis.setStatus(positionen.get(s).get(j), teilergebnis.getStatus(j));
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The shards are checked in parallel; the progress is the sum of all shards.
+     */
+    @Override
+    public int pleitegeierSperren(Fortschritt fortschritt) {
+        long anfang = messbeginn();
+        boolean erfolg = false;
+        try {
+            Fortschritt[] teilfortschritte = teilfortschritte(fortschritt);
+            int gesperrt = 0;
+            for (int summand : beiAllen(shard -> shard.bank.pleitegeierSperren(teilfortschritte[index(shard)]))) {
+                gesperrt += summand;
+            }
+            erfolg = true;
+            return gesperrt;
+        } finally {
+            erfassen(Bankoperation.SPERRLAUF, anfang, erfolg);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The shards are searched in parallel; the progress is the sum of all shards.
+     */
+    @Override
+    public List<Kunde> getKundenMitVollemKonto(double minimum, Fortschritt fortschritt) {
+        Fortschritt[] teilfortschritte = teilfortschritte(fortschritt);
+        List<List<Kunde>> teile = beiAllen(shard ->
+                shard.bank.getKundenMitVollemKonto(minimum, teilfortschritte[index(shard)]));
+        List<Kunde> kunden = new ArrayList<>(teile.stream().mapToInt(List::size).sum());
+        for (List<Kunde> teil : teile) {
+            kunden.addAll(teil);
+        }
+        return Collections.unmodifiableList(kunden);
+    }
+
+    /**
+     * Returns one progress receiver per shard that reports the sum of the progress of all shards.
+     */
+    private Fortschritt[] teilfortschritte(Fortschritt fortschritt) {
+        Fortschritt[] teilfortschritte = new Fortschritt[shards.length];
+        if (fortschritt == null) {
+            return teilfortschritte;
+        }
+        AtomicLongArray erledigt = new AtomicLongArray(shards.length);
+        AtomicLongArray gesamt = new AtomicLongArray(shards.length);
+        for (int s = 0; s < shards.length; s++) {
+            int shard = s;
+            teilfortschritte[s] = (erledigtImShard, gesamtImShard) -> {
+                erledigt.set(shard, erledigtImShard);
+                gesamt.set(shard, gesamtImShard);
+                long summeErledigt = 0;
+                long summeGesamt = 0;
+                for (int i = 0; i < shards.length; i++) {
+                    summeErledigt += erledigt.get(i);
+                    summeGesamt += gesamt.get(i);
+                }
+                fortschritt.fortschritt(summeErledigt, summeGesamt);
+            };
+        }
+        return teilfortschritte;
+    }
+
+    /**
+     * Collects the accounts of all shards, each shard on its own thread.
+     */
+    @Override
+    KontenTabelle.Eintraege alleEintraege() {
+        List<KontenTabelle.Eintraege> teile = beiAllen(shard -> shard.bank.alleEintraege());
+        int anzahl = teile.stream().mapToInt(teil -> teil.nummern().length).sum();
+        long[] nummern = new long[anzahl];
+        Konto[] konten = new Konto[anzahl];
+        int j = 0;
+        for (KontenTabelle.Eintraege teil : teile) {
+            System.arraycopy(teil.nummern(), 0, nummern, j, teil.nummern().length);
+            System.arraycopy(teil.konten(), 0, konten, j, teil.konten().length);
+            j += teil.nummern().length;
+        }
+        return new KontenTabelle.Eintraege(nummern, konten);
+    }
+
+    /**
+     * Visits the accounts shard by shard, each on the thread of its shard.
+     */
+    @Override
+    void jedesKonto(Kontoaktion aktion) throws IOException {
+        try {
+            for (Shard shard : shards) {
+                erledigen(shard, s -> {
+                    try {
+                        s.bank.jedesKonto(aktion);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return null;
+                });
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Stops the threads of the shards after the work they already accepted. Operations are not possible afterwards.
+     * If the current thread is interrupted while waiting for the shards, it still waits and keeps its
+     * interrupt status.
+     */
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.ausfuehrung.shutdown();
+        }
+        boolean unterbrochen = false;
+        try {
+            for (Shard shard : shards) {
+                while (true) {
+                    try {
+                        if (shard.ausfuehrung.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS)) {
+                            break;
+                        }
+                    } catch (InterruptedException e) {
+                        unterbrochen = true;
+                    }
+                }
+            }
+        } finally {
+            if (unterbrochen) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void writeObject(ObjectOutputStream ausgabe) throws IOException {
+        throw new NotSerializableException(VerteilteBank.class.getName());
+    }
+
+    private int index(long nummer) {
+        return (int) Math.floorMod(nummer, (long) shards.length);
+    }
+
+    private int index(Shard shard) {
+        for (int s = 0; ; s++) {
+            if (shards[s] == shard) {
+                return s;
+            }
+        }
+    }
+
+    private Shard shard(long nummer) {
+        return shards[index(nummer)];
+    }
+
+    /**
+     * Runs a task on the thread of a shard and waits for its result; its exception is thrown here.
+     * If the current thread is interrupted, it still waits, so the caller always learns the outcome.
+     */
+    private static <T> T ausfuehren(Shard shard, Aufgabe<T> aufgabe)
+            throws KontonummerNichtVorhandenException, GesperrtException {
+        return warten(starten(shard, aufgabe));
+    }
+
+    private static <T> Future<T> starten(Shard shard, Aufgabe<T> aufgabe) {
+        try {
+            return shard.ausfuehrung.submit(() -> aufgabe.ausfuehren(shard));
+        } catch (RejectedExecutionException e) {
+            throw new IllegalStateException("Die Bank ist geschlossen", e);
+        }
+    }
+
+    private static <T> T warten(Future<T> ergebnis) throws KontonummerNichtVorhandenException, GesperrtException {
+        boolean unterbrochen = false;
+        try {
+            while (true) {
+                try {
+                    return ergebnis.get();
+                } catch (InterruptedException e) {
+                    unterbrochen = true;
+                } catch (ExecutionException e) {
+                    Throwable ursache = e.getCause();
+                    if (ursache instanceof KontonummerNichtVorhandenException k)
+                        throw k;
+                    if (ursache instanceof GesperrtException g)
+                        throw g;
+                    if (ursache instanceof RuntimeException r)
+                        throw r;
+                    if (ursache instanceof Error f)
+                        throw f;
+                    throw new IllegalStateException(ursache);
+                }
+            }
+        } finally {
+            if (unterbrochen) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Runs a task that cannot find an account locked on the thread of a shard, see {@link #ausfuehren}.
+     */
+    private static <T> T abfragen(Shard shard, Aufgabe<T> aufgabe) throws KontonummerNichtVorhandenException {
+        try {
+            return ausfuehren(shard, aufgabe);
+        } catch (GesperrtException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Runs a task that throws no checked exception on the thread of a shard, see {@link #ausfuehren}.
+     */
+    private static <T> T erledigen(Shard shard, Aufgabe<T> aufgabe) {
+        try {
+            return ausfuehren(shard, aufgabe);
+        } catch (KontonummerNichtVorhandenException | GesperrtException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Runs a task on every shard at the same time and waits for all of them.
+     *
+     * @return The results in the order of the shards.
+     */
+    private <T> List<T> beiAllen(Aufgabe<T> aufgabe) {
+        List<Future<T>> laufend = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            laufend.add(starten(shard, aufgabe));
+        }
+        List<T> ergebnisse = new ArrayList<>(shards.length);
+        try {
+            for (Future<T> ergebnis : laufend) {
+                ergebnisse.add(warten(ergebnis));
+            }
+        } catch (KontonummerNichtVorhandenException | GesperrtException e) {
+            throw new IllegalStateException(e);
+        }
+        return ergebnisse;
+    }
+}
@@ -4,6 +4,7 @@ import bankprojekt.verarbeitung.Aktie;
 import bankprojekt.verarbeitung.Girokonto;
 import bankprojekt.verarbeitung.Konto;
 import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.Marktdaten;
 
 import java.time.LocalDate;
 
@@ -17,12 +18,27 @@ public class AktieSpielereien {
      */
     public static void main(String[] args) {
         Aktie audiAktie = new Aktie("Audi", 4444, 10000);
+        Marktdaten.getStandard().abonnieren(audiAktie.getWertpapierId(), (id, kurs) ->
+                System.out.println("New Stock Price for " + audiAktie.getName() + ": " + audiAktie.getAktuellerPreis()));
         Kunde kunde = new Kunde("Tarik", "Balci", "MusterStr", LocalDate.parse("2001-07-28"));
         Konto konto = new Girokonto(kunde, 1111, 0);
 
         konto.einzahlen(150000);
-        konto.kaufauftrag(audiAktie, 5, 9800);
-        konto.verkaufauftrag("4444",9900);
-
+        konto.kaufauftrag(audiAktie, 5, 9800)
+                .thenCompose(kauf -> {
+                    System.out.println("Bought " + kauf.anzahl() + " " + audiAktie.getName() + "-stock for: "
+                            + kauf.getGesamtbetrag() + "€, Kontostand: " + kauf.getKontostand() + "€");
+                    return konto.verkaufauftrag("4444", 9900);
+                })
+                .whenComplete((verkauf, fehler) -> {
+                    if (fehler != null) {
+                        System.out.println("Order failed: " + fehler.getMessage());
+                    } else {
+                        System.out.println("Kontostand after the sell of: " + audiAktie.getName() + " "
+                                + verkauf.getKontostand() + "€");
+                    }
+                })
+                .exceptionally(fehler -> null)
+                .join();
     }
 }
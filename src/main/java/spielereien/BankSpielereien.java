@@ -6,6 +6,7 @@ import bankprojekt.verarbeitung.SparbuchFabrik;
 import bankprojekt.verwaltung.Bank;
 
 import java.io.*;
+import java.nio.channels.Channels;
 import java.time.LocalDate;
 
 public class BankSpielereien {
@@ -32,17 +33,10 @@ public class BankSpielereien {
         System.out.println("\n------------------------\n");
 
 
-        try (ByteArrayInputStream byteArrayInputStream1 = new ByteArrayInputStream(clonedBank);
-             ObjectInputStream objectInputStream = new ObjectInputStream(byteArrayInputStream1)) {
-
-            Object o1 = objectInputStream.readObject();
-            if (o1 instanceof Bank clonedBankObject) {
-                System.out.println(clonedBankObject);
-            } else {
-                System.out.println("Not a Bank object");
-            }
-
-        } catch (IOException | ClassNotFoundException e) {
+        try (ByteArrayInputStream byteArrayInputStream1 = new ByteArrayInputStream(clonedBank)) {
+            Bank clonedBankObject = Bank.schnappschussLesen(Channels.newChannel(byteArrayInputStream1));
+            System.out.println(clonedBankObject);
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
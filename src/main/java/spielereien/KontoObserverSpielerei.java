@@ -3,7 +3,7 @@ package spielereien;
 import bankprojekt.verarbeitung.*;
 
 public class KontoObserverSpielerei {
-    public static void main(String[] args) throws GesperrtException {
+    public static void main(String[] args) throws GesperrtException, InterruptedException {
         PropertyChangeListenerKonto propertyChangeListenerKonto = new PropertyChangeListenerKonto();
 
         Konto konto = new Girokonto() {};
@@ -18,5 +18,7 @@ public class KontoObserverSpielerei {
         konto.waehrungswechsel(Waehrung.DKK);
         konto.waehrungswechsel(Waehrung.BGN);
         konto.waehrungswechsel(Waehrung.EUR);
+        // die Benachrichtigungen kommen auf einem eigenen Thread, der mit main endet
+        Thread.sleep(500);
     }
 }
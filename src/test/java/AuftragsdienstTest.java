@@ -0,0 +1,87 @@
+import bankprojekt.verarbeitung.Auftragsdienst;
+import bankprojekt.verarbeitung.Girokonto;
+import bankprojekt.verarbeitung.Konto;
+import bankprojekt.verarbeitung.Kunde;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AuftragsdienstTest {
+    private final Kunde kunde = new Kunde("Tarik", "Balci", "MusterSTR", LocalDate.parse("2001-07-28"));
+
+    @Test
+    public void auftraegeEinesKontosLaufenInReihenfolge() throws Exception {
+        try (Auftragsdienst dienst = new Auftragsdienst(4, 10_000)) {
+            Konto konto = new Girokonto(kunde, 1, 0);
+            List<Integer> reihenfolge = new ArrayList<>();
+            List<CompletableFuture<Integer>> ergebnisse = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                int nummer = i;
+                ergebnisse.add(dienst.ausfuehren(konto, () -> {
+                    reihenfolge.add(nummer);
+                    return nummer;
+                }));
+            }
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(i, ergebnisse.get(i).get(5, TimeUnit.SECONDS));
+            }
+            for (int i = 0; i < 1000; i++) {
+                assertEquals(i, reihenfolge.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void zuVieleAuftraegeWerdenAbgewiesen() throws Exception {
+        try (Auftragsdienst dienst = new Auftragsdienst(1, 2)) {
+            Konto konto = new Girokonto(kunde, 1, 0);
+            CountDownLatch weiter = new CountDownLatch(1);
+            CompletableFuture<Boolean> erster = dienst.ausfuehren(konto, () -> weiter.await(5, TimeUnit.SECONDS));
+            CompletableFuture<Boolean> zweiter = dienst.ausfuehren(konto, () -> true);
+
+            assertThrows(RejectedExecutionException.class, () -> dienst.ausfuehren(konto, () -> true));
+            weiter.countDown();
+            assertTrue(erster.get(5, TimeUnit.SECONDS));
+            assertTrue(zweiter.get(5, TimeUnit.SECONDS));
+            assertTrue(dienst.ausfuehren(konto, () -> true).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void schliessenWartetAufAngenommeneAuftraege() throws Exception {
+        Auftragsdienst dienst = new Auftragsdienst(1, 100);
+        Konto konto = new Girokonto(kunde, 1, 0);
+        CountDownLatch laeuft = new CountDownLatch(1);
+        CompletableFuture<String> langsam = dienst.ausfuehren(konto, () -> {
+            laeuft.countDown();
+            Thread.sleep(50);
+            return "fertig";
+        });
+        CompletableFuture<String> danach = dienst.ausfuehren(konto, () -> "danach");
+        assertTrue(laeuft.await(5, TimeUnit.SECONDS));
+
+        dienst.close();
+        assertTrue(langsam.isDone());
+        assertEquals("danach", danach.getNow(null));
+        assertThrows(RejectedExecutionException.class, () -> dienst.ausfuehren(konto, () -> "zu spät"));
+    }
+
+    @Test
+    public void kontenBrauchenKeineEigenenThreads() {
+        int threadsVorher = Thread.activeCount();
+        List<Konto> konten = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            konten.add(new Girokonto(kunde, i, 0));
+        }
+        assertEquals(100_000, konten.size());
+        assertTrue(Thread.activeCount() <= threadsVorher);
+    }
+}
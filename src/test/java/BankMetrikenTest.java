@@ -0,0 +1,112 @@
+import bankprojekt.verarbeitung.GirokontoFabrik;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verwaltung.Bank;
+import bankprojekt.verwaltung.Bankoperation;
+import bankprojekt.verwaltung.Latenzbericht;
+import bankprojekt.verwaltung.Operationsstatistik;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BankMetrikenTest {
+    private final Kunde kunde = new Kunde("Tarik", "Balci", "MusterSTR", LocalDate.parse("2001-07-28"));
+
+    @Test
+    public void erfolgeUndFehlschlaegeWerdenGezaehlt() throws Exception {
+        Bank bank = new Bank(1234);
+        long giro = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        bank.geldEinzahlen(giro, 100);
+        assertTrue(bank.geldAbheben(giro, 50));
+        assertFalse(bank.geldAbheben(giro, 5000));
+        assertThrows(Bank.KontonummerNichtVorhandenException.class, () -> bank.geldAbheben(giro + 1, 1));
+
+        Operationsstatistik abheben = bank.getStatistik(Bankoperation.ABHEBEN);
+        assertEquals(1, abheben.getErfolge());
+        assertEquals(2, abheben.getFehlschlaege());
+        assertEquals(3, abheben.getAnzahl());
+        assertTrue(abheben.getP50() <= abheben.getP99());
+        assertTrue(abheben.getP999() <= abheben.getMaximum());
+        assertEquals(1, bank.getStatistik(Bankoperation.EINZAHLEN).getErfolge());
+        assertEquals(1, bank.getStatistik(Bankoperation.KONTO_ERSTELLEN).getErfolge());
+    }
+
+    @Test
+    public void intervallBeginntVonVorn() throws Exception {
+        Bank bank = new Bank(1234);
+        long giro = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        for (int i = 0; i < 1000; i++) {
+            bank.getKontostand(giro);
+        }
+        assertFalse(bank.kontoNummerChecker(giro + 1));
+
+        Latenzbericht bericht = bank.getStatistik(Bankoperation.ABFRAGE).intervallAbschliessen();
+        assertEquals(1000, bericht.erfolge());
+        assertEquals(1, bericht.fehlschlaege());
+        assertTrue(bericht.p50() <= bericht.p99() && bericht.p99() <= bericht.p999());
+        assertTrue(bericht.p999() <= bericht.maximum());
+        assertTrue(bericht.mittelwert() <= bericht.maximum());
+        // von 1001 Abfragen wird eine Stichprobe gemessen
+        assertTrue(bericht.maximum() > 0);
+
+        Operationsstatistik abfrage = bank.getStatistik(Bankoperation.ABFRAGE);
+        assertEquals(0, abfrage.getAnzahl());
+        assertEquals(0, abfrage.getErfolge());
+        assertEquals(0, abfrage.getMaximum());
+    }
+
+    @Test
+    public void ohneErfassungWirdNichtsGezaehlt() throws Exception {
+        Bank bank = new Bank(1234);
+        bank.metrikenErfassen(false);
+        long giro = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        bank.getKontostand(giro);
+        assertEquals(0, bank.getStatistik(Bankoperation.ABFRAGE).intervallAbschliessen().erfolge());
+
+        bank.metrikenErfassen(true);
+        bank.getKontostand(giro);
+        bank.metrikenErfassen(false);
+        bank.getKontostand(giro);
+        assertEquals(1, bank.getStatistik(Bankoperation.ABFRAGE).getErfolge());
+        assertEquals(0, bank.getStatistik(Bankoperation.KONTO_ERSTELLEN).getAnzahl());
+    }
+
+    @Test
+    public void jedeOperationWirdGezaehltAberNurEineStichprobeGemessen() throws Exception {
+        Bank bank = new Bank(1234);
+        long giro = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        for (int i = 0; i < 10_000; i++) {
+            bank.geldEinzahlen(giro, 1);
+        }
+
+        Operationsstatistik einzahlen = bank.getStatistik(Bankoperation.EINZAHLEN);
+        assertEquals(10_000, einzahlen.getErfolge());
+        assertEquals(0, einzahlen.getFehlschlaege());
+        assertTrue(einzahlen.getMaximum() > 0);
+        assertTrue(einzahlen.getP50() > 0 && einzahlen.getP50() <= einzahlen.getP99());
+    }
+
+    @Test
+    public void statistikenSindAlsMBeansLesbar() throws Exception {
+        Bank bank = new Bank(4711);
+        long giro = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        bank.geldEinzahlen(giro, 10);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("bankprojekt.verwaltung:type=Bank,bankleitzahl=4711,operation=EINZAHLEN");
+
+        bank.metrikenVeroeffentlichen();
+        try {
+            assertEquals(1L, server.getAttribute(name, "Erfolge"));
+            assertEquals("EINZAHLEN", server.getAttribute(name, "Operation"));
+            server.invoke(name, "zuruecksetzen", null, null);
+            assertEquals(0L, server.getAttribute(name, "Anzahl"));
+        } finally {
+            bank.metrikenZurueckziehen();
+        }
+        assertFalse(server.isRegistered(name));
+    }
+}
@@ -0,0 +1,151 @@
+import bankprojekt.verarbeitung.GirokontoFabrik;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verwaltung.Bank;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BankNebenlaeufigkeitTest {
+    private static final int KONTEN = 50;
+    private static final int FAEDEN = 8;
+    private static final int UEBERWEISUNGEN = 20_000;
+
+    private final Kunde kunde = new Kunde("Tarik", "Balci", "MusterSTR", LocalDate.parse("2001-07-28"));
+
+    @Test
+    public void gegenlaeufigeUeberweisungenVerlierenKeinGeld() throws Exception {
+        Bank bank = new Bank(1234);
+        long[] nummern = new long[KONTEN];
+        for (int i = 0; i < KONTEN; i++) {
+            nummern[i] = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+            bank.geldEinzahlen(nummern[i], 100);
+        }
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            ExecutorService pool = Executors.newFixedThreadPool(FAEDEN);
+            List<Future<?>> ergebnisse = new ArrayList<>();
+            for (int f = 0; f < FAEDEN; f++) {
+                ergebnisse.add(pool.submit(() -> {
+                    ThreadLocalRandom zufall = ThreadLocalRandom.current();
+                    for (int i = 0; i < UEBERWEISUNGEN; i++) {
+                        long von = nummern[zufall.nextInt(KONTEN)];
+                        long nach = nummern[zufall.nextInt(KONTEN)];
+                        bank.geldUeberweisen(von, nach, 1 + zufall.nextInt(20), "Test");
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> ergebnis : ergebnisse) {
+                ergebnis.get();
+            }
+            pool.shutdown();
+        });
+
+        double summe = 0;
+        for (long nummer : nummern) {
+            summe += bank.getKontostand(nummer);
+        }
+        assertEquals(100.0 * KONTEN, summe, 0.001);
+    }
+
+    @Test
+    public void paralleleEinzahlungenAufEinKontoGehenNichtVerloren() throws Exception {
+        Bank bank = new Bank(1234);
+        long nummer = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+
+        ExecutorService pool = Executors.newFixedThreadPool(FAEDEN);
+        List<Future<?>> ergebnisse = new ArrayList<>();
+        for (int f = 0; f < FAEDEN; f++) {
+            ergebnisse.add(pool.submit(() -> {
+                for (int i = 0; i < UEBERWEISUNGEN; i++) {
+                    bank.geldEinzahlen(nummer, 1);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> ergebnis : ergebnisse) {
+            ergebnis.get();
+        }
+        pool.shutdown();
+
+        assertEquals((double) FAEDEN * UEBERWEISUNGEN, bank.getKontostand(nummer), 0.001);
+    }
+
+    @Test
+    public void kontenErstellenWaehrendAbfragen() throws Exception {
+        Bank bank = new Bank(1234);
+        long erste = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        Future<?> ersteller = pool.submit(() -> {
+            for (int i = 0; i < UEBERWEISUNGEN; i++) {
+                bank.kontoErstellen(new GirokontoFabrik(), kunde);
+            }
+        });
+        Future<?> leser = pool.submit(() -> {
+            while (!ersteller.isDone()) {
+                assertTrue(bank.kontoNummerChecker(erste));
+            }
+            return null;
+        });
+        ersteller.get();
+        leser.get();
+        pool.shutdown();
+
+        assertEquals(UEBERWEISUNGEN + 1, bank.getAlleKontonummern().size());
+    }
+
+    @Test
+    public void sperrlaufNebenUeberweisungen() throws Exception {
+        Bank bank = new Bank(1234);
+        int anzahl = 10_000;
+        long[] nummern = new long[anzahl];
+        for (int i = 0; i < anzahl; i++) {
+            nummern[i] = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+            if (i % 4 == 0) {
+                bank.geldAbheben(nummern[i], 10);
+            } else {
+                bank.geldEinzahlen(nummern[i], 100);
+            }
+        }
+        AtomicLong erledigt = new AtomicLong();
+        AtomicLong gesamt = new AtomicLong();
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        Future<?> ueberweiser = pool.submit(() -> {
+            ThreadLocalRandom zufall = ThreadLocalRandom.current();
+            for (int i = 0; i < UEBERWEISUNGEN; i++) {
+                // nur zwischen Konten mit Guthaben, die Sperren betreffen also genau die Konten im Minus
+                long von = nummern[1 + zufall.nextInt(anzahl / 4) * 4];
+                long nach = nummern[2 + zufall.nextInt(anzahl / 4) * 4];
+                bank.geldUeberweisen(von, nach, 1, "Test");
+            }
+            return null;
+        });
+        int gesperrt = bank.pleitegeierSperren((e, g) -> {
+            erledigt.accumulateAndGet(e, Math::max);
+            gesamt.set(g);
+        });
+        ueberweiser.get();
+        pool.shutdown();
+
+        assertEquals(anzahl / 4, gesperrt);
+        // geprüft werden nur die Konten, die der Kontostandindex im Minus findet
+        assertEquals(anzahl / 4, erledigt.get());
+        assertEquals(anzahl / 4, gesamt.get());
+        assertEquals(0, bank.pleitegeierSperren());
+        double summe = 0;
+        for (long nummer : nummern) {
+            summe += bank.getKontostand(nummer);
+        }
+        assertEquals(anzahl * 3 / 4 * 100.0 - anzahl / 4 * 10.0, summe, 0.001);
+        assertEquals(anzahl * 3 / 4, bank.getKundenMitVollemKonto(0).size());
+    }
+}
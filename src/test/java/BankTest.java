@@ -1,27 +1,36 @@
+import bankprojekt.verarbeitung.Girokonto;
 import bankprojekt.verarbeitung.GirokontoFabrik;
 import bankprojekt.verarbeitung.Kunde;
 import bankprojekt.verarbeitung.SparbuchFabrik;
+import bankprojekt.verarbeitung.Waehrung;
 import bankprojekt.verwaltung.Bank;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
 import java.time.LocalDate;
+import java.util.Arrays;
 
 public class BankTest {
 
     GirokontoFabrik girokontoFabrik = new GirokontoFabrik();
 
     @Test
-    public void checkIfCloneAndOriginalIsSame() {
+    public void checkIfCloneAndOriginalIsSame() throws Exception {
         Bank bank = new Bank(1234);
         Kunde kunde = new Kunde("Tarik", "Balci", "MusterSTR", LocalDate.parse("2001-07-28"));
-        bank.kontoErstellen(girokontoFabrik, kunde);
+        long nummer = bank.kontoErstellen(girokontoFabrik, kunde);
+        bank.geldEinzahlen(nummer, 12.34);
 
-        byte[] bankSerialized = Bank.serialize(bank);
         byte[] cloneBank = bank.clone();
+        Bank gelesen = Bank.schnappschussLesen(Channels.newChannel(new ByteArrayInputStream(cloneBank)));
 
-        Assert.assertArrayEquals(bankSerialized, cloneBank);
+        Assert.assertEquals(bank.getBankleitzahl(), gelesen.getBankleitzahl());
+        Assert.assertEquals(bank.getAlleKontonummern(), gelesen.getAlleKontonummern());
+        Assert.assertEquals(12.34, gelesen.getKontostand(nummer), 0.001);
+        Assert.assertArrayEquals(cloneBank, gelesen.clone());
     }
 
     @Test
@@ -36,8 +45,82 @@ public class BankTest {
         // add another Konto, after the clone method.
         bank.kontoErstellen(girokontoFabrik,kunde1);
 
-        byte[] bankSerialized = Bank.serialize(bank);
+        byte[] bankSnapshot = bank.clone();
 
-        Assert.assertNotEquals(cloneBank,bankSerialized);
+        Assert.assertFalse(Arrays.equals(cloneBank, bankSnapshot));
+    }
+
+    @Test
+    public void kontostandindexFolgtAenderungenAmKonto() throws Exception {
+        Bank bank = new Bank(1234);
+        Kunde reich = new Kunde("Reich", "Reich", "MusterSTR", LocalDate.parse("1990-01-01"));
+        Kunde arm = new Kunde("Arm", "Arm", "MusterSTR", LocalDate.parse("1990-01-01"));
+        Girokonto konto = new Girokonto(reich, 1, 500);
+        long nummer = bank.mockEinfuegen(konto);
+        long andere = bank.kontoErstellen(girokontoFabrik, arm);
+
+        // direkt am Konto, an der Bank vorbei
+        konto.einzahlen(100);
+        Assert.assertEquals(Arrays.asList(reich), bank.getKundenMitVollemKonto(50));
+        // 100 Euro sind 195,58 Lew: das Konto steigt im Index, ohne dass sich sein Wert ändert
+        konto.waehrungswechsel(Waehrung.BGN);
+        Assert.assertEquals(Arrays.asList(reich), bank.getKundenMitVollemKonto(150));
+        konto.abheben(300, Waehrung.BGN);
+        Assert.assertTrue(bank.getKundenMitVollemKonto(0).contains(arm));
+        Assert.assertFalse(bank.getKundenMitVollemKonto(0).contains(reich));
+
+        byte[] schnappschuss = bank.clone();
+        Assert.assertEquals(1, bank.pleitegeierSperren());
+        Assert.assertEquals(0, bank.pleitegeierSperren());
+
+        // ein gelöschtes Konto verschwindet aus dem Index, auch wenn es sich danach noch ändert
+        Assert.assertTrue(bank.kontoLoeschen(nummer));
+        konto.einzahlen(1000, Waehrung.BGN);
+        Assert.assertEquals(Arrays.asList(arm), bank.getKundenMitVollemKonto(0));
+
+        // der Index eines gelesenen Schnappschusses wird neu aufgebaut
+        Bank gelesen = Bank.schnappschussLesen(Channels.newChannel(new ByteArrayInputStream(schnappschuss)));
+        gelesen.geldEinzahlen(andere, 20);
+        Assert.assertEquals(1, gelesen.getKundenMitVollemKonto(10).size());
+        Assert.assertEquals(1, gelesen.pleitegeierSperren());
+    }
+
+    @Test
+    public void einKontoKannNurEinmalEingefuegtWerden() throws Exception {
+        Bank bank = new Bank(1234);
+        Kunde kunde = new Kunde("Tarik", "Balci", "MusterSTR", LocalDate.parse("2001-07-28"));
+        Girokonto konto = new Girokonto(kunde, 1, 500);
+        long nummer = bank.mockEinfuegen(konto);
+        konto.einzahlen(100);
+
+        Assert.assertThrows(IllegalArgumentException.class, () -> bank.mockEinfuegen(konto));
+        Assert.assertEquals(Arrays.asList(nummer), bank.getAlleKontonummern());
+        Assert.assertEquals(Arrays.asList(kunde), bank.getKundenMitVollemKonto(50));
+
+        // nach dem Löschen ist es in keinem Index mehr und darf wieder hinein
+        Assert.assertTrue(bank.kontoLoeschen(nummer));
+        Assert.assertTrue(bank.getKundenMitVollemKonto(50).isEmpty());
+        long neu = bank.mockEinfuegen(konto);
+        Assert.assertEquals(Arrays.asList(kunde), bank.getKundenMitVollemKonto(50));
+        Assert.assertTrue(bank.kontoLoeschen(neu));
+        Assert.assertTrue(bank.getKundenMitVollemKonto(50).isEmpty());
+    }
+
+    @Test
+    public void sperrlaufLiestNurDieNegativenKontenAusDemIndex() throws Exception {
+        Bank bank = new Bank(1234);
+        Kunde kunde = new Kunde("Tarik", "Balci", "MusterSTR", LocalDate.parse("2001-07-28"));
+        for (int i = 0; i < 10_000; i++) {
+            bank.kontoErstellen(girokontoFabrik, kunde);
+        }
+        bank.geldAbheben(1001, 10);
+        bank.geldAbheben(5000, 0.01);
+        bank.geldAbheben(11000, 20);
+
+        long[] gesamt = new long[1];
+        Assert.assertEquals(3, bank.pleitegeierSperren((erledigt, alle) -> gesamt[0] = alle));
+        // die Konten mit genau 0 gehören nicht zum Bereich unter 0
+        Assert.assertEquals(3, gesamt[0]);
+        Assert.assertEquals(10_000, bank.getKundenMitVollemKonto(0).size() + 3);
     }
 }
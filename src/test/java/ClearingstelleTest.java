@@ -0,0 +1,178 @@
+import bankprojekt.verarbeitung.Girokonto;
+import bankprojekt.verarbeitung.GirokontoFabrik;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.SparbuchFabrik;
+import bankprojekt.verarbeitung.Waehrung;
+import bankprojekt.verwaltung.Bank;
+import bankprojekt.verwaltung.Clearingabrechnung;
+import bankprojekt.verwaltung.Clearingstelle;
+import bankprojekt.verwaltung.Ueberweisungsstatus;
+import bankprojekt.verwaltung.VerteilteBank;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClearingstelleTest {
+    private final Kunde kunde = new Kunde("Max", "Mustermann", "zuhause", LocalDate.of(1990, 1, 1));
+    private final Bank a = new Bank(100);
+    private final Bank b = new Bank(200);
+    private final Bank c = new Bank(300);
+    private final Clearingstelle clearing = new Clearingstelle();
+
+    private long konto(Bank bank, double einzahlung) throws Exception {
+        long nummer = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        bank.geldEinzahlen(nummer, einzahlung);
+        return nummer;
+    }
+
+    @Test
+    public void fensterWirdGebuendeltGutgeschriebenUndMultilateralVerrechnet() throws Exception {
+        clearing.anmelden(a);
+        clearing.anmelden(b);
+        clearing.anmelden(c);
+        long ka = konto(a, 1000), kb = konto(b, 1000), kc = konto(c, 1000);
+
+        assertEquals(Ueberweisungsstatus.OK, clearing.ueberweisen(100, ka, 200, kb, 100, "a an b"));
+        assertEquals(Ueberweisungsstatus.OK, clearing.ueberweisen(200, kb, 300, kc, 100, "b an c"));
+        assertEquals(Ueberweisungsstatus.OK, clearing.ueberweisen(300, kc, 100, ka, 100, "c an a"));
+        assertEquals(Ueberweisungsstatus.OK, clearing.ueberweisen(200, kb, 100, ka, 30, "b an a"));
+        assertEquals(4, clearing.getOffeneUeberweisungen());
+        assertEquals(900, a.getKontostand(ka), 0.001);
+        assertEquals(870, b.getKontostand(kb), 0.001);
+
+        Clearingabrechnung abrechnung = clearing.abrechnen();
+        assertEquals(1, abrechnung.getFenster());
+        assertEquals(4, abrechnung.getGutgeschrieben());
+        assertEquals(0, clearing.getOffeneUeberweisungen());
+        assertEquals(1030, a.getKontostand(ka), 0.001);
+        assertEquals(970, b.getKontostand(kb), 0.001);
+        assertEquals(1000, c.getKontostand(kc), 0.001);
+
+        assertEquals(33_000, abrechnung.getBruttoCent());
+        assertEquals(7_000, abrechnung.getBilateralCent(200, 100));
+        assertEquals(3_000, abrechnung.getNettopositionCent(100));
+        assertEquals(-3_000, abrechnung.getNettopositionCent(200));
+        assertEquals(0, abrechnung.getNettopositionCent(300));
+        assertEquals(3_000, abrechnung.getNettoCent());
+        assertEquals(2, clearing.abrechnen().getFenster());
+    }
+
+    @Test
+    public void nichtZustellbareUeberweisungenWerdenZurueckgebucht() throws Exception {
+        clearing.anmelden(a);
+        clearing.anmelden(b);
+        long ka = konto(a, 100);
+        long sparbuch = b.kontoErstellen(new SparbuchFabrik(), kunde);
+
+        assertEquals(Ueberweisungsstatus.KONTO_UNBEKANNT, clearing.ueberweisen(100, ka, 999, 1001, 10, "Test"));
+        assertEquals(Ueberweisungsstatus.NICHT_GEDECKT, clearing.ueberweisen(100, ka, 200, sparbuch, 5000, "Test"));
+        assertEquals(Ueberweisungsstatus.OK, clearing.ueberweisen(100, ka, 200, sparbuch, 10, "Test"));
+        assertEquals(Ueberweisungsstatus.OK, clearing.ueberweisen(100, ka, 200, 4711, 20, "Test"));
+        assertThrows(IllegalArgumentException.class, () -> clearing.ueberweisen(999, ka, 200, 1001, 10, "Test"));
+        assertEquals(70, a.getKontostand(ka), 0.001);
+
+        Clearingabrechnung abrechnung = clearing.abrechnen();
+        assertEquals(0, abrechnung.getGutgeschrieben());
+        assertEquals(2, abrechnung.getZurueckgebucht());
+        assertEquals(0, abrechnung.getBruttoCent());
+        assertEquals(100, a.getKontostand(ka), 0.001);
+        assertEquals(0, b.getKontostand(sparbuch), 0.001);
+    }
+
+    @Test
+    public void stroemeWerdenAusDerWaehrungDesKontosInEuroGerechnet() throws Exception {
+        clearing.anmelden(a);
+        clearing.anmelden(b);
+        Girokonto lew = new Girokonto(kunde, 1, 0);
+        long ka = a.mockEinfuegen(lew);
+        lew.waehrungswechsel(Waehrung.BGN);
+        a.geldEinzahlen(ka, 1000);
+        long kb = b.kontoErstellen(new GirokontoFabrik(), kunde);
+
+        assertEquals(Ueberweisungsstatus.OK, clearing.ueberweisen(100, ka, 200, kb, 100, "Lew an Euro"));
+        assertEquals(900, a.getKontostand(ka), 0.001);
+
+        Clearingabrechnung abrechnung = clearing.abrechnen();
+        assertEquals(1, abrechnung.getGutgeschrieben());
+        assertEquals(5_113, abrechnung.getBruttoCent());
+        assertEquals(5_113, abrechnung.getNettopositionCent(200));
+        assertEquals(100, b.getKontostand(kb), 0.001);
+    }
+
+    @Test
+    public void verteilteBankNimmtAmClearingTeil() throws Exception {
+        try (VerteilteBank verteilt = new VerteilteBank(400, 3)) {
+            clearing.anmelden(a);
+            clearing.anmelden(verteilt);
+            assertThrows(IllegalArgumentException.class, () -> clearing.anmelden(new Bank(400)));
+            long ka = konto(a, 100);
+            long[] ziele = new long[6];
+            for (int i = 0; i < ziele.length; i++) {
+                ziele[i] = konto(verteilt, 10);
+                assertEquals(Ueberweisungsstatus.OK, clearing.ueberweisen(100, ka, 400, ziele[i], i + 1, "Test"));
+                assertEquals(Ueberweisungsstatus.OK, clearing.ueberweisen(400, ziele[i], 100, ka, 1, "Test"));
+            }
+
+            Clearingabrechnung abrechnung = clearing.abrechnen();
+            assertEquals(12, abrechnung.getGutgeschrieben());
+            assertEquals(1_500, abrechnung.getNettopositionCent(400));
+            for (int i = 0; i < ziele.length; i++) {
+                assertEquals(10 + i, verteilt.getKontostand(ziele[i]), 0.001);
+            }
+            assertEquals(85, a.getKontostand(ka), 0.001);
+        }
+    }
+
+    @Test
+    public void ueberweisungenEinerAusgefallenenBankBleibenOffen() throws Exception {
+        VerteilteBank verteilt = new VerteilteBank(400, 2);
+        clearing.anmelden(a);
+        clearing.anmelden(b);
+        clearing.anmelden(verteilt);
+        long ka = konto(a, 100), kb = b.kontoErstellen(new GirokontoFabrik(), kunde);
+        long kv = verteilt.kontoErstellen(new GirokontoFabrik(), kunde);
+        assertEquals(Ueberweisungsstatus.OK, clearing.ueberweisen(100, ka, 400, kv, 30, "Test"));
+        assertEquals(Ueberweisungsstatus.OK, clearing.ueberweisen(100, ka, 200, kb, 20, "Test"));
+        verteilt.close();
+
+        assertThrows(IllegalStateException.class, clearing::abrechnen);
+        assertEquals(20, b.getKontostand(kb), 0.001);
+        assertEquals(1, clearing.getOffeneUeberweisungen());
+        assertEquals(50, a.getKontostand(ka), 0.001);
+
+        assertThrows(IllegalStateException.class, clearing::close);
+        assertEquals(1, clearing.getOffeneUeberweisungen());
+        assertThrows(IllegalStateException.class, () -> clearing.ueberweisen(100, ka, 200, kb, 1, "Test"));
+        assertEquals(50, a.getKontostand(ka), 0.001);
+    }
+
+    @Test
+    public void automatischesAbrechnenLiefertJedesFenster() throws Exception {
+        clearing.anmelden(a);
+        clearing.anmelden(b);
+        long ka = konto(a, 100), kb = b.kontoErstellen(new GirokontoFabrik(), kunde);
+        BlockingQueue<Clearingabrechnung> abrechnungen = new LinkedBlockingQueue<>();
+        clearing.automatischAbrechnen(Duration.ofMillis(20), abrechnungen::add);
+        assertThrows(IllegalStateException.class, () -> clearing.automatischAbrechnen(Duration.ofMillis(20), x -> {
+        }));
+
+        clearing.ueberweisen(100, ka, 200, kb, 25, "Test");
+        Clearingabrechnung abrechnung;
+        do {
+            abrechnung = abrechnungen.poll(5, TimeUnit.SECONDS);
+            assertNotNull(abrechnung);
+        } while (abrechnung.getGutgeschrieben() == 0);
+        assertEquals(25, b.getKontostand(kb), 0.001);
+
+        clearing.ueberweisen(100, ka, 200, kb, 5, "Test");
+        clearing.close();
+        assertEquals(30, b.getKontostand(kb), 0.001);
+        assertEquals(0, clearing.getOffeneUeberweisungen());
+    }
+}
@@ -0,0 +1,61 @@
+import bankprojekt.verarbeitung.Geldbetrag;
+import bankprojekt.verarbeitung.Waehrung;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeldbetragTest {
+
+    @Test
+    public void dividierenRundetWieBigDecimal() {
+        long[] zaehler = {25, -25, 15, -15, 14, -14, 16, -16, 10, -10};
+        RoundingMode[] modi = {RoundingMode.UP, RoundingMode.DOWN, RoundingMode.CEILING, RoundingMode.FLOOR,
+                RoundingMode.HALF_UP, RoundingMode.HALF_DOWN, RoundingMode.HALF_EVEN};
+        for (long z : zaehler) {
+            for (RoundingMode modus : modi) {
+                long erwartet = BigDecimal.valueOf(z).divide(BigDecimal.TEN, 0, modus).longValueExact();
+                assertEquals(erwartet, Geldbetrag.dividieren(z, 10, modus), z + " " + modus);
+            }
+        }
+    }
+
+    @Test
+    public void rundungUnnoetig() {
+        assertEquals(3, Geldbetrag.dividieren(30, 10, RoundingMode.UNNECESSARY));
+        assertThrows(ArithmeticException.class, () -> Geldbetrag.dividieren(31, 10, RoundingMode.UNNECESSARY));
+    }
+
+    @Test
+    public void euroInWaehrung() {
+        assertEquals(1_95580, Waehrung.BGN.euroInWaehrungUmrechnen(1000_00, RoundingMode.HALF_UP));
+        assertEquals(1000_00, Waehrung.BGN.waehrungInEuroUmrechnen(1_95580, RoundingMode.HALF_UP));
+        assertEquals(19.56, Waehrung.BGN.euroInWaehrungUmrechnen(10.0), 0.0);
+    }
+
+    @Test
+    public void ueberlaufWirdErkannt() {
+        assertThrows(ArithmeticException.class,
+                () -> Geldbetrag.umrechnen(Long.MAX_VALUE / 2, Waehrung.EUR, Waehrung.MKD, RoundingMode.HALF_UP));
+    }
+
+    @Test
+    public void ausDoubleRundetNachDerDezimaldarstellung() {
+        assertEquals(101, Geldbetrag.ausDouble(1.005, Waehrung.EUR));
+        assertEquals(-101, Geldbetrag.ausDouble(-1.005, Waehrung.EUR));
+        assertEquals(1234, Geldbetrag.ausDouble(12.34, Waehrung.EUR));
+        assertEquals(30, Geldbetrag.ausDouble(0.295, Waehrung.EUR));
+        assertEquals(-1, Geldbetrag.ausDouble(-0.005, Waehrung.EUR));
+    }
+
+    @Test
+    public void nichtDarstellbareBetraegeWerdenAbgelehnt() {
+        assertThrows(ArithmeticException.class, () -> Geldbetrag.ausDouble(1e30, Waehrung.EUR));
+        assertThrows(ArithmeticException.class, () -> Geldbetrag.ausDouble(-1e17, Waehrung.EUR));
+        assertThrows(ArithmeticException.class, () -> Geldbetrag.ausDouble(Double.NaN, Waehrung.EUR));
+        assertThrows(ArithmeticException.class, () -> Geldbetrag.ausDouble(Double.POSITIVE_INFINITY, Waehrung.EUR));
+        assertEquals(9_000_000_000_000_000_000L, Geldbetrag.ausDouble(9e16, Waehrung.EUR));
+    }
+}
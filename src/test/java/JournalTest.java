@@ -0,0 +1,179 @@
+import bankprojekt.verarbeitung.Girokonto;
+import bankprojekt.verarbeitung.GirokontoFabrik;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.SparbuchFabrik;
+import bankprojekt.verwaltung.Bank;
+import bankprojekt.verwaltung.Ueberweisungsstapel;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class JournalTest {
+    private final Kunde kunde = new Kunde("Tarik", "Balci", "MusterSTR", LocalDate.parse("2001-07-28"));
+
+    @TempDir
+    Path verzeichnis;
+
+    @Test
+    public void alleAenderungenWerdenWiederhergestellt() throws Exception {
+        Path datei = verzeichnis.resolve("bank.journal");
+        Bank bank = new Bank(1234, datei);
+        long giro1 = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        long giro2 = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        long spar = bank.kontoErstellen(new SparbuchFabrik(), kunde);
+        long weg = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        bank.geldEinzahlen(giro1, 500);
+        bank.geldEinzahlen(spar, 80.25);
+        assertTrue(bank.geldAbheben(giro1, 120.5));
+        assertFalse(bank.geldAbheben(spar, 1000));
+        assertTrue(bank.geldUeberweisen(giro1, giro2, 30, "Miete"));
+        bank.geldUeberweisen(new Ueberweisungsstapel().hinzufuegen(giro2, giro1, 10, "zurück"));
+        bank.kontoSperren(giro2);
+        assertTrue(bank.kontoLoeschen(weg));
+        bank.journalSchliessen();
+
+        Bank neu = new Bank(1234, datei);
+        assertEquals(359.5, neu.getKontostand(giro1), 0.001);
+        assertEquals(20, neu.getKontostand(giro2), 0.001);
+        assertEquals(80.25, neu.getKontostand(spar), 0.001);
+        assertFalse(neu.kontoNummerChecker(weg));
+        assertFalse(neu.geldAbheben(giro2, 1));
+        // die Nummer des gelöschten Kontos ist wieder frei
+        assertEquals(weg, neu.kontoErstellen(new GirokontoFabrik(), kunde));
+        neu.journalSchliessen();
+    }
+
+    @Test
+    public void abgerissenerLetzterEintragWirdIgnoriert() throws Exception {
+        Path datei = verzeichnis.resolve("bank.journal");
+        Bank bank = new Bank(1234, datei);
+        long nummer = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        bank.geldEinzahlen(nummer, 100);
+        bank.journalSchliessen();
+        Files.write(datei, new byte[]{0, 0, 0, 17, 2, 0, 0}, StandardOpenOption.APPEND);
+
+        Bank neu = new Bank(1234, datei);
+        assertEquals(100, neu.getKontostand(nummer), 0.001);
+        neu.geldEinzahlen(nummer, 5);
+        neu.journalSchliessen();
+
+        assertEquals(105, new Bank(1234, datei).getKontostand(nummer), 0.001);
+    }
+
+    @Test
+    public void paralleleBuchungenTeilenSichDasSchreiben() throws Exception {
+        Path datei = verzeichnis.resolve("bank.journal");
+        Bank bank = new Bank(1234, datei);
+        long nummer = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> ergebnisse = new ArrayList<>();
+        for (int f = 0; f < 8; f++) {
+            ergebnisse.add(pool.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    bank.geldEinzahlen(nummer, 1);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> ergebnis : ergebnisse) {
+            ergebnis.get();
+        }
+        pool.shutdown();
+        bank.journalSchliessen();
+
+        assertEquals(1600, new Bank(1234, datei).getKontostand(nummer), 0.001);
+    }
+
+    @Test
+    public void buchungenAufGeloeschteKontenTreffenNichtDenNachfolger() throws Exception {
+        Path datei = verzeichnis.resolve("bank.journal");
+        Bank bank = new Bank(1234, datei);
+        long nummer = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<?>> ergebnisse = new ArrayList<>();
+        for (int f = 0; f < 3; f++) {
+            ergebnisse.add(pool.submit(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    try {
+                        bank.geldEinzahlen(nummer, 1);
+                    } catch (Bank.KontonummerNichtVorhandenException e) {
+                        // gerade gelöscht
+                    }
+                }
+                return null;
+            }));
+        }
+        ergebnisse.add(pool.submit(() -> {
+            for (int i = 0; i < 500; i++) {
+                assertTrue(bank.kontoLoeschen(nummer));
+                assertEquals(nummer, bank.kontoErstellen(new GirokontoFabrik(), kunde));
+            }
+            return null;
+        }));
+        for (Future<?> ergebnis : ergebnisse) {
+            ergebnis.get();
+        }
+        pool.shutdown();
+        bank.journalSchliessen();
+
+        assertEquals(bank.getKontostand(nummer), new Bank(1234, datei).getKontostand(nummer), 0.001);
+    }
+
+    @Test
+    public void nachFehlgeschlagenemSchreibenBleibenDieKontenUnveraendert() throws Exception {
+        Path voll = Path.of("/dev/full");
+        assumeTrue(Files.isWritable(voll), "kein /dev/full");
+        Bank bank = new Bank(1234, voll);
+        long giro1 = bank.mockEinfuegen(new Girokonto(kunde, 1, 500));
+        long giro2 = bank.mockEinfuegen(new Girokonto(kunde, 2, 500));
+
+        // die erste Buchung ist angewendet, aber nicht auf der Platte
+        UncheckedIOException fehler = assertThrows(UncheckedIOException.class, () -> bank.geldEinzahlen(giro1, 100));
+        assertInstanceOf(IOException.class, fehler.getCause());
+        assertEquals(100, bank.getKontostand(giro1), 0.001);
+
+        // danach ändert keine Operation mehr ein Konto, alle melden den Schreibfehler
+        assertSame(fehler.getCause(),
+                assertThrows(UncheckedIOException.class, () -> bank.geldEinzahlen(giro1, 100)).getCause());
+        assertThrows(UncheckedIOException.class, () -> bank.geldAbheben(giro1, 50));
+        assertThrows(UncheckedIOException.class, () -> bank.geldUeberweisen(giro1, giro2, 30, "Miete"));
+        assertThrows(UncheckedIOException.class,
+                () -> bank.geldUeberweisen(new Ueberweisungsstapel().hinzufuegen(giro1, giro2, 30, "Miete")));
+        assertThrows(UncheckedIOException.class, () -> bank.kontoSperren(giro2));
+        assertThrows(UncheckedIOException.class, () -> bank.kontoLoeschen(giro2));
+        assertThrows(UncheckedIOException.class, () -> bank.kontoErstellen(new GirokontoFabrik(), kunde));
+        assertEquals(100, bank.getKontostand(giro1), 0.001);
+        assertEquals(0, bank.getKontostand(giro2), 0.001);
+        assertTrue(bank.kontoNummerChecker(giro2));
+    }
+
+    @Test
+    public void nachDemSchliessenBleibenDieKontenUnveraendert() throws Exception {
+        Bank bank = new Bank(1234, verzeichnis.resolve("bank.journal"));
+        long nummer = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        bank.geldEinzahlen(nummer, 100);
+        bank.journalSchliessen();
+
+        assertThrows(IllegalStateException.class, () -> bank.geldEinzahlen(nummer, 100));
+        assertThrows(IllegalStateException.class, () -> bank.geldAbheben(nummer, 50));
+        assertThrows(IllegalStateException.class, () -> bank.kontoLoeschen(nummer));
+        assertEquals(100, bank.getKontostand(nummer), 0.001);
+        assertTrue(bank.kontoNummerChecker(nummer));
+    }
+}
@@ -0,0 +1,100 @@
+import bankprojekt.verarbeitung.GirokontoFabrik;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.SparbuchFabrik;
+import bankprojekt.verwaltung.Bank;
+import bankprojekt.verwaltung.Kontobericht;
+import bankprojekt.verwaltung.Kontospalte;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KontenSpeicherTest {
+    private final Kunde kunde = new Kunde("Tarik", "Balci", "MusterSTR", LocalDate.parse("2001-07-28"));
+
+    @TempDir
+    Path verzeichnis;
+
+    @Test
+    public void kontenWerdenAusDemSpeicherGeladen() throws Exception {
+        Path datei = verzeichnis.resolve("konten.dat");
+        Bank bank = new Bank(1234);
+        long giro = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        long spar = bank.kontoErstellen(new SparbuchFabrik(), kunde);
+        long gesperrt = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        bank.geldEinzahlen(giro, 250.75);
+        bank.geldEinzahlen(spar, 3000);
+        assertTrue(bank.geldAbheben(spar, 1500));
+        bank.kontoSperren(gesperrt);
+        bank.speichern(datei);
+
+        Bank geladen = Bank.speicherOeffnen(1234, datei);
+        assertEquals(250.75, geladen.getKontostand(giro), 0.001);
+        assertEquals(1500, geladen.getKontostand(spar), 0.001);
+        assertTrue(geladen.kontoNummerChecker(gesperrt));
+        // Dispo of 1000 is kept
+        assertTrue(geladen.geldAbheben(giro, 1250));
+        assertFalse(geladen.geldAbheben(giro, 1));
+        // the monthly limit of the Sparbuch is kept, 1500 were already withdrawn
+        assertFalse(geladen.geldAbheben(spar, 600));
+        assertTrue(geladen.geldAbheben(spar, 500));
+        assertFalse(geladen.geldAbheben(gesperrt, 1));
+        assertTrue(geladen.kontoErstellen(new GirokontoFabrik(), kunde) > gesperrt);
+        geladen.speicherSchliessen();
+    }
+
+    @Test
+    public void aenderungenWerdenZurueckgeschrieben() throws Exception {
+        Path datei = verzeichnis.resolve("konten.dat");
+        Bank bank = Bank.speicherOeffnen(1234, datei);
+        long erstes = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        long zweites = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        bank.geldEinzahlen(erstes, 10);
+        bank.geldEinzahlen(zweites, 7);
+        bank.speichern();
+        bank.speicherSchliessen();
+
+        Bank wieder = Bank.speicherOeffnen(1234, datei);
+        wieder.geldEinzahlen(erstes, 5);
+        assertTrue(wieder.kontoLoeschen(zweites));
+        long drittes = wieder.kontoErstellen(new GirokontoFabrik(), kunde);
+        // die Nummer des gelöschten Kontos wird wieder vergeben, sein Datensatz überschrieben
+        assertEquals(zweites, drittes);
+        wieder.speichern();
+        wieder.speicherSchliessen();
+
+        Bank zuletzt = Bank.speicherOeffnen(1234, datei);
+        assertEquals(15, zuletzt.getKontostand(erstes), 0.001);
+        assertEquals(0, zuletzt.getKontostand(drittes), 0.001);
+        assertEquals(2, zuletzt.getAlleKontonummern().size());
+        zuletzt.speicherSchliessen();
+    }
+
+    @Test
+    public void berichtListetGeladeneUndGespeicherteKonten() throws Exception {
+        Path datei = verzeichnis.resolve("konten.dat");
+        Bank bank = new Bank(1234);
+        long erstes = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        long zweites = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        bank.geldEinzahlen(zweites, 20);
+        bank.speichern(datei);
+
+        Bank geladen = Bank.speicherOeffnen(1234, datei);
+        geladen.geldEinzahlen(erstes, 5);
+        long neues = geladen.kontoErstellen(new GirokontoFabrik(), kunde);
+        Kontobericht bericht = new Kontobericht().spalten(Kontospalte.NUMMER, Kontospalte.KONTOSTAND).ohneKopfzeile();
+        String nl = System.lineSeparator();
+        String erwartet = erstes + ";5.00 EUR" + nl + zweites + ";20.00 EUR" + nl + neues + ";0.00 EUR" + nl;
+
+        StringBuilder sortiert = new StringBuilder();
+        assertEquals(3, geladen.berichtSchreiben(bericht.sortieren(Kontospalte.NUMMER, false), sortiert));
+        assertEquals(erwartet, sortiert.toString());
+        StringBuilder unsortiert = new StringBuilder();
+        assertEquals(3, geladen.berichtSchreiben(new Kontobericht().ohneKopfzeile(), unsortiert));
+        assertEquals(3, unsortiert.toString().lines().count());
+        geladen.speicherSchliessen();
+    }
+}
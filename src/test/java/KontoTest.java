@@ -4,6 +4,8 @@ import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.Mockito.*;
 
 import bankprojekt.verarbeitung.GesperrtException;
+import bankprojekt.verarbeitung.Kontoereignis;
+import bankprojekt.verarbeitung.Sparbuch;
 import bankprojekt.verarbeitung.Waehrung;
 import org.junit.jupiter.api.Test;
 
@@ -13,6 +15,15 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class KontoTest {
 
@@ -95,6 +106,84 @@ public class KontoTest {
         assertFalse(abhebenResult);
     }
 
+    @Test
+    public void paralleleAbhebungenUeberziehenDenDispoNicht() throws Exception {
+        Konto k = new Girokonto();
+        AtomicInteger erfolgreich = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        Future<?>[] ergebnisse = new Future<?>[4];
+        for (int f = 0; f < ergebnisse.length; f++) {
+            ergebnisse[f] = pool.submit(() -> {
+                for (int i = 0; i < 1000; i++) {
+                    if (k.abheben(1)) {
+                        erfolgreich.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        for (Future<?> ergebnis : ergebnisse) {
+            ergebnis.get();
+        }
+        pool.shutdown();
+
+        assertEquals(500, erfolgreich.get());
+        assertEquals(-500.0, k.getKontostand());
+    }
+
+    @Test
+    public void einzahlungenWaehrendWaehrungswechselnGehenNichtVerloren() throws Exception {
+        Konto k = new Girokonto();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        Future<?>[] ergebnisse = new Future<?>[3];
+        for (int f = 0; f < ergebnisse.length; f++) {
+            ergebnisse[f] = pool.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    k.einzahlen(100, Waehrung.EUR);
+                }
+                return null;
+            });
+        }
+        // 100 EUR are exactly 195.58 BGN, so every conversion of the balance is exact
+        Future<?> wechsler = pool.submit(() -> {
+            while (!ergebnisse[0].isDone() || !ergebnisse[1].isDone() || !ergebnisse[2].isDone()) {
+                k.waehrungswechsel(Waehrung.BGN);
+                k.waehrungswechsel(Waehrung.EUR);
+            }
+            return null;
+        });
+        for (Future<?> ergebnis : ergebnisse) {
+            ergebnis.get();
+        }
+        wechsler.get();
+        pool.shutdown();
+
+        assertEquals(Waehrung.EUR, k.getAktuelleWaehrung());
+        assertEquals(60_000 * 100_00L, k.getKontostandCent());
+    }
+
+    //Sparbuch tests:
+    @Test
+    public void sparbuchMindestguthaben() throws GesperrtException {
+        Konto k = new Sparbuch();
+        k.einzahlen(100);
+
+        assertFalse(k.abheben(99.60));
+        assertTrue(k.abheben(99.50));
+        assertEquals(0.50, k.getKontostand(), 0.001);
+    }
+
+    @Test
+    public void sparbuchMonatslimit() throws GesperrtException {
+        Konto k = new Sparbuch();
+        k.einzahlen(5000);
+
+        assertTrue(k.abheben(1500));
+        assertFalse(k.abheben(600));
+        assertTrue(k.abheben(500));
+        assertEquals(3000.0, k.getKontostand(), 0.001);
+    }
+
     //Waehrung tests:
     @Test
     public void eurToWaehrung() {
@@ -145,8 +234,8 @@ public class KontoTest {
 
         konto.einzahlen(1000);
 
-        // Verify that the firePropertyChange method was called
-        Mockito.verify(mockListener,times(1)).propertyChange(any());
+        // Verify that the firePropertyChange method was called, the listener runs on the notification thread
+        Mockito.verify(mockListener, timeout(5000).times(1)).propertyChange(any());
     }
 
     @Test
@@ -159,8 +248,8 @@ public class KontoTest {
 
         konto.sperren();
 
-        // Verify that the firePropertyChange method was called
-        Mockito.verify(mockListener,times(1)).propertyChange(any());
+        // Verify that the firePropertyChange method was called, the listener runs on the notification thread
+        Mockito.verify(mockListener, timeout(5000).times(1)).propertyChange(any());
     }
 
     @Test
@@ -173,8 +262,8 @@ public class KontoTest {
 
         konto.entsperren();
 
-        // Verify that the firePropertyChange method was called
-        Mockito.verify(mockListener,times(1)).propertyChange(any());
+        // Verify that the firePropertyChange method was called, the listener runs on the notification thread
+        Mockito.verify(mockListener, timeout(5000).times(1)).propertyChange(any());
     }
 
 //    @Test
@@ -201,8 +290,146 @@ public class KontoTest {
 
         konto.abheben(300);
 
-        // Verify that the firePropertyChange method was called
-        Mockito.verify(mockListener,times(1)).propertyChange(any());
+        // Verify that the firePropertyChange method was called, the listener runs on the notification thread
+        Mockito.verify(mockListener, timeout(5000).times(1)).propertyChange(any());
+    }
+
+    @Test
+    public void ueberlaufenderKontostandWirdAbgelehnt() {
+        Girokonto konto = new Girokonto();
+        assertThrows(ArithmeticException.class, () -> konto.einzahlen(1e30));
+        assertEquals(0, konto.getKontostandCent());
+        long betrag = 4_000_000_000_000_000_000L;
+        // the balance never wraps around, the deposit that would overflow it is rejected
+        assertThrows(ArithmeticException.class, () -> {
+            for (int i = 0; i < 3; i++) {
+                konto.einzahlen(4e16);
+            }
+        });
+        assertTrue(konto.getKontostandCent() >= 0);
+        assertEquals(0, konto.getKontostandCent() % betrag);
+    }
+
+    @Test
+    public void beobachterBekommtZusammengefassteAenderungen() throws Exception {
+        Konto konto = new Girokonto();
+        List<Kontoereignis> erhalten = new CopyOnWriteArrayList<>();
+        CountDownLatch ersterAufruf = new CountDownLatch(1);
+        CountDownLatch weiter = new CountDownLatch(1);
+        CountDownLatch fertig = new CountDownLatch(1);
+        konto.beobachterAnmelden(e -> {
+            erhalten.add(e);
+            ersterAufruf.countDown();
+            try {
+                weiter.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            if (e.art() == Kontoereignis.Art.GESPERRT) {
+                fertig.countDown();
+            }
+        });
+
+        konto.einzahlen(1);
+        assertTrue(ersterAufruf.await(5, TimeUnit.SECONDS));
+        // while the listener is busy, the following changes wait in the buffer
+        for (int i = 0; i < 99; i++) {
+            konto.einzahlen(1);
+        }
+        konto.sperren();
+        weiter.countDown();
+        assertTrue(fertig.await(5, TimeUnit.SECONDS));
+
+        assertEquals(3, erhalten.size());
+        assertEquals(0, erhalten.get(0).alt());
+        assertEquals(100, erhalten.get(0).neu());
+        assertEquals(100, erhalten.get(1).alt());
+        assertEquals(10000, erhalten.get(1).neu());
+        assertEquals(Kontoereignis.Art.GESPERRT, erhalten.get(2).art());
+        assertEquals(100.0, erhalten.get(2).getNeuerKontostand());
+    }
+
+    @Test
+    public void buchungenWartenNichtAufEinenBlockiertenBeobachter() throws Exception {
+        Konto konto = new Girokonto();
+        List<Kontoereignis> erhalten = new CopyOnWriteArrayList<>();
+        CountDownLatch ersterAufruf = new CountDownLatch(1);
+        CountDownLatch weiter = new CountDownLatch(1);
+        CountDownLatch fertig = new CountDownLatch(1);
+        int buchungen = 200_000;
+        konto.beobachterAnmelden(e -> {
+            erhalten.add(e);
+            ersterAufruf.countDown();
+            try {
+                weiter.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            if (e.neu() == buchungen * 100L) {
+                fertig.countDown();
+            }
+        });
+
+        konto.einzahlen(1);
+        assertTrue(ersterAufruf.await(5, TimeUnit.SECONDS));
+        // far more bookings than any buffer would hold, while the listener does not return
+        for (int i = 1; i < buchungen; i++) {
+            konto.einzahlen(1);
+        }
+        weiter.countDown();
+        assertTrue(fertig.await(5, TimeUnit.SECONDS));
+
+        assertEquals(2, erhalten.size());
+        assertEquals(100, erhalten.get(1).alt());
+    }
+
+    @Test
+    public void blockierterBeobachterHaeltNichtAlleKontenAuf() throws Exception {
+        Konto langsam = new Girokonto();
+        CountDownLatch blockiert = new CountDownLatch(1);
+        CountDownLatch weiter = new CountDownLatch(1);
+        langsam.beobachterAnmelden(e -> {
+            blockiert.countDown();
+            try {
+                weiter.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        // die folgenden Konten verteilen sich auf die übrigen Zusteller
+        CountDownLatch zugestellt = new CountDownLatch(1);
+        List<Konto> andere = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Konto konto = new Girokonto();
+            konto.beobachterAnmelden(e -> zugestellt.countDown());
+            andere.add(konto);
+        }
+
+        try {
+            langsam.einzahlen(1);
+            assertTrue(blockiert.await(5, TimeUnit.SECONDS));
+            for (Konto konto : andere) {
+                konto.einzahlen(1);
+            }
+            assertTrue(zugestellt.await(5, TimeUnit.SECONDS));
+        } finally {
+            weiter.countDown();
+        }
+    }
+
+    @Test
+    public void abgemeldeterBeobachterBekommtNichtsMehr() throws Exception {
+        Konto konto = new Girokonto();
+        PropertyChangeListener mockListener = mock(PropertyChangeListener.class);
+        CountDownLatch zugestellt = new CountDownLatch(1);
+        konto.addPropertyChangeListener(mockListener);
+        konto.beobachterAnmelden(e -> zugestellt.countDown());
+
+        konto.removePropertyChangeListener(mockListener);
+        konto.einzahlen(10);
+
+        assertTrue(zugestellt.await(5, TimeUnit.SECONDS));
+        Mockito.verifyNoInteractions(mockListener);
     }
 
 }
@@ -0,0 +1,131 @@
+import bankprojekt.verarbeitung.GirokontoFabrik;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verwaltung.Bank;
+import bankprojekt.verwaltung.Kontobericht;
+import bankprojekt.verwaltung.Kontospalte;
+import bankprojekt.verwaltung.VerteilteBank;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KontoberichtTest {
+    private static final String NL = System.lineSeparator();
+
+    private final Bank bank = new Bank(1234);
+    private final GirokontoFabrik fabrik = new GirokontoFabrik();
+
+    private long konto(String nachname, double einzahlung) throws Exception {
+        long nummer = bank.kontoErstellen(fabrik, new Kunde("Max", nachname, "zuhause", LocalDate.of(1990, 1, 1)));
+        if (einzahlung > 0) {
+            bank.geldEinzahlen(nummer, einzahlung);
+        } else if (einzahlung < 0) {
+            bank.geldAbheben(nummer, -einzahlung);
+        }
+        return nummer;
+    }
+
+    @Test
+    public void spaltenSortierungUndFilter() throws Exception {
+        konto("Berger", 12.3);
+        long zweites = konto("Adam; \"der Erste\"", -0.05);
+        konto("Christ", 500);
+        bank.kontoSperren(zweites);
+
+        StringBuilder alle = new StringBuilder();
+        assertEquals(3, bank.berichtSchreiben(new Kontobericht().sortieren(Kontospalte.NUMMER, false), alle));
+        assertEquals("Kontonummer;Kontostand;Inhaber;Gesperrt" + NL
+                + "1001;12.30 EUR;Berger, Max;" + NL
+                + "1002;-0.05 EUR;\"Adam; \"\"der Erste\"\", Max\";GESPERRT" + NL
+                + "1003;500.00 EUR;Christ, Max;" + NL, alle.toString());
+
+        StringBuilder auswahl = new StringBuilder();
+        Kontobericht bericht = new Kontobericht()
+                .spalten(Kontospalte.INHABER, Kontospalte.NUMMER)
+                .sortieren(Kontospalte.KONTOSTAND, true)
+                .filtern(konto -> !konto.isGesperrt())
+                .trennzeichen('|')
+                .ohneKopfzeile();
+        assertEquals(2, bank.berichtSchreiben(bericht, auswahl));
+        assertEquals("Christ, Max|1003" + NL + "Berger, Max|1001" + NL, auswahl.toString());
+        assertThrows(IllegalArgumentException.class, () -> new Kontobericht().spalten());
+    }
+
+    @Test
+    public void grosseListeWirdInStueckenGeschrieben() throws Exception {
+        int anzahl = 20_000;
+        for (int i = 0; i < anzahl; i++) {
+            bank.mockEinfuegen(fabrik.createKonto(new Kunde("Max", "Muster", "zuhause", LocalDate.of(1990, 1, 1)), 0));
+        }
+        int[] aufrufe = new int[1];
+        long[] zeichen = new long[1];
+        Appendable ziel = new Appendable() {
+            @Override
+            public Appendable append(CharSequence text) {
+                aufrufe[0]++;
+                zeichen[0] += text.length();
+                assertTrue(text.length() < 70_000);
+                return this;
+            }
+
+            @Override
+            public Appendable append(CharSequence text, int anfang, int ende) {
+                return append(text.subSequence(anfang, ende));
+            }
+
+            @Override
+            public Appendable append(char c) throws IOException {
+                return append(String.valueOf(c));
+            }
+        };
+        assertEquals(anzahl, bank.berichtSchreiben(new Kontobericht().ohneKopfzeile(), ziel));
+        assertTrue(aufrufe[0] > 5);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bank.berichtSchreiben(new Kontobericht().ohneKopfzeile(), Channels.newChannel(bytes));
+        assertEquals(zeichen[0], bytes.toString(StandardCharsets.UTF_8).length());
+    }
+
+    @Test
+    public void kontenAusMockEinfuegenWerdenMitIhrerBanknummerGelistet() throws Exception {
+        Kunde kunde = new Kunde("Max", "Muster", "zuhause", LocalDate.of(1990, 1, 1));
+        long erstes = bank.mockEinfuegen(fabrik.createKonto(kunde, 0));
+        long zweites = bank.mockEinfuegen(fabrik.createKonto(kunde, 0));
+
+        StringBuilder unsortiert = new StringBuilder();
+        bank.berichtSchreiben(new Kontobericht().spalten(Kontospalte.NUMMER).ohneKopfzeile(), unsortiert);
+        assertEquals(erstes + NL + zweites + NL, unsortiert.toString());
+
+        StringBuilder sortiert = new StringBuilder();
+        bank.berichtSchreiben(new Kontobericht().spalten(Kontospalte.NUMMER)
+                .sortieren(Kontospalte.NUMMER, true).ohneKopfzeile(), sortiert);
+        assertEquals(zweites + NL + erstes + NL, sortiert.toString());
+    }
+
+    @Test
+    public void alleKontenUndToStringBehaltenIhrFormat() throws Exception {
+        konto("Berger", 12.5);
+        assertEquals("Kontonummer: 1001, Kontostand: 12.5\n", bank.getAlleKonten());
+        assertEquals("Bankleitzahl: 1234. \nAlle Konten: \nKontonummer: 1001, Kontostand: 12.5\n", bank.toString());
+        assertEquals("Berger, Max,zuhause", bank.getKundenadressen());
+    }
+
+    @Test
+    public void verteilteBankListetAlleShards() throws Exception {
+        try (VerteilteBank verteilt = new VerteilteBank(1234, 3)) {
+            Kunde kunde = new Kunde("Max", "Muster", "zuhause", LocalDate.of(1990, 1, 1));
+            for (int i = 0; i < 7; i++) {
+                verteilt.kontoErstellen(fabrik, kunde);
+            }
+            StringBuilder ziel = new StringBuilder();
+            assertEquals(7, verteilt.berichtSchreiben(new Kontobericht().spalten(Kontospalte.NUMMER)
+                    .sortieren(Kontospalte.NUMMER, true).ohneKopfzeile(), ziel));
+            assertTrue(ziel.toString().startsWith("1007" + NL + "1006" + NL));
+        }
+    }
+}
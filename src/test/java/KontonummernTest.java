@@ -0,0 +1,59 @@
+import bankprojekt.verarbeitung.GirokontoFabrik;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verwaltung.Bank;
+import bankprojekt.verwaltung.Nummernbereiche;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KontonummernTest {
+    private final Bank bank = new Bank(1234);
+    private final GirokontoFabrik fabrik = new GirokontoFabrik();
+    private final Kunde kunde = new Kunde("Max", "Mustermann", "zuhause", LocalDate.of(1990, 1, 1));
+
+    @Test
+    public void lueckenWerdenAlsBereicheGeliefertUndWiederVergeben() {
+        for (int i = 0; i < 10; i++) {
+            assertEquals(1001 + i, bank.kontoErstellen(fabrik, kunde));
+        }
+        assertEquals(0, bank.getKontonummernLuecken().getAnzahl());
+        assertTrue(bank.kontoLoeschen(1007));
+        assertTrue(bank.kontoLoeschen(1003));
+        assertTrue(bank.kontoLoeschen(1004));
+
+        Nummernbereiche luecken = bank.getKontonummernLuecken();
+        assertEquals("[1003-1004, 1007]", luecken.toString());
+        assertEquals(3, luecken.getNummernAnzahl());
+        assertTrue(luecken.enthaelt(1004));
+        assertFalse(luecken.enthaelt(1005));
+        assertEquals("[1007, 1011-2000]", bank.getKontonummernLuecken(1005, 2000).toString());
+        assertEquals(Long.MAX_VALUE - 1007, bank.getKontonummernLuecken(0, Long.MAX_VALUE).getNummernAnzahl());
+
+        assertEquals(1003, bank.kontoErstellen(fabrik, kunde));
+        assertEquals(1004, bank.kontoErstellen(fabrik, kunde));
+        assertEquals(1007, bank.kontoErstellen(fabrik, kunde));
+        assertEquals(1011, bank.kontoErstellen(fabrik, kunde));
+    }
+
+    @Test
+    public void vieleLueckenUndSchnappschuss() throws Exception {
+        int anzahl = 50_000;
+        for (int i = 0; i < anzahl; i++) {
+            bank.kontoErstellen(fabrik, kunde);
+        }
+        for (long nummer = 1001; nummer < 1001 + anzahl; nummer += 2) {
+            assertTrue(bank.kontoLoeschen(nummer));
+        }
+        Nummernbereiche luecken = bank.getKontonummernLuecken();
+        assertEquals(anzahl / 2, luecken.getAnzahl());
+        assertEquals(1001 + anzahl - 2, luecken.getVon(luecken.getAnzahl() - 1));
+
+        Bank gelesen = Bank.schnappschussLesen(Channels.newChannel(new ByteArrayInputStream(bank.clone())));
+        assertEquals(luecken, gelesen.getKontonummernLuecken());
+        assertEquals(1001, gelesen.kontoErstellen(fabrik, kunde));
+    }
+}
@@ -0,0 +1,61 @@
+import bankprojekt.verarbeitung.GirokontoFabrik;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.Waehrung;
+import bankprojekt.verwaltung.Bank;
+import bankprojekt.verwaltung.Kontospalte;
+import bankprojekt.verwaltung.Kontoverzeichnis;
+import bankprojekt.verwaltung.Kontozeile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KontoverzeichnisTest {
+    private final Bank bank = new Bank(1234);
+    private long berta, anton, clara;
+
+    @BeforeEach
+    public void kontenAnlegen() throws Exception {
+        GirokontoFabrik fabrik = new GirokontoFabrik();
+        LocalDate geburtstag = LocalDate.of(1990, 1, 1);
+        berta = bank.kontoErstellen(fabrik, new Kunde("Berta", "Bauer", "Weg 2", geburtstag));
+        anton = bank.kontoErstellen(fabrik, new Kunde("Anton", "Abel", "Weg 1", geburtstag));
+        clara = bank.kontoErstellen(fabrik, new Kunde("Clara", "Christ", "Weg 3", geburtstag));
+        bank.geldEinzahlen(berta, 50);
+        bank.geldEinzahlen(anton, 300);
+        bank.geldAbheben(clara, 20);
+        bank.kontoSperren(anton);
+    }
+
+    private static List<Long> nummern(Kontoverzeichnis verzeichnis) {
+        return verzeichnis.getSeite(0, verzeichnis.getAnzahl()).stream().map(Kontozeile::nummer).toList();
+    }
+
+    @Test
+    public void sortiertNachJederSpalte() {
+        assertEquals(List.of(berta, anton, clara), nummern(bank.getKontoverzeichnis(Kontospalte.NUMMER, false)));
+        assertEquals(List.of(clara, anton, berta), nummern(bank.getKontoverzeichnis(Kontospalte.NUMMER, true)));
+        assertEquals(List.of(clara, berta, anton), nummern(bank.getKontoverzeichnis(Kontospalte.KONTOSTAND, false)));
+        assertEquals(List.of(anton, berta, clara), nummern(bank.getKontoverzeichnis(Kontospalte.INHABER, false)));
+        // gleich gesperrte Konten bleiben nach Nummer sortiert
+        assertEquals(List.of(berta, clara, anton), nummern(bank.getKontoverzeichnis(Kontospalte.GESPERRT, false)));
+        assertEquals(List.of(anton, clara, berta), nummern(bank.getKontoverzeichnis(Kontospalte.GESPERRT, true)));
+    }
+
+    @Test
+    public void seitenZeigenDenAktuellenStand() throws Exception {
+        Kontoverzeichnis verzeichnis = bank.getKontoverzeichnis(Kontospalte.NUMMER, false);
+        bank.geldEinzahlen(clara, 120);
+
+        List<Kontozeile> seite = verzeichnis.getSeite(1, 5);
+        assertEquals(2, seite.size());
+        assertEquals(new Kontozeile(anton, "Abel, Anton", 300, Waehrung.EUR, true), seite.get(0));
+        assertEquals(new Kontozeile(clara, "Christ, Clara", 100, Waehrung.EUR, false), seite.get(1));
+        assertTrue(verzeichnis.getSeite(3, 10).isEmpty());
+        assertTrue(verzeichnis.getSeite(Integer.MAX_VALUE, Integer.MAX_VALUE).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> verzeichnis.getSeite(-1, 10));
+    }
+}
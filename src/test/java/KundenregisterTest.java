@@ -0,0 +1,47 @@
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.Kundenregister;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KundenregisterTest {
+    private final Kundenregister register = new Kundenregister();
+
+    @Test
+    public void gleicheDatenLiefernDenselbenKunden() {
+        LocalDate geburtstag = LocalDate.parse("2001-07-28");
+        Kunde erster = register.registrieren("Tarik", "Balci", "MusterSTR", geburtstag);
+        Kunde zweiter = register.registrieren(new String("Tarik"), new String("Balci"), new String("MusterSTR"),
+                LocalDate.parse("2001-07-28"));
+        Kunde anderer = register.registrieren("Tarik", "Balci", "MusterSTR", geburtstag.plusDays(1));
+
+        assertSame(erster, zweiter);
+        assertNotSame(erster, anderer);
+        assertEquals(2, register.getAnzahl());
+        assertEquals(geburtstag, erster.getGeburtstag());
+        assertEquals("Balci, Tarik", erster.getName());
+    }
+
+    @Test
+    public void wiederholteTexteWerdenGeteilt() {
+        Kunde erster = register.registrieren(new String("Anna"), new String("Müller"), new String("Berlin"),
+                LocalDate.parse("1990-01-01"));
+        Kunde zweiter = register.registrieren(new String("Ben"), new String("Müller"), new String("Berlin"),
+                LocalDate.parse("1991-01-01"));
+
+        assertSame(erster.getNachname(), zweiter.getNachname());
+        assertSame(erster.getAdresse(), zweiter.getAdresse());
+    }
+
+    @Test
+    public void adresseIstEinfacherText() {
+        Kunde kunde = register.registrieren("Anna", "Müller", "Berlin", LocalDate.parse("1990-01-01"));
+        kunde.setAdresse("Hamburg");
+        assertEquals("Hamburg", kunde.getAdresse());
+        assertTrue(kunde.toString().contains("Hamburg"));
+        assertThrows(IllegalArgumentException.class, () -> register.registrieren("Anna", null, "Berlin",
+                LocalDate.parse("1990-01-01")));
+    }
+}
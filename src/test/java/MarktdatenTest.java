@@ -0,0 +1,97 @@
+import bankprojekt.verarbeitung.Aktie;
+import bankprojekt.verarbeitung.Marktdaten;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MarktdatenTest {
+    private final Marktdaten marktdaten = new Marktdaten();
+
+    @Test
+    public void aktieLiestDenLetztenKurs() {
+        Aktie audi = new Aktie("Audi", 4444, 100, marktdaten);
+        assertEquals(10000, audi.getAktuellerPreisCent());
+
+        marktdaten.kursSetzen(4444, 9850);
+        assertEquals(98.5, audi.getAktuellerPreis(), 0.001);
+        assertEquals(9850, marktdaten.getKursCent(4444));
+
+        Aktie nochmal = new Aktie("Audi", 4444, 101, marktdaten);
+        assertEquals(10100, audi.getAktuellerPreisCent());
+        assertEquals(10100, nochmal.getAktuellerPreisCent());
+        assertThrows(IllegalArgumentException.class, () -> marktdaten.kursSetzen(5555, 1));
+    }
+
+    @Test
+    public void langsamerAbonnentSiehtNurDenNeuestenKurs() throws Exception {
+        new Aktie("Audi", 4444, 100, marktdaten);
+        new Aktie("BMW", 5555, 100, marktdaten);
+        ExecutorService ausfuehrung = Executors.newSingleThreadExecutor();
+        CountDownLatch ersterAufruf = new CountDownLatch(1);
+        CountDownLatch weiter = new CountDownLatch(1);
+        ConcurrentLinkedQueue<Long> erhalten = new ConcurrentLinkedQueue<>();
+        try {
+            marktdaten.abonnieren(4444, (id, kurs) -> {
+                erhalten.add(kurs);
+                ersterAufruf.countDown();
+                try {
+                    weiter.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, ausfuehrung);
+
+            marktdaten.kursSetzen(4444, 1);
+            assertTrue(ersterAufruf.await(5, TimeUnit.SECONDS));
+            for (long kurs = 2; kurs <= 100; kurs++) {
+                marktdaten.kursSetzen(4444, kurs);
+            }
+            marktdaten.kursSetzen(5555, 7);
+            weiter.countDown();
+            ausfuehrung.submit(() -> { }).get(5, TimeUnit.SECONDS);
+            ausfuehrung.submit(() -> { }).get(5, TimeUnit.SECONDS);
+
+            assertEquals(List.of(1L, 100L), new ArrayList<>(erhalten));
+        } finally {
+            ausfuehrung.shutdownNow();
+        }
+    }
+
+    @Test
+    public void gekuendigtesAbonnementBekommtNichtsMehr() {
+        new Aktie("Audi", 4444, 100, marktdaten);
+        List<Long> erhalten = new ArrayList<>();
+        Marktdaten.Abonnement abonnement = marktdaten.abonnieren(4444, (id, kurs) -> erhalten.add(kurs), Runnable::run);
+
+        marktdaten.kursSetzen(4444, 200);
+        abonnement.close();
+        marktdaten.kursSetzen(4444, 300);
+
+        assertEquals(List.of(200L), erhalten);
+    }
+
+    @Test
+    public void vieleAktienTeilenSichEinenThread() throws Exception {
+        try (Marktdaten mitTakt = new Marktdaten(Duration.ofMillis(10))) {
+            int threadsVorher = Thread.activeCount();
+            List<Aktie> aktien = new ArrayList<>();
+            for (int i = 0; i < 5000; i++) {
+                aktien.add(new Aktie("Aktie " + i, i, 100, mitTakt));
+            }
+            assertTrue(Thread.activeCount() <= threadsVorher + 1);
+
+            CountDownLatch getickt = new CountDownLatch(1);
+            mitTakt.abonnieren(4999, (id, kurs) -> getickt.countDown(), Runnable::run);
+            assertTrue(getickt.await(5, TimeUnit.SECONDS));
+        }
+    }
+}
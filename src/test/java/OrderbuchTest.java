@@ -0,0 +1,191 @@
+import bankprojekt.verarbeitung.Ablehnungsgrund;
+import bankprojekt.verarbeitung.Aktie;
+import bankprojekt.verarbeitung.AuftragAbgelehntException;
+import bankprojekt.verarbeitung.Auftragsdienst;
+import bankprojekt.verarbeitung.Auftragsergebnis;
+import bankprojekt.verarbeitung.Depotposition;
+import bankprojekt.verarbeitung.Girokonto;
+import bankprojekt.verarbeitung.Konto;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.Marktdaten;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderbuchTest {
+    private final Kunde kunde = new Kunde("Tarik", "Balci", "MusterSTR", LocalDate.parse("2001-07-28"));
+    private final Marktdaten marktdaten = new Marktdaten();
+    private final Aktie audi = new Aktie("Audi", 4444, 100, marktdaten);
+
+    @Test
+    public void kaufWirdBeimUnterschreitenDesLimitsAusgeloest() throws Exception {
+        Konto konto = new Girokonto(kunde, 1, 0);
+        konto.einzahlen(1000);
+        CompletableFuture<Auftragsergebnis> kauf = konto.kaufauftrag(audi, 5, 95);
+
+        marktdaten.kursSetzen(4444, 9600);
+        assertFalse(kauf.isDone());
+        assertEquals(1, marktdaten.getOffeneAuftraege(4444));
+
+        marktdaten.kursSetzen(4444, 9400);
+        Auftragsergebnis ergebnis = kauf.get(5, TimeUnit.SECONDS);
+        assertEquals(5, ergebnis.anzahl());
+        assertEquals(9400, ergebnis.kursCent());
+        assertEquals(470, ergebnis.getGesamtbetrag(), 0.001);
+        assertEquals(530, ergebnis.getKontostand(), 0.001);
+        assertEquals(530, konto.getKontostand(), 0.001);
+        assertEquals(5, konto.getPosition(4444).anzahl());
+        assertEquals(0, marktdaten.getOffeneAuftraege(4444));
+    }
+
+    @Test
+    public void ausgeloesterAuftragWirdZumAusloesendenKursAusgefuehrt() throws Exception {
+        Konto konto = new Girokonto(kunde, 1, 0);
+        konto.einzahlen(1000);
+        CountDownLatch freigabe = new CountDownLatch(1);
+        // hält die Reihe des Kontos auf, bis sich der Kurs wieder geändert hat
+        Auftragsdienst.getStandard().ausfuehren(konto, () -> freigabe.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Auftragsergebnis> kauf = konto.kaufauftrag(audi, 5, 95);
+
+        marktdaten.kursSetzen(4444, 9400);
+        marktdaten.kursSetzen(4444, 12000);
+        freigabe.countDown();
+        Auftragsergebnis ergebnis = kauf.get(5, TimeUnit.SECONDS);
+        assertEquals(9400, ergebnis.kursCent());
+        assertEquals(530, konto.getKontostand(), 0.001);
+    }
+
+    @Test
+    public void verkaufWirdBeimErreichenDesLimitsAusgeloest() throws Exception {
+        Konto konto = new Girokonto(kunde, 1, 0);
+        konto.aktienEinbuchen(audi, 3);
+        CompletableFuture<Auftragsergebnis> verkauf = konto.verkaufauftrag("4444", 110);
+
+        marktdaten.kursSetzen(4444, 10999);
+        assertFalse(verkauf.isDone());
+        marktdaten.kursSetzen(4444, 11200);
+
+        Auftragsergebnis ergebnis = verkauf.get(5, TimeUnit.SECONDS);
+        assertEquals(3, ergebnis.anzahl());
+        assertEquals(336, ergebnis.getKontostand(), 0.001);
+        assertEquals(0, konto.getPosition(4444).anzahl());
+    }
+
+    @Test
+    public void nurDieUeberschrittenenLimitsWerdenAusgeloest() throws Exception {
+        List<CompletableFuture<Auftragsergebnis>> kaeufe = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Konto konto = new Girokonto(kunde, i, 0);
+            konto.einzahlen(1000);
+            kaeufe.add(konto.kaufauftrag(audi, 1, 1 + i * 0.5));
+        }
+
+        marktdaten.kursSetzen(4444, 2500);
+        for (int i = 0; i < 100; i++) {
+            if (1 + i * 0.5 >= 25) {
+                assertEquals(25, kaeufe.get(i).get(5, TimeUnit.SECONDS).getKurs(), 0.001);
+            }
+        }
+        assertEquals(48, marktdaten.getOffeneAuftraege(4444));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(1 + i * 0.5 >= 25, kaeufe.get(i).isDone());
+        }
+    }
+
+    @Test
+    public void gestrichenerUndAbgelaufenerAuftragWerdenNichtAusgefuehrt() throws Exception {
+        Konto konto = new Girokonto(kunde, 1, 0);
+        konto.einzahlen(1000);
+        CompletableFuture<Auftragsergebnis> gestrichen = konto.kaufauftrag(audi, 1, 50);
+        CompletableFuture<Auftragsergebnis> abgelaufen = konto.kaufauftrag(audi, 1, 60, Duration.ofMillis(50));
+        CompletableFuture<Auftragsergebnis> zuLange = konto.kaufauftrag(audi, 1, 70).orTimeout(50, TimeUnit.MILLISECONDS);
+
+        assertTrue(gestrichen.cancel(false));
+        assertEquals(Ablehnungsgrund.ABGELAUFEN, grund(abgelaufen));
+        ExecutionException fehler = assertThrows(ExecutionException.class, () -> zuLange.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, fehler.getCause());
+        assertEquals(0, marktdaten.getOffeneAuftraege(4444));
+
+        marktdaten.kursSetzen(4444, 1000);
+        assertEquals(1000, konto.getKontostand(), 0.001);
+        assertTrue(konto.getDepot().isEmpty());
+    }
+
+    @Test
+    public void limitBeimEinstellenSchonErreicht() throws Exception {
+        Konto konto = new Girokonto(kunde, 1, 0);
+        konto.einzahlen(1000);
+        assertEquals(100, konto.kaufauftrag(audi, 1, 120).get(5, TimeUnit.SECONDS).getKurs(), 0.001);
+    }
+
+    @Test
+    public void ablehnungenNennenIhrenGrund() throws Exception {
+        Konto konto = new Girokonto(kunde, 1, 0);
+        konto.einzahlen(50);
+        assertEquals(Ablehnungsgrund.NICHT_GEDECKT, grund(konto.kaufauftrag(audi, 1, 120)));
+        assertEquals(Ablehnungsgrund.KEINE_AKTIEN, grund(konto.verkaufauftrag("4444", 1)));
+
+        konto.aktienEinbuchen(audi, 1);
+        konto.sperren();
+        assertEquals(Ablehnungsgrund.GESPERRT, grund(konto.verkaufauftrag("4444", 1)));
+        assertEquals(50, konto.getKontostand(), 0.001);
+        assertThrows(IllegalArgumentException.class, () -> konto.kaufauftrag(audi, 0, 120));
+    }
+
+    @Test
+    public void tausendeAuftraegeOhneBlockieren() throws Exception {
+        Konto konto = new Girokonto(kunde, 1, 0);
+        konto.einzahlen(100_000);
+        List<CompletableFuture<Auftragsergebnis>> kaeufe = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            kaeufe.add(konto.kaufauftrag(audi, 1, 99));
+        }
+        assertEquals(5000, marktdaten.getOffeneAuftraege(4444));
+
+        marktdaten.kursSetzen(4444, 1000);
+        CompletableFuture.allOf(kaeufe.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+        assertEquals(5000, konto.getPosition(4444).anzahl());
+        assertEquals(50_000, konto.getKontostand(), 0.001);
+    }
+
+    private static Ablehnungsgrund grund(CompletableFuture<Auftragsergebnis> auftrag) throws Exception {
+        ExecutionException fehler = assertThrows(ExecutionException.class, () -> auftrag.get(5, TimeUnit.SECONDS));
+        return assertInstanceOf(AuftragAbgelehntException.class, fehler.getCause()).getGrund();
+    }
+
+    @Test
+    public void depotFuehrtEinstandUndRealisiertenGewinn() throws Exception {
+        Konto konto = new Girokonto(kunde, 1, 0);
+        konto.einzahlen(200_000);
+        marktdaten.kursSetzen(4444, 100);
+        konto.kaufauftrag(audi, 100_000, 1).get(5, TimeUnit.SECONDS);
+        marktdaten.kursSetzen(4444, 50);
+        konto.kaufauftrag(audi, 100_000, 1).get(5, TimeUnit.SECONDS);
+
+        Depotposition position = konto.getPosition(4444);
+        assertEquals(200_000, position.anzahl());
+        assertEquals(15_000_000, position.einstandCent());
+        assertEquals(0.75, position.getDurchschnittskurs(), 1e-9);
+        assertEquals(1, konto.getDepot().size());
+
+        marktdaten.kursSetzen(4444, 60);
+        Auftragsergebnis verkauf = konto.verkaufauftrag("4444", 0.6).get(5, TimeUnit.SECONDS);
+        assertEquals(200_000, verkauf.anzahl());
+
+        position = konto.getPosition(4444);
+        assertEquals(0, position.anzahl());
+        assertEquals(0, position.einstandCent());
+        assertEquals(12_000_000 - 15_000_000, position.realisiertCent());
+        assertEquals(200_000 - 150_000 + 120_000, konto.getKontostand(), 0.001);
+    }
+}
@@ -0,0 +1,67 @@
+import bankprojekt.verarbeitung.GirokontoFabrik;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.SparbuchFabrik;
+import bankprojekt.verwaltung.Bank;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchnappschussTest {
+    private final Kunde kunde = new Kunde("Tarik", "Balci", "MusterSTR", LocalDate.parse("2001-07-28"));
+
+    private static Bank lesen(byte[] schnappschuss) throws IOException {
+        return Bank.schnappschussLesen(Channels.newChannel(new ByteArrayInputStream(schnappschuss)));
+    }
+
+    @Test
+    public void gemeinsameKundenBleibenGemeinsam() throws Exception {
+        Bank bank = new Bank(1234);
+        long giro = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        long spar = bank.kontoErstellen(new SparbuchFabrik(), kunde);
+        bank.geldEinzahlen(giro, 10);
+        bank.geldEinzahlen(spar, 10);
+
+        List<Kunde> kunden = lesen(bank.clone()).getKundenMitVollemKonto(10);
+        assertEquals(2, kunden.size());
+        assertSame(kunden.get(0), kunden.get(1));
+        assertEquals(kunde.getName(), kunden.get(0).getName());
+    }
+
+    @Test
+    public void zustandDerKontenWirdUebernommen() throws Exception {
+        Bank bank = new Bank(1234);
+        long giro = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        long spar = bank.kontoErstellen(new SparbuchFabrik(), kunde);
+        bank.geldEinzahlen(spar, 3000);
+        assertTrue(bank.geldAbheben(spar, 1900));
+        assertTrue(bank.geldAbheben(giro, 400));
+        bank.kontoSperren(giro);
+
+        ByteArrayOutputStream ausgabe = new ByteArrayOutputStream();
+        bank.schnappschussSchreiben(Channels.newChannel(ausgabe));
+        Bank gelesen = lesen(ausgabe.toByteArray());
+
+        assertEquals(-400, gelesen.getKontostand(giro), 0.001);
+        assertFalse(gelesen.geldAbheben(giro, 1));
+        assertEquals(1100, gelesen.getKontostand(spar), 0.001);
+        assertFalse(gelesen.geldAbheben(spar, 200));
+        assertTrue(gelesen.kontoErstellen(new GirokontoFabrik(), kunde) > spar);
+    }
+
+    @Test
+    public void unvollstaendigerSchnappschussWirdErkannt() {
+        Bank bank = new Bank(1234);
+        bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        byte[] schnappschuss = bank.clone();
+
+        assertThrows(IOException.class, () -> lesen(Arrays.copyOf(schnappschuss, schnappschuss.length - 3)));
+    }
+}
@@ -0,0 +1,97 @@
+import bankprojekt.verarbeitung.GirokontoFabrik;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.SparbuchFabrik;
+import bankprojekt.verwaltung.Bank;
+import bankprojekt.verwaltung.Stapelergebnis;
+import bankprojekt.verwaltung.Ueberweisungsstapel;
+import bankprojekt.verwaltung.Ueberweisungsstatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UeberweisungsstapelTest {
+    private final Kunde kunde = new Kunde("Tarik", "Balci", "MusterSTR", LocalDate.parse("2001-07-28"));
+
+    @Test
+    public void ergebnisJeUeberweisung() throws Exception {
+        Bank bank = new Bank(1234);
+        long giro1 = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        long giro2 = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        long gesperrt = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        long spar = bank.kontoErstellen(new SparbuchFabrik(), kunde);
+        bank.geldEinzahlen(giro1, 100);
+        bank.pleitegeierSperren();
+        bank.geldAbheben(gesperrt, 10);
+        bank.pleitegeierSperren();
+
+        Ueberweisungsstapel stapel = new Ueberweisungsstapel(2)
+                .hinzufuegen(giro1, giro2, 50, "eins")
+                .hinzufuegen(giro1, giro2, 2000, "zu viel")
+                .hinzufuegen(gesperrt, giro2, 1, "gesperrt")
+                .hinzufuegen(giro1, 4711, 1, "unbekannt")
+                .hinzufuegen(giro1, spar, 1, "Sparbuch")
+                .hinzufuegen(giro2, giro1, 25, "zurück");
+
+        Stapelergebnis ergebnis = bank.geldUeberweisen(stapel);
+
+        assertEquals(6, ergebnis.getAnzahl());
+        assertEquals(Ueberweisungsstatus.OK, ergebnis.getStatus(0));
+        assertEquals(Ueberweisungsstatus.NICHT_GEDECKT, ergebnis.getStatus(1));
+        assertEquals(Ueberweisungsstatus.GESPERRT, ergebnis.getStatus(2));
+        assertEquals(Ueberweisungsstatus.KONTO_UNBEKANNT, ergebnis.getStatus(3));
+        assertEquals(Ueberweisungsstatus.NICHT_UEBERWEISUNGSFAEHIG, ergebnis.getStatus(4));
+        assertEquals(Ueberweisungsstatus.OK, ergebnis.getStatus(5));
+        assertEquals(2, ergebnis.anzahl(Ueberweisungsstatus.OK));
+        assertEquals(75.0, bank.getKontostand(giro1));
+        assertEquals(25.0, bank.getKontostand(giro2));
+    }
+
+    @Test
+    public void grosserStapelWirdInBloeckenAusgefuehrt() throws Exception {
+        Bank bank = new Bank(1234);
+        long von = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        long nach = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        Ueberweisungsstapel stapel = new Ueberweisungsstapel();
+        for (int i = 0; i < 10_000; i++) {
+            stapel.hinzufuegen(von, nach, 0.10, "Sammler");
+        }
+
+        Stapelergebnis ergebnis = bank.geldUeberweisen(stapel);
+
+        assertEquals(10_000, ergebnis.anzahl(Ueberweisungsstatus.OK));
+        assertEquals(-1000.0, bank.getKontostand(von), 0.001);
+        assertEquals(1000.0, bank.getKontostand(nach), 0.001);
+    }
+
+    @Test
+    public void stapelUeberVieleStreifenBehaeltDieReihenfolge() throws Exception {
+        Bank bank = new Bank(1234);
+        long[] konten = new long[600];
+        for (int i = 0; i < konten.length; i++) {
+            konten[i] = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        }
+        bank.geldEinzahlen(konten[0], 5000);
+        Ueberweisungsstapel stapel = new Ueberweisungsstapel();
+        // the chain needs all stripes, so it is split into many chunks
+        for (int i = 1; i < konten.length; i++) {
+            stapel.hinzufuegen(konten[i - 1], konten[i], 5000, "Kette");
+        }
+
+        Stapelergebnis ergebnis = bank.geldUeberweisen(stapel);
+
+        assertEquals(konten.length - 1, ergebnis.anzahl(Ueberweisungsstatus.OK));
+        for (int i = 0; i < konten.length - 1; i++) {
+            assertEquals(0, bank.getKontostand(konten[i]), 0.001);
+        }
+        assertEquals(5000, bank.getKontostand(konten[konten.length - 1]), 0.001);
+    }
+
+    @Test
+    public void ungueltigerBetrag() {
+        Ueberweisungsstapel stapel = new Ueberweisungsstapel();
+        assertThrows(IllegalArgumentException.class, () -> stapel.hinzufuegen(1, 2, -5, "negativ"));
+        assertThrows(IllegalArgumentException.class, () -> stapel.hinzufuegen(1, 2, Double.NaN, "NaN"));
+    }
+}
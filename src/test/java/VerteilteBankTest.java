@@ -0,0 +1,185 @@
+import bankprojekt.verarbeitung.GesperrtException;
+import bankprojekt.verarbeitung.GirokontoFabrik;
+import bankprojekt.verarbeitung.Konto;
+import bankprojekt.verarbeitung.Kontoereignis;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.SparbuchFabrik;
+import bankprojekt.verwaltung.Bank;
+import bankprojekt.verwaltung.Stapelergebnis;
+import bankprojekt.verwaltung.Ueberweisungsstapel;
+import bankprojekt.verwaltung.Ueberweisungsstatus;
+import bankprojekt.verwaltung.VerteilteBank;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VerteilteBankTest {
+    private static final int KONTEN = 40;
+    private static final int FAEDEN = 8;
+    private static final int UEBERWEISUNGEN = 5_000;
+
+    private final VerteilteBank bank = new VerteilteBank(1234, 4);
+    private final Kunde kunde = new Kunde("Tarik", "Balci", "MusterSTR", LocalDate.parse("2001-07-28"));
+
+    @AfterEach
+    public void schliessen() throws Exception {
+        bank.close();
+    }
+
+    @Test
+    public void kontenWerdenAufDieShardsVerteiltUndWieBeiEinerBankBenutzt() throws Exception {
+        long[] nummern = new long[8];
+        for (int i = 0; i < nummern.length; i++) {
+            nummern[i] = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+            assertEquals(1001 + i, nummern[i]);
+            bank.geldEinzahlen(nummern[i], 100 + i);
+        }
+        assertTrue(bank.geldAbheben(nummern[1], 50));
+        assertEquals(51, bank.getKontostand(nummern[1]), 0.001);
+        assertTrue(bank.kontoNummerChecker(nummern[7]));
+        assertFalse(bank.kontoNummerChecker(2000));
+        assertThrows(Bank.KontonummerNichtVorhandenException.class, () -> bank.geldEinzahlen(2000, 1));
+        assertEquals(8, bank.getAlleKontonummern().size());
+        assertEquals(3, bank.getKundenMitVollemKonto(105).size());
+
+        bank.geldAbheben(nummern[2], 600);
+        assertEquals(1, bank.pleitegeierSperren());
+        assertFalse(bank.geldAbheben(nummern[2], 1));
+        bank.kontoEntsperren(nummern[2]);
+        assertTrue(bank.geldAbheben(nummern[2], 1));
+
+        assertTrue(bank.kontoLoeschen(nummern[5]));
+        assertFalse(bank.kontoNummerChecker(nummern[5]));
+        assertEquals("[1006]", bank.getKontonummernLuecken().toString());
+        assertEquals(nummern[5], bank.kontoErstellen(new GirokontoFabrik(), kunde));
+    }
+
+    @Test
+    public void ueberweisungZwischenShardsWirdZurueckgebuchtWennDasZielNichtEmpfangenKann() throws Exception {
+        long giro = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        long sparbuch = bank.kontoErstellen(new SparbuchFabrik(), kunde);
+        bank.geldEinzahlen(giro, 100);
+
+        long ziel = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+
+        assertFalse(bank.geldUeberweisen(giro, sparbuch, 30, "Test"));
+        assertThrows(Bank.KontonummerNichtVorhandenException.class,
+                () -> bank.geldUeberweisen(giro, 5002, 30, "Test"));
+        assertFalse(bank.geldUeberweisen(giro, ziel, 10_000, "Test"));
+        assertEquals(100, bank.getKontostand(giro), 0.001);
+        assertEquals(0, bank.getOffeneUeberweisungen());
+
+        assertTrue(bank.geldUeberweisen(giro, ziel, 30, "Test"));
+        assertEquals(70, bank.getKontostand(giro), 0.001);
+        assertEquals(30, bank.getKontostand(ziel), 0.001);
+        bank.kontoSperren(giro);
+        assertThrows(GesperrtException.class, () -> bank.geldUeberweisen(giro, ziel, 1, "Test"));
+        assertEquals(0, bank.getOffeneUeberweisungen());
+    }
+
+    @Test
+    public void ueberweisungAnEinUnbekanntesKontoBuchtNichtsAb() throws Exception {
+        Konto konto = new GirokontoFabrik().createKonto(kunde, 0);
+        long giro = bank.mockEinfuegen(konto);
+        bank.geldEinzahlen(giro, 100);
+        BlockingQueue<Kontoereignis> ereignisse = new LinkedBlockingQueue<>();
+        konto.beobachterAnmelden(ereignisse::add);
+
+        long unbekannt = giro + 1;
+        assertThrows(Bank.KontonummerNichtVorhandenException.class,
+                () -> bank.geldUeberweisen(giro, unbekannt, 30, "Test"));
+        bank.geldEinzahlen(giro, 1);
+
+        // the first change of the sending account is the deposit, no debit and booking back before it
+        Kontoereignis erstes = ereignisse.poll(5, TimeUnit.SECONDS);
+        assertNotNull(erstes);
+        assertEquals(10_000, erstes.alt());
+        assertEquals(10_100, erstes.neu());
+        assertEquals(0, bank.getOffeneUeberweisungen());
+    }
+
+    @Test
+    public void stapelBehaeltDieReihenfolgeUeberShardsHinweg() throws Exception {
+        long a = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        long b = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        long c = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        long d = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        long e = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        bank.geldEinzahlen(a, 100);
+
+        Ueberweisungsstapel stapel = new Ueberweisungsstapel()
+                .hinzufuegen(a, e, 40, "gleicher Shard")
+                .hinzufuegen(e, b, 40, "zwischen Shards")
+                .hinzufuegen(b, c, 40, "zwischen Shards")
+                .hinzufuegen(a, 9999, 1, "unbekannt")
+                .hinzufuegen(d, d, 1, "gleicher Shard");
+        Stapelergebnis ergebnis = bank.geldUeberweisen(stapel);
+
+        assertEquals(Ueberweisungsstatus.OK, ergebnis.getStatus(0));
+        assertEquals(Ueberweisungsstatus.OK, ergebnis.getStatus(1));
+        assertEquals(Ueberweisungsstatus.OK, ergebnis.getStatus(2));
+        assertEquals(Ueberweisungsstatus.KONTO_UNBEKANNT, ergebnis.getStatus(3));
+        assertEquals(Ueberweisungsstatus.OK, ergebnis.getStatus(4));
+        assertEquals(60, bank.getKontostand(a), 0.001);
+        assertEquals(40, bank.getKontostand(c), 0.001);
+        assertEquals(0, bank.getKontostand(e), 0.001);
+    }
+
+    @Test
+    public void paralleleUeberweisungenZwischenShardsVerlierenKeinGeld() throws Exception {
+        long[] nummern = new long[KONTEN];
+        for (int i = 0; i < KONTEN; i++) {
+            nummern[i] = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+            bank.geldEinzahlen(nummern[i], 100);
+        }
+
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            ExecutorService pool = Executors.newFixedThreadPool(FAEDEN);
+            List<Future<?>> ergebnisse = new ArrayList<>();
+            for (int f = 0; f < FAEDEN; f++) {
+                ergebnisse.add(pool.submit(() -> {
+                    ThreadLocalRandom zufall = ThreadLocalRandom.current();
+                    for (int i = 0; i < UEBERWEISUNGEN; i++) {
+                        long von = nummern[zufall.nextInt(KONTEN)];
+                        long nach = nummern[zufall.nextInt(KONTEN)];
+                        bank.geldUeberweisen(von, nach, 1 + zufall.nextInt(20), "Test");
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> ergebnis : ergebnisse) {
+                ergebnis.get();
+            }
+            pool.shutdown();
+        });
+
+        assertEquals(0, bank.getOffeneUeberweisungen());
+        double summe = 0;
+        for (long nummer : nummern) {
+            summe += bank.getKontostand(nummer);
+        }
+        assertEquals(100.0 * KONTEN, summe, 0.001);
+    }
+
+    @Test
+    public void schnappschussEnthaeltDieKontenAllerShards() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            bank.geldEinzahlen(bank.kontoErstellen(new GirokontoFabrik(), kunde), 10 * i + 1);
+        }
+        bank.kontoLoeschen(1004);
+
+        Bank gelesen = Bank.schnappschussLesen(Channels.newChannel(new ByteArrayInputStream(bank.clone())));
+        assertEquals(9, gelesen.getAlleKontonummern().size());
+        assertEquals(bank.getKontostand(1010), gelesen.getKontostand(1010), 0.001);
+        assertEquals("[1004]", gelesen.getKontonummernLuecken().toString());
+    }
+}
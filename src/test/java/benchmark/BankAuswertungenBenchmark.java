@@ -0,0 +1,95 @@
+package benchmark;
+
+import bankprojekt.verarbeitung.GesperrtException;
+import bankprojekt.verarbeitung.GirokontoFabrik;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verwaltung.Bank;
+import bankprojekt.verwaltung.Kontobericht;
+import bankprojekt.verwaltung.Nummernbereiche;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the operations of {@link Bank} that look at every account, depending on the number of accounts.
+ * Every second account has a negative balance; half of the accounts share a customer.
+ * {@link #pleitegeierSperren(Entsperrt)} starts every call with these accounts unlocked, so each call locks them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BankAuswertungenBenchmark {
+    @Param({"1000", "10000", "100000"})
+    private int kontenAnzahl;
+
+    private Bank bank;
+    private long[] negativ;
+
+    @Setup(Level.Trial)
+    public void bankAufbauen() throws Bank.KontonummerNichtVorhandenException, GesperrtException {
+        bank = new Bank(1234);
+        GirokontoFabrik fabrik = new GirokontoFabrik();
+        Kunde gemeinsam = new Kunde("Max", "Mustermann", "zuhause", LocalDate.parse("2001-07-28"));
+        negativ = new long[kontenAnzahl / 2];
+        for (int i = 0; i < kontenAnzahl; i++) {
+            Kunde kunde = i % 2 == 0 ? gemeinsam : new Kunde("Erika" + i, "Musterfrau", "Straße " + i, LocalDate.parse("1990-01-01"));
+            long nummer = bank.kontoErstellen(fabrik, kunde);
+            if (i % 2 == 0) {
+                bank.geldEinzahlen(nummer, 100);
+            } else {
+                bank.geldAbheben(nummer, 100);
+                negativ[i / 2] = nummer;
+            }
+        }
+    }
+
+    /**
+     * Unlocks the accounts with a negative balance before every call, outside the measured time.
+     */
+    @State(Scope.Thread)
+    public static class Entsperrt {
+        @Setup(Level.Invocation)
+        public void entsperren(BankAuswertungenBenchmark benchmark) throws Bank.KontonummerNichtVorhandenException {
+            for (long nummer : benchmark.negativ) {
+                benchmark.bank.kontoEntsperren(nummer);
+            }
+        }
+    }
+
+    @Benchmark
+    public int pleitegeierSperren(Entsperrt entsperrt) {
+        return bank.pleitegeierSperren();
+    }
+
+    @Benchmark
+    public List<Kunde> getKundenMitVollemKonto() {
+        return bank.getKundenMitVollemKonto(50);
+    }
+
+    @Benchmark
+    public List<Kunde> getKundenMitVollemKontoUeberAllen() {
+        return bank.getKundenMitVollemKonto(1000);
+    }
+
+    @Benchmark
+    public Nummernbereiche getKontonummernLuecken() {
+        return bank.getKontonummernLuecken();
+    }
+
+    @Benchmark
+    public String getAlleKonten() {
+        return bank.getAlleKonten();
+    }
+
+    @Benchmark
+    public long berichtSchreiben() throws IOException {
+        return bank.berichtSchreiben(new Kontobericht(), Writer.nullWriter());
+    }
+}
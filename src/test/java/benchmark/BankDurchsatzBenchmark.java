@@ -0,0 +1,88 @@
+package benchmark;
+
+import bankprojekt.verarbeitung.GesperrtException;
+import bankprojekt.verarbeitung.GirokontoFabrik;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verwaltung.Bank;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures the throughput of independent deposits and withdrawals with a growing number of threads.
+ * Every thread works on its own accounts, so the numbers should grow almost linearly with the thread count
+ * as long as there are enough cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BankDurchsatzBenchmark {
+    private static final int KONTEN_PRO_FADEN = 1024;
+    private static final int MAX_FAEDEN = 64;
+
+    private Bank bank;
+    private long[] nummern;
+    private final AtomicInteger naechsterFaden = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void bankAufbauen() {
+        bank = new Bank(1234);
+        Kunde kunde = new Kunde("Max", "Mustermann", "zuhause", LocalDate.parse("2001-07-28"));
+        GirokontoFabrik fabrik = new GirokontoFabrik();
+        nummern = new long[KONTEN_PRO_FADEN * MAX_FAEDEN];
+        for (int i = 0; i < nummern.length; i++) {
+            nummern[i] = bank.kontoErstellen(fabrik, kunde);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Faden {
+        private int erstes;
+        private int position;
+
+        @Setup(Level.Trial)
+        public void zuteilen(BankDurchsatzBenchmark benchmark) {
+            erstes = (benchmark.naechsterFaden.getAndIncrement() % MAX_FAEDEN) * KONTEN_PRO_FADEN;
+        }
+
+        long naechstesKonto(long[] nummern) {
+            position = (position + 1) & (KONTEN_PRO_FADEN - 1);
+            return nummern[erstes + position];
+        }
+    }
+
+    private boolean einzahlenUndAbheben(Faden faden) throws Bank.KontonummerNichtVorhandenException, GesperrtException {
+        long nummer = faden.naechstesKonto(nummern);
+        bank.geldEinzahlen(nummer, 10);
+        return bank.geldAbheben(nummer, 10);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean einFaden(Faden faden) throws Exception {
+        return einzahlenUndAbheben(faden);
+    }
+
+    @Benchmark
+    @Threads(2)
+    public boolean zweiFaeden(Faden faden) throws Exception {
+        return einzahlenUndAbheben(faden);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean vierFaeden(Faden faden) throws Exception {
+        return einzahlenUndAbheben(faden);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean achtFaeden(Faden faden) throws Exception {
+        return einzahlenUndAbheben(faden);
+    }
+}
@@ -0,0 +1,59 @@
+package benchmark;
+
+import bankprojekt.verarbeitung.Girokonto;
+import bankprojekt.verwaltung.Bank;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of a single account lookup depending on the number of accounts in the bank.
+ * The time per lookup should stay flat from a thousand to ten million accounts; every entry is its own account,
+ * so reading the balance adds a cache miss once the accounts no longer fit into the cache.
+ * <p>
+ * Run with {@code java -cp target/test-classes:<test classpath> org.openjdk.jmh.Main BankLookupBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BankLookupBenchmark {
+    private static final int ZUGRIFFE = 1 << 12;
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    private int kontenAnzahl;
+
+    private Bank bank;
+    private long[] nummern;
+    private int position;
+
+    @Setup(Level.Trial)
+    public void bankAufbauen() {
+        bank = new Bank(1234);
+        // an account object can only be stored once, all of them share the customer
+        long[] alle = new long[kontenAnzahl];
+        for (int i = 0; i < kontenAnzahl; i++) {
+            alle[i] = bank.mockEinfuegen(new Girokonto());
+        }
+        Random zufall = new Random(42);
+        nummern = new long[ZUGRIFFE];
+        for (int i = 0; i < ZUGRIFFE; i++) {
+            nummern[i] = alle[zufall.nextInt(kontenAnzahl)];
+        }
+    }
+
+    @Benchmark
+    public double getKontostand() throws Bank.KontonummerNichtVorhandenException {
+        position = (position + 1) & (ZUGRIFFE - 1);
+        return bank.getKontostand(nummern[position]);
+    }
+
+    @Benchmark
+    public boolean kontoNummerChecker() {
+        position = (position + 1) & (ZUGRIFFE - 1);
+        return bank.kontoNummerChecker(nummern[position]);
+    }
+}
@@ -0,0 +1,86 @@
+package benchmark;
+
+import bankprojekt.verarbeitung.GesperrtException;
+import bankprojekt.verarbeitung.GirokontoFabrik;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verwaltung.Bank;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the single-account operations of {@link Bank} on random accounts, depending on the number of accounts.
+ * The thread count is chosen by {@link BenchmarkLauf} or with {@code -t} on the JMH command line.
+ * <p>
+ * {@link #kontoErstellen()} adds accounts to the bank of the trial, so the bank grows during the measurement.
+ * {@code metriken} switches the recording of latencies on, to measure what it costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class BankOperationenBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int kontenAnzahl;
+
+    @Param({"false", "true"})
+    private boolean metriken;
+
+    private Bank bank;
+    private long[] nummern;
+    private final Kunde kunde = new Kunde("Max", "Mustermann", "zuhause", LocalDate.parse("2001-07-28"));
+    private final GirokontoFabrik fabrik = new GirokontoFabrik();
+
+    @Setup(Level.Trial)
+    public void bankAufbauen() throws Bank.KontonummerNichtVorhandenException {
+        bank = new Bank(1234);
+        nummern = new long[kontenAnzahl];
+        for (int i = 0; i < kontenAnzahl; i++) {
+            nummern[i] = bank.kontoErstellen(fabrik, kunde);
+            // enough money that withdrawals and transfers do not run into the Dispo during a trial
+            bank.geldEinzahlen(nummern[i], 1_000_000_000);
+        }
+        bank.metrikenErfassen(metriken);
+    }
+
+    /**
+     * Random account choice of a thread.
+     */
+    @State(Scope.Thread)
+    public static class Zufall {
+        private final SplittableRandom zufall = new SplittableRandom(Thread.currentThread().getId());
+
+        long konto(long[] nummern) {
+            return nummern[zufall.nextInt(nummern.length)];
+        }
+    }
+
+    @Benchmark
+    public long kontoErstellen() {
+        return bank.kontoErstellen(fabrik, kunde);
+    }
+
+    @Benchmark
+    public void geldEinzahlen(Zufall zufall) throws Bank.KontonummerNichtVorhandenException {
+        bank.geldEinzahlen(zufall.konto(nummern), 1);
+    }
+
+    @Benchmark
+    public boolean geldAbheben(Zufall zufall) throws Bank.KontonummerNichtVorhandenException, GesperrtException {
+        return bank.geldAbheben(zufall.konto(nummern), 1);
+    }
+
+    @Benchmark
+    public boolean geldUeberweisen(Zufall zufall) throws Bank.KontonummerNichtVorhandenException, GesperrtException {
+        return bank.geldUeberweisen(zufall.konto(nummern), zufall.konto(nummern), 1, "Benchmark");
+    }
+
+    @Benchmark
+    public double getKontostand(Zufall zufall) throws Bank.KontonummerNichtVorhandenException {
+        return bank.getKontostand(zufall.konto(nummern));
+    }
+}
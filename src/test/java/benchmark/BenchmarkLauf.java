@@ -0,0 +1,45 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Runs the benchmarks once per thread count with the GC profiler, so allocation rates are reported next to
+ * the times. The results of every thread count are written as JSON to {@code target/jmh}, where they can be
+ * compared with the results of earlier runs.
+ * <p>
+ * Started by {@code mvn -P jmh verify}; arguments are a regular expression selecting the benchmarks
+ * (those of the Bank and Konto hot paths by default) and the thread counts (1, 2, 4 and 8 by default), e.g.
+ * {@code mvn -P jmh verify -Djmh.argumente="BankOperationen 1,4"}.
+ */
+public class BenchmarkLauf {
+    private static final String VERZEICHNIS = "target/jmh";
+
+    /**
+     * The benchmarks of the hot paths; the other benchmarks choose their thread counts themselves.
+     */
+    private static final String STANDARD = "benchmark\\.(BankOperationen|BankAuswertungen|Waehrung)Benchmark";
+
+    public static void main(String[] args) throws RunnerException {
+        String auswahl = args.length > 0 ? args[0] : STANDARD;
+        String[] faeden = (args.length > 1 ? args[1] : "1,2,4,8").split(",");
+        new File(VERZEICHNIS).mkdirs();
+        for (String anzahl : faeden) {
+            int threads = Integer.parseInt(anzahl.trim());
+            Options optionen = new OptionsBuilder()
+                    .include(auswahl)
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(VERZEICHNIS + "/ergebnisse-" + threads + "-faeden.json")
+                    .build();
+            new Runner(optionen).run();
+        }
+    }
+}
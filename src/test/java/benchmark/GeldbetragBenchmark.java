@@ -0,0 +1,55 @@
+package benchmark;
+
+import bankprojekt.verarbeitung.Geldbetrag;
+import bankprojekt.verarbeitung.Waehrung;
+import org.decimal4j.util.DoubleRounder;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the fixed-point money path ({@link Geldbetrag}) with the former double + {@link DoubleRounder}
+ * currency conversion and the former {@link BigDecimal} stock price update.
+ * Run with {@code -prof gc} to see that the fixed-point path does not allocate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeldbetragBenchmark {
+    private static final double BGN_KURS = 1.9558;
+
+    private double betrag = 1234.56;
+    private long betragCent = 1234_56;
+    private double aenderungProzent = 1.37;
+    private long aenderungBasispunkte = 137;
+
+    @Benchmark
+    public double umrechnenDoubleRounder() {
+        double inWaehrung = DoubleRounder.round(betrag * BGN_KURS, 2);
+        return DoubleRounder.round(inWaehrung / BGN_KURS, 2);
+    }
+
+    @Benchmark
+    public long umrechnenGeldbetrag() {
+        long inWaehrung = Waehrung.BGN.euroInWaehrungUmrechnen(betragCent, RoundingMode.HALF_UP);
+        return Waehrung.BGN.waehrungInEuroUmrechnen(inWaehrung, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public double kursAendernBigDecimal() {
+        BigDecimal kurs = BigDecimal.valueOf(betrag);
+        BigDecimal aenderung = BigDecimal.valueOf(aenderungProzent);
+        return kurs.add(kurs.multiply(aenderung.divide(BigDecimal.valueOf(100), RoundingMode.HALF_UP)))
+                .setScale(2, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    @Benchmark
+    public long kursAendernGeldbetrag() {
+        return betragCent + Geldbetrag.multiplizieren(betragCent, aenderungBasispunkte, 4, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,76 @@
+package benchmark;
+
+import bankprojekt.verarbeitung.GirokontoFabrik;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verwaltung.Bank;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of journaled deposits with many threads. With group commit the throughput
+ * should grow with the number of threads instead of being limited to one {@code fsync} per operation.
+ * <p>
+ * Run with {@code java -cp target/test-classes:<test classpath> org.openjdk.jmh.Main JournalBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+    private static final int KONTEN = 1024;
+
+    @Param({"true", "false"})
+    private boolean mitJournal;
+
+    private Path datei;
+    private Bank bank;
+    private long[] nummern;
+
+    @Setup(Level.Trial)
+    public void bankAufbauen() throws IOException {
+        datei = Files.createTempFile("bank", ".journal");
+        Files.delete(datei);
+        bank = mitJournal ? new Bank(1234, datei) : new Bank(1234);
+        Kunde kunde = new Kunde("Max", "Mustermann", "zuhause", LocalDate.of(1990, 1, 1));
+        nummern = new long[KONTEN];
+        for (int i = 0; i < KONTEN; i++) {
+            nummern[i] = bank.kontoErstellen(new GirokontoFabrik(), kunde);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void aufraeumen() throws IOException {
+        bank.journalSchliessen();
+        Files.deleteIfExists(datei);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void einzahlen1() throws Bank.KontonummerNichtVorhandenException {
+        einzahlen();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void einzahlen16() throws Bank.KontonummerNichtVorhandenException {
+        einzahlen();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void einzahlen64() throws Bank.KontonummerNichtVorhandenException {
+        einzahlen();
+    }
+
+    private void einzahlen() throws Bank.KontonummerNichtVorhandenException {
+        bank.geldEinzahlen(nummern[ThreadLocalRandom.current().nextInt(KONTEN)], 1);
+    }
+}
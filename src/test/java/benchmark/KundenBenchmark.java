@@ -0,0 +1,81 @@
+package benchmark;
+
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verarbeitung.Kundenregister;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures loading distinct customers through a {@link Kundenregister}, with names and addresses that repeat
+ * the way they do in a real customer base. {@link #main(String[])} measures the retained heap per customer,
+ * with and without the register.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class KundenBenchmark {
+    private static final int VORNAMEN = 500;
+    private static final int NACHNAMEN = 5_000;
+    private static final int ADRESSEN = 50_000;
+
+    @Param({"1000000"})
+    private int anzahl;
+
+    /**
+     * Registers new customers, each string is a fresh instance as if just read from a file.
+     */
+    @Benchmark
+    public Kundenregister registrieren() {
+        Kundenregister register = new Kundenregister();
+        laden(register, anzahl);
+        return register;
+    }
+
+    private static List<Kunde> laden(Kundenregister register, int anzahl) {
+        List<Kunde> kunden = new ArrayList<>(anzahl);
+        LocalDate anfang = LocalDate.of(1940, 1, 1);
+        for (int i = 0; i < anzahl; i++) {
+            // first and last name together are distinct for up to VORNAMEN * NACHNAMEN customers
+            String vorname = "Vorname " + (i / NACHNAMEN) % VORNAMEN;
+            String nachname = "Nachname " + i % NACHNAMEN;
+            String adresse = "Straße " + i % ADRESSEN;
+            LocalDate geburtstag = anfang.plusDays(i % 25_000);
+            kunden.add(register == null ? new Kunde(vorname, nachname, adresse, geburtstag)
+                    : register.registrieren(vorname, nachname, adresse, geburtstag));
+        }
+        return kunden;
+    }
+
+    /**
+     * Prints the heap retained per customer after loading the given number of customers, default one million,
+     * once with new strings for every customer and once through a register.
+     */
+    public static void main(String[] args) {
+        int anzahl = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        fussabdruck("ohne Register", null, anzahl);
+        fussabdruck("mit Register", new Kundenregister(), anzahl);
+    }
+
+    private static void fussabdruck(String art, Kundenregister register, int anzahl) {
+        long vorher = belegt();
+        List<Kunde> kunden = laden(register, anzahl);
+        long nachher = belegt();
+        System.out.printf("%s: %d Kunden, %.1f Byte je Kunde%n", art, kunden.size(),
+                (double) (nachher - vorher) / kunden.size());
+    }
+
+    private static long belegt() {
+        Runtime laufzeit = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return laufzeit.totalMemory() - laufzeit.freeMemory();
+    }
+}
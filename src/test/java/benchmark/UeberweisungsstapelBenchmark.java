@@ -0,0 +1,86 @@
+package benchmark;
+
+import bankprojekt.verarbeitung.GirokontoFabrik;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verwaltung.Bank;
+import bankprojekt.verwaltung.Stapelergebnis;
+import bankprojekt.verwaltung.Ueberweisungsstapel;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a block of transfers executed one by one through {@link Bank#geldUeberweisen(long, long, double, String)}
+ * with the same block executed through {@link Bank#geldUeberweisen(Ueberweisungsstapel)}.
+ * With a journal, the single transfers wait for the disk one by one and the block waits once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UeberweisungsstapelBenchmark {
+    private static final int KONTEN = 100_000;
+
+    @Param({"4096"})
+    private int stapelgroesse;
+
+    @Param({"false", "true"})
+    private boolean mitJournal;
+
+    private Path datei;
+    private Bank bank;
+    private Ueberweisungsstapel stapel;
+    private long[] von;
+    private long[] nach;
+
+    @Setup(Level.Trial)
+    public void bankAufbauen() throws IOException {
+        datei = Files.createTempFile("bank", ".journal");
+        Files.delete(datei);
+        bank = mitJournal ? new Bank(1234, datei) : new Bank(1234);
+        Kunde kunde = new Kunde("Max", "Mustermann", "zuhause", LocalDate.parse("2001-07-28"));
+        GirokontoFabrik fabrik = new GirokontoFabrik();
+        long[] nummern = new long[KONTEN];
+        for (int i = 0; i < KONTEN; i++) {
+            nummern[i] = bank.kontoErstellen(fabrik, kunde);
+        }
+        Random zufall = new Random(42);
+        stapel = new Ueberweisungsstapel(stapelgroesse);
+        von = new long[stapelgroesse];
+        nach = new long[stapelgroesse];
+        for (int i = 0; i < stapelgroesse; i++) {
+            von[i] = nummern[zufall.nextInt(KONTEN)];
+            nach[i] = nummern[zufall.nextInt(KONTEN)];
+            stapel.hinzufuegen(von[i], nach[i], 1, "Abrechnung");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void aufraeumen() throws IOException {
+        bank.journalSchliessen();
+        Files.deleteIfExists(datei);
+    }
+
+    @Benchmark
+    public int einzeln() throws Exception {
+        int erfolgreich = 0;
+        for (int i = 0; i < stapelgroesse; i++) {
+            if (bank.geldUeberweisen(von[i], nach[i], 1, "Abrechnung")) {
+                erfolgreich++;
+            }
+        }
+        return erfolgreich;
+    }
+
+    @Benchmark
+    public Stapelergebnis stapel() {
+        return bank.geldUeberweisen(stapel);
+    }
+}
@@ -0,0 +1,64 @@
+package benchmark;
+
+import bankprojekt.verarbeitung.GirokontoFabrik;
+import bankprojekt.verarbeitung.Kunde;
+import bankprojekt.verwaltung.VerteilteBank;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput of a {@link VerteilteBank} with a growing number of shards, with eight threads
+ * depositing on random accounts or transferring between them. With one shard, every operation runs on the same
+ * thread; the numbers should grow with the shard count as long as there are enough cores for the shards and
+ * the calling threads. Most transfers go to another shard, so they measure the two-phase protocol.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class VerteilteBankBenchmark {
+    private static final int KONTEN = 16_384;
+
+    @Param({"1", "2", "4", "8"})
+    public int shards;
+
+    private VerteilteBank bank;
+    private long[] nummern;
+
+    @Setup(Level.Trial)
+    public void bankAufbauen() throws Exception {
+        bank = new VerteilteBank(1234, shards);
+        Kunde kunde = new Kunde("Max", "Mustermann", "zuhause", LocalDate.parse("2001-07-28"));
+        GirokontoFabrik fabrik = new GirokontoFabrik();
+        nummern = new long[KONTEN];
+        for (int i = 0; i < nummern.length; i++) {
+            nummern[i] = bank.kontoErstellen(fabrik, kunde);
+            bank.geldEinzahlen(nummern[i], 1_000_000);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void bankSchliessen() throws Exception {
+        bank.close();
+    }
+
+    private long zufaelligesKonto() {
+        return nummern[ThreadLocalRandom.current().nextInt(KONTEN)];
+    }
+
+    @Benchmark
+    public void einzahlen() throws Exception {
+        bank.geldEinzahlen(zufaelligesKonto(), 10);
+    }
+
+    @Benchmark
+    public boolean ueberweisen() throws Exception {
+        return bank.geldUeberweisen(zufaelligesKonto(), zufaelligesKonto(), 10, "Benchmark");
+    }
+}
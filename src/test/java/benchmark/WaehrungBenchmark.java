@@ -0,0 +1,64 @@
+package benchmark;
+
+import bankprojekt.verarbeitung.Girokonto;
+import bankprojekt.verarbeitung.Konto;
+import bankprojekt.verarbeitung.Waehrung;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the currency conversions of {@link Waehrung} and {@link Konto#waehrungswechsel(Waehrung)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WaehrungBenchmark {
+    @Param({"BGN", "MKD", "DKK"})
+    private Waehrung waehrung;
+
+    private long betragCent = 1234_56;
+    private double betrag = 1234.56;
+    private Konto konto;
+    private boolean umgerechnet;
+
+    @Setup(Level.Trial)
+    public void kontoAnlegen() {
+        konto = new Girokonto();
+        konto.einzahlen(betrag);
+    }
+
+    @Benchmark
+    public long euroInWaehrungCent() {
+        return waehrung.euroInWaehrungUmrechnen(betragCent, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public long waehrungInEuroCent() {
+        return waehrung.waehrungInEuroUmrechnen(betragCent, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public double euroInWaehrung() {
+        return waehrung.euroInWaehrungUmrechnen(betrag);
+    }
+
+    @Benchmark
+    public double waehrungInEuro() {
+        return waehrung.waehrungInEuroUmrechnen(betrag);
+    }
+
+    /**
+     * Switches the account between Euro and the parameter currency, so every call converts.
+     */
+    @Benchmark
+    public Waehrung waehrungswechsel() {
+        umgerechnet = !umgerechnet;
+        konto.waehrungswechsel(umgerechnet ? waehrung : Waehrung.EUR);
+        return konto.getAktuelleWaehrung();
+    }
+}